@@ -14,13 +14,20 @@ import org.nrg.containers.model.container.auto.ServiceTask;
 import org.nrg.containers.model.dockerhub.DockerHubBase;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.DockerImageEvent;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xft.security.UserI;
 
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ContainerControlApi {
 
@@ -37,21 +44,63 @@ public interface ContainerControlApi {
     DockerImage pullImage(String name) throws NoDockerServerException, DockerServerException, NotFoundException;
     DockerImage pullImage(String name, DockerHub hub) throws NoDockerServerException, DockerServerException, NotFoundException;
     DockerImage pullImage(String name, DockerHub hub, String username, String password, String token, String email) throws NoDockerServerException, DockerServerException, NotFoundException;
+    DockerImage pullImage(String name, DockerHub hub, String username, String password, String token, String email,
+                          Consumer<ImagePullStatus.LayerProgress> progress) throws NoDockerServerException, DockerServerException, NotFoundException;
+
+    /**
+     * Start pulling the images onto every swarm node that the server's constraints let containers run on, and clean
+     * up pulls that have finished.
+     * @return The images that are being pulled now, by reference
+     */
+    Set<String> prewarmSwarmImages(Collection<String> imageNames) throws NoDockerServerException, DockerServerException;
 
     Container create(ResolvedCommand resolvedCommand, UserI user) throws NoContainerServerException, ContainerBackendException, ContainerException;
     Container create(Container toCreate, UserI user) throws NoContainerServerException, ContainerBackendException, ContainerException;
     void start(final Container toStart) throws NoContainerServerException, ContainerBackendException;
 
+    /**
+     * For backends that can create a running container in one call under a name we choose (kubernetes, and swarm when
+     * {@link org.nrg.containers.model.server.docker.SwarmPrefsBean#getDirectServiceLaunch()} is on), pick that name so
+     * it can be saved before the container exists.
+     * @return The container with its backend ID set, or null if the backend does not launch directly
+     */
+    Container prepareDirectLaunch(Container toLaunch, UserI user) throws NoContainerServerException;
+
+    /**
+     * Create and start the backend object for a container returned by {@link #prepareDirectLaunch(Container, UserI)}.
+     * If the object already exists, this does nothing, so it is safe to call again.
+     */
+    void launchDirectly(Container toLaunch) throws NoContainerServerException, ContainerBackendException, ContainerException;
+
+    /**
+     * @return How long each stage of creating and starting containers has taken
+     */
+    LaunchStageMetrics getLaunchMetrics();
+
     String getLog(Container container, LogType logType) throws ContainerBackendException, NoContainerServerException;
     String getLog(Container container, LogType logType, Boolean withTimestamps, OffsetDateTime since) throws ContainerBackendException, NoContainerServerException;
 
+    /**
+     * Copy the container's whole log to the stream as the backend sends it, without holding it in memory.
+     * @return Whether there was any log
+     */
+    boolean writeLog(Container container, LogType logType, OutputStream outputStream) throws ContainerBackendException, NoContainerServerException;
+
     void kill(Container container) throws NoContainerServerException, ContainerBackendException, NotFoundException;
     void autoCleanup(Container container) throws NoContainerServerException, ContainerBackendException, NotFoundException;
     void remove(Container container) throws NoContainerServerException, ContainerBackendException, NotFoundException;
 
     ServiceTask getTaskForService(DockerServer dockerServer, Container service) throws DockerServerException, ServiceNotFoundException, TaskNotFoundException;
 
+    /**
+     * @return Names of the swarm services we created before the given time, by service ID. Empty if we cannot tell
+     * our services apart from those of other XNATs on the same swarm.
+     */
+    Map<String, String> getSwarmServiceNames(Date createdBefore) throws NoDockerServerException, DockerServerException;
+    void removeSwarmService(String serviceId) throws NoDockerServerException, DockerServerException, NotFoundException;
+
     List<DockerContainerEvent> getContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException;
+    List<DockerImageEvent> getImageEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException;
 
     Integer getFinalizingThrottle();
     boolean isStatusEmailEnabled();
@@ -10,10 +10,12 @@ import com.github.dockerjava.api.command.InspectImageResponse;
 import com.github.dockerjava.api.command.InspectServiceCmd;
 import com.github.dockerjava.api.command.KillContainerCmd;
 import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.PullImageResultCallback;
 import com.github.dockerjava.api.command.RemoveContainerCmd;
 import com.github.dockerjava.api.command.RemoveServiceCmd;
 import com.github.dockerjava.api.command.StartContainerCmd;
 import com.github.dockerjava.api.command.UpdateServiceCmd;
+import com.github.dockerjava.api.exception.ConflictException;
 import com.github.dockerjava.api.exception.DockerException;
 import com.github.dockerjava.api.exception.NotModifiedException;
 import com.github.dockerjava.api.model.AuthConfig;
@@ -36,8 +38,11 @@ import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.PortConfig;
 import com.github.dockerjava.api.model.PortConfigProtocol;
 import com.github.dockerjava.api.model.Ports;
+import com.github.dockerjava.api.model.PullResponseItem;
 import com.github.dockerjava.api.model.ResourceRequirements;
 import com.github.dockerjava.api.model.ResourceSpecs;
+import com.github.dockerjava.api.model.ResponseItem;
+import com.github.dockerjava.api.model.ServiceGlobalModeOptions;
 import com.github.dockerjava.api.model.ServiceModeConfig;
 import com.github.dockerjava.api.model.ServicePlacement;
 import com.github.dockerjava.api.model.ServiceReplicatedModeOptions;
@@ -46,6 +51,7 @@ import com.github.dockerjava.api.model.ServiceRestartPolicy;
 import com.github.dockerjava.api.model.ServiceSpec;
 import com.github.dockerjava.api.model.Task;
 import com.github.dockerjava.api.model.TaskSpec;
+import com.github.dockerjava.api.model.TaskState;
 import com.github.dockerjava.api.model.TmpfsOptions;
 import com.github.dockerjava.api.model.Ulimit;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
@@ -56,6 +62,8 @@ import com.github.dockerjava.okhttp.OkDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.events.model.DockerContainerEvent;
@@ -72,33 +80,53 @@ import org.nrg.containers.model.container.auto.ServiceTask;
 import org.nrg.containers.model.dockerhub.DockerHubBase;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.DockerImageEvent;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
 import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.model.server.docker.DockerClientCacheKey;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.secrets.ContainerPropertiesWithSecretValues;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerServerService;
+import org.nrg.containers.utils.ContainerUtils;
 import org.nrg.containers.utils.ShellSplitter;
 import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xft.security.UserI;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.nrg.containers.services.CommandLabelService.LABEL_KEY;
@@ -108,10 +136,33 @@ import static org.nrg.containers.utils.ContainerUtils.instanceOrDefault;
 @Service
 public class DockerControlApi implements ContainerControlApi {
     private static final String HUB_AUTH_SUCCESS = "Login Succeeded";
+    static final int MAX_CONCURRENT_BACKEND_CALLS = 8;
+
+    // Labels on the swarm services we create, so we can find services no container refers to. A swarm can be shared
+    // by several XNATs, so the managed-by value also names the site; see swarmManagedByValue().
+    public static final String SWARM_MANAGED_BY_LABEL   = "org.nrg.containers.managed-by";
+    public static final String SWARM_MANAGED_BY_VALUE   = "xnat-container-service";
+    public static final String SWARM_CONTAINER_ID_LABEL = "org.nrg.containers.container-id";
+
+    // Global services that pull an image onto the swarm nodes, and how long one may take before we remove it anyway
+    static final String SWARM_PREWARM_NAME_PREFIX = "xnat-prewarm-";
+    static final String SWARM_PREWARM_IMAGE_LABEL = "org.nrg.containers.prewarm-image";
+    private static final long SWARM_PREWARM_MAX_AGE_MILLIS = 30 * 60 * 1000L;
+    private static final EnumSet<TaskState> TASK_DONE_STATES = EnumSet.of(TaskState.COMPLETE, TaskState.SHUTDOWN,
+            TaskState.FAILED, TaskState.REJECTED);
 
     private final DockerServerService dockerServerService;
     private final DockerHubService dockerHubService;
     private final KubernetesClientFactory kubernetesClientFactory;
+    private final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean;
+    private final SwarmPrefsBean swarmPrefsBean;
+    private final SiteConfigPreferences siteConfigPreferences;
+    private final LaunchStageMetrics launchMetrics = new LaunchStageMetrics();
+    private final Semaphore backendCalls = new Semaphore(MAX_CONCURRENT_BACKEND_CALLS, true);
+    private final ExecutorService mountExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_BACKEND_CALLS,
+            new ThreadFactoryBuilder().setNameFormat("launch-mounts-%d").setDaemon(true).build());
+
+    private volatile boolean haveWarnedManagedByNotUnique = false;
 
     private static final Object CACHED_DOCKER_CLIENT_MUTEX = new Object();
     private static DockerClientCacheKey CACHED_DOCKER_CLIENT_KEY = null;
@@ -120,10 +171,56 @@ public class DockerControlApi implements ContainerControlApi {
     @Autowired
     public DockerControlApi(final DockerServerService dockerServerService,
                             final DockerHubService dockerHubService,
-                            final KubernetesClientFactory kubernetesClientFactory) {
+                            final KubernetesClientFactory kubernetesClientFactory,
+                            final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean,
+                            final SwarmPrefsBean swarmPrefsBean,
+                            final SiteConfigPreferences siteConfigPreferences) {
         this.dockerServerService = dockerServerService;
         this.dockerHubService = dockerHubService;
         this.kubernetesClientFactory = kubernetesClientFactory;
+        this.kubernetesAdmissionPrefsBean = kubernetesAdmissionPrefsBean;
+        this.swarmPrefsBean = swarmPrefsBean;
+        this.siteConfigPreferences = siteConfigPreferences;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mountExecutor.shutdownNow();
+    }
+
+    /**
+     * @return Whether kubernetes jobs wait, suspended, for {@link org.nrg.containers.tasks.KubernetesAdmissionTask}
+     * to let them run
+     */
+    private boolean isKubernetesAdmissionEnabled() {
+        return Boolean.TRUE.equals(kubernetesAdmissionPrefsBean.getAdmissionEnabled());
+    }
+
+    /**
+     * @return Whether swarm services are created already running, under a name saved beforehand
+     */
+    private boolean isSwarmDirectLaunchEnabled() {
+        return Boolean.TRUE.equals(swarmPrefsBean.getDirectServiceLaunch());
+    }
+
+    /**
+     * Site IDs are often left at the default, so the value names the site by its URL as well.
+     *
+     * @return The value of {@link #SWARM_MANAGED_BY_LABEL} on the services this XNAT creates, which tells them apart
+     * from services other XNATs create on the same swarm
+     */
+    String swarmManagedByValue() {
+        final String siteId = StringUtils.defaultString(siteConfigPreferences.getSiteId());
+        final String siteUrl = StringUtils.removeEnd(StringUtils.defaultString(siteConfigPreferences.getSiteUrl()), "/");
+        return SWARM_MANAGED_BY_VALUE + "/" + siteId + "@" + siteUrl;
+    }
+
+    /**
+     * @return Whether {@link #swarmManagedByValue()} is ours alone. Without a site URL, XNATs sharing a swarm could
+     * find each other's services.
+     */
+    private boolean isSwarmManagedByValueUnique() {
+        return StringUtils.isNotBlank(siteConfigPreferences.getSiteUrl());
     }
 
     @Nonnull
@@ -389,9 +486,18 @@ public class DockerControlApi implements ContainerControlApi {
     public DockerImage pullImage(final String name, final @Nullable DockerHub hub, final @Nullable String username,
                                  final @Nullable String password, final @Nullable String token, final @Nullable String email)
             throws NoDockerServerException, DockerServerException, NotFoundException {
+        return pullImage(name, hub, username, password, token, email, null);
+    }
+
+    @Override
+    @Nullable
+    public DockerImage pullImage(final String name, final @Nullable DockerHub hub, final @Nullable String username,
+                                 final @Nullable String password, final @Nullable String token, final @Nullable String email,
+                                 final @Nullable Consumer<ImagePullStatus.LayerProgress> progress)
+            throws NoDockerServerException, DockerServerException, NotFoundException {
         final DockerClient client = getDockerClient();
 
-        _pullImage(client, name, authConfig(hub, username, password, token, email));  // We want to throw NotFoundException here if the image is not found on the hub
+        _pullImage(client, name, authConfig(hub, username, password, token, email), progress);  // We want to throw NotFoundException here if the image is not found on the hub
         try {
             return getImageById(name, client);  // We don't want to throw NotFoundException from here. If we can't find the image here after it has been pulled, that is a server error.
         } catch (NotFoundException e) {
@@ -403,14 +509,15 @@ public class DockerControlApi implements ContainerControlApi {
 
     private void _pullImage(final DockerClient client,
                             final @Nonnull String name,
-                            final @Nullable AuthConfig authConfig) throws DockerServerException, NotFoundException {
+                            final @Nullable AuthConfig authConfig,
+                            final @Nullable Consumer<ImagePullStatus.LayerProgress> progress) throws DockerServerException, NotFoundException {
             final PullImageCmd cmd = client.pullImageCmd(name);
             if (authConfig != null) {
                 cmd.withAuthConfig(authConfig);
             }
 
             try {
-                cmd.start().awaitCompletion();
+                cmd.exec(new PullImageProgressCallback(progress)).awaitCompletion();
             } catch (com.github.dockerjava.api.exception.NotFoundException e) {
                 throw new NotFoundException(e.getMessage());
             } catch (DockerException | InterruptedException e) {
@@ -443,38 +550,329 @@ public class DockerControlApi implements ContainerControlApi {
      */
     @Override
     public Container create(Container toCreate, UserI user) throws NoContainerServerException, ContainerBackendException, ContainerException {
+        final DockerServer server = getServer();
+
+        final Container.Builder createdBuilder = toCreate
+                .toBuilder()
+                .userId(user.getLogin())
+                .backend(server.backend());
+
+        if (server.backend() == Backend.KUBERNETES) {
+            try {
+                createMounts(toCreate);
+            } catch (IOException e) {
+                throw new ContainerException("Unable to createDirectoriesForMounts", e);
+            }
+            final String kubernetesJobId = getKubernetesClient().createJob(toCreate, NumReplicas.ZERO, false, server.containerUser(), server.gpuVendor());
+            return createdBuilder.serviceId(kubernetesJobId).build();
+        }
+
+        // The mount directories are made on the archive filesystem while docker checks the image and creates the
+        // container. They only have to exist once the container starts, which is after we return.
+        final Future<?> mounts = mountExecutor.submit(() -> {
+            createMounts(toCreate);
+            return null;
+        });
+
+        acquireBackendCall();
+        try {
+            final long createStart = System.nanoTime();
+            switch (server.backend()) {
+                case SWARM:
+                    createdBuilder.serviceId(createDockerSwarmService(toCreate, server, NumReplicas.ZERO));
+                    break;
+                case DOCKER:
+                    createdBuilder.containerId(createDockerContainer(toCreate, server));
+                    break;
+                default:
+                    throw new NoContainerServerException("Not implemented");
+            }
+            launchMetrics.record(LaunchStageMetrics.Stage.CREATE, System.nanoTime() - createStart);
+        } finally {
+            backendCalls.release();
+        }
+
+        final Container created = createdBuilder.build();
         try {
-            createDirectoriesForMounts(toCreate);
+            awaitMounts(mounts);
+        } catch (ContainerException e) {
+            try {
+                remove(created, server);
+            } catch (Exception removeException) {
+                log.error("Could not remove container {} {} after failing to create its mounts",
+                        created.containerId(), created.serviceId(), removeException);
+            }
+            throw e;
+        }
+        return created;
+    }
+
+    @Override
+    public LaunchStageMetrics getLaunchMetrics() {
+        return launchMetrics;
+    }
+
+    private void createMounts(final Container toCreate) throws IOException {
+        final long start = System.nanoTime();
+        createDirectoriesForMounts(toCreate);
+        launchMetrics.record(LaunchStageMetrics.Stage.MOUNTS, System.nanoTime() - start);
+    }
+
+    private void awaitMounts(final Future<?> mounts) throws ContainerException {
+        try {
+            mounts.get();
+        } catch (ExecutionException e) {
+            throw new ContainerException("Unable to createDirectoriesForMounts", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContainerException("Interrupted while creating directories for mounts", e);
+        }
+    }
+
+    /**
+     * Wait for one of the {@link #MAX_CONCURRENT_BACKEND_CALLS} turns to create or start something on docker. A bulk
+     * launch has many staging consumers, and they would otherwise all call the daemon or the swarm manager at once.
+     */
+    private void acquireBackendCall() throws DockerServerException {
+        final long start = System.nanoTime();
+        try {
+            backendCalls.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerServerException("Interrupted while waiting to call docker", e);
+        }
+        launchMetrics.record(LaunchStageMetrics.Stage.QUEUED, System.nanoTime() - start);
+    }
+
+    @Override
+    @Nullable
+    public Container prepareDirectLaunch(final Container toLaunch, final UserI user) throws NoContainerServerException {
+        final DockerServer server = getServer();
+        final String backendId;
+        if (server.backend() == Backend.KUBERNETES) {
+            backendId = getKubernetesClient().newJobName(toLaunch);
+        } else if (server.backend() == Backend.SWARM && isSwarmDirectLaunchEnabled()) {
+            // Swarm picks service IDs, but we pick the name, and the swarm API takes either
+            backendId = newSwarmServiceName(toLaunch);
+        } else {
+            return null;
+        }
+        return toLaunch.toBuilder()
+                .userId(user.getLogin())
+                .backend(server.backend())
+                .serviceId(backendId)
+                .build();
+    }
+
+    @Override
+    public void launchDirectly(final Container toLaunch) throws NoContainerServerException, ContainerBackendException, ContainerException {
+        try {
+            createMounts(toLaunch);
         } catch (IOException e) {
             throw new ContainerException("Unable to createDirectoriesForMounts", e);
         }
 
         final DockerServer server = getServer();
+        if (server.backend() == Backend.SWARM) {
+            launchSwarmServiceDirectly(toLaunch, server);
+            return;
+        }
+        final boolean awaitAdmission = isKubernetesAdmissionEnabled();
+        getKubernetesClient().createJob(toLaunch, awaitAdmission ? NumReplicas.ZERO : NumReplicas.ONE, awaitAdmission,
+                server.containerUser(), server.gpuVendor());
+    }
 
-        final Container.Builder createdBuilder = toCreate
-                .toBuilder()
-                .userId(user.getLogin())
-                .backend(server.backend());
+    /**
+     * Create the service, named by its saved service ID, with one replica. If a service with that name exists
+     * already and was made for this container, an earlier attempt got there first and there is nothing to do.
+     */
+    private void launchSwarmServiceDirectly(final Container toLaunch, final DockerServer server)
+            throws DockerServerException, ContainerException {
+        final String serviceName = toLaunch.serviceId();
+        acquireBackendCall();
+        try {
+            final long start = System.nanoTime();
+            try {
+                createDockerSwarmService(toLaunch, server, serviceName, NumReplicas.ONE);
+            } catch (DockerServerException e) {
+                if (!(e.getCause() instanceof ConflictException) || !isServiceFor(serviceName, toLaunch, server)) {
+                    throw e;
+                }
+                log.debug("Service {} for container {} already exists", serviceName, toLaunch.databaseId());
+            }
+            launchMetrics.record(LaunchStageMetrics.Stage.CREATE, System.nanoTime() - start);
+        } finally {
+            backendCalls.release();
+        }
+    }
 
-        switch (server.backend()) {
-            case SWARM:
-                final String serviceId = createDockerSwarmService(toCreate, server, NumReplicas.ZERO);
-                createdBuilder.serviceId(serviceId);
-                break;
-            case DOCKER:
-                final String containerId = createDockerContainer(toCreate, server);
-                createdBuilder.containerId(containerId);
-                break;
-            case KUBERNETES:
-                final String kubernetesJobId = getKubernetesClient().createJob(toCreate, NumReplicas.ZERO, server.containerUser(), server.gpuVendor());
-                createdBuilder.serviceId(kubernetesJobId);
-                break;
-            default:
-                throw new NoContainerServerException("Not implemented");
+    private boolean isServiceFor(final String serviceName, final Container container, final DockerServer server) {
+        try (final InspectServiceCmd cmd = getDockerClient(server).inspectServiceCmd(serviceName)) {
+            final ServiceSpec spec = cmd.exec().getSpec();
+            final Map<String, String> labels = spec == null ? null : spec.getLabels();
+            return labels != null && String.valueOf(container.databaseId()).equals(labels.get(SWARM_CONTAINER_ID_LABEL));
+        } catch (DockerException e) {
+            log.error("Could not inspect service {}", serviceName, e);
+            return false;
         }
+    }
 
-        return createdBuilder.build();
+    /**
+     * @return A name no other service has: the container name if the command gives one, made unique, or else random.
+     * Either way it has a dash, which tells it apart from the IDs swarm gives services; see
+     * {@link #isDirectLaunchServiceName(String)}.
+     */
+    private static String newSwarmServiceName(final Container toLaunch) {
+        final String random = UUID.randomUUID().toString();
+        final String containerName = toLaunch.containerName();
+        return StringUtils.isBlank(containerName) ? random :
+                StringUtils.left(containerName, 54) + "-" + random.substring(0, 8);
+    }
 
+    /**
+     * Swarm service IDs are 25 lowercase letters and digits. The names we pick for directly launched services always
+     * have a dash.
+     *
+     * @return Whether a saved service ID is a name {@link #prepareDirectLaunch(Container, UserI)} picked, rather than
+     * the ID of a service created, at zero replicas, by {@link #create(Container, UserI)}
+     */
+    public static boolean isDirectLaunchServiceName(@Nullable final String serviceId) {
+        return serviceId != null && serviceId.indexOf('-') >= 0;
+    }
+
+    @Override
+    public Map<String, String> getSwarmServiceNames(final Date createdBefore) throws NoDockerServerException, DockerServerException {
+        if (!isSwarmManagedByValueUnique()) {
+            if (!haveWarnedManagedByNotUnique) {
+                log.warn("The site URL is not set, so swarm services made by this XNAT cannot be told apart from those " +
+                        "of other XNATs on the same swarm. Orphaned services will not be removed until it is set.");
+                haveWarnedManagedByNotUnique = true;
+            }
+            return Collections.emptyMap();
+        }
+        haveWarnedManagedByNotUnique = false;
+
+        final DockerClient client = getDockerClient(getServer());
+        try {
+            return client.listServicesCmd()
+                    .withLabelFilter(Collections.singletonMap(SWARM_MANAGED_BY_LABEL, swarmManagedByValue()))
+                    .exec()
+                    .stream()
+                    .filter(service -> service.getCreatedAt() != null && service.getCreatedAt().before(createdBefore))
+                    .collect(Collectors.toMap(com.github.dockerjava.api.model.Service::getId,
+                            service -> service.getSpec() != null && service.getSpec().getName() != null ? service.getSpec().getName() : ""));
+        } catch (DockerException e) {
+            throw new DockerServerException("Could not list services", e);
+        }
+    }
+
+    @Override
+    public void removeSwarmService(final String serviceId) throws NoDockerServerException, DockerServerException, NotFoundException {
+        removeDockerSwarmService(serviceId, getServer());
+    }
+
+    /**
+     * Each image is pulled by a global service, which runs one task on every node that matches the server's fixed
+     * constraints. A node pulls the image to start the task, and the task exits at once (or fails, if the image has no
+     * "true"; the image is pulled either way). Constraints users choose at launch are left out, since a container
+     * could run on a node matching any of their values.
+     */
+    @Override
+    @Nonnull
+    public Set<String> prewarmSwarmImages(final Collection<String> imageNames) throws NoDockerServerException, DockerServerException {
+        final DockerServer server = getServer();
+        if (server.backend() != Backend.SWARM) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> pulling = removeFinishedPrewarmServices(server);
+        final List<String> constraints = server.swarmConstraints().stream()
+                .filter(constraint -> !constraint.userSettable())
+                .map(constraint -> constraint.asStringConstraint())
+                .collect(Collectors.toList());
+        for (final String imageName : imageNames) {
+            final String reference = ContainerUtils.imageReference(imageName);
+            if (pulling.contains(reference)) {
+                continue;
+            }
+            try {
+                createPrewarmService(reference, constraints, server);
+                pulling.add(reference);
+            } catch (DockerServerException e) {
+                log.error("Could not start pulling image {} onto the swarm nodes", reference, e);
+            }
+        }
+        return pulling;
+    }
+
+    private void createPrewarmService(final String reference, final List<String> constraints, final DockerServer server)
+            throws DockerServerException {
+        final TaskSpec taskSpec = new TaskSpec()
+                .withContainerSpec(new ContainerSpec()
+                        .withImage(reference)
+                        .withCommand(Collections.singletonList("true")))
+                .withPlacement(new ServicePlacement().withConstraints(constraints))
+                .withRestartPolicy(new ServiceRestartPolicy().withCondition(ServiceRestartCondition.NONE));
+        final ServiceSpec serviceSpec = new ServiceSpec()
+                .withName(SWARM_PREWARM_NAME_PREFIX + Hashing.sha256().hashString(reference, StandardCharsets.UTF_8).toString().substring(0, 16))
+                .withTaskTemplate(taskSpec)
+                .withLabels(Collections.singletonMap(SWARM_PREWARM_IMAGE_LABEL, reference))
+                .withMode(new ServiceModeConfig().withGlobal(new ServiceGlobalModeOptions()));
+
+        log.info("Pulling image {} onto the swarm nodes", reference);
+        final DockerClient client = getDockerClient(server);
+        try {
+            client.createServiceCmd(serviceSpec)
+                    .withAuthConfig(authConfig(reference, createDockerClientConfig(server)))
+                    .exec();
+        } catch (ConflictException e) {
+            log.debug("Image {} is already being pulled onto the swarm nodes", reference);
+        } catch (DockerException e) {
+            throw new DockerServerException("Could not create service to pull image " + reference, e);
+        }
+    }
+
+    /**
+     * Remove the pre-warm services whose tasks have all finished, or that have been running too long.
+     * @return The images whose pre-warm services are still running
+     */
+    private Set<String> removeFinishedPrewarmServices(final DockerServer server) throws DockerServerException {
+        final DockerClient client = getDockerClient(server);
+        final List<com.github.dockerjava.api.model.Service> services;
+        try {
+            services = client.listServicesCmd()
+                    .withNameFilter(Collections.singletonList(SWARM_PREWARM_NAME_PREFIX))
+                    .exec();
+        } catch (DockerException e) {
+            throw new DockerServerException("Could not list services", e);
+        }
+
+        final long now = System.currentTimeMillis();
+        final Set<String> pulling = new HashSet<>();
+        for (final com.github.dockerjava.api.model.Service service : services) {
+            final ServiceSpec spec = service.getSpec();
+            final String reference = spec == null || spec.getLabels() == null ? null : spec.getLabels().get(SWARM_PREWARM_IMAGE_LABEL);
+            if (reference == null) {
+                continue;
+            }
+            try {
+                final boolean tooOld = service.getCreatedAt() == null ||
+                        now - service.getCreatedAt().getTime() > SWARM_PREWARM_MAX_AGE_MILLIS;
+                final List<Task> tasks = client.listTasksCmd().withServiceFilter(spec.getName()).exec();
+                final boolean done = !tasks.isEmpty() && tasks.stream()
+                        .allMatch(task -> task.getStatus() != null && TASK_DONE_STATES.contains(task.getStatus().getState()));
+                if (done || tooOld) {
+                    log.debug("Removing service {} that pulled image {}", spec.getName(), reference);
+                    client.removeServiceCmd(service.getId()).exec();
+                } else {
+                    pulling.add(reference);
+                }
+            } catch (DockerException e) {
+                log.error("Could not check or remove service {} that pulls image {}", spec.getName(), reference, e);
+                pulling.add(reference);
+            }
+        }
+        return pulling;
     }
 
     private void createDirectoriesForMounts(final Container toCreate) throws IOException {
@@ -585,17 +983,6 @@ public class DockerControlApi implements ContainerControlApi {
         }
         final DockerClient client = getDockerClient(server);
 
-        // Pull image before creating container
-        try {
-            if (getAllImages(server).stream()
-                    .noneMatch(img -> img.tags().contains(toCreate.dockerImage()))) {
-                pullImage(toCreate.dockerImage());
-            }
-        } catch (NoDockerServerException | NotFoundException e) { // TODO make a new version of get and pull that take a server
-            log.error("Failed to pull image", e);
-            throw new DockerServerException("Could not pull image " + toCreate.dockerImage() + " from repository.", e);
-        }
-
         try {
             // TODO this does some auth config stuff with the image that we should be aware of
             final CreateContainerCmd cmd = client.createContainerCmd(toCreate.dockerImage())
@@ -640,6 +1027,12 @@ public class DockerControlApi implements ContainerControlApi {
      */
     private String createDockerSwarmService(final Container toCreate, final DockerServer server, final NumReplicas numReplicas)
             throws DockerServerException, ContainerException {
+        return createDockerSwarmService(toCreate, server, toCreate.containerNameOrRandom(), numReplicas);
+    }
+
+    private String createDockerSwarmService(final Container toCreate, final DockerServer server,
+                                            final String serviceName, final NumReplicas numReplicas)
+            throws DockerServerException, ContainerException {
         log.debug("Creating a swarm service with {} replicas.", numReplicas.value);
 
         final Map<String, String> ports = toCreate.ports() == null ? Collections.emptyMap() : toCreate.ports();
@@ -763,11 +1156,18 @@ public class DockerControlApi implements ContainerControlApi {
             taskSpec.withNetworks(Collections.singletonList(new NetworkAttachmentConfig().withTarget(toCreate.network())));
         }
 
+        // The service, but not its containers, also says that we made it and for which container
+        final Map<String, String> serviceLabels = new HashMap<>(instanceOrDefault(toCreate.containerLabels(), Collections.emptyMap()));
+        serviceLabels.put(SWARM_MANAGED_BY_LABEL, swarmManagedByValue());
+        if (toCreate.databaseId() != 0L) {
+            serviceLabels.put(SWARM_CONTAINER_ID_LABEL, String.valueOf(toCreate.databaseId()));
+        }
+
         final ServiceSpec serviceSpec = new ServiceSpec()
-                .withName(toCreate.containerNameOrRandom())
+                .withName(serviceName)
                 .withTaskTemplate(taskSpec)
                 .withEndpointSpec(new EndpointSpec().withPorts(portConfigs))
-                .withLabels(toCreate.containerLabels())
+                .withLabels(serviceLabels)
                 .withMode(new ServiceModeConfig()
                         .withReplicated(new ServiceReplicatedModeOptions().withReplicas(numReplicas.value)));
 
@@ -822,13 +1222,27 @@ public class DockerControlApi implements ContainerControlApi {
         final DockerServer server = getServer();
         switch (server.backend()) {
             case SWARM:
-                setSwarmServiceReplicasToOne(toStart.serviceId(), server);
-                break;
             case DOCKER:
-                startDockerContainer(toStart.containerId(), server);
+                acquireBackendCall();
+                try {
+                    final long start = System.nanoTime();
+                    if (server.backend() == Backend.SWARM) {
+                        setSwarmServiceReplicasToOne(toStart.serviceId(), server);
+                    } else {
+                        startDockerContainer(toStart.containerId(), server);
+                    }
+                    launchMetrics.record(LaunchStageMetrics.Stage.START, System.nanoTime() - start);
+                } finally {
+                    backendCalls.release();
+                }
                 break;
             case KUBERNETES:
-                getKubernetesClient().unsuspendJob(toStart.jobName());
+                if (isKubernetesAdmissionEnabled()) {
+                    log.debug("Leaving kubernetes job {} suspended until it is admitted", toStart.jobName());
+                    getKubernetesClient().queueJobForAdmission(toStart.jobName());
+                } else {
+                    getKubernetesClient().unsuspendJob(toStart.jobName());
+                }
                 break;
             default:
                 throw new NoContainerServerException("Not implemented");
@@ -915,7 +1329,28 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    @Override
+    public boolean writeLog(final Container container, final LogType logType, final OutputStream outputStream) throws ContainerBackendException, NoContainerServerException {
+        final DockerServer server = getServer();
+        switch (server.backend()) {
+            case SWARM:
+                return readSwarmServiceLog(server, container.serviceId(), logType, null, null, new GetLogCallback(outputStream)).getBytesWritten() > 0;
+            case DOCKER:
+                return readDockerContainerLog(server, container.containerId(), logType, null, null, new GetLogCallback(outputStream)).getBytesWritten() > 0;
+            case KUBERNETES:
+                log.info("Writing logs for container {} (database ID: {}) in pod {} (server type {} on host {})", container.containerId(), container.databaseId(), container.podName(), server.backend(), server.host());
+                return getKubernetesClient().writeLog(container.podName(), logType, outputStream);
+            default:
+                throw new NoContainerServerException("Not implemented");
+        }
+    }
+
     private String getDockerContainerLog(final DockerServer server, final String containerId, final LogType logType, final Boolean withTimestamps, final OffsetDateTime since) throws DockerServerException {
+        return readDockerContainerLog(server, containerId, logType, withTimestamps, since, new GetLogCallback()).getLog();
+    }
+
+    private GetLogCallback readDockerContainerLog(final DockerServer server, final String containerId, final LogType logType, final Boolean withTimestamps, final OffsetDateTime since,
+                                                  final GetLogCallback logCallback) throws DockerServerException {
         final DockerClient client = getDockerClient(server);
 
         final GetLogCallback callback = client.logContainerCmd(containerId)
@@ -924,17 +1359,22 @@ public class DockerControlApi implements ContainerControlApi {
                 .withFollowStream(false)
                 .withTimestamps(withTimestamps)
                 .withSince(since == null ? null : Math.toIntExact(since.toEpochSecond()))
-                .exec(new GetLogCallback());
+                .exec(logCallback);
         try {
             callback.awaitCompletion();
         } catch (InterruptedException | DockerException e) {
             log.error("Could not get container log", e);
             throw new DockerServerException(e);
         }
-        return callback.getLog();
+        return callback;
     }
 
     private String getSwarmServiceLog(final DockerServer server, final String serviceId, final LogType logType, final Boolean withTimestamps, final OffsetDateTime since) throws DockerServerException {
+        return readSwarmServiceLog(server, serviceId, logType, withTimestamps, since, new GetLogCallback()).getLog();
+    }
+
+    private GetLogCallback readSwarmServiceLog(final DockerServer server, final String serviceId, final LogType logType, final Boolean withTimestamps, final OffsetDateTime since,
+                                               final GetLogCallback logCallback) throws DockerServerException {
         final DockerClient client = getDockerClient(server);
 
         final GetLogCallback callback = client.logServiceCmd(serviceId)
@@ -943,14 +1383,14 @@ public class DockerControlApi implements ContainerControlApi {
                 .withFollow(false)
                 .withTimestamps(withTimestamps)
                 .withSince(since == null ? null : Math.toIntExact(since.toEpochSecond()))
-                .exec(new GetLogCallback());
+                .exec(logCallback);
         try {
             callback.awaitCompletion();
         } catch (InterruptedException | DockerException e) {
             log.error("Could not get service log", e);
             throw new DockerServerException(e);
         }
-        return callback.getLog();
+        return callback;
     }
 
     @VisibleForTesting
@@ -1246,6 +1686,28 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    @Override
+    public List<DockerImageEvent> getImageEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException {
+        final DockerServer server = getServer();
+        if (server.backend() == Backend.KUBERNETES) {
+            return new ArrayList<>();
+        }
+
+        final DockerClient client = getDockerClient(server);
+        try (final EventsCmd cmd = client.eventsCmd()
+                .withSince(String.valueOf(since.getTime() / 1000))
+                .withUntil(String.valueOf(until.getTime() / 1000))
+                .withEventTypeFilter(EventType.IMAGE);
+             final GetImageEventsCallback callback = new GetImageEventsCallback()) {
+            cmd.exec(callback);
+            callback.awaitCompletion();
+            return callback.events;
+        } catch (IOException | InterruptedException | DockerException e) {
+            log.error("Error getting image events", e);
+            throw new DockerServerException(e);
+        }
+    }
+
     @Override
     public Integer getFinalizingThrottle() {
         try {
@@ -1305,14 +1767,64 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    private static final class GetImageEventsCallback extends ResultCallbackTemplate<GetImageEventsCallback, Event> {
+        private final List<DockerImageEvent> events = new ArrayList<>();
+
+        @Override
+        public void onNext(Event event) {
+            log.debug("Received image event: {}", event);
+            final EventActor actor = event.getActor();
+            this.events.add(DockerImageEvent.create(event.getAction(),
+                    actor != null ? actor.getId() : event.getId(),
+                    new Date(event.getTime() * 1000)));
+        }
+    }
+
+    private static final class PullImageProgressCallback extends PullImageResultCallback {
+        private final Consumer<ImagePullStatus.LayerProgress> progress;
+
+        private PullImageProgressCallback(final @Nullable Consumer<ImagePullStatus.LayerProgress> progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void onNext(final PullResponseItem item) {
+            super.onNext(item);
+            // Items without an id are about the image as a whole ("Pulling from ...", "Digest: ...")
+            if (progress == null || item.getId() == null) {
+                return;
+            }
+            final ResponseItem.ProgressDetail detail = item.getProgressDetail();
+            progress.accept(ImagePullStatus.LayerProgress.create(item.getId(), item.getStatus(),
+                    detail == null ? null : detail.getCurrent(),
+                    detail == null ? null : detail.getTotal()));
+        }
+    }
+
     @VisibleForTesting
     public static final class GetLogCallback extends ResultCallbackTemplate<GetLogCallback, Frame> {
-        final ByteArrayOutputStream logBuilder = new ByteArrayOutputStream();
+        final ByteArrayOutputStream logBuilder;
+        private final OutputStream logStream;
+        private long bytesWritten = 0L;
+
+        public GetLogCallback() {
+            logBuilder = new ByteArrayOutputStream();
+            logStream = logBuilder;
+        }
+
+        /**
+         * Write the log to the given stream as it arrives, instead of collecting it for {@link #getLog()}
+         */
+        public GetLogCallback(final OutputStream logStream) {
+            this.logBuilder = null;
+            this.logStream = logStream;
+        }
 
         @Override
         public void onNext(Frame frame) {
             try {
-                logBuilder.write(frame.getPayload());
+                logStream.write(frame.getPayload());
+                bytesWritten += frame.getPayload().length;
             } catch (IOException e) {
                 log.error("Error writing container log", e);
                 onError(e);
@@ -1320,7 +1832,11 @@ public class DockerControlApi implements ContainerControlApi {
         }
 
         public String getLog() {
-            return logBuilder.toString();
+            return logBuilder == null ? null : logBuilder.toString();
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
         }
     }
 }
\ No newline at end of file
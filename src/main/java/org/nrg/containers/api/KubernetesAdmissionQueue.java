@@ -0,0 +1,220 @@
+package org.nrg.containers.api;
+
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.openapi.models.V1Container;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobCondition;
+import io.kubernetes.client.openapi.models.V1JobStatus;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1PodTemplateSpec;
+import io.kubernetes.client.openapi.models.V1ResourceRequirements;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which suspended jobs may start, given the jobs already running and the limits.
+ *
+ * <p>Jobs are created suspended, so they wait in the cluster without any pods. Each pass looks at every job the
+ * container service manages. Those that are unsuspended and not finished are running, and count against the limits.
+ * Those that are suspended and carry {@link KubernetesClientImpl#AWAITING_ADMISSION_ANNOTATION} are waiting. Other
+ * suspended jobs, such as a parent whose setup containers are still running, are neither. Waiting jobs are let in one
+ * at a time, as long as they fit:</p>
+ * <ul>
+ *     <li>the job's user goes first if it has the fewest running jobs of all users with a waiting job that fits;</li>
+ *     <li>between jobs of users with equal shares, the one whose project has the fewest running jobs goes first;</li>
+ *     <li>after that, the job that has waited longest goes first.</li>
+ * </ul>
+ * <p>A job that does not fit is passed over, not waited on, so one large job does not hold up smaller ones behind
+ * it.</p>
+ */
+@Slf4j
+public final class KubernetesAdmissionQueue {
+    private static final BigDecimal BYTES_PER_MB = BigDecimal.valueOf(1024L * 1024L);
+
+    private KubernetesAdmissionQueue() {}
+
+    /**
+     * @param jobs            Every job the container service manages
+     * @param recentlyAdmitted Jobs we have unsuspended that the cache may still show as suspended
+     * @return The names of the jobs to unsuspend, in the order they were let in
+     */
+    @Nonnull
+    public static List<String> admit(final Collection<V1Job> jobs, final Collection<String> recentlyAdmitted, final Limits limits) {
+        final Usage usage = new Usage();
+        final List<Waiting> waiting = new ArrayList<>();
+        for (final V1Job job : jobs) {
+            if (job.getMetadata() == null || job.getMetadata().getName() == null || isFinished(job)) {
+                continue;
+            }
+            final Waiting candidate = new Waiting(job);
+            if (!Boolean.TRUE.equals(job.getSpec() == null ? null : job.getSpec().getSuspend()) ||
+                    recentlyAdmitted.contains(candidate.name)) {
+                usage.add(candidate);
+            } else if (isAwaitingAdmission(job)) {
+                waiting.add(candidate);
+            }
+        }
+        if (waiting.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> admitted = new ArrayList<>();
+        while (true) {
+            final Waiting next = waiting.stream()
+                    .filter(candidate -> usage.fits(candidate, limits))
+                    .min(Comparator.<Waiting>comparingInt(candidate -> usage.jobsForUser(candidate.user))
+                            .thenComparingInt(candidate -> usage.jobsForProject(candidate.project))
+                            .thenComparing(candidate -> candidate.created, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .orElse(null);
+            if (next == null) {
+                break;
+            }
+            waiting.remove(next);
+            usage.add(next);
+            admitted.add(next.name);
+        }
+        log.debug("Admitting {} of {} waiting jobs", admitted.size(), admitted.size() + waiting.size());
+        return admitted;
+    }
+
+    private static boolean isAwaitingAdmission(final V1Job job) {
+        final Map<String, String> annotations = job.getMetadata().getAnnotations();
+        return annotations != null && "true".equals(annotations.get(KubernetesClientImpl.AWAITING_ADMISSION_ANNOTATION));
+    }
+
+    static boolean isFinished(final V1Job job) {
+        final V1JobStatus status = job.getStatus();
+        if (status == null) {
+            return false;
+        }
+        if (status.getCompletionTime() != null) {
+            return true;
+        }
+        if (status.getConditions() != null) {
+            for (final V1JobCondition condition : status.getConditions()) {
+                if (("Complete".equals(condition.getType()) || "Failed".equals(condition.getType())) &&
+                        "True".equals(condition.getStatus())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Limits on running jobs. Zero or less means no limit.
+     */
+    public static final class Limits {
+        private final int maxJobsPerProject;
+        private final int maxJobsPerUser;
+        private final int maxCpus;
+        private final int maxMemoryMb;
+        private final int maxGpus;
+
+        public Limits(final int maxJobsPerProject, final int maxJobsPerUser,
+                      final int maxCpus, final int maxMemoryMb, final int maxGpus) {
+            this.maxJobsPerProject = maxJobsPerProject;
+            this.maxJobsPerUser = maxJobsPerUser;
+            this.maxCpus = maxCpus;
+            this.maxMemoryMb = maxMemoryMb;
+            this.maxGpus = maxGpus;
+        }
+    }
+
+    private static final class Usage {
+        private final Map<String, Integer> jobsByProject = new HashMap<>();
+        private final Map<String, Integer> jobsByUser = new HashMap<>();
+        private BigDecimal cpus = BigDecimal.ZERO;
+        private BigDecimal memoryMb = BigDecimal.ZERO;
+        private BigDecimal gpus = BigDecimal.ZERO;
+
+        private void add(final Waiting job) {
+            jobsByProject.merge(job.project, 1, Integer::sum);
+            jobsByUser.merge(job.user, 1, Integer::sum);
+            cpus = cpus.add(job.cpus);
+            memoryMb = memoryMb.add(job.memoryMb);
+            gpus = gpus.add(job.gpus);
+        }
+
+        private int jobsForProject(final String project) {
+            return jobsByProject.getOrDefault(project, 0);
+        }
+
+        private int jobsForUser(final String user) {
+            return jobsByUser.getOrDefault(user, 0);
+        }
+
+        private boolean fits(final Waiting job, final Limits limits) {
+            return within(jobsForProject(job.project) + 1, limits.maxJobsPerProject) &&
+                    within(jobsForUser(job.user) + 1, limits.maxJobsPerUser) &&
+                    within(cpus.add(job.cpus), limits.maxCpus) &&
+                    within(memoryMb.add(job.memoryMb), limits.maxMemoryMb) &&
+                    within(gpus.add(job.gpus), limits.maxGpus);
+        }
+
+        private static boolean within(final int value, final int limit) {
+            return limit <= 0 || value <= limit;
+        }
+
+        private static boolean within(final BigDecimal value, final int limit) {
+            return limit <= 0 || value.compareTo(BigDecimal.valueOf(limit)) <= 0;
+        }
+    }
+
+    private static final class Waiting {
+        private final String name;
+        private final String project;
+        private final String user;
+        private final OffsetDateTime created;
+        private BigDecimal cpus = BigDecimal.ZERO;
+        private BigDecimal memoryMb = BigDecimal.ZERO;
+        private BigDecimal gpus = BigDecimal.ZERO;
+
+        private Waiting(final V1Job job) {
+            final V1ObjectMeta metadata = job.getMetadata();
+            final Map<String, String> annotations = metadata.getAnnotations() == null ?
+                    Collections.emptyMap() : metadata.getAnnotations();
+            name = metadata.getName();
+            project = annotations.getOrDefault(KubernetesClientImpl.PROJECT_ANNOTATION, "");
+            user = annotations.getOrDefault(KubernetesClientImpl.USER_ANNOTATION, "");
+            created = metadata.getCreationTimestamp();
+
+            final V1PodTemplateSpec template = job.getSpec() == null ? null : job.getSpec().getTemplate();
+            final List<V1Container> containers = template == null || template.getSpec() == null ?
+                    Collections.emptyList() : template.getSpec().getContainers();
+            for (final V1Container container : containers) {
+                final V1ResourceRequirements resources = container.getResources();
+                if (resources == null) {
+                    continue;
+                }
+                final Map<String, Quantity> requests = resources.getRequests() == null ?
+                        Collections.emptyMap() : resources.getRequests();
+                final Map<String, Quantity> limits = resources.getLimits() == null ?
+                        Collections.emptyMap() : resources.getLimits();
+
+                cpus = cpus.add(amount(limits.getOrDefault("cpu", requests.get("cpu"))));
+                memoryMb = memoryMb.add(amount(requests.getOrDefault("memory", limits.get("memory")))
+                        .divide(BYTES_PER_MB, 0, BigDecimal.ROUND_CEILING));
+                for (final Map.Entry<String, Quantity> limit : limits.entrySet()) {
+                    if (limit.getKey().endsWith("/gpu")) {
+                        gpus = gpus.add(amount(limit.getValue()));
+                    }
+                }
+            }
+        }
+
+        private static BigDecimal amount(final Quantity quantity) {
+            return quantity == null || quantity.getNumber() == null ? BigDecimal.ZERO : quantity.getNumber();
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package org.nrg.containers.api;
 
 import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.V1Job;
 import org.nrg.containers.exceptions.ContainerBackendException;
 import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.framework.exceptions.NotFoundException;
 
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface KubernetesClient {
     ApiClient getBackendClient();
@@ -14,14 +20,61 @@ public interface KubernetesClient {
     String getNamespace();
     void setNamespace(String namespace);
 
+    /**
+     * @return Counters for this client's requests and its informers' watches
+     */
+    KubernetesClientMetrics getMetrics();
+
     void start();
     void stop();
 
+    boolean hasSynced();
+
+    /**
+     * @return The number of events thrown, or -1 if the informer has not finished its first sync
+     * @see KubernetesInformer#reconcile(Map)
+     */
+    int reconcile(Map<String, String> statusesByJobName);
+
+    /**
+     * @return Those of the given jobs that are not in the informer's cache
+     */
+    Set<String> findMissingJobs(Collection<String> jobNames);
+
+    /**
+     * @return Every job in the informer's cache, or nothing if the informer has not finished its first sync
+     */
+    List<V1Job> getCachedJobs();
+
     String ping() throws ContainerBackendException;
     String getLog(String podName, final LogType logType, final Boolean withTimestamp, final OffsetDateTime since) throws ContainerBackendException;
 
-    String createJob(final Container toCreate, final DockerControlApi.NumReplicas numReplicas, String serverContainerUser, final String gpuVendor)
+    /**
+     * Copy the pod's whole log to the stream as it is read. Kubernetes does not keep stdout and stderr apart, so
+     * everything is in the stdout log and the stderr log is always empty.
+     * @return Whether there was any log
+     */
+    boolean writeLog(String podName, final LogType logType, final OutputStream outputStream) throws ContainerBackendException;
+
+    /**
+     * @return A new job name for the container, in the same form the API server gives jobs created with generateName
+     */
+    String newJobName(final Container toCreate);
+
+    /**
+     * Create a job. If the container's {@link Container#jobName()} is already set, the job gets that name, and
+     * creating a job that already exists returns its name rather than failing.
+     *
+     * @param awaitAdmission Whether a suspended job waits for the admission task to unsuspend it
+     */
+    String createJob(final Container toCreate, final DockerControlApi.NumReplicas numReplicas, final boolean awaitAdmission,
+                     String serverContainerUser, final String gpuVendor)
             throws ContainerBackendException, ContainerException;
     void unsuspendJob(final String jobName) throws ContainerBackendException;
+
+    /**
+     * Mark a suspended job as waiting for the admission task to unsuspend it.
+     */
+    void queueJobForAdmission(final String jobName) throws ContainerBackendException;
     void removeJob(String jobName) throws NotFoundException, ContainerBackendException;
 }
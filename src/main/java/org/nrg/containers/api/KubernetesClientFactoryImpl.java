@@ -1,6 +1,7 @@
 package org.nrg.containers.api;
 
 import org.nrg.containers.exceptions.NoContainerServerException;
+import org.nrg.containers.model.kubernetes.KubernetesClientPrefsBean;
 import org.nrg.framework.services.NrgEventServiceI;
 import org.springframework.stereotype.Service;
 
@@ -11,13 +12,16 @@ import java.util.concurrent.ExecutorService;
 public class KubernetesClientFactoryImpl implements KubernetesClientFactory {
     private final ExecutorService executorService;
     private final NrgEventServiceI eventService;
+    private final KubernetesClientPrefsBean clientPrefs;
 
     private volatile KubernetesClientImpl kubernetesClient = null;
 
     public KubernetesClientFactoryImpl(final ExecutorService executorService,
-                                       final NrgEventServiceI eventService) {
+                                       final NrgEventServiceI eventService,
+                                       final KubernetesClientPrefsBean clientPrefs) {
         this.executorService = executorService;
         this.eventService = eventService;
+        this.clientPrefs = clientPrefs;
     }
 
     @Override
@@ -26,7 +30,7 @@ public class KubernetesClientFactoryImpl implements KubernetesClientFactory {
             synchronized (this) {
                 if (kubernetesClient == null) {
                     try {
-                        kubernetesClient = new KubernetesClientImpl(executorService, eventService);
+                        kubernetesClient = new KubernetesClientImpl(executorService, eventService, clientPrefs);
                     } catch (IOException e) {
                         throw new NoContainerServerException("Could not create kubernetes client", e);
                     }
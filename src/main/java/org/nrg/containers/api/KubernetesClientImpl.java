@@ -15,13 +15,15 @@ import io.kubernetes.client.openapi.models.V1EnvVar;
 import io.kubernetes.client.openapi.models.V1EnvVarBuilder;
 import io.kubernetes.client.openapi.models.V1Job;
 import io.kubernetes.client.openapi.models.V1JobBuilder;
+import io.kubernetes.client.openapi.models.V1JobList;
 import io.kubernetes.client.openapi.models.V1NodeSelectorRequirement;
 import io.kubernetes.client.openapi.models.V1NodeSelectorRequirementBuilder;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.openapi.models.V1PodSpec;
 import io.kubernetes.client.openapi.models.V1ResourceRequirements;
 import io.kubernetes.client.openapi.models.V1ResourceRequirementsBuilder;
-import io.kubernetes.client.openapi.models.V1SecurityContext;
-import io.kubernetes.client.openapi.models.V1SecurityContextBuilder;
 import io.kubernetes.client.openapi.models.V1Volume;
 import io.kubernetes.client.openapi.models.V1VolumeBuilder;
 import io.kubernetes.client.openapi.models.V1VolumeMount;
@@ -31,30 +33,48 @@ import io.kubernetes.client.util.KubeConfig;
 import io.kubernetes.client.util.Namespaces;
 import io.kubernetes.client.util.PatchUtils;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.exceptions.ContainerBackendException;
 import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.exceptions.NoContainerServerException;
 import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.kubernetes.KubernetesClientPrefsBean;
+import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.secrets.ContainerPropertiesWithSecretValues;
+import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.utils.KubernetesConfiguration;
 import org.nrg.containers.utils.ShellSplitter;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.services.NrgEventServiceI;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Predicate;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static io.kubernetes.client.util.Config.SERVICEACCOUNT_CA_PATH;
+import static org.nrg.containers.config.ContainersConfig.KUBERNETES_MAX_IDLE_CONNECTIONS_DFLT;
+import static org.nrg.containers.config.ContainersConfig.KUBERNETES_MAX_THROTTLED_RETRIES_DFLT;
+import static org.nrg.containers.config.ContainersConfig.KUBERNETES_REQUESTS_PER_SECOND_DFLT;
+import static org.nrg.containers.config.ContainersConfig.KUBERNETES_REQUEST_BURST_DFLT;
+import static org.nrg.containers.config.ContainersConfig.KUBERNETES_REQUEST_TIMEOUT_SECONDS_DFLT;
 
 import org.springframework.http.HttpStatus;
 
@@ -67,8 +87,6 @@ public class KubernetesClientImpl implements KubernetesClient {
     private static final String            LABEL_CAPTURE_GROUP      = "label";
     private static final String            COMPARATOR_CAPTURE_GROUP = "comparator";
     private static final String            VALUE_CAPTURE_GROUP      = "value";
-    private static final Predicate<String> NOT_K8S_LABEL_PATTERN        = Pattern.compile("^$|^[A-Za-z0-9](?:[A-Za-z0-9.-]*[A-Za-z0-9])?$").asPredicate().negate();
-    private static final String            K8S_REPLACE_PATTERN      = "[^A-Za-z0-9\\-.]";
 
     public static final Pattern SWARM_CONSTRAINT_PATTERN = Pattern.compile("(node\\.labels\\.)?(?<" + LABEL_CAPTURE_GROUP + ">.+?)(?<" + COMPARATOR_CAPTURE_GROUP + ">!=|==)(?<" + VALUE_CAPTURE_GROUP + ">.+?)");
 
@@ -79,10 +97,32 @@ public class KubernetesClientImpl implements KubernetesClient {
 
     public static final String CONTAINER_CREATING = "ContainerCreating";
 
+    // What the API server does with generateName: up to 58 characters of prefix, then five of these
+    private static final int    GENERATED_NAME_MAX_PREFIX = 58;
+    private static final String GENERATED_NAME_ALPHABET   = "bcdfghjklmnpqrstvwxz2456789";
+    private static final Random GENERATED_NAME_RANDOM     = new SecureRandom();
+
+    // Every job we create, and the pods it makes, carry this label. The informers only watch objects that have it.
+    public static final String MANAGED_BY_LABEL    = "app.kubernetes.io/managed-by";
+    public static final String MANAGED_BY_VALUE    = "xnat-container-service";
+    public static final String MANAGED_BY_SELECTOR = MANAGED_BY_LABEL + "=" + MANAGED_BY_VALUE;
+
+    // Who a job was launched for, read by the admission queue
+    public static final String PROJECT_ANNOTATION = "xnat.org/project";
+    public static final String USER_ANNOTATION    = "xnat.org/user";
+    // Which container a job runs. A job name saved before the job is created can already be taken by someone else's job.
+    public static final String CONTAINER_ID_ANNOTATION = "xnat.org/container-id";
+    // Set on suspended jobs that wait for the admission task. Other suspended jobs, such as a parent waiting on its
+    // setup containers, are left alone.
+    public static final String AWAITING_ADMISSION_ANNOTATION = "xnat.org/awaiting-admission";
+
     private final ExecutorService  executorService;
     private final NrgEventServiceI eventService;
+    private final KubernetesJobTemplates jobTemplates = new KubernetesJobTemplates();
+    private final KubernetesClientMetrics metrics = new KubernetesClientMetrics();
 
     private ApiClient          apiClient;
+    private ApiClient          watchClient;
     private CoreV1Api          coreApi;
     private BatchV1Api         batchApi;
     private String             namespace;
@@ -91,16 +131,17 @@ public class KubernetesClientImpl implements KubernetesClient {
 
     public KubernetesClientImpl(
             final ExecutorService executorService,
-            final NrgEventServiceI eventService
+            final NrgEventServiceI eventService,
+            final KubernetesClientPrefsBean clientPrefs
                                ) throws IOException, NoContainerServerException {
         this.executorService = executorService;
         this.eventService    = eventService;
 
-        ApiClient        apiClient  = null;
-        String           namespace  = null;
-        final KubeConfig kubeConfig = KubernetesConfiguration.loadStandard(true);
+        ClientBuilder    clientBuilder = null;
+        String           namespace     = null;
+        final KubeConfig kubeConfig    = KubernetesConfiguration.loadStandard(true);
         if (kubeConfig != null) {
-            apiClient = ClientBuilder.kubeconfig(kubeConfig).build();
+            clientBuilder = ClientBuilder.kubeconfig(kubeConfig);
 
             namespace = kubeConfig.getNamespace();
             if (StringUtils.isBlank(namespace)) {
@@ -110,38 +151,61 @@ public class KubernetesClientImpl implements KubernetesClient {
             final File clusterCa = new File(SERVICEACCOUNT_CA_PATH);
             if (clusterCa.exists()) {
                 // We are running within a pod in the cluster
-                apiClient = ClientBuilder.cluster().build();
+                clientBuilder = ClientBuilder.cluster();
                 namespace = Namespaces.getPodNamespace();
             }
         }
 
-        if (apiClient == null) {
+        if (clientBuilder == null) {
             throw new NoContainerServerException("Could not read kubernetes configuration");
         }
 
+        // Requests and watches get separate clients. Requests are rate limited, time out, and share a pool of
+        // connections; the informers' watches hold their connections open indefinitely and must not wait behind requests.
+        final ApiClient apiClient = clientBuilder.build();
+        final boolean hasPrefs = clientPrefs != null;
+        final int maxIdleConnections = setting(hasPrefs ? clientPrefs.getMaxIdleConnections() : null, KUBERNETES_MAX_IDLE_CONNECTIONS_DFLT);
+        final int requestTimeoutSeconds = setting(hasPrefs ? clientPrefs.getRequestTimeoutSeconds() : null, KUBERNETES_REQUEST_TIMEOUT_SECONDS_DFLT);
+        final int requestsPerSecond = setting(hasPrefs ? clientPrefs.getRequestsPerSecond() : null, KUBERNETES_REQUESTS_PER_SECOND_DFLT);
+        final int requestBurst = setting(hasPrefs ? clientPrefs.getRequestBurst() : null, KUBERNETES_REQUEST_BURST_DFLT);
+        final int maxThrottledRetries = setting(hasPrefs ? clientPrefs.getMaxThrottledRetries() : null, KUBERNETES_MAX_THROTTLED_RETRIES_DFLT);
+        final OkHttpClient.Builder requestHttpClient = apiClient.getHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES))
+                .readTimeout(requestTimeoutSeconds, TimeUnit.SECONDS)
+                .addInterceptor(new KubernetesRequestLimiter(requestsPerSecond, requestBurst, maxThrottledRetries, metrics));
+
+        final ApiClient watchClient = clientBuilder.build();
+        final OkHttpClient.Builder watchHttpClient = watchClient.getHttpClient().newBuilder()
+                .addInterceptor(metrics.watchCounter());
+
         // Turn on debug logging within the HTTP client if we are debugging out here
         if (log.isDebugEnabled()) {
             // This creates a logging interceptor in okhttp's style that hands messages to our class's logger instance
             final HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(log::debug);
             loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-            apiClient.setHttpClient(
-                    apiClient.getHttpClient()
-                             .newBuilder()
-                             .addInterceptor(loggingInterceptor)
-                             .build()
-                                   );
+            requestHttpClient.addInterceptor(loggingInterceptor);
         }
+        apiClient.setHttpClient(requestHttpClient.build());
+        watchClient.setHttpClient(watchHttpClient.build());
 
+        this.watchClient = watchClient;
         setBackendClient(apiClient);
         setNamespace(namespace);
     }
 
+    private static int setting(final Integer value, final String defaultValue) {
+        return value != null ? value : Integer.parseInt(defaultValue);
+    }
+
 
     @Override
     public ApiClient getBackendClient() {
         return apiClient;
     }
 
+    /**
+     * Use the given client for requests. The informers keep their own client for watches.
+     */
     @Override
     public void setBackendClient(ApiClient apiClient) {
         this.apiClient = apiClient;
@@ -151,6 +215,11 @@ public class KubernetesClientImpl implements KubernetesClient {
         restart();
     }
 
+    @Override
+    public KubernetesClientMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public String getNamespace() {
         return namespace;
@@ -165,7 +234,8 @@ public class KubernetesClientImpl implements KubernetesClient {
     @Override
     public synchronized void start() {
         if (kubernetesInformer == null) {
-            kubernetesInformer = new KubernetesInformerImpl(namespace, apiClient, executorService, eventService);
+            labelUnlabelledJobs();
+            kubernetesInformer = new KubernetesInformerImpl(namespace, watchClient, executorService, eventService, metrics);
         }
         kubernetesInformer.start();
     }
@@ -178,6 +248,49 @@ public class KubernetesClientImpl implements KubernetesClient {
         }
     }
 
+    @Override
+    public synchronized boolean hasSynced() {
+        return kubernetesInformer != null && kubernetesInformer.hasSynced();
+    }
+
+    @Override
+    public int reconcile(final Map<String, String> statusesByJobName) {
+        final KubernetesInformer informer;
+        synchronized (this) {
+            informer = kubernetesInformer;
+        }
+        if (informer == null || !informer.hasSynced()) {
+            return -1;
+        }
+        return informer.reconcile(statusesByJobName);
+    }
+
+    @Override
+    public Set<String> findMissingJobs(final Collection<String> jobNames) {
+        final KubernetesInformer informer;
+        synchronized (this) {
+            informer = kubernetesInformer;
+        }
+        if (informer == null || !informer.hasSynced()) {
+            return Collections.emptySet();
+        }
+        return jobNames.stream()
+                       .filter(jobName -> informer.getJob(jobName) == null)
+                       .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<V1Job> getCachedJobs() {
+        final KubernetesInformer informer;
+        synchronized (this) {
+            informer = kubernetesInformer;
+        }
+        if (informer == null || !informer.hasSynced()) {
+            return Collections.emptyList();
+        }
+        return informer.getJobs();
+    }
+
     private synchronized void restart() {
         if (kubernetesInformer != null) {
             stop();
@@ -185,6 +298,70 @@ public class KubernetesClientImpl implements KubernetesClient {
         }
     }
 
+    /**
+     * Jobs launched before we started labelling them would be invisible to the informers. Find them and label them
+     * and their pods.
+     */
+    private void labelUnlabelledJobs() {
+        if (batchApi == null || namespace == null) {
+            return;
+        }
+
+        final V1JobList unlabelled;
+        try {
+            unlabelled = batchApi.listNamespacedJob(namespace, null, null, null, null, "!" + MANAGED_BY_LABEL, null, null, null, null, null);
+        } catch (ApiException e) {
+            log.warn("Could not list unlabelled jobs: message \"{}\" code {} body \"{}\"", e.getMessage(), e.getCode(), e.getResponseBody());
+            return;
+        }
+
+        final V1Patch patch = new V1Patch("{\"metadata\": {\"labels\": {\"" + MANAGED_BY_LABEL + "\": \"" + MANAGED_BY_VALUE + "\"}}}");
+        for (final V1Job job : unlabelled.getItems()) {
+            if (job.getMetadata() == null || !isContainerServiceJob(job)) {
+                continue;
+            }
+            final String jobName = job.getMetadata().getName();
+            try {
+                PatchUtils.patch(
+                        V1Job.class,
+                        () -> batchApi.patchNamespacedJobCall(jobName, namespace, patch, null, null, null, null, null, null),
+                        V1Patch.PATCH_FORMAT_STRATEGIC_MERGE_PATCH,
+                        batchApi.getApiClient()
+                                );
+                final V1PodList pods = coreApi.listNamespacedPod(namespace, null, null, null, null, "job-name=" + jobName, null, null, null, null, null);
+                for (final V1Pod pod : pods.getItems()) {
+                    final String podName = pod.getMetadata() == null ? null : pod.getMetadata().getName();
+                    if (podName == null) {
+                        continue;
+                    }
+                    PatchUtils.patch(
+                            V1Pod.class,
+                            () -> coreApi.patchNamespacedPodCall(podName, namespace, patch, null, null, null, null, null, null),
+                            V1Patch.PATCH_FORMAT_STRATEGIC_MERGE_PATCH,
+                            coreApi.getApiClient()
+                                    );
+                }
+                log.info("Labelled job {} and its {} pod(s), which were launched before jobs were labelled", jobName, pods.getItems().size());
+            } catch (ApiException e) {
+                log.warn("Could not label job {}: message \"{}\" code {} body \"{}\"", jobName, e.getMessage(), e.getCode(), e.getResponseBody());
+            }
+        }
+    }
+
+    /**
+     * We can only recognize our older jobs by the XNAT environment we give every container.
+     */
+    private static boolean isContainerServiceJob(final V1Job job) {
+        final V1PodSpec podSpec = job.getSpec() == null || job.getSpec().getTemplate() == null ? null : job.getSpec().getTemplate().getSpec();
+        if (podSpec == null) {
+            return false;
+        }
+        return podSpec.getContainers().stream()
+                      .filter(container -> container.getEnv() != null)
+                      .flatMap(container -> container.getEnv().stream())
+                      .anyMatch(env -> ContainerService.XNAT_HOST.equals(env.getName()));
+    }
+
     @Override
     public String ping() throws ContainerBackendException {
         try {
@@ -211,52 +388,140 @@ public class KubernetesClientImpl implements KubernetesClient {
             return null;
         }
 
-        // Our since value is a timestamp, but the kubernetes API wants a relative "seconds before now"
-        final OffsetDateTime now = OffsetDateTime.now();
+        // Our since value is a timestamp, but the kubernetes API wants a relative "seconds before now".
+        // Round up, so we get every line since then and maybe a few from before. Callers that need more
+        // precision than that ask for timestamps and drop the lines they have already seen.
         final Integer sinceRelative;
         if (since == null) {
             // null means get all available logs (no time filter)
             sinceRelative = null;
         } else {
-            final long secondsBetween = ChronoUnit.SECONDS.between(since, now);
-            if (secondsBetween < 1) {
-                // This can happen when the UI is streaming logs.
-                // It will get the logs and ask for more in less than a second.
-                // The API doesn't allow us to get logs with more precision than one second,
-                //  so we can treat this as if no logs were created in the interval.
-                return null;
-            }
-            sinceRelative = Math.toIntExact(secondsBetween);
+            final long millisBetween = ChronoUnit.MILLIS.between(since, OffsetDateTime.now());
+            sinceRelative = Math.toIntExact(Math.max(1L, (millisBetween + 999L) / 1000L));
         }
 
+        try (final InputStream logStream = openLog(podName, withTimestamp, sinceRelative)) {
+            return logStream == null ? null : IOUtils.toString(logStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Could not read log for pod {}", podName, e);
+            throw new ContainerBackendException("Could not read log", e);
+        }
+    }
+
+    @Override
+    public boolean writeLog(final String podName, final LogType logType, final OutputStream outputStream)
+            throws ContainerBackendException {
+        if (logType == LogType.STDERR) {
+            // Kubernetes does not split stdout and stderr logs.
+            log.debug("Skipping stderr log request for pod {}", podName);
+            return false;
+        }
+
+        try (final InputStream logStream = openLog(podName, false, null)) {
+            return logStream != null && IOUtils.copyLarge(logStream, outputStream) > 0;
+        } catch (IOException e) {
+            log.error("Could not write log for pod {}", podName, e);
+            throw new ContainerBackendException("Could not write log", e);
+        }
+    }
+
+    /**
+     * Open the pod's log. The API client's readNamespacedPodLog reads the whole body into a String;
+     * this hands back the body as it streams in.
+     *
+     * @return The log, or null if the container is still being created
+     */
+    @Nullable
+    private InputStream openLog(final String podName, final Boolean withTimestamp, final Integer sinceSeconds)
+            throws ContainerBackendException {
+        final Response response;
         try {
-            return coreApi.readNamespacedPodLog(podName, namespace, null, null, null, null, null, null, sinceRelative, null, withTimestamp);
-        } catch (ApiException e) {
-            if (e.getCode() == HttpStatus.BAD_REQUEST.value() && e.getResponseBody() != null && e.getResponseBody().contains(CONTAINER_CREATING)) {
-                // Kubernetes returns an error when we try to read logs for a container that is being created,
-                //  but we don't need to consider that an error
-                log.info("Could not read log for pod \"{}\". Container is creating. message \"{}\" code {} body {}", podName, e.getMessage(), e.getCode(), e.getResponseBody());
-                return null;
-            }
-            log.error("Could not read log for pod {}: message \"{}\" code {} body {}", podName, e.getMessage(), e.getCode(), e.getResponseBody(), e);
+            response = coreApi.readNamespacedPodLogCall(podName, namespace, null, false, null, null, null, null,
+                                                        sinceSeconds, null, withTimestamp, null).execute();
+        } catch (ApiException | IOException e) {
+            log.error("Could not read log for pod {}", podName, e);
             throw new ContainerBackendException("Could not read log", e);
         }
+
+        final ResponseBody body = response.body();
+        if (response.isSuccessful()) {
+            return body == null ? null : body.byteStream();
+        }
+
+        String responseBody = null;
+        try {
+            responseBody = body == null ? null : body.string();
+        } catch (IOException ignored) {
+            // We are already reporting an error
+        } finally {
+            response.close();
+        }
+        if (response.code() == HttpStatus.BAD_REQUEST.value() && responseBody != null && responseBody.contains(CONTAINER_CREATING)) {
+            // Kubernetes returns an error when we try to read logs for a container that is being created,
+            //  but we don't need to consider that an error
+            log.info("Could not read log for pod \"{}\". Container is creating. code {} body {}", podName, response.code(), responseBody);
+            return null;
+        }
+        log.error("Could not read log for pod {}: code {} body {}", podName, response.code(), responseBody);
+        throw new ContainerBackendException("Could not read log: code " + response.code());
+    }
+
+    @Override
+    public String newJobName(final Container toCreate) {
+        final StringBuilder jobName = new StringBuilder(StringUtils.left(toCreate.containerNameOrRandom(), GENERATED_NAME_MAX_PREFIX));
+        for (int i = 0; i < 5; i++) {
+            jobName.append(GENERATED_NAME_ALPHABET.charAt(GENERATED_NAME_RANDOM.nextInt(GENERATED_NAME_ALPHABET.length())));
+        }
+        return jobName.toString();
     }
 
     @Override
-    public String createJob(final Container toCreate, final DockerControlApi.NumReplicas numReplicas, final String serverContainerUser, final String gpuVendor)
+    public String createJob(final Container toCreate, final DockerControlApi.NumReplicas numReplicas, final boolean awaitAdmission,
+                            final String serverContainerUser, final String gpuVendor)
             throws ContainerBackendException, ContainerException {
         log.debug("Creating kubernetes job");
 
-        Long containerUserId = null;
-        if (StringUtils.isNotBlank(serverContainerUser)) {
-            try {
-                containerUserId = Long.parseLong(serverContainerUser);
-            } catch (NumberFormatException e) {
-                // We would have caught this earlier when setting the DockerServer. But just in case...
-                log.error("Container user ID \"{}\" is not an integer ID, which is incompatible with Kubernetes backend. Ignoring value.", serverContainerUser);
+        V1Job job = buildJob(toCreate, numReplicas, awaitAdmission, serverContainerUser, gpuVendor);
+        final String fixedJobName = job.getMetadata() == null ? null : job.getMetadata().getName();
+
+        try {
+            job = batchApi.createNamespacedJob(namespace, job, null, null, null, null);
+            final V1ObjectMeta meta    = job.getMetadata();
+            final String       jobName = meta == null ? null : meta.getName();
+            log.debug("Created job {}", jobName);
+            return jobName;
+        } catch (ApiException e) {
+            if (fixedJobName != null && e.getCode() == HttpStatus.CONFLICT.value()) {
+                if (!isJobFor(fixedJobName, toCreate)) {
+                    log.error("Job {} already exists and does not belong to container {}", fixedJobName, toCreate.databaseId());
+                    throw new ContainerBackendException("Job " + fixedJobName + " already exists for another container", e);
+                }
+                log.info("Job {} for container {} already exists", fixedJobName, toCreate.databaseId());
+                return fixedJobName;
             }
+            log.error("Could not create job: message \"{}\" code {} body {}", e.getMessage(), e.getCode(), e.getResponseBody(), e);
+            throw new ContainerBackendException("Could not create job", e);
         }
+    }
+
+    private boolean isJobFor(final String jobName, final Container container) {
+        try {
+            final V1Job existing = batchApi.readNamespacedJob(jobName, namespace, null);
+            final V1ObjectMeta meta = existing.getMetadata();
+            final Map<String, String> annotations = meta == null ? null : meta.getAnnotations();
+            return annotations != null && String.valueOf(container.databaseId()).equals(annotations.get(CONTAINER_ID_ANNOTATION));
+        } catch (ApiException e) {
+            log.error("Could not read job {}: message \"{}\" code {} body {}", jobName, e.getMessage(), e.getCode(), e.getResponseBody(), e);
+            return false;
+        }
+    }
+
+    private V1Job buildJob(final Container toCreate, final DockerControlApi.NumReplicas numReplicas, final boolean awaitAdmission,
+                           final String serverContainerUser, final String gpuVendor)
+            throws ContainerBackendException, ContainerException {
+        // Affinity, security context and GPU resource name come from the server settings and constraints
+        final KubernetesJobTemplates.Template template = jobTemplates.get(toCreate.swarmConstraints(), serverContainerUser, gpuVendor);
+        final Long containerUserId = template.containerUserId;
 
         // Ulimits
         final Map<String, String> ulimits = toCreate.ulimits();
@@ -268,9 +533,6 @@ public class KubernetesClientImpl implements KubernetesClient {
             log.debug("Ulimits command configuration ignored in kubernetes mode. ulimits={}", ulimits);
         }
 
-        // Constraints
-        final V1Affinity affinity = parseSwarmConstraints(toCreate.swarmConstraints());
-
         // Labels
         final Map<String, String> labels = toCreate.containerLabels() == null ?
                                            new HashMap<>() :
@@ -278,6 +540,22 @@ public class KubernetesClientImpl implements KubernetesClient {
         // TODO add helpful labels. Things like command and wrapper IDs, maybe workflow id if we have one, etc.
         //  Or maybe those could be annotations?
 
+        // Annotations. The admission task counts running jobs by project and user. Annotation values,
+        // unlike label values, are kept as they are.
+        final Map<String, String> annotations = new HashMap<>();
+        if (StringUtils.isNotBlank(toCreate.project())) {
+            annotations.put(PROJECT_ANNOTATION, toCreate.project());
+        }
+        if (StringUtils.isNotBlank(toCreate.userId())) {
+            annotations.put(USER_ANNOTATION, toCreate.userId());
+        }
+        if (toCreate.databaseId() != 0L) {
+            annotations.put(CONTAINER_ID_ANNOTATION, String.valueOf(toCreate.databaseId()));
+        }
+        if (awaitAdmission && numReplicas == DockerControlApi.NumReplicas.ZERO) {
+            annotations.put(AWAITING_ADMISSION_ANNOTATION, "true");
+        }
+
         // Ports
         final Map<String, String> ourPorts = toCreate.ports() == null ? Collections.emptyMap() : toCreate.ports();
         final List<V1ContainerPort> ports = ourPorts.entrySet().stream().map(e -> new V1ContainerPortBuilder()
@@ -361,11 +639,6 @@ public class KubernetesClientImpl implements KubernetesClient {
             command = null;
         }
 
-        // User ID
-        final V1SecurityContext securityContext = new V1SecurityContextBuilder()
-                .withRunAsUser(containerUserId)
-                .build();
-
         // Resource requests and limits
         final V1ResourceRequirementsBuilder resourceRequirementsBuilder = new V1ResourceRequirementsBuilder();
         if (toCreate.reserveMemory() != null) {
@@ -381,8 +654,8 @@ public class KubernetesClientImpl implements KubernetesClient {
         if (toCreate.genericResources() != null) {
             final String gpuNumber = toCreate.genericResources().get("gpu");
             if (StringUtils.isNotEmpty(gpuNumber)) {
-                if (StringUtils.isNotEmpty(gpuVendor)) {
-                    resourceRequirementsBuilder.addToLimits(gpuVendor.toLowerCase() + ".com/gpu", new Quantity(gpuNumber));
+                if (template.gpuResourceName != null) {
+                    resourceRequirementsBuilder.addToLimits(template.gpuResourceName, new Quantity(gpuNumber));
                 } else {
                     log.error("When the value of the GPU vendor in the Kubernetes cluster is empty or null, the GPU resource cannot be requested.");
                     throw new ContainerException("When the value of the GPU vendor in the Kubernetes cluster is empty or null, the GPU resource cannot be requested.");
@@ -401,8 +674,9 @@ public class KubernetesClientImpl implements KubernetesClient {
         // Set to zero to mimic separate "create"/"start" or set to 1 to start immediately
         final boolean suspend = numReplicas == DockerControlApi.NumReplicas.ZERO;
 
-        // Container name (also used to generate a job name)
+        // Container name (also used to generate a job name, unless we already picked one)
         final String name = toCreate.containerNameOrRandom();
+        final String fixedJobName = toCreate.backend() == Backend.KUBERNETES ? toCreate.jobName() : null;
 
         // Secrets
         final ContainerPropertiesWithSecretValues containerPropertiesWithSecretValues =
@@ -414,32 +688,23 @@ public class KubernetesClientImpl implements KubernetesClient {
                                                                           .map(entry -> new V1EnvVarBuilder().withName(entry.getKey()).withValue(entry.getValue()).build())
                                                                           .collect(Collectors.toList());
 
-final Map<String, String> cleanedLabels = labels.entrySet().stream()
-                                                .peek(entry -> {
-                                                    String  value   = entry.getValue();
-                                                    boolean cleaned = false;
-                                                    // Kubernetes labels can only contain A-z, 0-9, -, and . characters, so if we find anything else...
-                                                    if (NOT_K8S_LABEL_PATTERN.test(value)) {
-                                                        // ...replace it with a dash.
-                                                        value = value.replaceAll(K8S_REPLACE_PATTERN, "-");
-                                                        cleaned = true;
-                                                    }
-                                                    if (value.length() > 63) {
-                                                        // ...and if the value is too long, truncate it.
-                                                        value = value.substring(0, 60) + "...";
-                                                        cleaned = true;
-                                                    }
-                                                    if (cleaned) {
-                                                        log.info("Label {} for container {} was cleaned to {}", entry.getKey(), name, value);
-                                                        entry.setValue(value);
-                                                    }
-                                                })
-                                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        // Kubernetes is strict about label values, so clean them up
+        final Map<String, String> cleanedLabels = new HashMap<>();
+        for (final Map.Entry<String, String> entry : labels.entrySet()) {
+            final String value = jobTemplates.cleanLabelValue(entry.getValue());
+            if (value != null && !value.equals(entry.getValue())) {
+                log.info("Label {} for container {} was cleaned to {}", entry.getKey(), name, value);
+            }
+            cleanedLabels.put(entry.getKey(), value);
+        }
+        cleanedLabels.put(MANAGED_BY_LABEL, MANAGED_BY_VALUE);
         // Build job
-        V1Job job = new V1JobBuilder()
+        final V1Job job = new V1JobBuilder()
                 .withNewMetadata()
-                .withGenerateName(name)  // Container name used as job name prefix
+                .withName(fixedJobName)
+                .withGenerateName(fixedJobName == null ? name : null)  // Container name used as job name prefix
                 .withLabels(cleanedLabels)
+                .withAnnotations(annotations)
                 .endMetadata()
                 .withNewSpec()
                 .withTtlSecondsAfterFinished(JOB_TIME_TO_LIVE_SECS)
@@ -450,7 +715,7 @@ final Map<String, String> cleanedLabels = labels.entrySet().stream()
                 .withLabels(cleanedLabels)
                 .endMetadata()
                 .withNewSpec()
-                .withAffinity(affinity)
+                .withAffinity(template.affinity)
                 .withRestartPolicy(POD_RESTART_POLICY)
                 .withVolumes(volumes)
                 .addNewContainer()
@@ -463,7 +728,7 @@ final Map<String, String> cleanedLabels = labels.entrySet().stream()
                 .withVolumeMounts(mounts)
                 .withPorts(ports)
                 .withResources(resources)
-                .withSecurityContext(securityContext)
+                .withSecurityContext(template.securityContext)
                 .endContainer()
                 .endSpec()
                 .endTemplate()
@@ -488,16 +753,7 @@ final Map<String, String> cleanedLabels = labels.entrySet().stream()
                       StringUtils.join(toCreate.portStrings(), ", "));
         }
 
-        try {
-            job = batchApi.createNamespacedJob(namespace, job, null, null, null, null);
-            final V1ObjectMeta meta    = job.getMetadata();
-            final String       jobName = meta == null ? null : meta.getName();
-            log.debug("Created job {}", jobName);
-            return jobName;
-        } catch (ApiException e) {
-            log.error("Could not create job: message \"{}\" code {} body {}", e.getMessage(), e.getCode(), e.getResponseBody(), e);
-            throw new ContainerBackendException("Could not create job", e);
-        }
+        return job;
     }
 
     @VisibleForTesting
@@ -638,13 +894,21 @@ final Map<String, String> cleanedLabels = labels.entrySet().stream()
     @Override
     public void unsuspendJob(final String jobName)
             throws ContainerBackendException {
-        // Patch the job spec's suspend property
-        final V1Patch patch = new V1Patch("{\"spec\": {\"suspend\": false}}");
-        try {
+        log.debug("Unsuspending kubernetes job {}", jobName);
+        patchJob(jobName, new V1Patch("{\"spec\": {\"suspend\": false}}"), "Could not start job " + jobName);
+    }
 
-            // Write updated job definition
-            log.debug("Unsuspending kubernetes job {}", jobName);
+    @Override
+    public void queueJobForAdmission(final String jobName)
+            throws ContainerBackendException {
+        log.debug("Queueing kubernetes job {} for admission", jobName);
+        patchJob(jobName, new V1Patch("{\"metadata\": {\"annotations\": {\"" + AWAITING_ADMISSION_ANNOTATION + "\": \"true\"}}}"),
+                 "Could not queue job " + jobName);
+    }
 
+    private void patchJob(final String jobName, final V1Patch patch, final String failureMessage)
+            throws ContainerBackendException {
+        try {
             // We use PatchUtils.patch here rather than directly calling
             // batchApi.patchNamespacedJob because the latter sets a header saying
             // that the patch is formatted as a json patch, but we have formatted ours as
@@ -657,8 +921,8 @@ final Map<String, String> cleanedLabels = labels.entrySet().stream()
                     batchApi.getApiClient()
                             );
         } catch (ApiException e) {
-            log.error("Could not start job {}: message \"{}\" code {} body {}", jobName, e.getMessage(), e.getCode(), e.getResponseBody(), e);
-            throw new ContainerBackendException("Could not start job " + jobName, e);
+            log.error("{}: message \"{}\" code {} body {}", failureMessage, e.getMessage(), e.getCode(), e.getResponseBody(), e);
+            throw new ContainerBackendException(failureMessage, e);
         }
     }
 
@@ -0,0 +1,89 @@
+package org.nrg.containers.api;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one kubernetes client: how its requests fared, how often its informers had to start watching again,
+ * and how far behind the cluster the informers' events arrive.
+ */
+public class KubernetesClientMetrics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestNanos = new LongAdder();
+    private final AtomicLong maxRequestNanos = new AtomicLong();
+    private final LongAdder rateLimitedNanos = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder throttledRetries = new LongAdder();
+
+    private final LongAdder watchStarts = new LongAdder();
+    private final LongAdder lists = new LongAdder();
+
+    private final LongAdder lagSamples = new LongAdder();
+    private final LongAdder lagMillis = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    void requestCompleted(final long nanos) {
+        requests.increment();
+        requestNanos.add(nanos);
+        maxRequestNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void rateLimited(final long waitedNanos) {
+        rateLimitedNanos.add(waitedNanos);
+    }
+
+    void throttled(final boolean retrying) {
+        throttled.increment();
+        if (retrying) {
+            throttledRetries.increment();
+        }
+    }
+
+    void informerLag(final long millis) {
+        lagSamples.increment();
+        lagMillis.add(millis);
+        lastLagMillis.set(millis);
+        maxLagMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    /**
+     * @return An interceptor for the informers' client that counts lists and watches. Each informer lists once and
+     * starts one watch when it starts, so anything more means a watch was broken and started again.
+     */
+    Interceptor watchCounter() {
+        return chain -> {
+            final HttpUrl url = chain.request().url();
+            if ("true".equals(url.queryParameter("watch"))) {
+                watchStarts.increment();
+            } else {
+                lists.increment();
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    public Map<String, Object> report() {
+        final long requestCount = requests.sum();
+        final long lagCount = lagSamples.sum();
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requestCount);
+        report.put("average-request-millis", requestCount == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(requestNanos.sum()) / 1000.0 / requestCount);
+        report.put("max-request-millis", TimeUnit.NANOSECONDS.toMillis(maxRequestNanos.get()));
+        report.put("rate-limited-millis", TimeUnit.NANOSECONDS.toMillis(rateLimitedNanos.sum()));
+        report.put("throttled", throttled.sum());
+        report.put("throttled-retries", throttledRetries.sum());
+        report.put("watch-starts", watchStarts.sum());
+        report.put("lists", lists.sum());
+        report.put("average-informer-lag-millis", lagCount == 0 ? 0.0 : (double) lagMillis.sum() / lagCount);
+        report.put("last-informer-lag-millis", lastLagMillis.get());
+        report.put("max-informer-lag-millis", maxLagMillis.get());
+        return report;
+    }
+}
@@ -3,10 +3,24 @@ package org.nrg.containers.api;
 import io.kubernetes.client.openapi.models.V1Job;
 import io.kubernetes.client.openapi.models.V1Pod;
 
+import java.util.List;
+import java.util.Map;
+
 public interface KubernetesInformer {
     void start();
     void stop();
 
     V1Job getJob(final String name);
     V1Pod getPod(final String name);
+    List<V1Job> getJobs();
+
+    boolean hasSynced();
+
+    /**
+     * Compare what the informer caches hold with what we have recorded, and throw events for any job whose state
+     * has moved on without us hearing about it.
+     * @param statusesByJobName The recorded status of each nonfinalized job
+     * @return The number of events thrown
+     */
+    int reconcile(final Map<String, String> statusesByJobName);
 }
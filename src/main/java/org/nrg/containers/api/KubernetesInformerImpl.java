@@ -4,6 +4,7 @@ import io.kubernetes.client.common.KubernetesObject;
 import io.kubernetes.client.informer.ResourceEventHandler;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Indexer;
 import io.kubernetes.client.informer.cache.Lister;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.apis.BatchV1Api;
@@ -14,9 +15,12 @@ import io.kubernetes.client.openapi.models.V1ContainerStateTerminated;
 import io.kubernetes.client.openapi.models.V1ContainerStateWaiting;
 import io.kubernetes.client.openapi.models.V1ContainerStatus;
 import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobCondition;
 import io.kubernetes.client.openapi.models.V1JobList;
+import io.kubernetes.client.openapi.models.V1JobStatus;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodCondition;
 import io.kubernetes.client.openapi.models.V1PodList;
 import io.kubernetes.client.openapi.models.V1PodSpec;
 import io.kubernetes.client.openapi.models.V1PodStatus;
@@ -25,27 +29,51 @@ import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.events.model.KubernetesContainerState;
 import org.nrg.containers.events.model.KubernetesStatusChangeEvent;
 import org.nrg.containers.model.kubernetes.KubernetesPodPhase;
+import org.nrg.containers.services.impl.ContainerServiceImpl;
 import org.nrg.framework.services.NrgEventServiceI;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
+/**
+ * Watches the jobs and pods we launched. Both informers list and watch with the
+ * {@link KubernetesClientImpl#MANAGED_BY_SELECTOR} label selector, so other workloads sharing the namespace are
+ * neither cached nor handled here.
+ */
 @Slf4j
 public class KubernetesInformerImpl implements KubernetesInformer {
     private static final int RESYNC_DISABLED = 0;
+    private static final String JOB_NAME_INDEX = "job-name";
 
     private final SharedInformerFactory sharedInformerFactory;
     private volatile boolean isStarted;
 
+    private final SharedIndexInformer<V1Job> jobInformer;
+    private final SharedIndexInformer<V1Pod> podInformer;
     private final Lister<V1Job> jobLister;
     private final Lister<V1Pod> podLister;
+    private final NrgEventServiceI eventService;
+
+    // Jobs that were in neither cache on the last reconciliation. A job has to be missing twice in a row before we
+    // call it gone, so one created just before a pass isn't mistaken for one that was deleted.
+    private Set<String> missingJobNames = Collections.emptySet();
 
     public KubernetesInformerImpl(final String namespace,
                                   final ApiClient apiClient,
                                   final ExecutorService executorService,
-                                  final NrgEventServiceI eventService) {
+                                  final NrgEventServiceI eventService,
+                                  final KubernetesClientMetrics metrics) {
+
+        this.eventService = eventService;
 
         // Required to set read timeout to zero (disabling timeout) so long-lived watches work
         apiClient.setReadTimeout(0);
@@ -54,7 +82,7 @@ public class KubernetesInformerImpl implements KubernetesInformer {
         BatchV1Api batchApi = new BatchV1Api(apiClient);
 
         sharedInformerFactory = new SharedInformerFactory(apiClient, executorService);
-        SharedIndexInformer<V1Job> jobInformer = sharedInformerFactory.sharedIndexInformerFor(
+        jobInformer = sharedInformerFactory.sharedIndexInformerFor(
                 (CallGeneratorParams params) ->
                         batchApi.listNamespacedJobCall(
                                 namespace,
@@ -62,7 +90,7 @@ public class KubernetesInformerImpl implements KubernetesInformer {
                                 null,
                                 null,
                                 null,
-                                null,
+                                KubernetesClientImpl.MANAGED_BY_SELECTOR,
                                 null,
                                 params.resourceVersion,
                                 null,
@@ -73,7 +101,7 @@ public class KubernetesInformerImpl implements KubernetesInformer {
                 V1Job.class, V1JobList.class, RESYNC_DISABLED);
         jobLister = new Lister<>(jobInformer.getIndexer(), namespace);
 
-        SharedIndexInformer<V1Pod> podInformer = sharedInformerFactory.sharedIndexInformerFor(
+        podInformer = sharedInformerFactory.sharedIndexInformerFor(
                 (CallGeneratorParams params) ->
                         coreApi.listNamespacedPodCall(
                                 namespace,
@@ -81,7 +109,7 @@ public class KubernetesInformerImpl implements KubernetesInformer {
                                 null,
                                 null,
                                 null,
-                                null,
+                                KubernetesClientImpl.MANAGED_BY_SELECTOR,
                                 null,
                                 params.resourceVersion,
                                 null,
@@ -90,8 +118,15 @@ public class KubernetesInformerImpl implements KubernetesInformer {
                                 null
                         ),
                 V1Pod.class, V1PodList.class, RESYNC_DISABLED);
+        podInformer.addIndexers(Collections.singletonMap(JOB_NAME_INDEX, pod -> {
+            final String jobName = jobNameFromPodLabels(pod);
+            return jobName == null ? Collections.emptyList() : Collections.singletonList(jobName);
+        }));
         podInformer.addEventHandler(new PodEventHandler(eventService));
+        podInformer.addEventHandler(new LagRecorder(metrics));
         podLister = new Lister<>(podInformer.getIndexer(), namespace);
+
+        jobInformer.addEventHandler(new JobEventHandler(eventService, podInformer.getIndexer()));
         isStarted = false;
     }
 
@@ -138,6 +173,72 @@ public class KubernetesInformerImpl implements KubernetesInformer {
         return podLister.get(name);
     }
 
+    @Override
+    public List<V1Job> getJobs() {
+        return jobLister.list();
+    }
+
+    @Override
+    public boolean hasSynced() {
+        return isStarted && jobInformer.hasSynced() && podInformer.hasSynced();
+    }
+
+    @Override
+    public synchronized int reconcile(final Map<String, String> statusesByJobName) {
+        final Set<String> missing = new HashSet<>();
+        int thrown = 0;
+        for (final Map.Entry<String, String> entry : statusesByJobName.entrySet()) {
+            final KubernetesStatusChangeEvent event = reconcile(entry.getKey(), entry.getValue(), missing);
+            if (event != null) {
+                log.info("Job {} is recorded as \"{}\" but is now \"{}\". Throwing event.",
+                        entry.getKey(), entry.getValue(), event.getPodPhase());
+                eventService.triggerEvent(event);
+                thrown++;
+            }
+        }
+        missingJobNames = missing;
+        return thrown;
+    }
+
+    private KubernetesStatusChangeEvent reconcile(final String jobName, final String recordedStatus, final Set<String> missing) {
+        if (recordedStatus != null && recordedStatus.startsWith(ContainerServiceImpl.WAITING)) {
+            // We have already seen this job finish, and it is waiting to be finalized
+            return null;
+        }
+
+        final List<V1Pod> pods = podInformer.getIndexer().byIndex(JOB_NAME_INDEX, jobName);
+        if (!pods.isEmpty()) {
+            final V1Pod latest = pods.stream()
+                    .max(Comparator.comparing(KubernetesInformerImpl::creationTimestamp,
+                            Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .orElse(pods.get(0));
+            final KubernetesStatusChangeEvent event = PodEventHandler.createEvent(latest);
+            return event.getPodPhase() == null || event.getPodPhase() == KubernetesPodPhase.fromString(recordedStatus)
+                    ? null : event;
+        }
+
+        final V1Job job = jobLister.get(jobName);
+        if (job != null) {
+            final V1JobCondition failed = JobEventHandler.failedCondition(job);
+            return failed == null ? null : JobEventHandler.failureEvent(jobName,
+                    "Job failed: " + (failed.getMessage() != null ? failed.getMessage() : failed.getReason()),
+                    failed.getLastTransitionTime());
+        }
+
+        if (ContainerServiceImpl.CREATED.equals(recordedStatus)) {
+            // Saved but not yet created. Creating it is up to ContainerService.launchPendingKubernetesJob.
+            return null;
+        }
+        missing.add(jobName);
+        return missingJobNames.contains(jobName)
+                ? JobEventHandler.failureEvent(jobName, "Job no longer exists", OffsetDateTime.now())
+                : null;
+    }
+
+    private static OffsetDateTime creationTimestamp(final V1Pod pod) {
+        return pod.getMetadata() == null ? null : pod.getMetadata().getCreationTimestamp();
+    }
+
     static class PodEventHandler implements ResourceEventHandler<V1Pod> {
         private final NrgEventServiceI eventService;
 
@@ -297,4 +398,135 @@ public class KubernetesInformerImpl implements KubernetesInformer {
                             .build());
         }
     }
+
+    /**
+     * Records how long after a pod's last condition changed the informer heard about it. Conditions only have whole
+     * seconds, so this is a rough measure; it is there to show a watch falling minutes behind, not milliseconds.
+     * An update is only a sample if it brings a newer condition: resyncs, and changes to anything else in the pod,
+     * would otherwise count the age of a condition we heard about long ago.
+     */
+    static class LagRecorder implements ResourceEventHandler<V1Pod> {
+        // A pod with nothing newer than this is being relisted, not reported as it changes
+        private static final long MAX_LAG_MILLIS = 10 * 60 * 1000L;
+
+        private final KubernetesClientMetrics metrics;
+
+        LagRecorder(final KubernetesClientMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onAdd(V1Pod obj) {
+            lastTransition(obj).ifPresent(this::record);
+        }
+
+        @Override
+        public void onUpdate(V1Pod oldObj, V1Pod newObj) {
+            final String oldVersion = oldObj.getMetadata() == null ? null : oldObj.getMetadata().getResourceVersion();
+            final String newVersion = newObj.getMetadata() == null ? null : newObj.getMetadata().getResourceVersion();
+            if (newVersion != null && newVersion.equals(oldVersion)) {
+                return;
+            }
+            final Optional<OffsetDateTime> changed = lastTransition(newObj);
+            if (changed.isPresent() && !changed.equals(lastTransition(oldObj))) {
+                record(changed.get());
+            }
+        }
+
+        @Override
+        public void onDelete(V1Pod obj, boolean deletedFinalStateUnknown) {}
+
+        private static Optional<OffsetDateTime> lastTransition(final V1Pod pod) {
+            final List<V1PodCondition> conditions = pod.getStatus() == null ? null : pod.getStatus().getConditions();
+            if (conditions == null) {
+                return Optional.empty();
+            }
+            return conditions.stream()
+                    .map(V1PodCondition::getLastTransitionTime)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder());
+        }
+
+        private void record(final OffsetDateTime changed) {
+            final long lag = Duration.between(changed, OffsetDateTime.now()).toMillis();
+            if (lag >= 0 && lag < MAX_LAG_MILLIS) {
+                metrics.informerLag(lag);
+            }
+        }
+    }
+
+    /**
+     * Pod events carry a job's status. This handler covers a job that fails before it has a pod to report the
+     * failure, for instance by passing its deadline.
+     */
+    static class JobEventHandler implements ResourceEventHandler<V1Job> {
+        private final NrgEventServiceI eventService;
+        private final Indexer<V1Pod> podIndexer;
+
+        JobEventHandler(NrgEventServiceI eventService, Indexer<V1Pod> podIndexer) {
+            this.eventService = eventService;
+            this.podIndexer = podIndexer;
+        }
+
+        private boolean hasPods(final String jobName) {
+            return !podIndexer.byIndex(JOB_NAME_INDEX, jobName).isEmpty();
+        }
+
+        private static V1JobCondition failedCondition(V1Job job) {
+            final V1JobStatus status = job.getStatus();
+            final List<V1JobCondition> conditions = status == null ? null : status.getConditions();
+            if (conditions == null) {
+                return null;
+            }
+            return conditions.stream()
+                    .filter(condition -> "Failed".equals(condition.getType()) && "True".equals(condition.getStatus()))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        private static KubernetesStatusChangeEvent failureEvent(final String jobName, final String reason, final OffsetDateTime timestamp) {
+            return KubernetesStatusChangeEvent.builder()
+                    .jobName(jobName)
+                    .podPhase(KubernetesPodPhase.FAILED)
+                    .podPhaseReason(reason)
+                    .exitCode(1)
+                    .timestamp(timestamp)
+                    .build();
+        }
+
+        @Override
+        public void onAdd(V1Job obj) {
+            // Every job is added again each time the informer starts, including jobs that failed long ago and whose
+            // containers were finalized. Only report a failure we see happen; one that happened while we were not
+            // watching is found by reconcile, which only looks at containers that are not finalized.
+            log.debug("Job {} onAdd", objName(obj));
+        }
+
+        @Override
+        public void onUpdate(V1Job oldObj, V1Job newObj) {
+            final String jobName = objName(newObj);
+            final V1JobCondition failed = failedCondition(newObj);
+            if (jobName == null || failed == null || oldObj == null || failedCondition(oldObj) != null) {
+                return;
+            }
+            if (hasPods(jobName)) {
+                // The pod will report the failure
+                return;
+            }
+
+            log.debug("Job {} failed without creating a pod: {}", jobName, failed.getReason());
+            final KubernetesStatusChangeEvent event = failureEvent(jobName,
+                    "Job failed: " + (failed.getMessage() != null ? failed.getMessage() : failed.getReason()),
+                    failed.getLastTransitionTime());
+            log.debug("Triggering event {}", event);
+            eventService.triggerEvent(event);
+        }
+
+        @Override
+        public void onDelete(V1Job obj, boolean deletedFinalStateUnknown) {
+            // Deleting a running job deletes its pods first, and the pod handler reports that.
+            // A job deleted before it made a pod was still suspended, and whoever deleted it has already updated the container.
+            log.debug("Job {} onDelete (deletedFinalStateUnknown={})", objName(obj), deletedFinalStateUnknown);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package org.nrg.containers.api;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.kubernetes.client.openapi.models.V1Affinity;
+import io.kubernetes.client.openapi.models.V1SecurityContext;
+import io.kubernetes.client.openapi.models.V1SecurityContextBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.ContainerBackendException;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of a kubernetes job that come from the server settings and the wrapper's swarm constraints rather than
+ * from the container itself: node affinity, security context and the name of the GPU resource. Every launch with the
+ * same settings and constraints gets the same {@link Template}, so the constraints are parsed once rather than on
+ * every launch.
+ *
+ * <p>Cleaned label values are kept too, since most label values come from the command and are the same on every
+ * launch.</p>
+ *
+ * <p>The objects in a template are shared. They are copied into each job by the fluent builders and must not be
+ * modified.</p>
+ */
+@Slf4j
+class KubernetesJobTemplates {
+    private static final Predicate<String> NOT_K8S_LABEL_PATTERN = Pattern.compile("^$|^[A-Za-z0-9](?:[A-Za-z0-9.-]*[A-Za-z0-9])?$").asPredicate().negate();
+    private static final Pattern           K8S_REPLACE_PATTERN   = Pattern.compile("[^A-Za-z0-9\\-.]");
+
+    private final Cache<Key, Template> templates = CacheBuilder.newBuilder()
+            .maximumSize(200)
+            .build();
+    private final Cache<String, String> cleanedLabelValues = CacheBuilder.newBuilder()
+            .maximumSize(2000)
+            .build();
+
+    Template get(@Nullable final List<String> swarmConstraints,
+                 @Nullable final String serverContainerUser,
+                 @Nullable final String gpuVendor) throws ContainerBackendException {
+        final Key key = new Key(swarmConstraints == null ? Collections.emptyList() : ImmutableList.copyOf(swarmConstraints),
+                serverContainerUser, gpuVendor);
+        Template template = templates.getIfPresent(key);
+        if (template == null) {
+            template = new Template(KubernetesClientImpl.parseSwarmConstraints(key.swarmConstraints),
+                    parseContainerUserId(serverContainerUser),
+                    StringUtils.isNotEmpty(gpuVendor) ? gpuVendor.toLowerCase() + ".com/gpu" : null);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * Kubernetes labels can only contain A-z, 0-9, -, and . characters and be at most 63 characters long.
+     *
+     * @return The value with anything else replaced by a dash, and truncated if it is too long
+     */
+    String cleanLabelValue(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String cached = cleanedLabelValues.getIfPresent(value);
+        if (cached != null) {
+            return cached;
+        }
+        String cleaned = value;
+        if (NOT_K8S_LABEL_PATTERN.test(cleaned)) {
+            cleaned = K8S_REPLACE_PATTERN.matcher(cleaned).replaceAll("-");
+        }
+        if (cleaned.length() > 63) {
+            cleaned = cleaned.substring(0, 60) + "...";
+        }
+        cleanedLabelValues.put(value, cleaned);
+        return cleaned;
+    }
+
+    private static Long parseContainerUserId(final String serverContainerUser) {
+        if (StringUtils.isBlank(serverContainerUser)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(serverContainerUser);
+        } catch (NumberFormatException e) {
+            // We would have caught this earlier when setting the DockerServer. But just in case...
+            log.error("Container user ID \"{}\" is not an integer ID, which is incompatible with Kubernetes backend. Ignoring value.", serverContainerUser);
+            return null;
+        }
+    }
+
+    static final class Template {
+        final V1Affinity affinity;
+        final Long containerUserId;
+        final V1SecurityContext securityContext;
+        final String gpuResourceName;
+
+        private Template(final V1Affinity affinity, final Long containerUserId, final String gpuResourceName) {
+            this.affinity = affinity;
+            this.containerUserId = containerUserId;
+            this.securityContext = new V1SecurityContextBuilder()
+                    .withRunAsUser(containerUserId)
+                    .build();
+            this.gpuResourceName = gpuResourceName;
+        }
+    }
+
+    private static final class Key {
+        private final List<String> swarmConstraints;
+        private final String serverContainerUser;
+        private final String gpuVendor;
+
+        private Key(final List<String> swarmConstraints, final String serverContainerUser, final String gpuVendor) {
+            this.swarmConstraints = swarmConstraints;
+            this.serverContainerUser = serverContainerUser;
+            this.gpuVendor = gpuVendor;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return swarmConstraints.equals(that.swarmConstraints) &&
+                    Objects.equals(serverContainerUser, that.serverContainerUser) &&
+                    Objects.equals(gpuVendor, that.gpuVendor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(swarmConstraints, serverContainerUser, gpuVendor);
+        }
+    }
+}
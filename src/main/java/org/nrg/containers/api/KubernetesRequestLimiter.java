@@ -0,0 +1,139 @@
+package org.nrg.containers.api;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps our requests to the API server within a rate, and waits out the server when it says we are sending too many.
+ *
+ * <ul>
+ *     <li>Requests take tokens from a bucket that fills at the configured rate and holds up to the burst size, so
+ *     short bursts go out at once but a steady flood is spread out.</li>
+ *     <li>A 429 Too Many Requests response is retried after the time the server gives in Retry-After (at most
+ *     {@link #MAX_RETRY_AFTER_MILLIS}), a limited number of times. The server turns those requests away before doing
+ *     anything with them, so retrying a create is safe.</li>
+ * </ul>
+ */
+@Slf4j
+public class KubernetesRequestLimiter implements Interceptor {
+    static final int  TOO_MANY_REQUESTS          = 429;
+    static final long MAX_RETRY_AFTER_MILLIS     = 30000L;
+    static final long DEFAULT_RETRY_AFTER_MILLIS = 1000L;
+
+    private final TokenBucket bucket;
+    private final int maxRetries;
+    private final KubernetesClientMetrics metrics;
+
+    public KubernetesRequestLimiter(final int requestsPerSecond, final int burst, final int maxRetries,
+                                    final KubernetesClientMetrics metrics) {
+        this.bucket = requestsPerSecond > 0 ? new TokenBucket(requestsPerSecond, Math.max(1, burst), System::nanoTime) : null;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        int retries = 0;
+        while (true) {
+            if (bucket != null) {
+                final long waitNanos = bucket.reserve();
+                if (waitNanos > 0) {
+                    metrics.rateLimited(waitNanos);
+                    sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+                }
+            }
+
+            // For responses we stream, like logs, this is the time until the headers arrive
+            final long start = System.nanoTime();
+            final Response response = chain.proceed(request);
+            metrics.requestCompleted(System.nanoTime() - start);
+
+            if (response.code() != TOO_MANY_REQUESTS) {
+                return response;
+            }
+            final boolean retrying = retries < maxRetries;
+            metrics.throttled(retrying);
+            if (!retrying) {
+                log.warn("Kubernetes API server is still throttling {} {} after {} retries", request.method(), request.url().encodedPath(), retries);
+                return response;
+            }
+            retries++;
+            final long waitMillis = retryAfterMillis(response.header("Retry-After"));
+            response.close();
+            log.info("Kubernetes API server throttled {} {}, retrying in {} ms (retry {} of {})",
+                    request.method(), request.url().encodedPath(), waitMillis, retries, maxRetries);
+            sleep(waitMillis);
+        }
+    }
+
+    /**
+     * @return How long to wait, from a Retry-After header in seconds
+     */
+    @VisibleForTesting
+    static long retryAfterMillis(final String retryAfter) {
+        if (StringUtils.isNotBlank(retryAfter)) {
+            try {
+                final long seconds = Long.parseLong(retryAfter.trim());
+                return Math.min(MAX_RETRY_AFTER_MILLIS, Math.max(0L, TimeUnit.SECONDS.toMillis(seconds)));
+            } catch (NumberFormatException ignored) {
+                // The API server sends seconds. Anything else gets the default.
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MILLIS;
+    }
+
+    private static void sleep(final long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a kubernetes request");
+        }
+    }
+
+    /**
+     * Tokens are added continuously at {@code permitsPerSecond}, up to {@code capacity}. Taking a token from an empty
+     * bucket is allowed; the bucket goes negative and the caller is told how long to wait for its token, so callers
+     * behind it wait their turn.
+     */
+    @VisibleForTesting
+    static final class TokenBucket {
+        private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+        private final double permitsPerSecond;
+        private final double capacity;
+        private final LongSupplier nanoClock;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(final double permitsPerSecond, final int capacity, final LongSupplier nanoClock) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.capacity = capacity;
+            this.nanoClock = nanoClock;
+            this.tokens = capacity;
+            this.lastRefill = nanoClock.getAsLong();
+        }
+
+        /**
+         * Take a token.
+         * @return How many nanoseconds to wait before using it
+         */
+        synchronized long reserve() {
+            final long now = nanoClock.getAsLong();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+            lastRefill = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0L : (long) Math.ceil(-tokens * NANOS_PER_SECOND / permitsPerSecond);
+        }
+    }
+}
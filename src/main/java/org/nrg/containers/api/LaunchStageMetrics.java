@@ -0,0 +1,97 @@
+package org.nrg.containers.api;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long each stage of creating and starting a container on docker or swarm takes, as a histogram per stage.
+ */
+public class LaunchStageMetrics {
+    public enum Stage {
+        /** Making the directories the container mounts */
+        MOUNTS,
+        /** Making sure docker has the image, pulling it if not */
+        IMAGE,
+        /** Waiting for a turn to call the backend */
+        QUEUED,
+        /** Creating the container or service */
+        CREATE,
+        /** Starting the container, or scaling the service up */
+        START
+    }
+
+    // Upper bounds of the histogram buckets. Anything longer goes in a last, unbounded bucket.
+    static final long[] BUCKET_MILLIS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    private final Map<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+
+    public LaunchStageMetrics() {
+        for (final Stage stage : Stage.values()) {
+            histograms.put(stage, new Histogram());
+        }
+    }
+
+    public void record(final Stage stage, final long nanos) {
+        histograms.get(stage).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    long count(final Stage stage) {
+        return histograms.get(stage).count.sum();
+    }
+
+    long count(final Stage stage, final int bucket) {
+        return histograms.get(stage).buckets[bucket].sum();
+    }
+
+    public Map<String, Object> report() {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        for (final Stage stage : Stage.values()) {
+            report.put(stage.name().toLowerCase(), histograms.get(stage).report());
+        }
+        return report;
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_MILLIS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(final long millis) {
+            int bucket = 0;
+            while (bucket < BUCKET_MILLIS.length && millis > BUCKET_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        private Map<String, Object> report() {
+            final long n = count.sum();
+            final Map<String, Object> report = new LinkedHashMap<>();
+            report.put("count", n);
+            report.put("average-millis", n == 0 ? 0.0 : (double) totalMillis.sum() / n);
+            report.put("max-millis", maxMillis.get());
+
+            final Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_MILLIS.length; i++) {
+                histogram.put("<=" + BUCKET_MILLIS[i], buckets[i].sum());
+            }
+            histogram.put(">" + BUCKET_MILLIS[BUCKET_MILLIS.length - 1], buckets[BUCKET_MILLIS.length].sum());
+            report.put("histogram-millis", histogram);
+            return report;
+        }
+    }
+}
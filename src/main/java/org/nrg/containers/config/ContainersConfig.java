@@ -3,6 +3,7 @@ package org.nrg.containers.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTopic;
 import org.jetbrains.annotations.NotNull;
 import org.nrg.containers.events.ContainerStatusUpdater;
 import org.nrg.containers.events.listeners.ContainerServiceWorkflowStatusEventListener;
@@ -12,9 +13,16 @@ import org.nrg.containers.events.model.ServiceTaskEvent;
 import org.nrg.containers.events.model.SessionMergeOrArchiveEvent;
 import org.nrg.containers.jms.errors.ContainerJmsErrorHandler;
 import org.nrg.containers.jms.preferences.QueuePrefsBean;
+import org.nrg.containers.jms.requests.CommandCatalogInvalidation;
 import org.nrg.containers.jms.requests.ContainerFinalizingRequest;
 import org.nrg.containers.jms.requests.ContainerStagingRequest;
+import org.nrg.containers.jms.requests.OrchestrationInvalidation;
+import org.nrg.containers.jms.requests.WrapperConfigurationInvalidation;
+import org.nrg.containers.jms.tasks.QueueConcurrencyAutoscaler;
 import org.nrg.containers.jms.tasks.QueueManager;
+import org.nrg.containers.tasks.ContainerArchiveTask;
+import org.nrg.containers.tasks.ImagePrefetchTask;
+import org.nrg.containers.tasks.KubernetesAdmissionTask;
 import org.nrg.framework.annotations.XnatPlugin;
 import org.nrg.framework.services.SerializerService;
 import org.nrg.mail.services.MailService;
@@ -53,11 +61,26 @@ import java.util.concurrent.TimeUnit;
 public class ContainersConfig {
     public static final String QUEUE_MIN_CONCURRENCY_DFLT            = "10";
     public static final String QUEUE_MAX_CONCURRENCY_DFLT            = "20";
+    public static final String QUEUE_AUTOSCALE_TARGET_DRAIN_SECONDS_DFLT = "60";
+    public static final String QUEUE_AUTOSCALE_MAX_DB_POOL_PERCENT_DFLT  = "50";
+    public static final String ARCHIVE_AFTER_DAYS_DFLT               = "90";
+    public static final String ARCHIVE_BATCH_SIZE_DFLT               = "50";
+    public static final String KUBERNETES_MAX_JOBS_PER_PROJECT_DFLT  = "0";
+    public static final String KUBERNETES_MAX_JOBS_PER_USER_DFLT     = "0";
+    public static final String KUBERNETES_MAX_CPUS_DFLT              = "0";
+    public static final String KUBERNETES_MAX_MEMORY_MB_DFLT         = "0";
+    public static final String KUBERNETES_MAX_GPUS_DFLT              = "0";
+    public static final String KUBERNETES_REQUESTS_PER_SECOND_DFLT   = "20";
+    public static final String KUBERNETES_REQUEST_BURST_DFLT         = "40";
+    public static final String KUBERNETES_MAX_THROTTLED_RETRIES_DFLT = "3";
+    public static final String KUBERNETES_REQUEST_TIMEOUT_SECONDS_DFLT = "30";
+    public static final String KUBERNETES_MAX_IDLE_CONNECTIONS_DFLT  = "10";
     public static final String FINALIZING_QUEUE_LISTENER_FACTORY     = "finalizingQueueListenerFactory";
     public static final String FINALIZING_QUEUE_CONTAINER_ID         = "finalizingListener";
     public static final String STAGING_QUEUE_LISTENER_FACTORY        = "stagingQueueListenerFactory";
     public static final String STAGING_QUEUE_CONTAINER_ID            = "stagingQueueListener";
     public static final String EVENT_HANDLING_QUEUE_LISTENER_FACTORY = "eventHandlingQueueListenerFactory";
+    public static final String CACHE_INVALIDATION_TOPIC_LISTENER_FACTORY = "cacheInvalidationTopicListenerFactory";
 
     private static final int NUMBER_OF_IDLE_RECEIVES_PER_TASK_LIMIT = 300;
     private static final long ONE_SECOND_IN_MS = 1000L;
@@ -92,6 +115,16 @@ public class ContainersConfig {
         return defaultFactory(connectionFactory, siteConfigPreferences, notificationsPreferences, mailService);
     }
 
+    @Bean(name = CACHE_INVALIDATION_TOPIC_LISTENER_FACTORY)
+    public DefaultJmsListenerContainerFactory cacheInvalidationTopicListenerFactory(@Qualifier("springConnectionFactory") final ConnectionFactory connectionFactory) {
+        // Every node needs every message, so this listens on a topic with a single consumer
+        final DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setPubSubDomain(true);
+        factory.setConcurrency("1");
+        return factory;
+    }
+
     @Bean(name = ContainerStagingRequest.DESTINATION)
     public Destination containerStagingRequest() {
         return new ActiveMQQueue(ContainerStagingRequest.DESTINATION);
@@ -127,6 +160,21 @@ public class ContainersConfig {
         return new ActiveMQQueue(SessionMergeOrArchiveEvent.QUEUE);
     }
 
+    @Bean(name = CommandCatalogInvalidation.DESTINATION)
+    public Destination commandCatalogTopic() {
+        return new ActiveMQTopic(CommandCatalogInvalidation.DESTINATION);
+    }
+
+    @Bean(name = WrapperConfigurationInvalidation.DESTINATION)
+    public Destination wrapperConfigurationTopic() {
+        return new ActiveMQTopic(WrapperConfigurationInvalidation.DESTINATION);
+    }
+
+    @Bean(name = OrchestrationInvalidation.DESTINATION)
+    public Destination orchestrationTopic() {
+        return new ActiveMQTopic(OrchestrationInvalidation.DESTINATION);
+    }
+
     @Bean
     public ObjectMapper objectMapper(final SerializerService serializer) {
         return serializer.getObjectMapper();
@@ -148,6 +196,38 @@ public class ContainersConfig {
         );
     }
 
+    @Bean
+    public TriggerTask queueConcurrencyAutoscalerTask(final QueueConcurrencyAutoscaler queueConcurrencyAutoscaler) {
+        return new TriggerTask(
+                queueConcurrencyAutoscaler,
+                new PeriodicTrigger(30L, TimeUnit.SECONDS)
+        );
+    }
+
+    @Bean
+    public TriggerTask containerArchiveTask(final ContainerArchiveTask containerArchiveTask) {
+        return new TriggerTask(
+                containerArchiveTask,
+                new PeriodicTrigger(1L, TimeUnit.MINUTES)
+        );
+    }
+
+    @Bean
+    public TriggerTask kubernetesAdmissionTask(final KubernetesAdmissionTask kubernetesAdmissionTask) {
+        return new TriggerTask(
+                kubernetesAdmissionTask,
+                new PeriodicTrigger(10L, TimeUnit.SECONDS)
+        );
+    }
+
+    @Bean
+    public TriggerTask imagePrefetchTask(final ImagePrefetchTask imagePrefetchTask) {
+        return new TriggerTask(
+                imagePrefetchTask,
+                new PeriodicTrigger(5L, TimeUnit.MINUTES)
+        );
+    }
+
     @Bean(name = "containerServiceThreadPoolExecutorFactoryBean")
     public ThreadPoolExecutorFactoryBean containerServiceThreadPoolExecutorFactoryBean() {
         ThreadPoolExecutorFactoryBean tBean = new ThreadPoolExecutorFactoryBean();
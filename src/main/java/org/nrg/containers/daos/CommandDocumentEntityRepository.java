@@ -0,0 +1,81 @@
+package org.nrg.containers.daos;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockOptions;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Repository
+public class CommandDocumentEntityRepository extends AbstractHibernateDAO<CommandDocumentEntity> {
+    @Nullable
+    public CommandDocumentEntity findLatest(final long commandId) {
+        return (CommandDocumentEntity) getSession()
+                .createQuery("select document from CommandDocumentEntity as document where document.commandId = :commandId order by document.version desc")
+                .setLong("commandId", commandId)
+                .setMaxResults(1)
+                .uniqueResult();
+    }
+
+    /**
+     * Like {@link #findLatest(long)}, but locks the row until the transaction ends, so two saves of the same command
+     * cannot both pick the same next version.
+     */
+    @Nullable
+    public CommandDocumentEntity findLatestForUpdate(final long commandId) {
+        return (CommandDocumentEntity) getSession()
+                .createQuery("select document from CommandDocumentEntity as document where document.commandId = :commandId order by document.version desc")
+                .setLong("commandId", commandId)
+                .setLockOptions(LockOptions.UPGRADE)
+                .setMaxResults(1)
+                .uniqueResult();
+    }
+
+    @Nonnull
+    public Set<Long> getCommandIds() {
+        final List ids = getSession().createQuery("select distinct document.commandId from CommandDocumentEntity as document").list();
+        final Set<Long> commandIds = new HashSet<>(ids.size());
+        for (final Object id : ids) {
+            commandIds.add((Long) id);
+        }
+        return commandIds;
+    }
+
+    /**
+     * @return The latest version of every command's document, in command id order
+     */
+    @Nonnull
+    public List<CommandDocumentEntity> findAllLatest() {
+        final List results = getSession()
+                .createQuery("select document from CommandDocumentEntity as document " +
+                        "where document.version = (select max(other.version) from CommandDocumentEntity as other where other.commandId = document.commandId) " +
+                        "order by document.commandId")
+                .list();
+        final List<CommandDocumentEntity> documents = new ArrayList<>(results.size());
+        for (final Object result : results) {
+            documents.add((CommandDocumentEntity) result);
+        }
+        return documents;
+    }
+
+    public void deleteVersionsBefore(final long commandId, final long version) {
+        getSession().createQuery("delete from CommandDocumentEntity where commandId = :commandId and version < :version")
+                .setLong("commandId", commandId)
+                .setLong("version", version)
+                .executeUpdate();
+    }
+
+    public void deleteByCommandId(final long commandId) {
+        getSession().createQuery("delete from CommandDocumentEntity where commandId = :commandId")
+                .setLong("commandId", commandId)
+                .executeUpdate();
+    }
+}
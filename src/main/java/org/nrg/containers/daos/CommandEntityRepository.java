@@ -16,8 +16,10 @@ import org.springframework.stereotype.Repository;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Repository
@@ -138,6 +140,16 @@ public class CommandEntityRepository extends AbstractHibernateDAO<CommandEntity>
                 .uniqueResult() != null;
     }
 
+    @Nonnull
+    public Set<Long> getCommandIds() {
+        final List ids = getSession().createQuery("select command.id from CommandEntity as command").list();
+        final Set<Long> commandIds = new HashSet<>(ids.size());
+        for (final Object id : ids) {
+            commandIds.add((Long) id);
+        }
+        return commandIds;
+    }
+
     public CommandWrapperEntity retrieveWrapper(long commandId, String wrapperName) {
         if (!commandExists(commandId)) {
             return null;
@@ -0,0 +1,38 @@
+package org.nrg.containers.daos;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.model.container.entity.ContainerArchiveEntity;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Slf4j
+@Repository
+public class ContainerArchiveEntityRepository extends AbstractHibernateDAO<ContainerArchiveEntity> {
+    @Nullable
+    public ContainerArchiveEntity findByContainerDatabaseId(final long containerDatabaseId) {
+        return findByUniqueProperty("containerDatabaseId", containerDatabaseId);
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public List<ContainerArchiveEntity> findByContainerDatabaseIds(final Collection<Long> containerDatabaseIds) {
+        if (containerDatabaseIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return getSession().createQuery("from ContainerArchiveEntity where containerDatabaseId in (:containerDatabaseIds)")
+                .setParameterList("containerDatabaseIds", containerDatabaseIds)
+                .list();
+    }
+
+    public void deleteByContainerDatabaseId(final long containerDatabaseId) {
+        getSession().createQuery("delete from ContainerArchiveEntity where containerDatabaseId = :containerDatabaseId")
+                .setLong("containerDatabaseId", containerDatabaseId)
+                .executeUpdate();
+    }
+}
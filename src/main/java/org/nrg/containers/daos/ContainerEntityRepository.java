@@ -2,21 +2,34 @@ package org.nrg.containers.daos;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Criteria;
 import org.hibernate.Hibernate;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.sql.JoinType;
+import org.nrg.containers.model.container.auto.ContainerSummary;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
 import org.nrg.containers.model.container.entity.ContainerEntityMount;
+import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
+import org.nrg.containers.utils.ContainerUtils;
 import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Repository
@@ -71,6 +84,93 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         getSession().persist(containerEntityHistory);
     }
 
+    /**
+     * Does the container already have a history item with the same status, message, and external timestamp?
+     * Same comparison as {@link ContainerEntity#isItemInHistory(ContainerEntityHistory)}, without loading the history.
+     */
+    public boolean isHistoryItemRecorded(final long containerDatabaseId,
+                                         final @Nonnull ContainerEntityHistory containerEntityHistory) {
+        final Number count = (Number) getSession()
+                .createCriteria(ContainerEntityHistory.class)
+                .add(Restrictions.eq("containerEntity.id", containerDatabaseId))
+                .add(eqOrIsNull("status", containerEntityHistory.getStatus()))
+                .add(eqOrIsNull("message", containerEntityHistory.getMessage()))
+                .add(eqOrIsNull("externalTimestamp", containerEntityHistory.getExternalTimestamp()))
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count != null && count.longValue() > 0;
+    }
+
+    /**
+     * Persist a history item against the container without loading the container.
+     */
+    public void addHistoryItem(final long containerDatabaseId,
+                               final @Nonnull ContainerEntityHistory containerEntityHistory) {
+        containerEntityHistory.setContainerEntity((ContainerEntity) getSession().load(ContainerEntity.class, containerDatabaseId));
+        getSession().persist(containerEntityHistory);
+    }
+
+    /**
+     * Set the container status, but only if the status time we have is newer than the stored one.
+     * The stored status time is the version we compare against, so of two concurrent writers only the
+     * one with the newer status wins. A terminal status is only overwritten by another terminal status.
+     *
+     * @return the number of rows updated; 0 if the stored status was newer or terminal
+     */
+    public int updateStatusIfNewer(final long containerDatabaseId,
+                                   final String status,
+                                   final @Nonnull Date statusTime) {
+        final StringBuilder hql = new StringBuilder("update ContainerEntity set status = :status, statusTime = :statusTime, timestamp = :now " +
+                "where id = :id and (statusTime is null or statusTime < :statusTime)");
+        if (!ContainerUtils.statusIsTerminal(status)) {
+            hql.append(" and (status is null or (");
+            final ContainerUtils.TerminalState[] terminalStates = ContainerUtils.TerminalState.values();
+            for (int i = 0; i < terminalStates.length; i++) {
+                hql.append(i == 0 ? "" : " and ").append("status not like '").append(terminalStates[i].value).append("%'");
+            }
+            hql.append("))");
+        }
+        return getSession().createQuery(hql.toString())
+                .setString("status", status)
+                .setTimestamp("statusTime", statusTime)
+                .setTimestamp("now", new Date())
+                .setLong("id", containerDatabaseId)
+                .executeUpdate();
+    }
+
+    /**
+     * Set the node, task and container IDs the backend reported, leaving any that are already set and every other
+     * column alone.
+     *
+     * @return the number of rows updated
+     */
+    public int updateBackendIdsIfUnset(final long containerDatabaseId,
+                                       final @Nullable String nodeId,
+                                       final @Nullable String taskId,
+                                       final @Nullable String containerId) {
+        return getSession().createQuery("update ContainerEntity set nodeId = coalesce(nodeId, :nodeId), " +
+                        "taskId = coalesce(taskId, :taskId), containerId = coalesce(containerId, :containerId), " +
+                        "timestamp = :now where id = :id")
+                .setString("nodeId", nodeId)
+                .setString("taskId", taskId)
+                .setString("containerId", containerId)
+                .setTimestamp("now", new Date())
+                .setLong("id", containerDatabaseId)
+                .executeUpdate();
+    }
+
+    /**
+     * Retrieve only the status-related columns of a container.
+     */
+    @Nullable
+    public StatusFields retrieveStatusFields(final long containerDatabaseId) {
+        final Object[] row = (Object[]) getSession()
+                .createQuery("select c.status, c.workflowId, c.swarm from ContainerEntity as c where c.id = :id")
+                .setLong("id", containerDatabaseId)
+                .uniqueResult();
+        return row == null ? null : new StatusFields((String) row[0], (String) row[1], (Boolean) row[2]);
+    }
+
     @Nonnull
     public List<ContainerEntity> retrieveServices() {
         final List servicesResult = getSession()
@@ -97,6 +197,32 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         return ces;
     }
 
+    /**
+     * @return The status of every nonfinalized kubernetes container, keyed by job name, read with one query
+     */
+    @Nonnull
+    public Map<String, String> retrieveNonfinalizedKubernetesJobStatuses() {
+        final List rows = getSession()
+                .createCriteria(ContainerEntity.class)
+                .add(Restrictions.conjunction()
+                        .add(Restrictions.eq("backend", Backend.KUBERNETES))
+                        .add(Restrictions.isNotNull("serviceId"))
+                        .add(getNonFinalizedCriterion())
+                )
+                .setProjection(Projections.projectionList()
+                        .add(Projections.property("serviceId"))
+                        .add(Projections.property("status")))
+                .list();
+        final Map<String, String> statuses = new HashMap<>();
+        if (rows != null) {
+            for (final Object row : rows) {
+                final Object[] columns = (Object[]) row;
+                statuses.put((String) columns[0], (String) columns[1]);
+            }
+        }
+        return statuses;
+    }
+
     public int howManyContainersAreWaiting() {
         int countOfContainersBeingWaiting = 0;
         List<ContainerEntity> ces = retrieveServicesInWaitingState();
@@ -136,6 +262,15 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         return countOfContainersBeingFinalized;
     }
 
+    public int howManyContainersAreNonfinalized() {
+        final Number count = (Number) getSession()
+                .createCriteria(ContainerEntity.class)
+                .add(getNonFinalizedCriterion())
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count == null ? 0 : count.intValue();
+    }
+
     @Nonnull
     public List<ContainerEntity> retrieveContainersInFinalizingState() {
     	final List finalizingResult = getSession()
@@ -192,6 +327,123 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         return initializeAndReturnList(list);
     }
 
+    /**
+     * Read one page of container summaries, newest first by id. Only the summary columns are selected.
+     * The id never changes, unlike the timestamp, so a row can't move between pages while a client pages through.
+     * Returns up to {@code limit + 1} rows so the caller can tell whether there is another page.
+     */
+    @Nonnull
+    public List<ContainerSummary> getSummaries(final @Nonnull ContainerSummaryRequest request) {
+        final Criteria criteria = getSession().createCriteria(ContainerEntity.class);
+        if (StringUtils.isNotBlank(request.project())) {
+            criteria.add(Restrictions.eq("project", request.project()));
+        }
+        if (!request.statuses().isEmpty()) {
+            final Disjunction statuses = Restrictions.disjunction();
+            for (final String status : request.statuses()) {
+                // Prefix match, so "Failed" also finds "Failed (Killed)" and the like
+                statuses.add(Restrictions.like("status", status, MatchMode.START));
+            }
+            criteria.add(statuses);
+        }
+        if (request.nonfinalized()) {
+            criteria.add(getNonFinalizedCriterion());
+        }
+        if (request.wrapperId() != null) {
+            criteria.add(Restrictions.eq("wrapperId", request.wrapperId()));
+        }
+        if (StringUtils.isNotBlank(request.userId())) {
+            criteria.add(Restrictions.eq("userId", request.userId()));
+        }
+        if (request.since() != null) {
+            criteria.add(Restrictions.ge("timestamp", request.since()));
+        }
+        if (request.until() != null) {
+            criteria.add(Restrictions.lt("timestamp", request.until()));
+        }
+        if (request.afterId() != null) {
+            criteria.add(Restrictions.lt("id", request.afterId()));
+        }
+
+        final List rows = criteria.setProjection(Projections.projectionList()
+                        .add(Projections.property("id"))
+                        .add(Projections.property("commandId"))
+                        .add(Projections.property("wrapperId"))
+                        .add(Projections.property("status"))
+                        .add(Projections.property("statusTime"))
+                        .add(Projections.property("workflowId"))
+                        .add(Projections.property("userId"))
+                        .add(Projections.property("project"))
+                        .add(Projections.property("backend"))
+                        .add(Projections.property("swarm"))
+                        .add(Projections.property("dockerImage"))
+                        .add(Projections.property("containerName"))
+                        .add(Projections.property("subtype"))
+                        .add(Projections.property("created"))
+                        .add(Projections.property("timestamp")))
+                .addOrder(Order.desc("id"))
+                .setMaxResults(request.limit() + 1)
+                .list();
+
+        final List<ContainerSummary> summaries = new ArrayList<>(rows.size());
+        for (final Object row : rows) {
+            final Object[] columns = (Object[]) row;
+            final Backend backend = (Backend) columns[8];
+            final Boolean swarm = (Boolean) columns[9];
+            summaries.add(ContainerSummary.builder()
+                    .databaseId((Long) columns[0])
+                    .commandId((Long) columns[1])
+                    .wrapperId((Long) columns[2])
+                    .status((String) columns[3])
+                    .statusTime((Date) columns[4])
+                    .workflowId((String) columns[5])
+                    .userId(StringUtils.defaultString((String) columns[6]))
+                    .project((String) columns[7])
+                    .backend(backend != null ? backend : swarm != null && swarm ? Backend.SWARM : Backend.DOCKER)
+                    .dockerImage((String) columns[10])
+                    .containerName((String) columns[11])
+                    .subtype((String) columns[12])
+                    .created((Date) columns[13])
+                    .timestamp((Date) columns[14])
+                    .build());
+        }
+        return summaries;
+    }
+
+    /**
+     * Ids of finalized containers, last touched before the given time, whose collections have not yet
+     * been moved to the archive. A setup or wrapup container is only chosen once its parent is finalized too.
+     */
+    @Nonnull
+    public List<Long> retrieveIdsToArchive(final @Nonnull Date lastUpdatedBefore, final int max) {
+        final List ids = getSession()
+                .createCriteria(ContainerEntity.class)
+                .createAlias("parentContainerEntity", "parent", JoinType.LEFT_OUTER_JOIN)
+                .add(getFinalizedCriterion("status"))
+                .add(Restrictions.or(
+                        Restrictions.isNull("parentContainerEntity"),
+                        getFinalizedCriterion("parent.status")))
+                .add(Restrictions.lt("timestamp", lastUpdatedBefore))
+                .add(Restrictions.isNotEmpty("history"))
+                .setProjection(Projections.id())
+                .addOrder(Order.asc("id"))
+                .setMaxResults(max)
+                .list();
+        final List<Long> toReturn = new ArrayList<>(ids.size());
+        for (final Object id : ids) {
+            toReturn.add((Long) id);
+        }
+        return toReturn;
+    }
+
+    private Criterion getFinalizedCriterion(final String statusProperty) {
+        return Restrictions.disjunction()
+                .add(Restrictions.like(statusProperty, "Complete"))
+                .add(Restrictions.like(statusProperty, "Done"))
+                .add(Restrictions.like(statusProperty, "Failed", MatchMode.START))
+                .add(Restrictions.like(statusProperty, "Killed"));
+    }
+
     private Criterion getNonFinalizedCriterion() {
         return Restrictions.not(Restrictions.disjunction()
                 .add(Restrictions.like("status", "Complete"))
@@ -201,6 +453,10 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
                 .add(Restrictions.like("status", "Finalizing")));
     }
 
+    private static Criterion eqOrIsNull(final String property, final Object value) {
+        return value == null ? Restrictions.isNull(property) : Restrictions.eq(property, value);
+    }
+
     @SuppressWarnings("unchecked")
     @Nonnull
     private List<ContainerEntity> initializeAndReturnList(final List result) {
@@ -217,4 +473,28 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         }
         return Collections.emptyList();
     }
+
+    public static class StatusFields {
+        private final String status;
+        private final String workflowId;
+        private final Boolean swarm;
+
+        StatusFields(final String status, final String workflowId, final Boolean swarm) {
+            this.status = status;
+            this.workflowId = workflowId;
+            this.swarm = swarm;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getWorkflowId() {
+            return workflowId;
+        }
+
+        public Boolean getSwarm() {
+            return swarm;
+        }
+    }
 }
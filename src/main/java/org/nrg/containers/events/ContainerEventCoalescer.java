@@ -0,0 +1,156 @@
+package org.nrg.containers.events;
+
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.events.model.ContainerEvent;
+import org.nrg.containers.events.model.DockerContainerEvent;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+
+/**
+ * Sits between the event bus and the container event queue, so that bursts of status events
+ * about one container don't each cost a JMS message and a full container retrieval in
+ * {@link org.nrg.containers.services.ContainerService#processEvent(ContainerEvent)}.
+ *
+ * <ul>
+ *     <li>Events we know we will ignore are dropped.</li>
+ *     <li>Non-terminal events are held for a short window; if another event for the same backend id
+ *     arrives in that time, the held event has been superseded and is dropped.</li>
+ *     <li>Terminal events are sent immediately, and discard any held event for the same backend id.
+ *     Holding and sending happen under a per-id lock, so nothing that arrived before a terminal
+ *     event can be sent after it.</li>
+ * </ul>
+ */
+@Slf4j
+public class ContainerEventCoalescer {
+    public static final long DEFAULT_WINDOW_MILLIS = 500L;
+    private static final int NUMBER_LOCKS = 1024;
+
+    private final Consumer<ContainerEvent> downstream;
+    private final long windowMillis;
+    private final Map<String, ContainerEvent> held = new ConcurrentHashMap<>();
+    @SuppressWarnings("UnstableApiUsage")
+    private final Striped<Lock> locks = Striped.lazyWeakLock(NUMBER_LOCKS);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("container-event-coalescer-%d").setDaemon(true).build());
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+
+    public ContainerEventCoalescer(final Consumer<ContainerEvent> downstream) {
+        this(downstream, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public ContainerEventCoalescer(final Consumer<ContainerEvent> downstream, final long windowMillis) {
+        this.downstream = downstream;
+        this.windowMillis = windowMillis;
+    }
+
+    public void offer(@Nonnull final ContainerEvent event) {
+        received.incrementAndGet();
+        final String backendId = event.backendId();
+        if (isIgnorable(event)) {
+            ignored.incrementAndGet();
+            log.debug("Dropping ignorable container event {}", event);
+            return;
+        }
+        if (backendId == null) {
+            forward(event);
+            return;
+        }
+
+        @SuppressWarnings("UnstableApiUsage")
+        final Lock lock = locks.get(backendId);
+        lock.lock();
+        try {
+            if (event.isExitStatus()) {
+                final ContainerEvent previous = held.remove(backendId);
+                if (previous != null) {
+                    superseded.incrementAndGet();
+                    log.debug("Dropping container event {}, superseded by terminal event", previous);
+                }
+                forward(event);
+            } else {
+                final ContainerEvent previous = held.put(backendId, event);
+                if (previous == null) {
+                    scheduler.schedule(() -> release(backendId), windowMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    superseded.incrementAndGet();
+                    log.debug("Dropping container event {}, superseded by {}", previous, event);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Send everything we are holding right away.
+     */
+    public void flush() {
+        for (final String backendId : held.keySet()) {
+            release(backendId);
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        scheduler.shutdown();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getIgnoredCount() {
+        return ignored.get();
+    }
+
+    public long getSupersededCount() {
+        return superseded.get();
+    }
+
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    private void release(final String backendId) {
+        @SuppressWarnings("UnstableApiUsage")
+        final Lock lock = locks.get(backendId);
+        lock.lock();
+        try {
+            final ContainerEvent event = held.remove(backendId);
+            if (event != null) {
+                forward(event);
+            }
+        } catch (Exception e) {
+            log.error("Unable to send container event for {}", backendId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forward(final ContainerEvent event) {
+        forwarded.incrementAndGet();
+        downstream.accept(event);
+        if (log.isTraceEnabled()) {
+            log.trace("Container events received {}, ignored {}, superseded {}, forwarded {}",
+                    received.get(), ignored.get(), superseded.get(), forwarded.get());
+        }
+    }
+
+    private static boolean isIgnorable(final ContainerEvent event) {
+        return event instanceof DockerContainerEvent && ((DockerContainerEvent) event).isIgnoreStatus();
+    }
+}
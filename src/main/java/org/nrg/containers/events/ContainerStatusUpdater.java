@@ -3,7 +3,10 @@ package org.nrg.containers.events;
 import com.github.dockerjava.api.model.TaskState;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.api.DockerControlApi;
+import org.nrg.containers.api.KubernetesClient;
 import org.nrg.containers.api.KubernetesClientFactory;
 import org.nrg.containers.events.model.DockerContainerEvent;
 import org.nrg.containers.events.model.ServiceTaskEvent;
@@ -17,8 +20,10 @@ import org.nrg.containers.exceptions.TaskNotFoundException;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.auto.ServiceTask;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.services.DockerServerService;
+import org.nrg.containers.services.impl.ContainerServiceImpl;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.services.NrgEventServiceI;
 import org.nrg.xdat.security.helpers.Users;
@@ -32,6 +37,9 @@ import javax.annotation.Nonnull;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -43,7 +51,15 @@ public class ContainerStatusUpdater implements Runnable {
     private final NrgEventServiceI eventService;
     private final XnatAppInfo xnatAppInfo;
     private final KubernetesClientFactory kubernetesClientFactory;
+    private final SwarmPrefsBean swarmPrefsBean;
 
+    private static final long KUBERNETES_RECONCILE_INTERVAL_MILLIS = 60 * 1000L;
+    private static final long SWARM_ORPHAN_CHECK_INTERVAL_MILLIS = 10 * 60 * 1000L;
+    // A service is only an orphan once it is old enough that saving its container can't still be in progress
+    private static final long SWARM_ORPHAN_MIN_AGE_MILLIS = 10 * 60 * 1000L;
+
+    private long lastKubernetesReconcile = 0L;
+    private long lastSwarmOrphanCheck = 0L;
     private boolean haveLoggedDockerConnectFailure = false;
     private boolean haveLoggedNoServerInDb = false;
     private boolean haveLoggedXftInitFailure = false;
@@ -55,13 +71,15 @@ public class ContainerStatusUpdater implements Runnable {
                                   final DockerServerService dockerServerService,
                                   final NrgEventServiceI eventService,
                                   final XnatAppInfo xnatAppInfo,
-                                  final KubernetesClientFactory kubernetesClientFactory) {
+                                  final KubernetesClientFactory kubernetesClientFactory,
+                                  final SwarmPrefsBean swarmPrefsBean) {
         this.containerControlApi = containerControlApi;
         this.containerService = containerService;
         this.dockerServerService = dockerServerService;
         this.eventService = eventService;
         this.xnatAppInfo = xnatAppInfo;
         this.kubernetesClientFactory = kubernetesClientFactory;
+        this.swarmPrefsBean = swarmPrefsBean;
     }
 
     @Override
@@ -163,13 +181,44 @@ public class ContainerStatusUpdater implements Runnable {
             case DOCKER:
                 return checkForDockerContainerUpdatesAndThrowEvents(server);
             case KUBERNETES:
-                try {
-                    // Make sure the informer is running. It will handle throwing events on its own.
-                    kubernetesClientFactory.getKubernetesClient().start();
-                } catch (NoContainerServerException e) {
-                    return UpdateReport.singleton(UpdateReportEntry.failure(null, e.getMessage()));
-                }
+                return checkForKubernetesJobUpdatesAndThrowEvents();
+        }
+        return UpdateReport.singleton(UpdateReportEntry.success());
+    }
+
+    @Nonnull
+    private UpdateReport checkForKubernetesJobUpdatesAndThrowEvents() {
+        final KubernetesClient kubernetesClient;
+        try {
+            kubernetesClient = kubernetesClientFactory.getKubernetesClient();
+        } catch (NoContainerServerException e) {
+            return UpdateReport.singleton(UpdateReportEntry.failure(null, e.getMessage()));
+        }
+
+        // Make sure the informer is running. It will handle throwing events on its own.
+        kubernetesClient.start();
+
+        // The informer only hears about changes that happen while it is watching. Anything that changed while
+        // XNAT was down, or while the watch was broken, we find by comparing its caches with the database:
+        // as soon as it has synced, then every so often.
+        final long now = System.currentTimeMillis();
+        if (now - lastKubernetesReconcile < KUBERNETES_RECONCILE_INTERVAL_MILLIS || !kubernetesClient.hasSynced()) {
+            return UpdateReport.singleton(UpdateReportEntry.success());
+        }
+        final Map<String, String> statusesByJobName = containerService.retrieveNonfinalizedKubernetesJobStatuses();
+        final int thrown = kubernetesClient.reconcile(statusesByJobName);
+        if (thrown >= 0) {
+            lastKubernetesReconcile = now;
+            log.debug("Reconciled kubernetes jobs, threw {} events", thrown);
+        }
 
+        // Jobs we saved a name for but stopped before creating
+        final Set<String> created = statusesByJobName.entrySet().stream()
+                .filter(entry -> ContainerServiceImpl.CREATED.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        for (final String jobName : kubernetesClient.findMissingJobs(created)) {
+            containerService.launchPendingKubernetesJob(jobName);
         }
         return UpdateReport.singleton(UpdateReportEntry.success());
     }
@@ -240,9 +289,18 @@ public class ContainerStatusUpdater implements Runnable {
                     }
                     report.add(UpdateReportEntry.success(service.serviceId()));
                 } catch (ServiceNotFoundException e) {
-                    // Service not found despite container being active: throw a restart event
                     log.debug("Cannot find service {} \"{}\".", service.databaseId(), service.serviceId());
-                    throwRestartEventForService(service);
+                    if (ContainerServiceImpl.CREATED.equals(service.status()) &&
+                            Boolean.TRUE.equals(swarmPrefsBean.getDirectServiceLaunch()) &&
+                            DockerControlApi.isDirectLaunchServiceName(service.serviceId())) {
+                        // Its name was saved, but the service was never created, or the create is still under way.
+                        // Creating it under the same name is safe either way. A service created the old way, at zero
+                        // replicas to wait for its setup containers, has a swarm ID instead and is not relaunched.
+                        containerService.launchPendingSwarmService(service.serviceId());
+                    } else {
+                        // Service not found despite container being active: throw a restart event
+                        throwRestartEventForService(service);
+                    }
                     report.add(UpdateReportEntry.success(service.serviceId()));
                 } catch (TaskNotFoundException e) {
                     log.error("Cannot get tasks for service {} \"{}\".", service.databaseId(), service.serviceId());
@@ -258,6 +316,12 @@ public class ContainerStatusUpdater implements Runnable {
             }
         }
 
+        final long now = System.currentTimeMillis();
+        if (now - lastSwarmOrphanCheck >= SWARM_ORPHAN_CHECK_INTERVAL_MILLIS) {
+            lastSwarmOrphanCheck = now;
+            removeOrphanedSwarmServices(now);
+        }
+
         return report.finish();
     }
 
@@ -337,6 +401,32 @@ public class ContainerStatusUpdater implements Runnable {
         }
     }
 
+    /**
+     * Remove the services we created that no container refers to, by ID or by name. These are left behind when
+     * XNAT stops, or saving fails, after a service is created but before its container is saved.
+     */
+    private void removeOrphanedSwarmServices(final long now) {
+        try {
+            final Map<String, String> serviceNames = containerControlApi.getSwarmServiceNames(new Date(now - SWARM_ORPHAN_MIN_AGE_MILLIS));
+            for (final Map.Entry<String, String> entry : serviceNames.entrySet()) {
+                final String serviceId = entry.getKey();
+                final String serviceName = entry.getValue();
+                if (containerService.retrieve(serviceId) != null ||
+                        (StringUtils.isNotBlank(serviceName) && containerService.retrieve(serviceName) != null)) {
+                    continue;
+                }
+                log.info("Removing swarm service {} \"{}\", which no container refers to.", serviceId, serviceName);
+                try {
+                    containerControlApi.removeSwarmService(serviceId);
+                } catch (NotFoundException e) {
+                    log.debug("Swarm service {} is already gone", serviceId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Could not check for orphaned swarm services", e);
+        }
+    }
+
     private void throwLostTaskEventForService(@Nonnull final Container service) {
         final ServiceTask task = ServiceTask.builder()
                 .serviceId(service.serviceId())
@@ -2,6 +2,7 @@ package org.nrg.containers.events.listeners;
 
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.config.ContainersConfig;
+import org.nrg.containers.events.ContainerEventCoalescer;
 import org.nrg.containers.events.model.ContainerEvent;
 import org.nrg.containers.jms.utils.QueueUtils;
 import org.nrg.containers.services.ContainerService;
@@ -13,6 +14,8 @@ import reactor.bus.Event;
 import reactor.bus.EventBus;
 import reactor.fn.Consumer;
 
+import javax.annotation.PreDestroy;
+
 import static reactor.bus.selector.Selectors.type;
 
 @Slf4j
@@ -20,6 +23,7 @@ import static reactor.bus.selector.Selectors.type;
 public class ContainerEventListener implements Consumer<Event<ContainerEvent>> {
     private final ContainerService containerService;
     private final JmsTemplate      template;
+    private final ContainerEventCoalescer coalescer;
 
     /**
      * Constructor for the ContainerEventListener.
@@ -42,12 +46,21 @@ public class ContainerEventListener implements Consumer<Event<ContainerEvent>> {
         eventBus.on(type(ContainerEvent.class), this);
         this.containerService = containerService;
         this.template         = template;
+        this.coalescer        = template == null ? null :
+                new ContainerEventCoalescer(event -> QueueUtils.sendJmsRequest(template, ContainerEvent.QUEUE, event));
     }
 
     @Override
     public void accept(final Event<ContainerEvent> containerEventEvent) {
-        if (template != null) {
-            QueueUtils.sendJmsRequest(template, ContainerEvent.QUEUE, containerEventEvent.getData());
+        if (coalescer != null) {
+            coalescer.offer(containerEventEvent.getData());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
         }
     }
 
@@ -0,0 +1,38 @@
+package org.nrg.containers.events.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.utils.ContainerServicePermissionUtils;
+import org.nrg.xdat.om.XnatProjectdata;
+import org.nrg.xft.event.XftItemEventI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.bus.Event;
+import reactor.bus.EventBus;
+import reactor.fn.Consumer;
+
+import static reactor.bus.selector.Selectors.type;
+
+/**
+ * Clears the cached permission decisions in {@link ContainerServicePermissionUtils} when something that feeds them
+ * changes: users, groups, roles, and element access (all "xdat:" types), or a project's accessibility.
+ */
+@Slf4j
+@Component
+public class PermissionCacheInvalidationListener implements Consumer<Event<XftItemEventI>> {
+    private static final String XDAT_PREFIX = "xdat:";
+
+    @Autowired
+    public PermissionCacheInvalidationListener(final EventBus eventBus) {
+        eventBus.on(type(XftItemEventI.class), this);
+    }
+
+    @Override
+    public void accept(final Event<XftItemEventI> event) {
+        final String xsiType = event.getData().getXsiType();
+        if (StringUtils.startsWithIgnoreCase(xsiType, XDAT_PREFIX) || XnatProjectdata.SCHEMA_ELEMENT_NAME.equals(xsiType)) {
+            log.debug("Item of type {} changed, clearing cached permission decisions", xsiType);
+            ContainerServicePermissionUtils.invalidatePermissionCaches();
+        }
+    }
+}
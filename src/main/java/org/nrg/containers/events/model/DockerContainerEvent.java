@@ -12,7 +12,8 @@ import java.util.regex.Pattern;
 public abstract class DockerContainerEvent implements ContainerEvent, Serializable {
     private static final long serialVersionUID = -6676309798270638416L;
 
-    private static final Pattern ignoreStatusPattern = Pattern.compile("kill|destroy");
+    private static final Pattern ignoreStatusPattern = Pattern.compile(
+            "kill|destroy|attach|detach|resize|top|export|commit|copy|rename|archive-path|extract-to-dir|exec_.*");
     private static final Pattern exitStatusPattern = Pattern.compile("die");
 
     public abstract String status();
@@ -21,7 +22,8 @@ public abstract class DockerContainerEvent implements ContainerEvent, Serializab
     public abstract ImmutableMap<String, String> attributes();
 
     public boolean isIgnoreStatus() {
-        // These statuses come after "die" and thus we want to ignore them
+        // Kill and destroy come after "die" and thus we want to ignore them.
+        // The rest are actions on a container that don't change its status.
         final String status = status();
         return status != null && ignoreStatusPattern.matcher(status).matches();
     }
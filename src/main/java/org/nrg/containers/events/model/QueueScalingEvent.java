@@ -0,0 +1,52 @@
+package org.nrg.containers.events.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import org.nrg.framework.event.EventI;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+
+/**
+ * Thrown by {@link org.nrg.containers.jms.tasks.QueueConcurrencyAutoscaler} every time it
+ * changes the number of consumers on a JMS listener. Carries the inputs that drove the decision.
+ */
+@AutoValue
+public abstract class QueueScalingEvent implements EventI {
+    private static final long serialVersionUID = -2180427011391623876L;
+
+    @JsonProperty("queue") public abstract String queue();
+    @JsonProperty("timestamp") public abstract Date timestamp();
+    @JsonProperty("previous-concurrent-consumers") public abstract int previousConcurrentConsumers();
+    @JsonProperty("previous-max-concurrent-consumers") public abstract int previousMaxConcurrentConsumers();
+    @JsonProperty("concurrent-consumers") public abstract int concurrentConsumers();
+    @JsonProperty("max-concurrent-consumers") public abstract int maxConcurrentConsumers();
+    @JsonProperty("queue-depth") public abstract int queueDepth();
+    @JsonProperty("average-processing-millis") public abstract double averageProcessingMillis();
+    @Nullable @JsonProperty("db-pool-active") public abstract Integer dbPoolActive();
+    @Nullable @JsonProperty("db-pool-max") public abstract Integer dbPoolMax();
+    @JsonProperty("running-containers") public abstract int runningContainers();
+    @JsonProperty("reason") public abstract String reason();
+
+    public static Builder builder() {
+        return new AutoValue_QueueScalingEvent.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder queue(String queue);
+        public abstract Builder timestamp(Date timestamp);
+        public abstract Builder previousConcurrentConsumers(int previousConcurrentConsumers);
+        public abstract Builder previousMaxConcurrentConsumers(int previousMaxConcurrentConsumers);
+        public abstract Builder concurrentConsumers(int concurrentConsumers);
+        public abstract Builder maxConcurrentConsumers(int maxConcurrentConsumers);
+        public abstract Builder queueDepth(int queueDepth);
+        public abstract Builder averageProcessingMillis(double averageProcessingMillis);
+        public abstract Builder dbPoolActive(Integer dbPoolActive);
+        public abstract Builder dbPoolMax(Integer dbPoolMax);
+        public abstract Builder runningContainers(int runningContainers);
+        public abstract Builder reason(String reason);
+
+        public abstract QueueScalingEvent build();
+    }
+}
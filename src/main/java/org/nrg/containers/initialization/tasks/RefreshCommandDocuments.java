@@ -0,0 +1,59 @@
+package org.nrg.containers.initialization.tasks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.services.CommandDocumentService;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.nrg.framework.orm.DatabaseHelper;
+import org.nrg.xnat.initialization.tasks.AbstractInitializingTask;
+import org.nrg.xnat.initialization.tasks.InitializingTaskException;
+import org.nrg.xnat.services.XnatAppInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+@Component
+@Slf4j
+public class RefreshCommandDocuments extends AbstractInitializingTask {
+
+    @Autowired
+    public RefreshCommandDocuments(final XnatAppInfo appInfo,
+                                   final JdbcTemplate template,
+                                   final CommandDocumentService commandDocumentService,
+                                   final CommandCatalog commandCatalog) {
+        super();
+        this.appInfo                = appInfo;
+        this.databaseHelper         = new DatabaseHelper(template);
+        this.commandDocumentService = commandDocumentService;
+        this.commandCatalog         = commandCatalog;
+    }
+
+    @Override
+    public String getTaskName() {
+        return "RefreshCommandDocuments";
+    }
+
+    @Override
+    protected void callImpl() throws InitializingTaskException {
+        try {
+            if (!appInfo.isInitialized() || !databaseHelper.tableExists(COMMAND_DOCUMENT_TABLE_NAME)) {
+                throw new InitializingTaskException(InitializingTaskException.Level.RequiresInitialization);
+            }
+        } catch (SQLException e) {
+            throw new InitializingTaskException(InitializingTaskException.Level.RequiresInitialization);
+        }
+        try {
+            commandDocumentService.refreshDocuments().forEach(commandCatalog::commandChanged);
+        } catch (Exception e) {
+            log.error("Encountered while refreshing command documents", e);
+            throw new InitializingTaskException(InitializingTaskException.Level.Error);
+        }
+    }
+
+    private final XnatAppInfo appInfo;
+    private final DatabaseHelper databaseHelper;
+    private final CommandDocumentService commandDocumentService;
+    private final CommandCatalog commandCatalog;
+    private final String COMMAND_DOCUMENT_TABLE_NAME = "xhbm_command_document_entity";
+}
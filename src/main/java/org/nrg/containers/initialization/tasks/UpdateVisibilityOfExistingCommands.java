@@ -2,6 +2,8 @@ package org.nrg.containers.initialization.tasks;
 
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.model.command.entity.CommandVisibility;
+import org.nrg.containers.services.CommandDocumentService;
+import org.nrg.containers.services.impl.CommandCatalog;
 import org.nrg.framework.orm.DatabaseHelper;
 import org.nrg.xft.schema.XFTManager;
 import org.nrg.xnat.initialization.tasks.AbstractInitializingTask;
@@ -11,16 +13,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @Slf4j
 public class UpdateVisibilityOfExistingCommands extends AbstractInitializingTask {
 
     @Autowired
-    public UpdateVisibilityOfExistingCommands(final XnatAppInfo appInfo, final JdbcTemplate template) {
+    public UpdateVisibilityOfExistingCommands(final XnatAppInfo appInfo, final JdbcTemplate template,
+                                              final CommandDocumentService commandDocumentService,
+                                              final CommandCatalog commandCatalog) {
         super();
         this.appInfo                   = appInfo;
         this.databaseHelper            = new DatabaseHelper(template);
         this.jdbcTemplate              = template;
+        this.commandDocumentService    = commandDocumentService;
+        this.commandCatalog            = commandCatalog;
     }
 
     @Override
@@ -34,8 +42,14 @@ public class UpdateVisibilityOfExistingCommands extends AbstractInitializingTask
             if (!appInfo.isInitialized() || !XFTManager.isComplete()) {
                 throw new InitializingTaskException(InitializingTaskException.Level.RequiresInitialization);
             }
+            final List<Long> commandIds = jdbcTemplate.queryForList("SELECT id FROM " + COMMAND_ENTITY_TABLE_NAME + " where " + VISIBILITY_COLUMN + " is null", Long.class);
+            if (commandIds.isEmpty()) {
+                return;
+            }
             jdbcTemplate.execute("UPDATE " + COMMAND_ENTITY_TABLE_NAME + " SET " + VISIBILITY_COLUMN + " = 0 where " + VISIBILITY_COLUMN + " is null");
             log.debug("Table " + COMMAND_ENTITY_TABLE_NAME + " updated. Set the " + VISIBILITY_COLUMN + " column value to " + CommandVisibility.PUBLIC_CONTAINER);
+            // The command documents were written from the rows we just changed
+            commandDocumentService.refreshDocuments(commandIds).forEach(commandCatalog::commandChanged);
         } catch(Exception e) {
             log.error("Encountered while setting visibility column value",e);
             throw new InitializingTaskException(InitializingTaskException.Level.Error);
@@ -45,6 +59,8 @@ public class UpdateVisibilityOfExistingCommands extends AbstractInitializingTask
     private final JdbcTemplate jdbcTemplate;
     private final DatabaseHelper databaseHelper;
     private final XnatAppInfo appInfo;
+    private final CommandDocumentService commandDocumentService;
+    private final CommandCatalog commandCatalog;
     private final String COMMAND_ENTITY_TABLE_NAME = "xhbm_command_entity";
     private final String VISIBILITY_COLUMN = "visibility_type";
 
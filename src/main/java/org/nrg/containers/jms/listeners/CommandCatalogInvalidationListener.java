@@ -0,0 +1,43 @@
+package org.nrg.containers.jms.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.containers.jms.requests.CommandCatalogInvalidation;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.jms.Destination;
+
+/**
+ * Keeps the {@link CommandCatalog} on every node in step. Local changes go out on a topic, so every node
+ * receives them; each node reloads the changed command from the database.
+ */
+@Slf4j
+@Component
+public class CommandCatalogInvalidationListener {
+    private final CommandCatalog catalog;
+
+    @Autowired
+    public CommandCatalogInvalidationListener(final CommandCatalog catalog,
+                                              final JmsTemplate template,
+                                              @Qualifier(CommandCatalogInvalidation.DESTINATION) final Destination topic) {
+        this.catalog = catalog;
+        catalog.setInvalidationPublisher(commandId ->
+                template.convertAndSend(topic, new CommandCatalogInvalidation(catalog.getOrigin(), commandId)));
+    }
+
+    @JmsListener(containerFactory = ContainersConfig.CACHE_INVALIDATION_TOPIC_LISTENER_FACTORY,
+                 destination = CommandCatalogInvalidation.DESTINATION)
+    public void onRequest(final CommandCatalogInvalidation invalidation) {
+        if (catalog.getOrigin().equals(invalidation.getOrigin())) {
+            return;
+        }
+        log.debug("Command {} changed on another node, updating the command catalog",
+                invalidation.getCommandId() == null ? "catalog" : invalidation.getCommandId());
+        catalog.onRemoteInvalidation(invalidation.getCommandId());
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.config.ContainersConfig;
 import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.jms.requests.ContainerFinalizingRequest;
+import org.nrg.containers.jms.utils.QueueProcessingTimes;
 import org.nrg.containers.jms.utils.QueueUtils;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.services.ContainerService;
@@ -21,12 +22,15 @@ import org.springframework.stereotype.Component;
 public class ContainerFinalizingRequestListener {
     private final ContainerService containerService;
     private final UserManagementServiceI userManagementServiceI;
+    private final QueueProcessingTimes processingTimes;
 
     @Autowired
     public ContainerFinalizingRequestListener(ContainerService containerService,
-                                              UserManagementServiceI userManagementServiceI) {
+                                              UserManagementServiceI userManagementServiceI,
+                                              QueueProcessingTimes processingTimes) {
         this.containerService = containerService;
         this.userManagementServiceI = userManagementServiceI;
+        this.processingTimes = processingTimes;
     }
 
     @JmsListener(id = ContainersConfig.FINALIZING_QUEUE_CONTAINER_ID,
@@ -34,13 +38,18 @@ public class ContainerFinalizingRequestListener {
             destination = ContainerFinalizingRequest.DESTINATION)
     public void onRequest(ContainerFinalizingRequest request)
             throws UserNotFoundException, NotFoundException, UserInitException, ContainerException {
-        Container container = containerService.get(request.getId());
-        UserI user = userManagementServiceI.getUser(request.getUsername());
-        if (log.isDebugEnabled()) {
-            log.debug("Consuming finalizing queue: count {}, exitcode {}, is successful {}, id {}, username {}, status {}",
-                    QueueUtils.count(request.getDestination()), request.getExitCodeString(), request.isSuccessful(), request.getId(), request.getUsername(), container.status());
+        final long start = System.currentTimeMillis();
+        try {
+            Container container = containerService.get(request.getId());
+            UserI user = userManagementServiceI.getUser(request.getUsername());
+            if (log.isDebugEnabled()) {
+                log.debug("Consuming finalizing queue: count {}, exitcode {}, is successful {}, id {}, username {}, status {}",
+                        QueueUtils.count(request.getDestination()), request.getExitCodeString(), request.isSuccessful(), request.getId(), request.getUsername(), container.status());
+            }
+            containerService.consumeFinalize(request.getExitCodeString(), request.isSuccessful(), container, user);
+        } finally {
+            processingTimes.record(ContainerFinalizingRequest.DESTINATION, start);
         }
-        containerService.consumeFinalize(request.getExitCodeString(), request.isSuccessful(), container, user);
     }
 
 }
@@ -3,6 +3,7 @@ package org.nrg.containers.jms.listeners;
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.config.ContainersConfig;
 import org.nrg.containers.jms.requests.ContainerStagingRequest;
+import org.nrg.containers.jms.utils.QueueProcessingTimes;
 import org.nrg.containers.jms.utils.QueueUtils;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.xdat.security.services.UserManagementServiceI;
@@ -18,12 +19,15 @@ import org.springframework.stereotype.Component;
 public class ContainerStagingRequestListener {
     private final ContainerService containerService;
     private final UserManagementServiceI userManagementServiceI;
+    private final QueueProcessingTimes processingTimes;
 
     @Autowired
     public ContainerStagingRequestListener(ContainerService containerService,
-                                           UserManagementServiceI userManagementServiceI) {
+                                           UserManagementServiceI userManagementServiceI,
+                                           QueueProcessingTimes processingTimes) {
         this.containerService = containerService;
         this.userManagementServiceI = userManagementServiceI;
+        this.processingTimes = processingTimes;
     }
 
 
@@ -31,6 +35,7 @@ public class ContainerStagingRequestListener {
             containerFactory = ContainersConfig.STAGING_QUEUE_LISTENER_FACTORY,
             destination = ContainerStagingRequest.DESTINATION)
     public void onRequest(final ContainerStagingRequest request) {
+        final long start = System.currentTimeMillis();
         UserI user;
         try {
             user = userManagementServiceI.getUser(request.getUsername());
@@ -48,9 +53,13 @@ public class ContainerStagingRequestListener {
                 request.getWrapperId(), request.getCommandId(), request.getWrapperName(),
                 request.getInputValues(), request.getUsername(), request.getWorkflowId());
 
-        containerService.consumeResolveCommandAndLaunchContainer(request.getProject(), request.getWrapperId(),
-                request.getCommandId(), request.getWrapperName(), request.getInputValues(),
-                user, request.getWorkflowId());
+        try {
+            containerService.consumeResolveCommandAndLaunchContainer(request.getProject(), request.getWrapperId(),
+                    request.getCommandId(), request.getWrapperName(), request.getInputValues(),
+                    user, request.getWorkflowId());
+        } finally {
+            processingTimes.record(ContainerStagingRequest.DESTINATION, start);
+        }
     }
 
 }
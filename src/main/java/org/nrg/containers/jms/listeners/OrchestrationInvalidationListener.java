@@ -0,0 +1,41 @@
+package org.nrg.containers.jms.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.containers.jms.requests.OrchestrationInvalidation;
+import org.nrg.containers.services.impl.OrchestrationIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.jms.Destination;
+
+/**
+ * Keeps the {@link OrchestrationIndex} on every node in step with orchestration changes.
+ */
+@Slf4j
+@Component
+public class OrchestrationInvalidationListener {
+    private final OrchestrationIndex index;
+
+    @Autowired
+    public OrchestrationInvalidationListener(final OrchestrationIndex index,
+                                             final JmsTemplate template,
+                                             @Qualifier(OrchestrationInvalidation.DESTINATION) final Destination topic) {
+        this.index = index;
+        index.setInvalidationPublisher(() ->
+                template.convertAndSend(topic, new OrchestrationInvalidation(index.getOrigin())));
+    }
+
+    @JmsListener(containerFactory = ContainersConfig.CACHE_INVALIDATION_TOPIC_LISTENER_FACTORY,
+                 destination = OrchestrationInvalidation.DESTINATION)
+    public void onRequest(final OrchestrationInvalidation invalidation) {
+        if (index.getOrigin().equals(invalidation.getOrigin())) {
+            return;
+        }
+        log.debug("Orchestrations changed on another node, dropping the orchestration index");
+        index.invalidate();
+    }
+}
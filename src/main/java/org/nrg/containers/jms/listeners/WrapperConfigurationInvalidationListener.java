@@ -0,0 +1,41 @@
+package org.nrg.containers.jms.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.containers.jms.requests.WrapperConfigurationInvalidation;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.jms.Destination;
+
+/**
+ * Keeps the {@link WrapperEnablementIndex} on every node in step with wrapper configuration changes.
+ */
+@Slf4j
+@Component
+public class WrapperConfigurationInvalidationListener {
+    private final WrapperEnablementIndex index;
+
+    @Autowired
+    public WrapperConfigurationInvalidationListener(final WrapperEnablementIndex index,
+                                                    final JmsTemplate template,
+                                                    @Qualifier(WrapperConfigurationInvalidation.DESTINATION) final Destination topic) {
+        this.index = index;
+        index.setInvalidationPublisher(key ->
+                template.convertAndSend(topic, new WrapperConfigurationInvalidation(index.getOrigin(), key.scope, key.project, key.wrapperId)));
+    }
+
+    @JmsListener(containerFactory = ContainersConfig.CACHE_INVALIDATION_TOPIC_LISTENER_FACTORY,
+                 destination = WrapperConfigurationInvalidation.DESTINATION)
+    public void onRequest(final WrapperConfigurationInvalidation invalidation) {
+        if (index.getOrigin().equals(invalidation.getOrigin())) {
+            return;
+        }
+        log.debug("Configuration for wrapper {} changed on another node, updating the enablement index", invalidation.getWrapperId());
+        index.onRemoteInvalidation(invalidation.getScope(), invalidation.getProject(), invalidation.getWrapperId());
+    }
+}
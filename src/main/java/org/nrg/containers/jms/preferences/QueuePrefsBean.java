@@ -24,6 +24,10 @@ public class QueuePrefsBean extends EventTriggeringAbstractPreferenceBean {
     private static final String maxFinalizingPrefName = "concurrencyMaxFinalizingQueue";
     private static final String minStagingPrefName = "concurrencyMinStagingQueue";
     private static final String maxStagingPrefName = "concurrencyMaxStagingQueue";
+    private static final String autoscaleEnabledPrefName = "autoscaleEnabled";
+    private static final String autoscaleTargetDrainSecondsPrefName = "autoscaleTargetDrainSeconds";
+    private static final String autoscaleMaxDbPoolPercentPrefName = "autoscaleMaxDbPoolPercent";
+    private static final String autoscaleBackendCapacityPrefName = "autoscaleBackendCapacity";
 
     @Autowired
     public QueuePrefsBean(final NrgPreferenceService preferenceService,
@@ -69,4 +73,54 @@ public class QueuePrefsBean extends EventTriggeringAbstractPreferenceBean {
     public void setConcurrencyMaxStagingQueue(Integer value) throws InvalidPreferenceName {
         setIntegerValue(value, maxStagingPrefName);
     }
+
+    /**
+     * When true, {@link org.nrg.containers.jms.tasks.QueueConcurrencyAutoscaler} adjusts staging and finalizing
+     * consumer counts between the min and max concurrency settings above.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getAutoscaleEnabled() {
+        return getBooleanValue(autoscaleEnabledPrefName);
+    }
+
+    public void setAutoscaleEnabled(Boolean value) throws InvalidPreferenceName {
+        setBooleanValue(value, autoscaleEnabledPrefName);
+    }
+
+    /**
+     * The autoscaler sizes each queue's consumers so the current backlog would drain in about this many seconds.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.QUEUE_AUTOSCALE_TARGET_DRAIN_SECONDS_DFLT)
+    public Integer getAutoscaleTargetDrainSeconds() {
+        return getIntegerValue(autoscaleTargetDrainSecondsPrefName);
+    }
+
+    public void setAutoscaleTargetDrainSeconds(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, autoscaleTargetDrainSecondsPrefName);
+    }
+
+    /**
+     * Share of the database connection pool (in percent) that staging and finalizing consumers together may occupy.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.QUEUE_AUTOSCALE_MAX_DB_POOL_PERCENT_DFLT)
+    public Integer getAutoscaleMaxDbPoolPercent() {
+        return getIntegerValue(autoscaleMaxDbPoolPercentPrefName);
+    }
+
+    public void setAutoscaleMaxDbPoolPercent(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, autoscaleMaxDbPoolPercentPrefName);
+    }
+
+    /**
+     * Number of nonfinalized containers the backend can run at once. When it is reached, the staging queue is held
+     * at its minimum concurrency. Zero means unlimited.
+     */
+    @NrgPreference(defaultValue = "0")
+    public Integer getAutoscaleBackendCapacity() {
+        return getIntegerValue(autoscaleBackendCapacityPrefName);
+    }
+
+    public void setAutoscaleBackendCapacity(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, autoscaleBackendCapacityPrefName);
+    }
 }
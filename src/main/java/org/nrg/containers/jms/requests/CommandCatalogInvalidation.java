@@ -0,0 +1,24 @@
+package org.nrg.containers.jms.requests;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Broadcast to every node when a command changes, so each node's
+ * {@link org.nrg.containers.services.impl.CommandCatalog} can reload it.
+ * A null command id means the whole catalog should be dropped.
+ */
+@Data
+public class CommandCatalogInvalidation implements Serializable {
+    public static final String DESTINATION = "containerServiceCommandCatalogTopic";
+
+    private static final long serialVersionUID = -5263420383934874251L;
+
+    private final String origin;
+    private final Long   commandId;
+
+    public String getDestination() {
+        return DESTINATION;
+    }
+}
@@ -0,0 +1,22 @@
+package org.nrg.containers.jms.requests;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Broadcast to every node when an orchestration or a project's orchestration changes, so each node's
+ * {@link org.nrg.containers.services.impl.OrchestrationIndex} is dropped and loaded again.
+ */
+@Data
+public class OrchestrationInvalidation implements Serializable {
+    public static final String DESTINATION = "containerServiceOrchestrationTopic";
+
+    private static final long serialVersionUID = -1484379106153427762L;
+
+    private final String origin;
+
+    public String getDestination() {
+        return DESTINATION;
+    }
+}
@@ -0,0 +1,26 @@
+package org.nrg.containers.jms.requests;
+
+import lombok.Data;
+import org.nrg.framework.constants.Scope;
+
+import java.io.Serializable;
+
+/**
+ * Broadcast to every node when a wrapper's site or project configuration changes, so each node's
+ * {@link org.nrg.containers.services.impl.WrapperEnablementIndex} can re-read it.
+ */
+@Data
+public class WrapperConfigurationInvalidation implements Serializable {
+    public static final String DESTINATION = "containerServiceWrapperConfigurationTopic";
+
+    private static final long serialVersionUID = 4410675276871962617L;
+
+    private final String origin;
+    private final Scope  scope;
+    private final String project;
+    private final long   wrapperId;
+
+    public String getDestination() {
+        return DESTINATION;
+    }
+}
@@ -8,7 +8,9 @@ import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.action.ClientException;
 import org.nrg.action.ServerException;
+import org.nrg.containers.events.model.QueueScalingEvent;
 import org.nrg.containers.jms.preferences.QueuePrefsBean;
+import org.nrg.containers.jms.tasks.QueueConcurrencyAutoscaler;
 import org.nrg.containers.security.ContainerManagerUserAuthorization;
 import org.nrg.framework.annotations.XapiRestController;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
@@ -24,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.nrg.xdat.security.helpers.AccessLevel.Authorizer;
@@ -34,13 +37,16 @@ import static org.nrg.xdat.security.helpers.AccessLevel.Authorizer;
 @Slf4j
 public class QueueSettingsRestApi extends AbstractXapiRestController {
     private final QueuePrefsBean queuePrefsBean;
+    private final QueueConcurrencyAutoscaler queueConcurrencyAutoscaler;
 
     @Autowired
     public QueueSettingsRestApi(QueuePrefsBean queuePrefsBean,
+                                final QueueConcurrencyAutoscaler queueConcurrencyAutoscaler,
                                 final UserManagementServiceI userManagementService,
                                 final RoleHolder roleHolder) {
         super(userManagementService, roleHolder);
         this.queuePrefsBean = queuePrefsBean;
+        this.queueConcurrencyAutoscaler = queueConcurrencyAutoscaler;
     }
 
     @AuthDelegate(ContainerManagerUserAuthorization.class)
@@ -73,5 +79,16 @@ public class QueueSettingsRestApi extends AbstractXapiRestController {
             throw new ServerException(e.getMessage());
         }
     }
-}
 
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Returns the most recent consumer scaling decisions made by the queue autoscaler, newest first.",
+            response = QueueScalingEvent.class, responseContainer = "List")
+    @ApiResponses({@ApiResponse(code = 200, message = "Scaling decisions successfully retrieved."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(value = "/scaling", produces = {MediaType.APPLICATION_JSON_VALUE}, method = RequestMethod.GET, restrictTo = Authorizer)
+    @ResponseBody
+    public List<QueueScalingEvent> getScalingDecisions() {
+        return queueConcurrencyAutoscaler.getRecentDecisions();
+    }
+}
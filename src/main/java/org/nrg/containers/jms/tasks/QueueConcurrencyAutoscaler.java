@@ -0,0 +1,324 @@
+package org.nrg.containers.jms.tasks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.containers.events.model.QueueScalingEvent;
+import org.nrg.containers.jms.preferences.QueuePrefsBean;
+import org.nrg.containers.jms.requests.ContainerFinalizingRequest;
+import org.nrg.containers.jms.requests.ContainerStagingRequest;
+import org.nrg.containers.jms.utils.QueueDepths;
+import org.nrg.containers.jms.utils.QueueProcessingTimes;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.framework.services.NrgEventServiceI;
+import org.nrg.xft.schema.XFTManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Periodically resizes the staging and finalizing JMS listeners.
+ *
+ * <p>The target consumer count is what it would take to drain the current backlog within
+ * {@link QueuePrefsBean#getAutoscaleTargetDrainSeconds()}, given the recent average processing time. It stays
+ * within the min/max concurrency preferences and is further capped so that staging and finalizing together use no more
+ * than {@link QueuePrefsBean#getAutoscaleMaxDbPoolPercent()} of the database pool, staging is held at its minimum
+ * while the backend is at capacity, and finalizing never exceeds the server's finalizing throttle.</p>
+ *
+ * <p>We never lower a listener's max below the number of consumers it currently has scheduled. Forcing a busy
+ * consumer to shut down is what lost messages in CS-1037. Lowering the core count lets the listener retire consumers
+ * only once they have gone idle, which is the same path the idle receive limit in {@link ContainersConfig} uses.</p>
+ */
+@Slf4j
+@Component
+public class QueueConcurrencyAutoscaler implements Runnable {
+    private static final int DECISION_HISTORY_SIZE = 100;
+
+    private final JmsListenerEndpointRegistry listenerEndpointRegistry;
+    private final QueuePrefsBean queuePrefs;
+    private final QueueProcessingTimes processingTimes;
+    private final QueueDepths queueDepths;
+    private final ContainerEntityService containerEntityService;
+    private final ContainerControlApi containerControlApi;
+    private final NrgEventServiceI eventService;
+    private final DataSource dataSource;
+
+    private final Deque<QueueScalingEvent> recentDecisions = new ConcurrentLinkedDeque<>();
+    private volatile boolean haveLoggedXftInitFailure = false;
+
+    @Autowired
+    public QueueConcurrencyAutoscaler(final JmsListenerEndpointRegistry listenerEndpointRegistry,
+                                      final QueuePrefsBean queuePrefs,
+                                      final QueueProcessingTimes processingTimes,
+                                      final QueueDepths queueDepths,
+                                      final ContainerEntityService containerEntityService,
+                                      final ContainerControlApi containerControlApi,
+                                      final NrgEventServiceI eventService,
+                                      final DataSource dataSource) {
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.queuePrefs = queuePrefs;
+        this.processingTimes = processingTimes;
+        this.queueDepths = queueDepths;
+        this.containerEntityService = containerEntityService;
+        this.containerControlApi = containerControlApi;
+        this.eventService = eventService;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void run() {
+        if (!Boolean.TRUE.equals(queuePrefs.getAutoscaleEnabled())) {
+            return;
+        }
+
+        if (!XFTManager.isInitialized()) {
+            if (!haveLoggedXftInitFailure) {
+                log.info("XFT is not initialized, skipping queue autoscaler task");
+                haveLoggedXftInitFailure = true;
+            }
+            return;
+        }
+
+        final DefaultMessageListenerContainer staging = getListener(ContainersConfig.STAGING_QUEUE_CONTAINER_ID);
+        final DefaultMessageListenerContainer finalizing = getListener(ContainersConfig.FINALIZING_QUEUE_CONTAINER_ID);
+        if (staging == null || finalizing == null) {
+            log.debug("Staging or finalizing listener is not registered on this node, skipping queue autoscaler task");
+            return;
+        }
+
+        log.trace("Queue autoscaler task running");
+        final Integer[] dbPool = dbPoolUsage();
+        final Integer dbPoolActive = dbPool[0];
+        final Integer dbPoolMax = dbPool[1];
+        final int runningContainers = containerEntityService.howManyContainersAreNonfinalized();
+        final Integer dbShare = dbPoolMax == null ? null :
+                Math.max(1, dbPoolMax * queuePrefs.getAutoscaleMaxDbPoolPercent() / 100);
+
+        // Staging: protect the database, and don't launch more than the backend can run
+        int stagingCeiling = queuePrefs.getConcurrencyMaxStagingQueue();
+        String stagingLimit = "max concurrency";
+        if (dbShare != null) {
+            final int dbCeiling = dbCeiling(dbShare, dbPoolActive, dbPoolMax, staging, finalizing);
+            if (dbCeiling < stagingCeiling) {
+                stagingCeiling = dbCeiling;
+                stagingLimit = "database pool";
+            }
+        }
+        final Integer backendCapacity = queuePrefs.getAutoscaleBackendCapacity();
+        if (backendCapacity != null && backendCapacity > 0 && runningContainers >= backendCapacity &&
+                queuePrefs.getConcurrencyMinStagingQueue() < stagingCeiling) {
+            stagingCeiling = queuePrefs.getConcurrencyMinStagingQueue();
+            stagingLimit = "backend capacity";
+        }
+        resize(ContainerStagingRequest.DESTINATION, staging,
+                queuePrefs.getConcurrencyMinStagingQueue(), queuePrefs.getConcurrencyMaxStagingQueue(),
+                stagingCeiling, stagingLimit, dbPoolActive, dbPoolMax, runningContainers);
+
+        // Finalizing: protect the database and archive I/O
+        int finalizingCeiling = queuePrefs.getConcurrencyMaxFinalizingQueue();
+        String finalizingLimit = "max concurrency";
+        if (dbShare != null) {
+            final int dbCeiling = dbCeiling(dbShare, dbPoolActive, dbPoolMax, finalizing, staging);
+            if (dbCeiling < finalizingCeiling) {
+                finalizingCeiling = dbCeiling;
+                finalizingLimit = "database pool";
+            }
+        }
+        final Integer finalizingThrottle = containerControlApi.getFinalizingThrottle();
+        if (finalizingThrottle != null && finalizingThrottle < finalizingCeiling) {
+            finalizingCeiling = finalizingThrottle;
+            finalizingLimit = "archive finalizing throttle";
+        }
+        resize(ContainerFinalizingRequest.DESTINATION, finalizing,
+                queuePrefs.getConcurrencyMinFinalizingQueue(), queuePrefs.getConcurrencyMaxFinalizingQueue(),
+                finalizingCeiling, finalizingLimit, dbPoolActive, dbPoolMax, runningContainers);
+
+        haveLoggedXftInitFailure = false;
+        log.trace("Queue autoscaler task done");
+    }
+
+    /**
+     * @return The most recent scaling decisions, newest first
+     */
+    @Nonnull
+    public List<QueueScalingEvent> getRecentDecisions() {
+        return new ArrayList<>(recentDecisions);
+    }
+
+    private void resize(final String queue,
+                        final DefaultMessageListenerContainer listener,
+                        final int minConcurrency,
+                        final int maxConcurrency,
+                        final int ceiling,
+                        final String limit,
+                        final Integer dbPoolActive,
+                        final Integer dbPoolMax,
+                        final int runningContainers) {
+        final int queueDepth = queueDepths.depth(queue);
+        final double averageMillis = processingTimes.averageMillis(queue);
+        final int previousConcurrent = listener.getConcurrentConsumers();
+        final int previousMax = listener.getMaxConcurrentConsumers();
+
+        final Sizing sizing = size(minConcurrency, maxConcurrency, ceiling, queueDepth, averageMillis,
+                queuePrefs.getAutoscaleTargetDrainSeconds(), listener.getScheduledConsumerCount());
+        if (sizing.concurrentConsumers == previousConcurrent && sizing.maxConcurrentConsumers == previousMax) {
+            log.trace("Queue {}: keeping {}-{} consumers", queue, previousConcurrent, previousMax);
+            return;
+        }
+
+        listener.setConcurrentConsumers(sizing.concurrentConsumers);
+        listener.setMaxConcurrentConsumers(sizing.maxConcurrentConsumers);
+
+        final String reason = sizing.concurrentConsumers > previousConcurrent ? "Backlog growing" :
+                sizing.concurrentConsumers < previousConcurrent ? "Backlog shrinking" : "Ceiling changed";
+        final QueueScalingEvent decision = QueueScalingEvent.builder()
+                .queue(queue)
+                .timestamp(new Date())
+                .previousConcurrentConsumers(previousConcurrent)
+                .previousMaxConcurrentConsumers(previousMax)
+                .concurrentConsumers(sizing.concurrentConsumers)
+                .maxConcurrentConsumers(sizing.maxConcurrentConsumers)
+                .queueDepth(queueDepth)
+                .averageProcessingMillis(averageMillis)
+                .dbPoolActive(dbPoolActive)
+                .dbPoolMax(dbPoolMax)
+                .runningContainers(runningContainers)
+                .reason(reason + "; limited by " + limit)
+                .build();
+        log.info("Queue {}: scaling consumers from {}-{} to {}-{}. Depth {}, average {} ms. {}", queue,
+                previousConcurrent, previousMax, sizing.concurrentConsumers, sizing.maxConcurrentConsumers,
+                queueDepth, Math.round(averageMillis), decision.reason());
+
+        recentDecisions.addFirst(decision);
+        while (recentDecisions.size() > DECISION_HISTORY_SIZE) {
+            recentDecisions.pollLast();
+        }
+        eventService.triggerEvent(decision);
+    }
+
+    /**
+     * Work out how many consumers a listener should have.
+     *
+     * @param minConcurrency     Configured minimum
+     * @param maxConcurrency     Configured maximum
+     * @param ceiling            Protective cap from the database, backend, or archive, if lower than the max
+     * @param queueDepth         Messages waiting on the queue
+     * @param averageMillis      Recent average processing time, 0 if unknown
+     * @param targetDrainSeconds How quickly we would like the backlog to clear
+     * @param scheduledConsumers Consumers the listener currently has running
+     * @return Core and max consumer counts to apply
+     */
+    static Sizing size(final int minConcurrency,
+                       final int maxConcurrency,
+                       final int ceiling,
+                       final int queueDepth,
+                       final double averageMillis,
+                       final int targetDrainSeconds,
+                       final int scheduledConsumers) {
+        final int upper = Math.max(1, Math.min(maxConcurrency, ceiling));
+        final int lower = Math.min(Math.max(1, minConcurrency), upper);
+
+        final long needed;
+        if (queueDepth <= 0) {
+            needed = lower;
+        } else if (averageMillis <= 0 || targetDrainSeconds <= 0) {
+            // We don't know how long a request takes yet; give each waiting message its own consumer
+            needed = queueDepth;
+        } else {
+            needed = (long) Math.ceil(queueDepth * averageMillis / (targetDrainSeconds * 1000.0));
+        }
+
+        final int concurrentConsumers = (int) Math.max(lower, Math.min(upper, needed));
+        // Lowering the max below what is scheduled would stop busy consumers; wait for them to go idle instead
+        final int maxConcurrentConsumers = Math.max(upper, Math.min(scheduledConsumers, maxConcurrency));
+        return new Sizing(concurrentConsumers, maxConcurrentConsumers);
+    }
+
+    /**
+     * Cap one listener so that it and the other listener fit in our share of the database pool.
+     * If the pool is already exhausted, don't add consumers at all.
+     */
+    private static int dbCeiling(final int dbShare,
+                                 final Integer dbPoolActive,
+                                 final Integer dbPoolMax,
+                                 final DefaultMessageListenerContainer listener,
+                                 final DefaultMessageListenerContainer other) {
+        final int ceiling = Math.max(1, dbShare - other.getScheduledConsumerCount());
+        if (dbPoolActive != null && dbPoolActive >= dbPoolMax) {
+            return Math.max(1, Math.min(ceiling, listener.getScheduledConsumerCount()));
+        }
+        return ceiling;
+    }
+
+    @Nullable
+    private DefaultMessageListenerContainer getListener(final String id) {
+        final MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(id);
+        return container instanceof DefaultMessageListenerContainer ? (DefaultMessageListenerContainer) container : null;
+    }
+
+    /**
+     * XNAT lets the site choose its connection pool, so we can't compile against one. Look for the
+     * accessors that the commons-dbcp2 and HikariCP pools expose.
+     *
+     * @return Active and maximum connections, either of which may be null if the pool doesn't tell us
+     */
+    private Integer[] dbPoolUsage() {
+        try {
+            // commons-dbcp2 BasicDataSource
+            final Integer active = invokeInteger(dataSource, "getNumActive");
+            final Integer max = invokeInteger(dataSource, "getMaxTotal");
+            if (max != null && max > 0) {
+                return new Integer[]{active, max};
+            }
+
+            // HikariDataSource
+            final Integer hikariMax = invokeInteger(dataSource, "getMaximumPoolSize");
+            final Object hikariPool = invoke(dataSource, "getHikariPoolMXBean");
+            if (hikariMax != null && hikariMax > 0) {
+                return new Integer[]{hikariPool == null ? null : invokeInteger(hikariPool, "getActiveConnections"), hikariMax};
+            }
+        } catch (Exception e) {
+            log.debug("Unable to read database connection pool usage", e);
+        }
+        return new Integer[]{null, null};
+    }
+
+    @Nullable
+    private static Integer invokeInteger(final Object target, final String methodName) throws Exception {
+        final Object value = invoke(target, methodName);
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    @Nullable
+    private static Object invoke(final Object target, final String methodName) throws Exception {
+        final Method method;
+        try {
+            method = target.getClass().getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return method.invoke(target);
+    }
+
+    static class Sizing {
+        final int concurrentConsumers;
+        final int maxConcurrentConsumers;
+
+        Sizing(final int concurrentConsumers, final int maxConcurrentConsumers) {
+            this.concurrentConsumers = concurrentConsumers;
+            this.maxConcurrentConsumers = maxConcurrentConsumers;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.nrg.containers.jms.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+/**
+ * Reads how many messages wait on a queue from the broker's own statistics, which it keeps as messages come and go.
+ * {@link QueueUtils#count(String)} browses every message instead, which takes longer the deeper the queue gets.
+ *
+ * <p>An embedded broker publishes its queues as MBeans in our JVM. A remote broker answers with its statistics if it
+ * has the statistics broker plugin; if it does not, we fall back to browsing.</p>
+ */
+@Slf4j
+@Component
+public class QueueDepths {
+    private static final String QUEUE_MBEAN_PATTERN = "org.apache.activemq:type=Broker,brokerName=*,destinationType=Queue,destinationName=";
+    private static final String STATISTICS_DESTINATION_PREFIX = "ActiveMQ.Statistics.Destination.";
+    private static final long STATISTICS_TIMEOUT_MILLIS = 1000L;
+
+    private final JmsTemplate jmsTemplate;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private volatile boolean statisticsPluginMissing = false;
+
+    @Autowired
+    public QueueDepths(final JmsTemplate jmsTemplate) {
+        this.jmsTemplate = jmsTemplate;
+    }
+
+    /**
+     * @return The number of messages waiting on the queue
+     */
+    public int depth(final String destination) {
+        final Long fromMBean = fromMBean(destination);
+        if (fromMBean != null) {
+            return fromMBean.intValue();
+        }
+
+        if (!statisticsPluginMissing) {
+            final Long fromStatistics = fromStatisticsPlugin(destination);
+            if (fromStatistics != null) {
+                return fromStatistics.intValue();
+            }
+            log.info("The message broker did not answer a statistics request for queue {}. Queue depths will be " +
+                    "counted by browsing the queue, which is slower; enable the broker's statistics plugin to avoid this.",
+                    destination);
+            statisticsPluginMissing = true;
+        }
+
+        return QueueUtils.count(destination);
+    }
+
+    @Nullable
+    private Long fromMBean(final String destination) {
+        try {
+            final Set<ObjectName> names = mBeanServer.queryNames(new ObjectName(QUEUE_MBEAN_PATTERN + destination), null);
+            if (names.isEmpty()) {
+                return null;
+            }
+            final Object size = mBeanServer.getAttribute(names.iterator().next(), "QueueSize");
+            return size instanceof Number ? ((Number) size).longValue() : null;
+        } catch (Exception e) {
+            log.debug("Could not read the size of queue {} from its MBean", destination, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Long fromStatisticsPlugin(final String destination) {
+        try {
+            return jmsTemplate.execute(session -> requestStatistics(session, destination), true);
+        } catch (Exception e) {
+            log.debug("Could not request statistics for queue {} from the broker", destination, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Long requestStatistics(final Session session, final String destination) throws JMSException {
+        final TemporaryQueue replyTo = session.createTemporaryQueue();
+        final MessageConsumer consumer = session.createConsumer(replyTo);
+        try {
+            final MessageProducer producer = session.createProducer(session.createQueue(STATISTICS_DESTINATION_PREFIX + destination));
+            try {
+                final Message request = session.createMessage();
+                request.setJMSReplyTo(replyTo);
+                producer.send(request);
+            } finally {
+                producer.close();
+            }
+            final Message reply = consumer.receive(STATISTICS_TIMEOUT_MILLIS);
+            return reply instanceof MapMessage && ((MapMessage) reply).itemExists("size") ?
+                    ((MapMessage) reply).getLong("size") : null;
+        } finally {
+            consumer.close();
+            replyTo.delete();
+        }
+    }
+}
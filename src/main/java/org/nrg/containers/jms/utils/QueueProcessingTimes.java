@@ -0,0 +1,34 @@
+package org.nrg.containers.jms.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks how long our JMS listeners take to handle a request, per destination.
+ * The average is exponentially weighted so it follows recent load rather than
+ * the whole lifetime of the JVM.
+ */
+@Slf4j
+@Component
+public class QueueProcessingTimes {
+    private static final double WEIGHT_OF_NEWEST = 0.2;
+
+    private final ConcurrentMap<String, Double> averageMillis = new ConcurrentHashMap<>();
+
+    public void record(final String destination, final long startMillis) {
+        final long elapsed = Math.max(0L, System.currentTimeMillis() - startMillis);
+        averageMillis.merge(destination, (double) elapsed,
+                (previous, latest) -> previous + WEIGHT_OF_NEWEST * (latest - previous));
+        log.trace("Request on queue {} took {} ms", destination, elapsed);
+    }
+
+    /**
+     * @return Average processing time in milliseconds, or 0 if we have not processed anything from the destination yet
+     */
+    public double averageMillis(final String destination) {
+        return averageMillis.getOrDefault(destination, 0.0);
+    }
+}
@@ -0,0 +1,50 @@
+package org.nrg.containers.model.command.auto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The commands a user can launch on a given context in every one of several projects,
+ * e.g. when launching on a set of search results that spans projects.
+ *
+ * <p>{@link #available()} holds the wrappers that can be launched in all the projects; a summary is only
+ * {@link CommandSummaryForContext#enabled() enabled} if the wrapper is enabled in all of them.
+ * {@link #reasons()} says, per project, why any other wrapper for the context was left out or is not enabled.</p>
+ */
+@AutoValue
+public abstract class CommandAvailabilityForProjects implements Serializable {
+    private static final long serialVersionUID = 3217640905418276118L;
+
+    @Nullable @JsonProperty("xsi-type") public abstract String xsiType();
+    @JsonProperty("projects") public abstract ImmutableList<String> projects();
+    @JsonProperty("available") public abstract ImmutableList<CommandSummaryForContext> available();
+    @JsonProperty("reasons") public abstract ImmutableMap<String, ImmutableMap<Long, String>> reasons();
+
+    @JsonCreator
+    public static CommandAvailabilityForProjects create(@JsonProperty("xsi-type") final String xsiType,
+                                                        @JsonProperty("projects") final List<String> projects,
+                                                        @JsonProperty("available") final List<CommandSummaryForContext> available,
+                                                        @JsonProperty("reasons") final Map<String, ? extends Map<Long, String>> reasons) {
+        final ImmutableMap.Builder<String, ImmutableMap<Long, String>> reasonsCopy = ImmutableMap.builder();
+        if (reasons != null) {
+            for (final Map.Entry<String, ? extends Map<Long, String>> entry : reasons.entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    reasonsCopy.put(entry.getKey(), ImmutableMap.copyOf(entry.getValue()));
+                }
+            }
+        }
+        return new AutoValue_CommandAvailabilityForProjects(
+                xsiType,
+                projects == null ? ImmutableList.<String>of() : ImmutableList.copyOf(projects),
+                available == null ? ImmutableList.<CommandSummaryForContext>of() : ImmutableList.copyOf(available),
+                reasonsCopy.build());
+    }
+}
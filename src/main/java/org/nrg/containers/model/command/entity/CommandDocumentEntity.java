@@ -0,0 +1,91 @@
+package org.nrg.containers.model.command.entity;
+
+import com.google.common.base.MoreObjects;
+import org.hibernate.annotations.Type;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One version of a command, stored as a single JSON document.
+ *
+ * <p>{@link CommandEntity} and its wrappers, inputs, outputs, mounts, and so on remain the place commands are
+ * written and validated. Every time a command is saved, its full definition is also written here as a new
+ * version, so the command can be read back with a single row fetch. Rows are never changed after they are
+ * written; the most recent versions of each command are kept and older ones are pruned when a new one is saved.</p>
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"commandId", "version"})})
+public class CommandDocumentEntity extends AbstractHibernateEntity implements Serializable {
+    private static final long serialVersionUID = 6051338723019450853L;
+
+    private long commandId;
+    private long version;
+    private String document;
+
+    public CommandDocumentEntity() {}
+
+    public CommandDocumentEntity(final long commandId, final long version, final String document) {
+        this.commandId = commandId;
+        this.version = version;
+        this.document = document;
+    }
+
+    @Column(nullable = false)
+    public long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final long commandId) {
+        this.commandId = commandId;
+    }
+
+    @Column(nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
+    // Use fully-qualified name until we add a TypeDef to AbstractHibernateEntity - See XNAT-7172
+    @Type(type = "com.vladmihalcea.hibernate.type.json.JsonType")
+    @Column(columnDefinition = "jsonb")
+    public String getDocument() {
+        return document;
+    }
+
+    public void setDocument(final String document) {
+        this.document = document;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final CommandDocumentEntity that = (CommandDocumentEntity) o;
+        return commandId == that.commandId &&
+                version == that.version &&
+                Objects.equals(document, that.document);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(commandId, version, document);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", getId())
+                .add("commandId", commandId)
+                .add("version", version)
+                .toString();
+    }
+}
@@ -0,0 +1,69 @@
+package org.nrg.containers.model.container;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.framework.configuration.ConfigPaths;
+import org.nrg.framework.services.NrgEventServiceI;
+import org.nrg.framework.utilities.OrderedProperties;
+import org.nrg.prefs.annotations.NrgPreference;
+import org.nrg.prefs.annotations.NrgPreferenceBean;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.prefs.services.NrgPreferenceService;
+import org.nrg.xdat.preferences.EventTriggeringAbstractPreferenceBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@Slf4j
+@NrgPreferenceBean(toolId = "container-archive",
+        toolName = "Container Archive Preferences",
+        description = "Retention preferences for finalized Container Service containers")
+public class ContainerArchivePrefsBean extends EventTriggeringAbstractPreferenceBean {
+
+    private static final String archiveEnabledPrefName = "archiveEnabled";
+    private static final String archiveAfterDaysPrefName = "archiveAfterDays";
+    private static final String archiveBatchSizePrefName = "archiveBatchSize";
+
+    @Autowired
+    public ContainerArchivePrefsBean(final NrgPreferenceService preferenceService,
+                                     final NrgEventServiceI eventService,
+                                     final ConfigPaths configPaths,
+                                     final OrderedProperties initPrefs) {
+        super(preferenceService, eventService, configPaths, initPrefs);
+    }
+
+    /**
+     * When true, {@link org.nrg.containers.tasks.ContainerArchiveTask} moves the records of old finalized containers
+     * into the archive.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getArchiveEnabled() {
+        return getBooleanValue(archiveEnabledPrefName);
+    }
+
+    public void setArchiveEnabled(Boolean value) throws InvalidPreferenceName {
+        setBooleanValue(value, archiveEnabledPrefName);
+    }
+
+    /**
+     * Finalized containers that have not been updated in this many days are archived.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.ARCHIVE_AFTER_DAYS_DFLT)
+    public Integer getArchiveAfterDays() {
+        return getIntegerValue(archiveAfterDaysPrefName);
+    }
+
+    public void setArchiveAfterDays(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, archiveAfterDaysPrefName);
+    }
+
+    /**
+     * Maximum number of containers archived each time the archive task runs.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.ARCHIVE_BATCH_SIZE_DFLT)
+    public Integer getArchiveBatchSize() {
+        return getIntegerValue(archiveBatchSizePrefName);
+    }
+
+    public void setArchiveBatchSize(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, archiveBatchSizePrefName);
+    }
+}
@@ -0,0 +1,57 @@
+package org.nrg.containers.model.container.auto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import org.nrg.containers.model.server.docker.Backend;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * The columns of a container that list views need. Read with a projection query,
+ * so none of the container's collections (history, mounts, inputs, ...) are loaded.
+ */
+@AutoValue
+public abstract class ContainerSummary implements Serializable {
+    private static final long serialVersionUID = -6043184713985370145L;
+
+    @JsonProperty("id") public abstract long databaseId();
+    @JsonProperty("command-id") public abstract long commandId();
+    @JsonProperty("wrapper-id") public abstract long wrapperId();
+    @Nullable @JsonProperty("status") public abstract String status();
+    @Nullable @JsonProperty("status-time") public abstract Date statusTime();
+    @Nullable @JsonProperty("workflow-id") public abstract String workflowId();
+    @JsonProperty("user-id") public abstract String userId();
+    @Nullable @JsonProperty("project") public abstract String project();
+    @JsonProperty("backend") public abstract Backend backend();
+    @Nullable @JsonProperty("docker-image") public abstract String dockerImage();
+    @Nullable @JsonProperty("container-name") public abstract String containerName();
+    @Nullable @JsonProperty("subtype") public abstract String subtype();
+    @Nullable @JsonProperty("created") public abstract Date created();
+    @JsonProperty("timestamp") public abstract Date timestamp();
+
+    public static Builder builder() {
+        return new AutoValue_ContainerSummary.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder databaseId(long databaseId);
+        public abstract Builder commandId(long commandId);
+        public abstract Builder wrapperId(long wrapperId);
+        public abstract Builder status(String status);
+        public abstract Builder statusTime(Date statusTime);
+        public abstract Builder workflowId(String workflowId);
+        public abstract Builder userId(String userId);
+        public abstract Builder project(String project);
+        public abstract Builder backend(Backend backend);
+        public abstract Builder dockerImage(String dockerImage);
+        public abstract Builder containerName(String containerName);
+        public abstract Builder subtype(String subtype);
+        public abstract Builder created(Date created);
+        public abstract Builder timestamp(Date timestamp);
+
+        public abstract ContainerSummary build();
+    }
+}
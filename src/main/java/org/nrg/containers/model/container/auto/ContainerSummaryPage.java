@@ -0,0 +1,23 @@
+package org.nrg.containers.model.container.auto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * One page of {@link ContainerSummary}s. Pass {@link #next()} as the {@code after} parameter
+ * to get the following page; it is null on the last page.
+ */
+@AutoValue
+public abstract class ContainerSummaryPage {
+    @JsonProperty("containers") public abstract ImmutableList<ContainerSummary> containers();
+    @Nullable @JsonProperty("next") public abstract String next();
+
+    public static ContainerSummaryPage create(final List<ContainerSummary> containers,
+                                              final String next) {
+        return new AutoValue_ContainerSummaryPage(ImmutableList.copyOf(containers), next);
+    }
+}
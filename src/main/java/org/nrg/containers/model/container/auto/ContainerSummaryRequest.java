@@ -0,0 +1,86 @@
+package org.nrg.containers.model.container.auto;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Filters and position for a keyset-paginated container listing.
+ *
+ * <p>Containers are returned newest first, ordered on {@code id}. A page is located by the {@code id} of the last
+ * row of the previous page (the "cursor") rather than by an offset, so reading a deep page costs the same as reading
+ * the first one. The timestamp changes whenever a container's status does, so it can't order the pages.</p>
+ */
+@AutoValue
+public abstract class ContainerSummaryRequest {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    @Nullable public abstract String project();
+    public abstract ImmutableList<String> statuses();
+    @Nullable public abstract Long wrapperId();
+    @Nullable public abstract String userId();
+    @Nullable public abstract Date since();
+    @Nullable public abstract Date until();
+    public abstract boolean nonfinalized();
+    @Nullable public abstract Long afterId();
+    public abstract int limit();
+
+    public static Builder builder() {
+        return new AutoValue_ContainerSummaryRequest.Builder()
+                .statuses(ImmutableList.<String>of())
+                .nonfinalized(false)
+                .limit(DEFAULT_LIMIT);
+    }
+
+    public abstract Builder toBuilder();
+
+    /**
+     * @return the cursor that selects the rows after the given one
+     */
+    public static String cursor(final ContainerSummary last) {
+        return String.valueOf(last.databaseId());
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder project(String project);
+        public abstract Builder statuses(List<String> statuses);
+        public abstract Builder wrapperId(Long wrapperId);
+        public abstract Builder userId(String userId);
+        public abstract Builder since(Date since);
+        public abstract Builder until(Date until);
+        public abstract Builder nonfinalized(boolean nonfinalized);
+        public abstract Builder afterId(Long afterId);
+        public abstract Builder limit(int limit);
+
+        /**
+         * @param cursor a value returned as {@link ContainerSummaryPage#next()}, or blank for the first page
+         * @throws IllegalArgumentException if the cursor can't be read
+         */
+        public Builder after(final String cursor) {
+            if (StringUtils.isBlank(cursor)) {
+                return afterId(null);
+            }
+            try {
+                return afterId(Long.parseLong(cursor));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor \"" + cursor + "\"", e);
+            }
+        }
+
+        abstract ContainerSummaryRequest autoBuild();
+
+        public ContainerSummaryRequest build() {
+            final ContainerSummaryRequest request = autoBuild();
+            if (request.limit() < 1 || request.limit() > MAX_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+            }
+            return request;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.nrg.containers.model.container.entity;
+
+import com.google.common.base.MoreObjects;
+import org.hibernate.annotations.Type;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The full record of an archived container, stored as a single JSON document.
+ *
+ * <p>When a finalized container is archived, its {@link ContainerEntity} row stays where it is as a summary,
+ * but its history, inputs, outputs, mounts, environment, labels, and other collections are removed and
+ * kept here instead.</p>
+ */
+@Entity
+public class ContainerArchiveEntity extends AbstractHibernateEntity implements Serializable {
+    private static final long serialVersionUID = -3580244410236271049L;
+
+    private long containerDatabaseId;
+    private String document;
+
+    public ContainerArchiveEntity() {}
+
+    public ContainerArchiveEntity(final long containerDatabaseId, final String document) {
+        this.containerDatabaseId = containerDatabaseId;
+        this.document = document;
+    }
+
+    @Column(unique = true, nullable = false)
+    public long getContainerDatabaseId() {
+        return containerDatabaseId;
+    }
+
+    public void setContainerDatabaseId(final long containerDatabaseId) {
+        this.containerDatabaseId = containerDatabaseId;
+    }
+
+    // Use fully-qualified name until we add a TypeDef to AbstractHibernateEntity - See XNAT-7172
+    @Type(type = "com.vladmihalcea.hibernate.type.json.JsonType")
+    @Column(columnDefinition = "jsonb")
+    public String getDocument() {
+        return document;
+    }
+
+    public void setDocument(final String document) {
+        this.document = document;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerArchiveEntity that = (ContainerArchiveEntity) o;
+        return containerDatabaseId == that.containerDatabaseId &&
+                Objects.equals(document, that.document);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(containerDatabaseId, document);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", getId())
+                .add("containerDatabaseId", containerDatabaseId)
+                .toString();
+    }
+}
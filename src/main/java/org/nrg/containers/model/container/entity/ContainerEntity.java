@@ -18,8 +18,10 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -31,6 +33,14 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Entity
+@Table(indexes = {
+        // Support the keyset-paginated summary listing, which orders on id and filters on these
+        @Index(name = "container_entity_timestamp_idx", columnList = "timestamp"),
+        @Index(name = "container_entity_project_id_idx", columnList = "project, id"),
+        @Index(name = "container_entity_user_id_idx", columnList = "userId, id"),
+        @Index(name = "container_entity_wrapper_id_idx", columnList = "wrapperId, id"),
+        @Index(name = "container_entity_status_idx", columnList = "status")
+})
 @Slf4j
 public class ContainerEntity extends AbstractHibernateEntity implements Serializable {
     private static final long serialVersionUID = 2346142731253539259L;
@@ -165,6 +175,16 @@ public class ContainerEntity extends AbstractHibernateEntity implements Serializ
 
     @Transient
     public String mapStatus(String inStatus) {
+        return mapStatus(inStatus, swarm);
+    }
+
+    /**
+     * Map a raw backend status to the status we store on the container entity.
+     * @param inStatus the raw status
+     * @param swarm is the container a swarm service? Failure statuses are prefixed for services.
+     * @return the mapped status
+     */
+    public static String mapStatus(String inStatus, Boolean swarm) {
         if (inStatus == null) {
             return null;
         }
@@ -185,9 +205,9 @@ public class ContainerEntity extends AbstractHibernateEntity implements Serializ
             case "rejected":
             case "shutdown":
                 return prefixForService(PersistentWorkflowUtils.FAILED + " (" +
-                        StringUtils.capitalize(inStatus) + ")");
+                        StringUtils.capitalize(inStatus) + ")", swarm);
             case KILL_STATUS:
-                return prefixForService(PersistentWorkflowUtils.FAILED + " (Killed)");
+                return prefixForService(PersistentWorkflowUtils.FAILED + " (Killed)", swarm);
             case "failed":
                 return PersistentWorkflowUtils.FAILED;
             default:
@@ -195,8 +215,8 @@ public class ContainerEntity extends AbstractHibernateEntity implements Serializ
         }
     }
 
-    private String prefixForService(String inStatus) {
-        return swarm ? ContainerServiceImpl.WAITING + " (" +inStatus+ ")" : inStatus;
+    private static String prefixForService(String inStatus, Boolean swarm) {
+        return swarm != null && swarm ? ContainerServiceImpl.WAITING + " (" +inStatus+ ")" : inStatus;
     }
 
     /**
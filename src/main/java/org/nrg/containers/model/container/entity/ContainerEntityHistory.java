@@ -11,13 +11,16 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.Objects;
 
 @Slf4j
 @Entity
+@Table(indexes = {@Index(name = "container_entity_history_container_idx", columnList = "containerEntity")})
 public class ContainerEntityHistory implements Serializable {
     private static final long serialVersionUID = 1171911080376252532L;
     private long id;
@@ -0,0 +1,29 @@
+package org.nrg.containers.model.image.docker;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Something that happened to an image on the docker server: pull, tag, untag, delete, load, import, etc.
+ */
+@AutoValue
+public abstract class DockerImageEvent implements Serializable {
+    private static final long serialVersionUID = 1938563372251958312L;
+
+    public abstract String action();
+
+    /**
+     * @return The image id or name that docker reports for the event
+     */
+    @Nullable public abstract String image();
+    public abstract Date time();
+
+    public static DockerImageEvent create(final String action,
+                                          final String image,
+                                          final Date time) {
+        return new AutoValue_DockerImageEvent(action, image, time);
+    }
+}
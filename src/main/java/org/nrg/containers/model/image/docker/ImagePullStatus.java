@@ -0,0 +1,68 @@
+package org.nrg.containers.model.image.docker;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Where a pull of one image reference has got to, including the progress docker reports for each layer.
+ */
+@AutoValue
+public abstract class ImagePullStatus implements Serializable {
+    private static final long serialVersionUID = -2871354069237117042L;
+
+    public static final String QUEUED = "Queued";
+    public static final String PULLING = "Pulling";
+    public static final String WAITING_TO_RETRY = "Waiting to retry";
+    public static final String COMPLETE = "Complete";
+    public static final String FAILED = "Failed";
+
+    @JsonProperty("image") public abstract String image();
+    @JsonProperty("status") public abstract String status();
+    @JsonProperty("attempt") public abstract int attempt();
+    @JsonProperty("started") public abstract Date started();
+    @Nullable @JsonProperty("message") public abstract String message();
+    @JsonProperty("layers") public abstract ImmutableList<LayerProgress> layers();
+
+    @JsonCreator
+    public static ImagePullStatus create(@JsonProperty("image") final String image,
+                                         @JsonProperty("status") final String status,
+                                         @JsonProperty("attempt") final int attempt,
+                                         @JsonProperty("started") final Date started,
+                                         @JsonProperty("message") final String message,
+                                         @JsonProperty("layers") final List<LayerProgress> layers) {
+        return new AutoValue_ImagePullStatus(image, status, attempt, started, message,
+                ImmutableList.copyOf(layers == null ? Collections.<LayerProgress>emptyList() : layers));
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return COMPLETE.equals(status()) || FAILED.equals(status());
+    }
+
+    @AutoValue
+    public static abstract class LayerProgress implements Serializable {
+        private static final long serialVersionUID = 5090126617365318233L;
+
+        @JsonProperty("id") public abstract String id();
+        @Nullable @JsonProperty("status") public abstract String status();
+        @Nullable @JsonProperty("current") public abstract Long current();
+        @Nullable @JsonProperty("total") public abstract Long total();
+
+        @JsonCreator
+        public static LayerProgress create(@JsonProperty("id") final String id,
+                                           @JsonProperty("status") final String status,
+                                           @JsonProperty("current") final Long current,
+                                           @JsonProperty("total") final Long total) {
+            return new AutoValue_ImagePullStatus_LayerProgress(id, status, current, total);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.nrg.containers.model.kubernetes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.framework.configuration.ConfigPaths;
+import org.nrg.framework.services.NrgEventServiceI;
+import org.nrg.framework.utilities.OrderedProperties;
+import org.nrg.prefs.annotations.NrgPreference;
+import org.nrg.prefs.annotations.NrgPreferenceBean;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.prefs.services.NrgPreferenceService;
+import org.nrg.xdat.preferences.EventTriggeringAbstractPreferenceBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Limits on how much work the container service runs on a Kubernetes cluster at once. A limit of zero means no limit.
+ */
+@Slf4j
+@NrgPreferenceBean(toolId = "kubernetes-admission",
+        toolName = "Kubernetes Admission Preferences",
+        description = "Per-project, per-user and resource limits on running Container Service jobs in Kubernetes")
+public class KubernetesAdmissionPrefsBean extends EventTriggeringAbstractPreferenceBean {
+
+    private static final String admissionEnabledPrefName = "admissionEnabled";
+    private static final String maxJobsPerProjectPrefName = "maxJobsPerProject";
+    private static final String maxJobsPerUserPrefName = "maxJobsPerUser";
+    private static final String maxCpusPrefName = "maxCpus";
+    private static final String maxMemoryMbPrefName = "maxMemoryMb";
+    private static final String maxGpusPrefName = "maxGpus";
+
+    @Autowired
+    public KubernetesAdmissionPrefsBean(final NrgPreferenceService preferenceService,
+                                        final NrgEventServiceI eventService,
+                                        final ConfigPaths configPaths,
+                                        final OrderedProperties initPrefs) {
+        super(preferenceService, eventService, configPaths, initPrefs);
+    }
+
+    /**
+     * When true, jobs are created suspended and {@link org.nrg.containers.tasks.KubernetesAdmissionTask} lets them
+     * run as the limits below allow. When false, jobs run as soon as they are created.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getAdmissionEnabled() {
+        return getBooleanValue(admissionEnabledPrefName);
+    }
+
+    public void setAdmissionEnabled(Boolean value) throws InvalidPreferenceName {
+        setBooleanValue(value, admissionEnabledPrefName);
+    }
+
+    /**
+     * Most jobs running at once for any one project.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_JOBS_PER_PROJECT_DFLT)
+    public Integer getMaxJobsPerProject() {
+        return getIntegerValue(maxJobsPerProjectPrefName);
+    }
+
+    public void setMaxJobsPerProject(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxJobsPerProjectPrefName);
+    }
+
+    /**
+     * Most jobs running at once for any one user.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_JOBS_PER_USER_DFLT)
+    public Integer getMaxJobsPerUser() {
+        return getIntegerValue(maxJobsPerUserPrefName);
+    }
+
+    public void setMaxJobsPerUser(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxJobsPerUserPrefName);
+    }
+
+    /**
+     * Most CPUs, counted by the jobs' CPU limits, used by all running jobs together.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_CPUS_DFLT)
+    public Integer getMaxCpus() {
+        return getIntegerValue(maxCpusPrefName);
+    }
+
+    public void setMaxCpus(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxCpusPrefName);
+    }
+
+    /**
+     * Most memory in MB, counted by the jobs' memory reservations (or limits, if they reserve none), used by all
+     * running jobs together.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_MEMORY_MB_DFLT)
+    public Integer getMaxMemoryMb() {
+        return getIntegerValue(maxMemoryMbPrefName);
+    }
+
+    public void setMaxMemoryMb(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxMemoryMbPrefName);
+    }
+
+    /**
+     * Most GPUs used by all running jobs together.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_GPUS_DFLT)
+    public Integer getMaxGpus() {
+        return getIntegerValue(maxGpusPrefName);
+    }
+
+    public void setMaxGpus(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxGpusPrefName);
+    }
+}
@@ -0,0 +1,99 @@
+package org.nrg.containers.model.kubernetes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.config.ContainersConfig;
+import org.nrg.framework.configuration.ConfigPaths;
+import org.nrg.framework.services.NrgEventServiceI;
+import org.nrg.framework.utilities.OrderedProperties;
+import org.nrg.prefs.annotations.NrgPreference;
+import org.nrg.prefs.annotations.NrgPreferenceBean;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.prefs.services.NrgPreferenceService;
+import org.nrg.xdat.preferences.EventTriggeringAbstractPreferenceBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * How the container service talks to the Kubernetes API server. These apply to requests, not to the informers'
+ * watches, and take effect when the client is next created.
+ */
+@Slf4j
+@NrgPreferenceBean(toolId = "kubernetes-client",
+        toolName = "Kubernetes Client Preferences",
+        description = "Rate limits, retries and timeouts for Container Service requests to the Kubernetes API server")
+public class KubernetesClientPrefsBean extends EventTriggeringAbstractPreferenceBean {
+
+    private static final String requestsPerSecondPrefName = "requestsPerSecond";
+    private static final String requestBurstPrefName = "requestBurst";
+    private static final String maxThrottledRetriesPrefName = "maxThrottledRetries";
+    private static final String requestTimeoutSecondsPrefName = "requestTimeoutSeconds";
+    private static final String maxIdleConnectionsPrefName = "maxIdleConnections";
+
+    @Autowired
+    public KubernetesClientPrefsBean(final NrgPreferenceService preferenceService,
+                                     final NrgEventServiceI eventService,
+                                     final ConfigPaths configPaths,
+                                     final OrderedProperties initPrefs) {
+        super(preferenceService, eventService, configPaths, initPrefs);
+    }
+
+    /**
+     * Average number of requests per second sent to the API server. Zero means no limit.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_REQUESTS_PER_SECOND_DFLT)
+    public Integer getRequestsPerSecond() {
+        return getIntegerValue(requestsPerSecondPrefName);
+    }
+
+    public void setRequestsPerSecond(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, requestsPerSecondPrefName);
+    }
+
+    /**
+     * Number of requests that may be sent at once, above the average rate, after a quiet spell.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_REQUEST_BURST_DFLT)
+    public Integer getRequestBurst() {
+        return getIntegerValue(requestBurstPrefName);
+    }
+
+    public void setRequestBurst(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, requestBurstPrefName);
+    }
+
+    /**
+     * How many times a request the API server turns away with 429 Too Many Requests is sent again, after waiting as
+     * long as the server asks.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_THROTTLED_RETRIES_DFLT)
+    public Integer getMaxThrottledRetries() {
+        return getIntegerValue(maxThrottledRetriesPrefName);
+    }
+
+    public void setMaxThrottledRetries(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxThrottledRetriesPrefName);
+    }
+
+    /**
+     * Read timeout for requests. Watches have none.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_REQUEST_TIMEOUT_SECONDS_DFLT)
+    public Integer getRequestTimeoutSeconds() {
+        return getIntegerValue(requestTimeoutSecondsPrefName);
+    }
+
+    public void setRequestTimeoutSeconds(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, requestTimeoutSecondsPrefName);
+    }
+
+    /**
+     * Connections to the API server kept open between requests.
+     */
+    @NrgPreference(defaultValue = ContainersConfig.KUBERNETES_MAX_IDLE_CONNECTIONS_DFLT)
+    public Integer getMaxIdleConnections() {
+        return getIntegerValue(maxIdleConnectionsPrefName);
+    }
+
+    public void setMaxIdleConnections(Integer value) throws InvalidPreferenceName {
+        setIntegerValue(value, maxIdleConnectionsPrefName);
+    }
+}
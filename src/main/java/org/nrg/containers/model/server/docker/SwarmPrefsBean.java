@@ -0,0 +1,63 @@
+package org.nrg.containers.model.server.docker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.framework.configuration.ConfigPaths;
+import org.nrg.framework.services.NrgEventServiceI;
+import org.nrg.framework.utilities.OrderedProperties;
+import org.nrg.prefs.annotations.NrgPreference;
+import org.nrg.prefs.annotations.NrgPreferenceBean;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.prefs.services.NrgPreferenceService;
+import org.nrg.xdat.preferences.EventTriggeringAbstractPreferenceBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * How the container service launches services on a Docker Swarm.
+ */
+@Slf4j
+@NrgPreferenceBean(toolId = "swarm",
+        toolName = "Swarm Preferences",
+        description = "How Container Service launches services on Docker Swarm")
+public class SwarmPrefsBean extends EventTriggeringAbstractPreferenceBean {
+
+    private static final String directServiceLaunchPrefName = "directServiceLaunch";
+    private static final String prewarmImagesPrefName = "prewarmImages";
+
+    @Autowired
+    public SwarmPrefsBean(final NrgPreferenceService preferenceService,
+                          final NrgEventServiceI eventService,
+                          final ConfigPaths configPaths,
+                          final OrderedProperties initPrefs) {
+        super(preferenceService, eventService, configPaths, initPrefs);
+    }
+
+    /**
+     * When true, a service's name is saved as its ID and the service is then created with one replica, in one call to
+     * the swarm manager. When false, the service is created with no replicas, its ID saved, and it is started by
+     * inspecting it and updating it to one replica.
+     *
+     * <p>With this on, a service that is missing while its container is still "Created" is created again under the
+     * same name, rather than restarted.</p>
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getDirectServiceLaunch() {
+        return getBooleanValue(directServiceLaunchPrefName);
+    }
+
+    public void setDirectServiceLaunch(Boolean value) throws InvalidPreferenceName {
+        setBooleanValue(value, directServiceLaunchPrefName);
+    }
+
+    /**
+     * When true, the images of commands enabled in any project are pulled onto every swarm node that containers can
+     * be placed on, so the first job on a node does not wait for the pull.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getPrewarmImages() {
+        return getBooleanValue(prewarmImagesPrefName);
+    }
+
+    public void setPrewarmImages(Boolean value) throws InvalidPreferenceName {
+        setBooleanValue(value, prewarmImagesPrefName);
+    }
+}
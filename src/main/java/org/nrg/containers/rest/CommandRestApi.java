@@ -1,5 +1,6 @@
 package org.nrg.containers.rest;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Maps;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -14,6 +15,7 @@ import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.exceptions.UnauthorizedException;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.CommandAvailabilityForProjects;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.utils.ContainerServicePermissionUtils;
@@ -40,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -226,20 +229,34 @@ public class CommandRestApi extends AbstractXapiRestController {
         if (projects == null) {
            return commandService.available(xsiType, userI);
         } else {
-            String[] projectsArr = projects.split(",");
-            List<CommandSummaryForContext> commonCommands = new ArrayList<>();
-            for (String project : projectsArr) {
-                List<CommandSummaryForContext> projectCommands = commandService.available(project.trim(), xsiType, getSessionUser());
-                if (commonCommands.isEmpty()) {
-                    commonCommands.addAll(projectCommands);
-                } else {
-                    commonCommands.retainAll(projectCommands);
-                }
-            }
-            return commonCommands;
+            return commandService.availableInProjects(Arrays.asList(projects.split(",")), xsiType, getSessionUser()).available();
         }
     }
 
+    @XapiRequestMapping(value = {"/commands/available/projects"}, params = {"xsiType", "projects"}, method = GET, produces = JSON, restrictTo = Authenticated)
+    @ApiOperation(value = "Get Commands available with given XSIType in every one of the given projects",
+            notes = "Along with the commands, reports per project why any other command was left out or is not enabled.")
+    public CommandAvailabilityForProjects availableInProjects(final @RequestParam String xsiType,
+                                                              final @RequestParam String projects) {
+        return commandService.availableInProjects(Arrays.asList(projects.split(",")), xsiType, getSessionUser());
+    }
+
+
+    @XapiRequestMapping(value = {"/commands/available/permission-cache"}, method = GET, produces = JSON)
+    @ApiOperation(value = "Get hit-rate metrics for the permission decisions cached while listing available commands")
+    public Map<String, Object> permissionCacheStats() throws UnauthorizedException {
+        checkContainerManagerOrThrow();
+        final CacheStats stats = ContainerServicePermissionUtils.getPermissionDecisionCacheStats();
+        final Map<String, Object> report = Maps.newLinkedHashMap();
+        report.put("size", ContainerServicePermissionUtils.getPermissionDecisionCacheSize());
+        report.put("requests", stats.requestCount());
+        report.put("hits", stats.hitCount());
+        report.put("misses", stats.missCount());
+        report.put("hit-rate", stats.hitRate());
+        report.put("evictions", stats.evictionCount());
+        report.put("average-load-millis", stats.averageLoadPenalty() / 1000000.0);
+        return report;
+    }
 
     /*
     EXCEPTION HANDLING
@@ -13,6 +13,8 @@ import org.nrg.containers.exceptions.UnauthorizedException;
 import org.nrg.containers.model.configuration.PluginVersionCheck;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.auto.ContainerPaginatedRequest;
+import org.nrg.containers.model.container.auto.ContainerSummaryPage;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.security.ContainerControlUserAuthorization;
 import org.nrg.containers.security.ContainerId;
 import org.nrg.containers.services.ContainerService;
@@ -46,7 +48,9 @@ import org.nrg.containers.security.ContainerManagerUserAuthorization;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -123,6 +127,47 @@ public class ContainerRestApi extends AbstractXapiRestController {
                                .collect(Collectors.toList());
     }
 
+    @XapiRequestMapping(value = "/containers/summary", method = GET, restrictTo = Authenticated, produces = JSON)
+    @ApiOperation(value = "Get one page of container summaries",
+            notes = "Newest first. Pass the returned \"next\" value as \"after\" to get the following page. " +
+                    "Users who do not manage containers only see their own containers.")
+    @ResponseBody
+    public ContainerSummaryPage getSummaries(final @RequestParam(required = false) List<String> status,
+                                             final @RequestParam(required = false) Long wrapperId,
+                                             final @RequestParam(required = false) String user,
+                                             final @ApiParam("ISO-8601 date-time") @RequestParam(required = false) String since,
+                                             final @ApiParam("ISO-8601 date-time") @RequestParam(required = false) String until,
+                                             final @RequestParam(required = false) Boolean nonfinalized,
+                                             final @RequestParam(required = false) String after,
+                                             final @RequestParam(required = false) Integer limit)
+            throws BadRequestException, UnauthorizedException {
+        final UserI userI = getSessionUser();
+        final boolean canSeeAll = isContainerManager(userI);
+        return containerService.getSummaries(buildSummaryRequest(null, status, wrapperId,
+                userFilter(userI, user, canSeeAll), since, until, nonfinalized, after, limit));
+    }
+
+    @XapiRequestMapping(value = "/projects/{project}/containers/summary", method = GET, restrictTo = Authenticated, produces = JSON)
+    @ApiOperation(value = "Get one page of container summaries by project",
+            notes = "Newest first. Pass the returned \"next\" value as \"after\" to get the following page. " +
+                    "Users who neither own the project nor manage containers only see their own containers.")
+    @ResponseBody
+    public ContainerSummaryPage getSummaries(final @PathVariable @Project String project,
+                                             final @RequestParam(required = false) List<String> status,
+                                             final @RequestParam(required = false) Long wrapperId,
+                                             final @RequestParam(required = false) String user,
+                                             final @ApiParam("ISO-8601 date-time") @RequestParam(required = false) String since,
+                                             final @ApiParam("ISO-8601 date-time") @RequestParam(required = false) String until,
+                                             final @RequestParam(required = false) Boolean nonfinalized,
+                                             final @RequestParam(required = false) String after,
+                                             final @RequestParam(required = false) Integer limit)
+            throws BadRequestException, UnauthorizedException {
+        final UserI userI = getSessionUser();
+        final boolean canSeeAll = isContainerManager(userI) || Permissions.isProjectOwner(userI, project);
+        return containerService.getSummaries(buildSummaryRequest(project, status, wrapperId,
+                userFilter(userI, user, canSeeAll), since, until, nonfinalized, after, limit));
+    }
+
     @XapiRequestMapping(value = "/projects/{project}/containers/name/{name}", method = GET, restrictTo = Authenticated)
     @ApiOperation(value = "Get Containers by name")
     @ResponseBody
@@ -203,6 +248,56 @@ public class ContainerRestApi extends AbstractXapiRestController {
         return container.toBuilder().environmentVariables(scrubbedEnvironmentVariables).build();
     }
 
+    private boolean isContainerManager(final UserI user) {
+        return Roles.checkRole(user, ContainerUtils.CONTAINER_MANAGER_ROLE) || Groups.hasAllDataAccess(user);
+    }
+
+    private String userFilter(final UserI user, final String requestedUser, final boolean canSeeAll)
+            throws UnauthorizedException {
+        if (canSeeAll) {
+            return requestedUser;
+        }
+        if (StringUtils.isNotBlank(requestedUser) && !user.getLogin().equals(requestedUser)) {
+            throw new UnauthorizedException(String.format("User %s cannot list containers of user %s",
+                    user.getLogin(), requestedUser));
+        }
+        return user.getLogin();
+    }
+
+    private ContainerSummaryRequest buildSummaryRequest(final String project,
+                                                        final List<String> statuses,
+                                                        final Long wrapperId,
+                                                        final String user,
+                                                        final String since,
+                                                        final String until,
+                                                        final Boolean nonfinalized,
+                                                        final String after,
+                                                        final Integer limit) throws BadRequestException {
+        try {
+            final ContainerSummaryRequest.Builder builder = ContainerSummaryRequest.builder()
+                    .project(project)
+                    .wrapperId(wrapperId)
+                    .userId(StringUtils.isBlank(user) ? null : user)
+                    .since(parseDate(since))
+                    .until(parseDate(until))
+                    .nonfinalized(nonfinalized != null && nonfinalized)
+                    .after(after);
+            if (statuses != null) {
+                builder.statuses(statuses.stream().filter(StringUtils::isNotBlank).collect(Collectors.toList()));
+            }
+            if (limit != null) {
+                builder.limit(limit);
+            }
+            return builder.build();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    private static Date parseDate(final String dateTime) {
+        return StringUtils.isBlank(dateTime) ? null : Date.from(OffsetDateTime.parse(dateTime).toInstant());
+    }
+
     private Boolean isUserOwnerOrAdmin(UserI user, Container container){
         return (Roles.checkRole(user, ContainerUtils.CONTAINER_MANAGER_ROLE) || Groups.hasAllDataAccess(user) ||
                 Permissions.isProjectOwner(user, container.project()) ||
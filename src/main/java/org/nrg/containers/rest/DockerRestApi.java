@@ -18,6 +18,7 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.security.ContainerManagerUserAuthorization;
@@ -47,6 +48,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.nrg.containers.services.CommandLabelService.LABEL_KEY;
 import static org.nrg.xdat.security.helpers.AccessLevel.Admin;
@@ -279,6 +281,23 @@ public class DockerRestApi extends AbstractXapiRestController {
         dockerService.pullFromHub(image, saveCommands);
     }
 
+    @ApiOperation(value = "Get image pulls",
+            notes = "Returns the image pulls that are queued or running, with the progress of each layer, and those that finished in the last hour.")
+    @XapiRequestMapping(value = "/pulls", method = GET, produces = JSON)
+    @ResponseBody
+    public List<ImagePullStatus> getImagePulls() {
+        return dockerService.getImagePulls();
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Get launch timings",
+            notes = "Returns a histogram, per stage, of how long creating and starting containers has taken since XNAT started.")
+    @XapiRequestMapping(value = "/launch-metrics", method = GET, produces = JSON, restrictTo = Authorizer)
+    @ResponseBody
+    public Map<String, Object> getLaunchMetrics() {
+        return dockerService.getLaunchMetrics();
+    }
+
     @ApiOperation(value = "Get list of images.", notes = "Returns a list of all Docker images on the Docker server.")
     @ApiResponses({
             @ApiResponse(code = 200, message = "A list of images on the server"),
@@ -351,6 +370,16 @@ public class DockerRestApi extends AbstractXapiRestController {
         return dockerService.saveFromImageLabels(imageId);
     }
 
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Save Commands from labels of all images",
+            notes = "Read labels from every Docker image on the server. Save the Commands in any " + LABEL_KEY +
+                    " labels that are not saved yet. Images that have not changed since the last time are skipped.")
+    @XapiRequestMapping(value = "/images/save-all", method = POST, restrictTo = Authorizer)
+    @ResponseBody
+    public List<Command> saveFromAllLabels() throws NoDockerServerException, DockerServerException {
+        return dockerService.saveFromAllImageLabels();
+    }
+
     private void checkImageOrThrow(final String image) throws BadRequestException {
         if (!image.contains("/") && image.contains("sha256:")) {
             throw new BadRequestException(String.format("Cannot pull an image by sha256 ID. Use image label instead."));
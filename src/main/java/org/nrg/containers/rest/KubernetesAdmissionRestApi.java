@@ -0,0 +1,76 @@
+package org.nrg.containers.rest;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.action.ClientException;
+import org.nrg.action.ServerException;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
+import org.nrg.containers.security.ContainerManagerUserAuthorization;
+import org.nrg.framework.annotations.XapiRestController;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.xapi.rest.AbstractXapiRestController;
+import org.nrg.xapi.rest.AuthDelegate;
+import org.nrg.xapi.rest.XapiRequestMapping;
+import org.nrg.xdat.security.services.RoleHolder;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+import static org.nrg.xdat.security.helpers.AccessLevel.Authorizer;
+
+@XapiRestController
+@RequestMapping(value = "/kubernetes_admission")
+@Api("Kubernetes Admission Settings API")
+@Slf4j
+public class KubernetesAdmissionRestApi extends AbstractXapiRestController {
+    private final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean;
+
+    @Autowired
+    public KubernetesAdmissionRestApi(final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean,
+                                      final UserManagementServiceI userManagementService,
+                                      final RoleHolder roleHolder) {
+        super(userManagementService, roleHolder);
+        this.kubernetesAdmissionPrefsBean = kubernetesAdmissionPrefsBean;
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Returns a map of kubernetes admission settings.", response = Map.class, responseContainer = "Map")
+    @ApiResponses({@ApiResponse(code = 200, message = "Kubernetes admission settings successfully retrieved."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(produces = {MediaType.APPLICATION_JSON_VALUE}, method = RequestMethod.GET, restrictTo = Authorizer)
+    @ResponseBody
+    public Map<String, Object> getAdmissionSettings() {
+        return kubernetesAdmissionPrefsBean;
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Sets a map of kubernetes admission settings.")
+    @ApiResponses({@ApiResponse(code = 200, message = "Kubernetes admission settings successfully set."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 400, message = "Invalid input."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            method = RequestMethod.POST, restrictTo = Authorizer)
+    @ResponseBody
+    public void setAdmissionSettings(@ApiParam(value = "The map of kubernetes admission settings properties to be set.", required = true)
+                                   @RequestBody final Map<String, String> properties) throws ClientException, ServerException {
+        try {
+            kubernetesAdmissionPrefsBean.setBatch(properties);
+        } catch (InvalidPreferenceName e) {
+            throw new ClientException(e.getMessage());
+        } catch (Exception e) {
+            throw new ServerException(e.getMessage());
+        }
+    }
+}
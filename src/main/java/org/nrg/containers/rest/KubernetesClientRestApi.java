@@ -0,0 +1,102 @@
+package org.nrg.containers.rest;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.action.ClientException;
+import org.nrg.action.ServerException;
+import org.nrg.containers.api.KubernetesClientFactory;
+import org.nrg.containers.exceptions.NoContainerServerException;
+import org.nrg.containers.model.kubernetes.KubernetesClientPrefsBean;
+import org.nrg.containers.security.ContainerManagerUserAuthorization;
+import org.nrg.framework.annotations.XapiRestController;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.xapi.rest.AbstractXapiRestController;
+import org.nrg.xapi.rest.AuthDelegate;
+import org.nrg.xapi.rest.XapiRequestMapping;
+import org.nrg.xdat.security.services.RoleHolder;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.nrg.xdat.security.helpers.AccessLevel.Authorizer;
+
+@XapiRestController
+@RequestMapping(value = "/kubernetes_client")
+@Api("Kubernetes Client Settings API")
+@Slf4j
+public class KubernetesClientRestApi extends AbstractXapiRestController {
+    private final KubernetesClientPrefsBean kubernetesClientPrefsBean;
+    private final KubernetesClientFactory kubernetesClientFactory;
+
+    @Autowired
+    public KubernetesClientRestApi(final KubernetesClientPrefsBean kubernetesClientPrefsBean,
+                                   final KubernetesClientFactory kubernetesClientFactory,
+                                   final UserManagementServiceI userManagementService,
+                                   final RoleHolder roleHolder) {
+        super(userManagementService, roleHolder);
+        this.kubernetesClientPrefsBean = kubernetesClientPrefsBean;
+        this.kubernetesClientFactory = kubernetesClientFactory;
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Returns a map of kubernetes client settings.", response = Map.class, responseContainer = "Map")
+    @ApiResponses({@ApiResponse(code = 200, message = "Kubernetes client settings successfully retrieved."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(produces = {MediaType.APPLICATION_JSON_VALUE}, method = RequestMethod.GET, restrictTo = Authorizer)
+    @ResponseBody
+    public Map<String, Object> getClientSettings() {
+        return kubernetesClientPrefsBean;
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Sets a map of kubernetes client settings.",
+            notes = "The kubernetes client is created again with the new settings.")
+    @ApiResponses({@ApiResponse(code = 200, message = "Kubernetes client settings successfully set."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 400, message = "Invalid input."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            method = RequestMethod.POST, restrictTo = Authorizer)
+    @ResponseBody
+    public void setClientSettings(@ApiParam(value = "The map of kubernetes client settings properties to be set.", required = true)
+                                  @RequestBody final Map<String, String> properties) throws ClientException, ServerException {
+        try {
+            kubernetesClientPrefsBean.setBatch(properties);
+        } catch (InvalidPreferenceName e) {
+            throw new ClientException(e.getMessage());
+        } catch (Exception e) {
+            throw new ServerException(e.getMessage());
+        }
+        // The client reads its settings when it is created
+        kubernetesClientFactory.shutdown();
+    }
+
+    @AuthDelegate(ContainerManagerUserAuthorization.class)
+    @ApiOperation(value = "Returns request, rate limit and watch metrics for the kubernetes client.",
+            notes = "Counts start over when the client is created again.", response = Map.class, responseContainer = "Map")
+    @ApiResponses({@ApiResponse(code = 200, message = "Kubernetes client metrics successfully retrieved."),
+            @ApiResponse(code = 401, message = "Must be authenticated to access the XNAT REST API."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(value = "/metrics", produces = {MediaType.APPLICATION_JSON_VALUE}, method = RequestMethod.GET, restrictTo = Authorizer)
+    @ResponseBody
+    public Map<String, Object> getClientMetrics() {
+        try {
+            return kubernetesClientFactory.getKubernetesClient().getMetrics().report();
+        } catch (NoContainerServerException e) {
+            log.debug("No kubernetes client to report metrics for", e);
+            return Collections.emptyMap();
+        }
+    }
+}
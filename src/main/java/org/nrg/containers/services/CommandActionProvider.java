@@ -3,12 +3,15 @@ package org.nrg.containers.services;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.model.command.auto.Command;
-import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.model.command.entity.CommandWrapperInputType;
 import org.nrg.containers.model.configuration.CommandConfiguration;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
 import org.nrg.containers.utils.ContainerServicePermissionUtils;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xdat.model.XnatImagesessiondataI;
@@ -38,6 +41,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.nrg.xnat.eventservice.entities.TimedEventStatusEntity.Status.*;
@@ -54,6 +58,13 @@ public class CommandActionProvider extends MultiActionProvider {
     private final SubscriptionDeliveryEntityService subscriptionDeliveryEntityService;
     private final EventServiceComponentManager componentManager;
     private final EventService eventService;
+    private final CommandCatalog commandCatalog;
+    private final WrapperEnablementIndex enablementIndex;
+
+    private final Cache<ActionDescriptorKey, ActionDescriptors> actionDescriptorCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
 
     private final static List<CommandWrapperInputType> SCHEDULED_EVENT_SUPPORTED_TYPES
             = Arrays.asList(CommandWrapperInputType.PROJECT,
@@ -71,7 +82,9 @@ public class CommandActionProvider extends MultiActionProvider {
                                  final ObjectMapper mapper,
                                  final SubscriptionDeliveryEntityService subscriptionDeliveryEntityService,
                                  final EventServiceComponentManager componentManager,
-                                 final EventService eventService) {
+                                 final EventService eventService,
+                                 final CommandCatalog commandCatalog,
+                                 final WrapperEnablementIndex enablementIndex) {
         this.containerService = containerService;
         this.commandService = commandService;
         this.containerConfigService = containerConfigService;
@@ -79,6 +92,8 @@ public class CommandActionProvider extends MultiActionProvider {
         this.subscriptionDeliveryEntityService = subscriptionDeliveryEntityService;
         this.componentManager = componentManager;
         this.eventService = eventService;
+        this.commandCatalog = commandCatalog;
+        this.enablementIndex = enablementIndex;
     }
 
     @Override
@@ -405,73 +420,99 @@ public class CommandActionProvider extends MultiActionProvider {
     }
 
 
+    /**
+     * The action descriptors for each project and xsiType are built once and reused until the command catalog or
+     * a wrapper configuration changes. Only the user's permissions are checked on every call.
+     */
     @Override
     public List<Action> getActions(String projectId, List<String> xsiTypes, UserI user) {
         List<Action> actions = new ArrayList<>();
         if (xsiTypes == null || xsiTypes.isEmpty()) {
-            xsiTypes = new ArrayList<>();
-            xsiTypes.add(null);
+            return actions;
         }
         try {
-            Set<CommandSummaryForContext> available = new HashSet<>();
-            if (projectId != null) {
-                // Project configured Commands
-                xsiTypes.forEach(xsiType ->
-                {
-                    try {
-                        available.addAll(commandService.available(projectId, xsiType, user));
-                    } catch (ElementNotFoundException e) {
-                        log.error(e.getMessage());
-                    }
-                });
-            } else {
-                // Site configured Commands
-                xsiTypes.forEach(xsiType ->
-                {
-                    try {
-                        available.addAll(commandService.available(xsiType, user));
-                    } catch (ElementNotFoundException e) {
-                        log.error(e.getMessage());
-                    }
-                });
+            final boolean isSiteWide = Strings.isNullOrEmpty(projectId);
+            if (!isSiteWide && !ContainerServicePermissionUtils.canReadProject(user, projectId)) {
+                log.debug("User \"{}\" cannot read project \"{}\"", user.getUsername(), projectId);
+                return actions;
             }
 
-            for (CommandSummaryForContext command : available) {
-                if (!command.enabled()) continue;
-                Map<String, ActionAttributeConfiguration> attributes = new HashMap<>();
-                try {
-                    ImmutableMap<String, CommandConfiguration.CommandInputConfiguration> inputs;
-                    if (!Strings.isNullOrEmpty(projectId)) {
-                        inputs = commandService.getProjectConfiguration(projectId, command.wrapperId()).inputs();
-                    } else {
-                        inputs = commandService.getSiteConfiguration(command.wrapperId()).inputs();
+            final Map<Long, Action> available = new LinkedHashMap<>();
+            for (final String xsiType : xsiTypes) {
+                if (StringUtils.isBlank(xsiType)) {
+                    continue;
+                }
+                for (final ActionDescriptor descriptor : getActionDescriptors(isSiteWide ? null : projectId, xsiType)) {
+                    if (available.containsKey(descriptor.wrapper.id())) {
+                        continue;
                     }
-                    for (Map.Entry<String, CommandConfiguration.CommandInputConfiguration> entry : inputs.entrySet()) {
-                        if (entry.getValue() != null && entry.getValue().userSettable() != null && entry.getValue().userSettable() && entry.getValue().type() != null) {
-                            attributes.put(entry.getKey(), CommandInputConfig2ActionAttributeConfig(entry.getValue()));
-                        }
+                    if (isSiteWide || ContainerServicePermissionUtils.userHasRequiredPermissions(user, projectId, xsiType, descriptor.wrapper)) {
+                        available.put(descriptor.wrapper.id(), descriptor.action);
                     }
-                } catch (Exception e) {
-                    log.error("Exception getting Command Configuration for command: " + command.commandName() + "\n" + e.getMessage());
-                    e.printStackTrace();
                 }
-
-                actions.add(Action.builder()
-                        .id(String.valueOf(command.wrapperId()))
-                        .displayName(command.wrapperName())
-                        .description(command.wrapperDescription())
-                        .provider(this)
-                        .actionKey(actionIdToActionKey(Long.toString(command.wrapperId())))
-                        .attributes(attributes.isEmpty() ? null : attributes)
-                        .build());
             }
+            actions.addAll(available.values());
         } catch (Throwable e) {
-            log.error(e.getMessage());
-            e.printStackTrace();
+            log.error(e.getMessage(), e);
         }
         return actions;
     }
 
+    private List<ActionDescriptor> getActionDescriptors(final String projectId, final String xsiType) {
+        final CommandCatalog.Snapshot snapshot = commandCatalog.snapshot();
+        final long configurationRevision = enablementIndex.getConfigurationRevision();
+        final ActionDescriptorKey key = new ActionDescriptorKey(projectId, xsiType);
+
+        final ActionDescriptors cached = actionDescriptorCache.getIfPresent(key);
+        if (cached != null && cached.catalogVersion == snapshot.getVersion() && cached.configurationRevision == configurationRevision) {
+            return cached.descriptors;
+        }
+
+        final List<ActionDescriptor> descriptors = new ArrayList<>();
+        for (final CommandCatalog.Entry entry : snapshot.getEntriesForXsiType(xsiType)) {
+            final Command.CommandWrapper wrapper = entry.wrapper;
+            final boolean enabled;
+            if (projectId == null) {
+                enabled = containerConfigService.isEnabledForSite(wrapper.id());
+            } else {
+                // Only sitewide wrappers can have 0 external inputs
+                enabled = wrapper.firstExternalInput() != null && containerConfigService.isEnabled(projectId, wrapper.id());
+            }
+            if (!enabled) {
+                continue;
+            }
+
+            Map<String, ActionAttributeConfiguration> attributes = new HashMap<>();
+            try {
+                ImmutableMap<String, CommandConfiguration.CommandInputConfiguration> inputs;
+                if (projectId != null) {
+                    inputs = commandService.getProjectConfiguration(projectId, wrapper.id()).inputs();
+                } else {
+                    inputs = commandService.getSiteConfiguration(wrapper.id()).inputs();
+                }
+                for (Map.Entry<String, CommandConfiguration.CommandInputConfiguration> input : inputs.entrySet()) {
+                    if (input.getValue() != null && input.getValue().userSettable() != null && input.getValue().userSettable() && input.getValue().type() != null) {
+                        attributes.put(input.getKey(), CommandInputConfig2ActionAttributeConfig(input.getValue()));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Exception getting Command Configuration for command: " + entry.command.name() + "\n" + e.getMessage());
+            }
+
+            descriptors.add(new ActionDescriptor(wrapper, Action.builder()
+                    .id(String.valueOf(wrapper.id()))
+                    .displayName(wrapper.name())
+                    .description(wrapper.description())
+                    .provider(this)
+                    .actionKey(actionIdToActionKey(Long.toString(wrapper.id())))
+                    .attributes(attributes.isEmpty() ? null : attributes)
+                    .build()));
+        }
+
+        actionDescriptorCache.put(key, new ActionDescriptors(snapshot.getVersion(), configurationRevision, descriptors));
+        return descriptors;
+    }
+
     @Override
     public Boolean isActionAvailable(final String actionKey, final String projectId, final UserI user) {
         for (Command command : commandService.getAll()) {
@@ -497,4 +538,51 @@ public class CommandActionProvider extends MultiActionProvider {
                 .build();
     }
 
+    /**
+     * An action for one wrapper, before any per-user permission filtering.
+     */
+    private static class ActionDescriptor {
+        private final Command.CommandWrapper wrapper;
+        private final Action action;
+
+        ActionDescriptor(final Command.CommandWrapper wrapper, final Action action) {
+            this.wrapper = wrapper;
+            this.action = action;
+        }
+    }
+
+    private static class ActionDescriptors {
+        private final long catalogVersion;
+        private final long configurationRevision;
+        private final List<ActionDescriptor> descriptors;
+
+        ActionDescriptors(final long catalogVersion, final long configurationRevision, final List<ActionDescriptor> descriptors) {
+            this.catalogVersion = catalogVersion;
+            this.configurationRevision = configurationRevision;
+            this.descriptors = Collections.unmodifiableList(descriptors);
+        }
+    }
+
+    private static class ActionDescriptorKey {
+        private final String projectId;
+        private final String xsiType;
+
+        ActionDescriptorKey(final String projectId, final String xsiType) {
+            this.projectId = projectId;
+            this.xsiType = xsiType;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final ActionDescriptorKey that = (ActionDescriptorKey) o;
+            return Objects.equals(projectId, that.projectId) && Objects.equals(xsiType, that.xsiType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, xsiType);
+        }
+    }
 }
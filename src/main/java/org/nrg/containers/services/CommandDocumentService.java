@@ -0,0 +1,51 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+public interface CommandDocumentService extends BaseHibernateService<CommandDocumentEntity> {
+    /**
+     * Write the command's full definition as its next document version, unless it has not changed.
+     */
+    void save(Command command);
+
+    void deleteForCommand(long commandId);
+
+    /**
+     * Bring every command's document up to date with the command tables: write one for commands that do not have one,
+     * such as commands saved before the document table existed; write a new version for commands whose document no
+     * longer matches, such as after the command model changed or the tables were updated with SQL; and remove
+     * documents left over from commands that no longer exist.
+     *
+     * @return the ids of the commands given a new document
+     */
+    @Nonnull
+    List<Long> refreshDocuments();
+
+    /**
+     * As {@link #refreshDocuments()}, for the given commands only. Call this after changing command tables
+     * without going through the command entity service.
+     *
+     * @return the ids of the commands given a new document
+     */
+    @Nonnull
+    List<Long> refreshDocuments(Collection<Long> commandIds);
+
+    /**
+     * @return the latest version of the command, or null if there is no such command
+     */
+    @Nullable
+    Command retrieveCommand(long commandId);
+
+    /**
+     * @return the latest version of every command, in id order
+     */
+    @Nonnull
+    List<Command> getAllCommands();
+}
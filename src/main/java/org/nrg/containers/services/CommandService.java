@@ -4,6 +4,7 @@ import org.nrg.containers.exceptions.CommandValidationException;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
+import org.nrg.containers.model.command.auto.CommandAvailabilityForProjects;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.model.configuration.CommandConfiguration;
 import org.nrg.containers.model.configuration.ProjectEnabledReport;
@@ -13,6 +14,7 @@ import org.nrg.framework.exceptions.NrgRuntimeException;
 import org.nrg.xft.exception.ElementNotFoundException;
 import org.nrg.xft.security.UserI;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +85,9 @@ public interface CommandService {
                                              UserI userI) throws ElementNotFoundException;
     List<CommandSummaryForContext> available(String xsiType,
                                              UserI userI) throws ElementNotFoundException;
+    CommandAvailabilityForProjects availableInProjects(Collection<String> projects,
+                                                       String xsiType,
+                                                       UserI userI);
     List<String> getProjects(long wrapperId, String status);
 
     void throwExceptionIfCommandExists(Command command) throws NrgRuntimeException;
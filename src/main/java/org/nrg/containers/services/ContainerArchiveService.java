@@ -0,0 +1,40 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.container.entity.ContainerArchiveEntity;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public interface ContainerArchiveService extends BaseHibernateService<ContainerArchiveEntity> {
+    /**
+     * @return ids of finalized containers last updated before the given time that can be archived
+     */
+    List<Long> findContainersToArchive(Date lastUpdatedBefore, int max);
+
+    /**
+     * Move a finalized container's full record into the archive, leaving its summary row in place.
+     * Each call runs in its own transaction.
+     *
+     * @return true if the container was archived
+     */
+    boolean archive(long containerDatabaseId);
+
+    /**
+     * @return the container as it was when it was archived, or null if it has not been archived
+     */
+    @Nullable
+    Container retrieveArchived(long containerDatabaseId);
+
+    /**
+     * @return the archived containers among those given, by database id. Containers that have not been archived
+     *         are left out.
+     */
+    Map<Long, Container> retrieveArchived(Collection<Long> containerDatabaseIds);
+
+    void deleteArchived(long containerDatabaseId);
+}
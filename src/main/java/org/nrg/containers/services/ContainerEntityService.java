@@ -1,6 +1,8 @@
 package org.nrg.containers.services;
 
 import org.nrg.containers.events.model.ContainerEvent;
+import org.nrg.containers.model.container.auto.ContainerSummary;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -8,6 +10,7 @@ import org.nrg.framework.orm.hibernate.BaseHibernateService;
 import org.nrg.xft.security.UserI;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ContainerEntityService extends BaseHibernateService<ContainerEntity> {
     ContainerEntity save(final ContainerEntity toCreate,
@@ -23,10 +26,14 @@ public interface ContainerEntityService extends BaseHibernateService<ContainerEn
 
     List<ContainerEntity> retrieveServices();
     List<ContainerEntity> retrieveNonfinalizedServices();
+    Map<String, String> retrieveNonfinalizedKubernetesJobStatuses();
     List<ContainerEntity> retrieveContainersInFinalizingState();
     List<ContainerEntity> retrieveServicesInWaitingState();
 
     int howManyContainersAreBeingFinalized();
+    int howManyContainersAreNonfinalized();
+
+    List<ContainerSummary> getSummaries(ContainerSummaryRequest request);
 
     List<ContainerEntity> retrieveSetupContainersForParent(long parentId);
     List<ContainerEntity> retrieveWrapupContainersForParent(long parentId);
@@ -35,5 +42,20 @@ public interface ContainerEntityService extends BaseHibernateService<ContainerEn
     ContainerEntityHistory addContainerHistoryItem(final ContainerEntity containerEntity,
                                                    final ContainerEntityHistory history, final UserI userI);
 
+    /**
+     * Record a history item and update the container's status without loading the container.
+     *
+     * @return the container's status after the write, or null if the history item had already been recorded
+     *         or there is no such container
+     */
+    String addContainerHistoryItemAndUpdateStatus(final long containerDatabaseId,
+                                                  final ContainerEntityHistory history, final UserI userI);
+
+    /**
+     * Set the node, task and container IDs the backend reported, if they are not set already, without loading or
+     * writing the rest of the container.
+     */
+    void updateBackendIdsIfUnset(long containerDatabaseId, String nodeId, String taskId, String containerId);
+
 	int howManyContainersAreWaiting();
 }
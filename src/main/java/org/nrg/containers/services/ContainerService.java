@@ -13,6 +13,8 @@ import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.configuration.PluginVersionCheck;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.auto.ContainerPaginatedRequest;
+import org.nrg.containers.model.container.auto.ContainerSummaryPage;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.orchestration.auto.Orchestration;
 import org.nrg.containers.rest.ContainerLogPollResponse;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -62,10 +64,22 @@ public interface ContainerService {
     Container getByName(String name, final Boolean nonfinalized);
 
     List<Container> getPaginated(ContainerPaginatedRequest containerPaginatedRequest);
+    ContainerSummaryPage getSummaries(ContainerSummaryRequest containerSummaryRequest);
 
     List<Container> retrieveServices();
     List<Container> retrieveServicesInWaitingState();
     List<Container> retrieveNonfinalizedServices();
+    Map<String, String> retrieveNonfinalizedKubernetesJobStatuses();
+
+    /**
+     * Create the kubernetes job for a container whose job name was saved but whose job was never created.
+     */
+    void launchPendingKubernetesJob(String jobName);
+
+    /**
+     * Create the swarm service for a container whose service name was saved but whose service is missing.
+     */
+    void launchPendingSwarmService(String serviceName);
 
     void checkQueuedContainerJobs(UserI user);
     void checkWaitingContainerJobs(UserI user);
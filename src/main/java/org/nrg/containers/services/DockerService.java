@@ -10,12 +10,14 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.services.DockerHubService.DockerHubDeleteDefaultException;
 import org.nrg.framework.exceptions.NotFoundException;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DockerService {
     List<DockerHubWithPing> getHubs();
@@ -43,6 +45,15 @@ public interface DockerService {
             throws DockerServerException, NoDockerServerException, NotFoundException, NotUniqueException;
     DockerImage pullFromHub(String imageName, boolean saveCommands)
             throws DockerServerException, NoDockerServerException, NotFoundException;
+    List<ImagePullStatus> getImagePulls();
+
+    /**
+     * Make sure the server has the image before a container is made from it. On docker an image the server does not
+     * have is pulled now, through the shared pull queue, so launches of the same image all wait on one pull. Swarm
+     * nodes and kubernetes pull images themselves when the container starts, so nothing is checked for them.
+     */
+    void ensureImage(String imageName) throws NoDockerServerException, DockerServerException;
+    Map<String, Object> getLaunchMetrics();
 
     DockerServerWithPing getServer() throws NotFoundException;
     DockerServerWithPing setServer(DockerServer server) throws InvalidDefinitionException;
@@ -54,6 +65,7 @@ public interface DockerService {
     DockerImage getImage(String imageId) throws NoDockerServerException, NotFoundException;
     void removeImageById(String imageId, Boolean force) throws NotFoundException, NoDockerServerException, DockerServerException;
     List<Command> saveFromImageLabels(String imageName) throws DockerServerException, NotFoundException, NoDockerServerException;
+    List<Command> saveFromAllImageLabels() throws DockerServerException, NoDockerServerException;
 
     Command getCommandByImage(String image) throws NotFoundException;
 }
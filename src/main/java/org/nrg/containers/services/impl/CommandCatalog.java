@@ -0,0 +1,291 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.services.CommandDocumentService;
+import org.nrg.containers.utils.ContainerServicePermissionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory copy of every command and wrapper, indexed by the contexts the wrappers run on.
+ *
+ * <p>Readers get an immutable {@link Snapshot}. Writers replace the snapshot under a lock: a change to one command
+ * reloads only that command's document from the database and builds the next version from the previous one. The answer to
+ * "which wrappers run on this xsiType" is worked out once per xsiType and version, using
+ * {@link ContainerServicePermissionUtils#xsiTypeEqualToOrInstanceOf(String, String)} against the distinct contexts,
+ * so instance-of lookups don't scale with the number of wrappers.</p>
+ *
+ * <p>Changes made on this node are applied after the surrounding transaction commits and handed to the invalidation
+ * publisher, which tells the other nodes to reload the same command. Messages that come back to the node that sent
+ * them are ignored.</p>
+ */
+@Slf4j
+@Component
+public class CommandCatalog {
+    private final CommandDocumentService commandDocumentService;
+    private final String origin = UUID.randomUUID().toString();
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+    private volatile Consumer<Long> invalidationPublisher;
+
+    @Autowired
+    public CommandCatalog(final CommandDocumentService commandDocumentService) {
+        this.commandDocumentService = commandDocumentService;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setInvalidationPublisher(@Nullable final Consumer<Long> invalidationPublisher) {
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Nonnull
+    public Snapshot snapshot() {
+        final Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                final long start = System.currentTimeMillis();
+                final Map<Long, Command> commands = new HashMap<>();
+                commandDocumentService.getAllCommands().stream().filter(Objects::nonNull).forEach(c -> commands.put(c.id(), c));
+                snapshot = new Snapshot(nextVersion(), commands);
+                log.debug("Loaded command catalog version {} with {} commands in {} ms",
+                        snapshot.getVersion(), commands.size(), System.currentTimeMillis() - start);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * A command was created or updated on this node.
+     */
+    public void commandChanged(final long commandId) {
+        afterCommit(() -> {
+            reload(commandId);
+            publish(commandId);
+        });
+    }
+
+    /**
+     * A command was deleted on this node.
+     */
+    public void commandDeleted(final long commandId) {
+        afterCommit(() -> {
+            remove(commandId);
+            publish(commandId);
+        });
+    }
+
+    /**
+     * A wrapper was added, updated, or deleted on this node. We reload the command that owns it.
+     */
+    public void wrapperChanged(final long wrapperId) {
+        final Snapshot current = snapshot;
+        final Long commandId = current == null ? null : current.commandIdForWrapper(wrapperId);
+        if (commandId == null) {
+            afterCommit(() -> {
+                invalidate();
+                publish(null);
+            });
+        } else {
+            commandChanged(commandId);
+        }
+    }
+
+    /**
+     * Apply a change that another node told us about.
+     *
+     * @param commandId The command that changed, or null to drop the whole catalog
+     */
+    public void onRemoteInvalidation(@Nullable final Long commandId) {
+        if (commandId == null) {
+            invalidate();
+        } else {
+            reload(commandId);
+        }
+    }
+
+    /**
+     * Drop the catalog. The next read loads it again from the database.
+     */
+    public void invalidate() {
+        synchronized (writeLock) {
+            snapshot = null;
+        }
+    }
+
+    private void reload(final long commandId) {
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                // Nothing loaded yet; the next read will see the change
+                return;
+            }
+            final Command command;
+            try {
+                command = commandDocumentService.retrieveCommand(commandId);
+            } catch (Exception e) {
+                log.error("Could not reload command {} into the command catalog. Dropping the catalog.", commandId, e);
+                snapshot = null;
+                return;
+            }
+            final Map<Long, Command> commands = new HashMap<>(snapshot.commands);
+            if (command == null) {
+                commands.remove(commandId);
+            } else {
+                commands.put(commandId, command);
+            }
+            snapshot = new Snapshot(nextVersion(), commands);
+            log.debug("Command catalog version {}: reloaded command {}", snapshot.getVersion(), commandId);
+        }
+    }
+
+    private void remove(final long commandId) {
+        synchronized (writeLock) {
+            if (snapshot == null || !snapshot.commands.containsKey(commandId)) {
+                return;
+            }
+            final Map<Long, Command> commands = new HashMap<>(snapshot.commands);
+            commands.remove(commandId);
+            snapshot = new Snapshot(nextVersion(), commands);
+            log.debug("Command catalog version {}: removed command {}", snapshot.getVersion(), commandId);
+        }
+    }
+
+    private long nextVersion() {
+        return snapshot == null ? System.currentTimeMillis() : snapshot.getVersion() + 1;
+    }
+
+    private void publish(@Nullable final Long commandId) {
+        final Consumer<Long> publisher = invalidationPublisher;
+        if (publisher == null) {
+            return;
+        }
+        try {
+            publisher.accept(commandId);
+        } catch (Exception e) {
+            log.error("Could not tell other nodes that command {} changed", commandId, e);
+        }
+    }
+
+    private static void afterCommit(final Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * One wrapper along with the command that owns it.
+     */
+    public static final class Entry {
+        public final Command command;
+        public final CommandWrapper wrapper;
+
+        Entry(final Command command, final CommandWrapper wrapper) {
+            this.command = command;
+            this.wrapper = wrapper;
+        }
+    }
+
+    /**
+     * An immutable version of the catalog.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final ImmutableSortedMap<Long, Command> commands;
+        private final ImmutableList<Entry> entries;
+        private final Map<Long, Long> wrapperToCommand = new HashMap<>();
+        private final Set<String> contexts = new HashSet<>();
+        private final Map<String, ImmutableList<Entry>> byXsiType = new ConcurrentHashMap<>();
+
+        Snapshot(final long version, final Map<Long, Command> commands) {
+            this.version = version;
+            this.commands = ImmutableSortedMap.copyOf(commands);
+
+            final ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+            for (final Command command : this.commands.values()) {
+                for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
+                    entries.add(new Entry(command, wrapper));
+                    wrapperToCommand.put(wrapper.id(), command.id());
+                    contexts.addAll(wrapper.contexts());
+                }
+            }
+            this.entries = entries.build();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Nonnull
+        public ImmutableList<Command> getCommands() {
+            return commands.values().asList();
+        }
+
+        @Nullable
+        public Command getCommand(final long commandId) {
+            return commands.get(commandId);
+        }
+
+        @Nullable
+        Long commandIdForWrapper(final long wrapperId) {
+            return wrapperToCommand.get(wrapperId);
+        }
+
+        /**
+         * @param xsiType The xsiType a user wants to run something on
+         * @return Every wrapper with a context that xsiType is equal to or an instance of, in command id order
+         */
+        @Nonnull
+        public ImmutableList<Entry> getEntriesForXsiType(@Nonnull final String xsiType) {
+            return byXsiType.computeIfAbsent(xsiType, this::computeEntriesForXsiType);
+        }
+
+        private ImmutableList<Entry> computeEntriesForXsiType(final String xsiType) {
+            final Set<String> matchingContexts = new HashSet<>();
+            for (final String context : contexts) {
+                if (ContainerServicePermissionUtils.xsiTypeEqualToOrInstanceOf(xsiType, context)) {
+                    matchingContexts.add(context);
+                }
+            }
+            if (matchingContexts.isEmpty()) {
+                return ImmutableList.of();
+            }
+            final ImmutableList.Builder<Entry> matches = ImmutableList.builder();
+            for (final Entry entry : entries) {
+                if (entry.wrapper.contexts().stream().anyMatch(matchingContexts::contains)) {
+                    matches.add(entry);
+                }
+            }
+            return matches.build();
+        }
+    }
+}
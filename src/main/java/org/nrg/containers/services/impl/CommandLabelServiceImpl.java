@@ -2,7 +2,12 @@ package org.nrg.containers.services.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.model.command.auto.Command;
@@ -14,8 +19,11 @@ import org.springframework.stereotype.Service;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,6 +31,11 @@ public class CommandLabelServiceImpl implements CommandLabelService {
 
     private final ObjectMapper objectMapper;
 
+    // Command definitions parsed from labels, by hash of the label. An image's labels never change without its id changing.
+    private final Cache<HashCode, List<Command.CommandCreation>> parsedLabels = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build();
+
     @Autowired
     public CommandLabelServiceImpl(final ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
@@ -45,27 +58,42 @@ public class CommandLabelServiceImpl implements CommandLabelService {
 
         final String labelValue = labels.get(LABEL_KEY);
         if (StringUtils.isNotBlank(labelValue)) {
-            try {
-                final List<Command.CommandCreation> commandCreationsFromLabels =
-                        objectMapper.readValue(labelValue, new TypeReference<List<Command.CommandCreation>>() {});
-
-                if (commandCreationsFromLabels != null && !commandCreationsFromLabels.isEmpty()) {
-                    for (final Command.CommandCreation commandCreation : commandCreationsFromLabels) {
-                        // The command as read from the image may not contain all the values we want to store
-                        // So we add them now.
-                        commandsToReturn.add(
-                                Command.builderFromCreation(commandCreation)
-                                        .image(imageName)
-                                        .hash(dockerImage.imageId())
-                                        .build()
-                        );
-                    }
-                }
-            } catch (IOException e) {
-                // TODO throw exception?
-                log.error("Could not parse Commands from label: " + labelValue, e);
+            for (final Command.CommandCreation commandCreation : parse(labelValue)) {
+                // The command as read from the image may not contain all the values we want to store
+                // So we add them now.
+                commandsToReturn.add(
+                        Command.builderFromCreation(commandCreation)
+                                .image(imageName)
+                                .hash(dockerImage.imageId())
+                                .build()
+                );
             }
         }
         return commandsToReturn;
     }
+
+    /**
+     * Parse the commands in a label, or get them from the last time we saw the same label.
+     */
+    private List<Command.CommandCreation> parse(final String labelValue) {
+        final HashCode labelHash = Hashing.sha256().hashString(labelValue, StandardCharsets.UTF_8);
+        final List<Command.CommandCreation> cached = parsedLabels.getIfPresent(labelHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Command.CommandCreation> parsed = null;
+        try {
+            parsed = objectMapper.readValue(labelValue, new TypeReference<List<Command.CommandCreation>>() {});
+        } catch (IOException e) {
+            // TODO throw exception?
+            log.error("Could not parse Commands from label: " + labelValue, e);
+        }
+
+        final List<Command.CommandCreation> commandCreations = parsed == null ?
+                ImmutableList.<Command.CommandCreation>of() :
+                ImmutableList.copyOf(parsed.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+        parsedLabels.put(labelHash, commandCreations);
+        return commandCreations;
+    }
 }
@@ -6,17 +6,20 @@ import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.exceptions.CommandValidationException;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.CommandAvailabilityForProjects;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandWrapperEntity;
 import org.nrg.containers.model.configuration.CommandConfiguration;
 import org.nrg.containers.model.configuration.CommandConfigurationInternal;
 import org.nrg.containers.model.configuration.ProjectEnabledReport;
+import org.nrg.containers.services.CommandDocumentService;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerConfigService;
 import org.nrg.containers.services.ContainerConfigService.CommandConfigurationException;
 import org.nrg.containers.utils.ContainerServicePermissionUtils;
+import org.nrg.containers.utils.ContainerServicePermissionUtils.WrapperPermission;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.exceptions.NrgRuntimeException;
 import org.nrg.framework.exceptions.NrgServiceRuntimeException;
@@ -32,11 +35,17 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -45,12 +54,18 @@ public class CommandServiceImpl implements CommandService {
 
     private final CommandEntityService commandEntityService;
     private final ContainerConfigService containerConfigService;
+    private final CommandCatalog commandCatalog;
+    private final CommandDocumentService commandDocumentService;
 
     @Autowired
     public CommandServiceImpl(final CommandEntityService commandEntityService,
-                              final ContainerConfigService containerConfigService) {
+                              final ContainerConfigService containerConfigService,
+                              final CommandCatalog commandCatalog,
+                              final CommandDocumentService commandDocumentService) {
         this.commandEntityService = commandEntityService;
         this.containerConfigService = containerConfigService;
+        this.commandCatalog = commandCatalog;
+        this.commandDocumentService = commandDocumentService;
     }
 
     @Override
@@ -66,20 +81,21 @@ public class CommandServiceImpl implements CommandService {
             log.error(sb.toString());
             throw new CommandValidationException(errors);
         }
-        return toPojo(commandEntityService.create(fromPojo(command)));
+        final Command created = toPojo(commandEntityService.create(fromPojo(command)));
+        commandCatalog.commandChanged(created.id());
+        return created;
     }
 
     @Override
     @Nonnull
     public List<Command> getAll() {
-        return toPojo(commandEntityService.getAll());
+        return commandDocumentService.getAllCommands();
     }
 
     @Override
     @Nullable
     public Command retrieve(final long id) {
-        final CommandEntity commandEntity = commandEntityService.retrieve(id);
-        return commandEntity == null ? null : toPojo(commandEntity);
+        return commandDocumentService.retrieveCommand(id);
     }
 
     @Override
@@ -104,6 +120,7 @@ public class CommandServiceImpl implements CommandService {
         }
         final CommandEntity updatableEntity = fromPojo(toUpdate);
         commandEntityService.update(updatableEntity);
+        commandCatalog.commandChanged(updatableEntity.getId());
         return toPojo(updatableEntity);
     }
 
@@ -123,6 +140,7 @@ public class CommandServiceImpl implements CommandService {
             commandEntityService.deleteWrapper(commandWrapper.id());
         }
         commandEntityService.delete(command.id());
+        commandCatalog.commandDeleted(command.id());
     }
 
     @Override
@@ -167,6 +185,7 @@ public class CommandServiceImpl implements CommandService {
     @Transactional
     public CommandWrapper addWrapper(final @Nonnull Command command, final @Nonnull CommandWrapper wrapperToAdd) throws CommandValidationException, NotFoundException {
         final CommandWrapper created = toPojo(commandEntityService.addWrapper(fromPojo(command), fromPojo(wrapperToAdd)));
+        commandCatalog.commandChanged(command.id());
 
         final List<String> errors = get(command.id()).validate();
         if (!errors.isEmpty()) {
@@ -208,6 +227,7 @@ public class CommandServiceImpl implements CommandService {
         final CommandEntity commandEntity = commandEntityService.get(commandId);
         final CommandWrapperEntity template = commandEntityService.getWrapper(toUpdate.id());
         final CommandWrapper updated = toPojo(commandEntityService.update(template.update(toUpdate)));
+        commandCatalog.commandChanged(commandId);
 
         final List<String> errors = toPojo(commandEntity).validate();
         if (!errors.isEmpty()) {
@@ -220,6 +240,7 @@ public class CommandServiceImpl implements CommandService {
     @Transactional
     public void deleteWrapper(final long wrapperId) {
         commandEntityService.deleteWrapper(wrapperId);
+        commandCatalog.wrapperChanged(wrapperId);
     }
 
     @Override
@@ -444,43 +465,39 @@ public class CommandServiceImpl implements CommandService {
 
         final List<CommandSummaryForContext> available = new ArrayList<>();
 
-        for (final Command command : getAll()) {
-            for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
-
-                // Can only launch if the user gave us an xsiType that matches
-                // one of the wrapper's contexts
-                if (!xsiTypesMatch(context, wrapper.contexts())) {
-                    continue;
-                }
-
-                final Command.CommandWrapperExternalInput firstExternalInput = wrapper.firstExternalInput();
-                final String externalInputName;
-                if (firstExternalInput == null) {
-                    if (!isSiteWide) {
-                        // Only sitewide wrappers can have 0 external inputs
-                        continue;
-                    }
-                    externalInputName = "";
-                } else {
-                    externalInputName = firstExternalInput.name();
-                }
-
-                if (isSiteWide) {
-                    available.add(CommandSummaryForContext.create(command, wrapper,
-                            containerConfigService.isEnabledForSite(wrapper.id()),
-                            externalInputName));
-                    continue;
-                }
-
-                // Can only launch if this user has permission
-                if (!ContainerServicePermissionUtils.userHasRequiredPermissions(userI, project, context, wrapper)) {
+        // Can only launch if the user gave us an xsiType that matches
+        // one of the wrapper's contexts. The catalog has already worked that out.
+        for (final CommandCatalog.Entry entry : commandCatalog.snapshot().getEntriesForXsiType(context)) {
+            final Command command = entry.command;
+            final CommandWrapper wrapper = entry.wrapper;
+
+            final Command.CommandWrapperExternalInput firstExternalInput = wrapper.firstExternalInput();
+            final String externalInputName;
+            if (firstExternalInput == null) {
+                if (!isSiteWide) {
+                    // Only sitewide wrappers can have 0 external inputs
                     continue;
                 }
+                externalInputName = "";
+            } else {
+                externalInputName = firstExternalInput.name();
+            }
 
+            if (isSiteWide) {
                 available.add(CommandSummaryForContext.create(command, wrapper,
-                        containerConfigService.isEnabled(project, wrapper.id()),
+                        containerConfigService.isEnabledForSite(wrapper.id()),
                         externalInputName));
+                continue;
+            }
+
+            // Can only launch if this user has permission
+            if (!ContainerServicePermissionUtils.userHasRequiredPermissions(userI, project, context, wrapper)) {
+                continue;
             }
+
+            available.add(CommandSummaryForContext.create(command, wrapper,
+                    containerConfigService.isEnabled(project, wrapper.id()),
+                    externalInputName));
         }
 
         return available;
@@ -493,6 +510,91 @@ public class CommandServiceImpl implements CommandService {
         return available(null, xsiType, userI);
     }
 
+    /**
+     * Works out availability for all the projects at once. The catalog matches wrappers to the context once, each
+     * distinct permission the wrappers need is checked once per project and shared between wrappers, and the
+     * projects a wrapper can be launched in are narrowed with set operations. Enablement comes from the in-memory
+     * enablement index.
+     */
+    @Override
+    @Nonnull
+    public CommandAvailabilityForProjects availableInProjects(final Collection<String> projects,
+                                                              final String context,
+                                                              final UserI userI) {
+        final List<String> requested = projects == null ? Collections.<String>emptyList() : projects.stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+        if (StringUtils.isBlank(context) || requested.isEmpty()) {
+            return CommandAvailabilityForProjects.create(context, requested, null, null);
+        }
+
+        final Map<String, Map<Long, String>> reasons = new LinkedHashMap<>();
+        for (final String project : requested) {
+            reasons.put(project, new TreeMap<>());
+        }
+
+        final Set<String> readable = requested.stream()
+                .filter(project -> ContainerServicePermissionUtils.canReadProject(userI, project))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        final String contextXsiType = ContainerServicePermissionUtils.resolveContextXsiType(context);
+        final Map<WrapperPermission, Set<String>> projectsWithPermission = new HashMap<>();
+
+        final List<CommandSummaryForContext> available = new ArrayList<>();
+        for (final CommandCatalog.Entry entry : commandCatalog.snapshot().getEntriesForXsiType(context)) {
+            final CommandWrapper wrapper = entry.wrapper;
+            final Command.CommandWrapperExternalInput firstExternalInput = wrapper.firstExternalInput();
+            if (firstExternalInput == null) {
+                // Only sitewide wrappers can have 0 external inputs
+                for (final String project : requested) {
+                    reasons.get(project).put(wrapper.id(), "Wrapper has no external input and can only be launched site-wide");
+                }
+                continue;
+            }
+
+            final Set<String> launchable = new HashSet<>(readable);
+            final Map<String, WrapperPermission> missingPermission = new HashMap<>();
+            if (contextXsiType != null) {
+                for (final WrapperPermission permission : wrapper.requiredPermissions(contextXsiType)) {
+                    final Set<String> permitted = projectsWithPermission.computeIfAbsent(permission, p -> readable.stream()
+                            .filter(project -> ContainerServicePermissionUtils.canPerformAction(userI, project, p))
+                            .collect(Collectors.toSet()));
+                    for (final String project : launchable) {
+                        if (!permitted.contains(project)) {
+                            missingPermission.putIfAbsent(project, permission);
+                        }
+                    }
+                    launchable.retainAll(permitted);
+                }
+            }
+
+            boolean enabledEverywhere = true;
+            for (final String project : requested) {
+                final String reason;
+                if (!readable.contains(project)) {
+                    reason = "User cannot read project";
+                } else if (!launchable.contains(project)) {
+                    final WrapperPermission permission = missingPermission.get(project);
+                    reason = String.format("User cannot %s %s", permission.getAction(), permission.getXsiType());
+                } else if (!containerConfigService.isEnabled(project, wrapper.id())) {
+                    reason = "Wrapper is not enabled";
+                    enabledEverywhere = false;
+                } else {
+                    continue;
+                }
+                reasons.get(project).put(wrapper.id(), reason);
+            }
+
+            if (launchable.size() == requested.size()) {
+                available.add(CommandSummaryForContext.create(entry.command, wrapper, enabledEverywhere,
+                        firstExternalInput.name()));
+            }
+        }
+
+        return CommandAvailabilityForProjects.create(context, requested, available, reasons);
+    }
+
     @Override
     public void throwExceptionIfCommandExists(@Nonnull Command command) throws NrgRuntimeException {
         commandEntityService.throwExceptionIfCommandExists(fromPojo(command));
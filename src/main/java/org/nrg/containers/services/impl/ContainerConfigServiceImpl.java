@@ -17,11 +17,9 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.function.Predicate;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,16 +30,22 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
     private final ObjectMapper mapper;
     private final OrchestrationProjectEntityService orchestrationProjectEntityService;
     private final OrchestrationEntityService orchestrationEntityService;
+    private final WrapperEnablementIndex enablementIndex;
+    private final OrchestrationIndex orchestrationIndex;
 
     @Autowired
     public ContainerConfigServiceImpl(final ConfigService configService,
                                       final ObjectMapper mapper,
                                       final OrchestrationProjectEntityService orchestrationProjectEntityService,
-                                      final OrchestrationEntityService orchestrationEntityService) {
+                                      final OrchestrationEntityService orchestrationEntityService,
+                                      final WrapperEnablementIndex enablementIndex,
+                                      final OrchestrationIndex orchestrationIndex) {
         this.configService = configService;
         this.mapper = mapper;
         this.orchestrationProjectEntityService = orchestrationProjectEntityService;
         this.orchestrationEntityService = orchestrationEntityService;
+        this.enablementIndex = enablementIndex;
+        this.orchestrationIndex = orchestrationIndex;
     }
 
     @Override
@@ -150,40 +154,15 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
 
     @Override
     public List<String> getProjects(final long wrapperId, final String status) {
-        final String path = String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId);
         if (status == null || (!status.equalsIgnoreCase("ENABLED") &&  !status.equalsIgnoreCase("DISABLED"))) {
             return Collections.emptyList();
         }
-        final List<Configuration> configurations = configService.getConfigsByTool(TOOL_ID);
-        if (Objects.isNull(configurations)) {
-            return Collections.emptyList();
-        } else {
-            Predicate<Configuration> isSamePath = c -> c.getPath().equals(path);
-            Predicate<Configuration> isProjectScope = c -> c.getScope().equals(Scope.Project);
-            List<String> possibleProjects =   configurations.stream()
-                                                .filter(isProjectScope.and(isSamePath))
-                                                .filter(Objects::nonNull)
-                                                .map(c -> c.getEntityId())
-                                                .distinct()
-                                                .collect(Collectors.toList());
-            List<String>  projectsByStatus = new ArrayList<>();
-            for (String pId : possibleProjects) {
-                CommandConfigurationInternal configurationInternal = getCommandConfiguration(Scope.Project, pId, wrapperId);
-                if (configurationInternal != null) {
-                    if (status == null) {
-                        projectsByStatus.add(pId);
-                    } else {
-                            Boolean enabledStatus = configurationInternal.enabled();
-                            if (enabledStatus && status.equalsIgnoreCase("ENABLED")) {
-                                projectsByStatus.add(pId);
-                            } else if (!enabledStatus && status.equalsIgnoreCase("DISABLED")){
-                                projectsByStatus.add(pId);
-                            }
-                    }
-                }
-            }
-            return projectsByStatus;
-        }
+        final Boolean wanted = status.equalsIgnoreCase("ENABLED");
+        return enablementIndex.getProjectEntries(wrapperId).entrySet().stream()
+                .filter(e -> wanted.equals(e.getValue().enabled))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
     }
 
 
@@ -201,6 +180,7 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
             } else {
                 orchestrationEntityService.checkAndDisable(wrapperId);
             }
+            orchestrationIndex.changed();
         }
     }
 
@@ -232,12 +212,14 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
             log.error(message);
             throw new CommandConfigurationException(message, e);
         }
+        enablementIndex.recordWrite(scope, project, wrapperId, commandConfigurationInternal);
     }
 
     @Nullable
     private Boolean getCommandIsEnabledConfiguration(final Scope scope, final String project, final long wrapperId) {
-        final CommandConfigurationInternal commandConfigurationInternal = getCommandConfiguration(scope, project, wrapperId);
-        return commandConfigurationInternal == null ? false : commandConfigurationInternal.enabled();
+        // Served from memory; see WrapperEnablementIndex
+        final WrapperEnablementIndex.Entry entry = enablementIndex.get(scope, project, wrapperId);
+        return entry == null ? false : entry.enabled;
     }
 
 
@@ -255,16 +237,20 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
         final String path = String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId);
         final Configuration configuration = configService.getConfig(TOOL_ID, path, scope, project);
         if (configuration == null) {
+            enablementIndex.recordRead(scope, project, wrapperId, null);
             return null;
         }
 
         final String configurationJson = configuration.getContents();
         if (StringUtils.isBlank(configurationJson)) {
+            enablementIndex.recordRead(scope, project, wrapperId, null);
             return null;
         }
 
         try {
-            return mapper.readValue(configurationJson, CommandConfigurationInternal.class);
+            final CommandConfigurationInternal commandConfigurationInternal = mapper.readValue(configurationJson, CommandConfigurationInternal.class);
+            enablementIndex.recordRead(scope, project, wrapperId, commandConfigurationInternal);
+            return commandConfigurationInternal;
         } catch (IOException e) {
             final String message = String.format("Could not deserialize Command Configuration for %s, wrapper id %d.",
                     scope.equals(Scope.Site) ? "site" : "project " + project,
@@ -293,6 +279,7 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
         if (commandConfigurationInternal.enabled() == null) {
             final String path = String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId);
             configService.delete(configService.getConfig(TOOL_ID, path, scope, project));
+            enablementIndex.recordWrite(scope, project, wrapperId, null);
             return;
         }
 
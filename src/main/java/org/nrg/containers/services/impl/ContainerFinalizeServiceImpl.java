@@ -25,6 +25,7 @@ import org.nrg.containers.model.container.auto.Container.ContainerOutput;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.utils.ContainerUtils;
+import org.nrg.containers.utils.LazyOutputStream;
 import org.nrg.mail.services.MailService;
 import org.nrg.xdat.om.XnatExperimentdata;
 import org.nrg.xdat.om.XnatProjectdata;
@@ -37,7 +38,6 @@ import org.nrg.xft.XFTItem;
 import org.nrg.xft.event.persist.PersistentWorkflowI;
 import org.nrg.xft.event.persist.PersistentWorkflowUtils;
 import org.nrg.xft.security.UserI;
-import org.nrg.xft.utils.FileUtils;
 import org.nrg.xnat.helpers.uri.URIManager;
 import org.nrg.xnat.helpers.uri.UriParserUtils;
 import org.nrg.xnat.services.archive.CatalogService;
@@ -46,7 +46,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -327,37 +329,27 @@ public class ContainerFinalizeServiceImpl implements ContainerFinalizeService {
             log.info(prefix + "Getting logs.");
             final List<String> logPaths = Lists.newArrayList();
 
-            final String stdoutLogStr = getLogStr(LogType.STDOUT);
-            final String stderrLogStr = getLogStr(LogType.STDERR);
-
-            if (StringUtils.isNotBlank(stdoutLogStr) || StringUtils.isNotBlank(stderrLogStr)) {
-
-                final String archivePath = siteConfigPreferences.getArchivePath(); // TODO find a place to upload this thing. Root of the archive if sitewide, else under the archive path of the root object
-                if (StringUtils.isNotBlank(archivePath)) {
-                    final String containerExecSubdir = String.valueOf(toFinalize.databaseId());
-                    final String subtype = StringUtils.defaultIfBlank(toFinalize.subtype(), "");
-                    final File destination = Paths.get(archivePath, "CONTAINER_EXEC", containerExecSubdir, "LOGS", subtype).toFile();
-                    destination.mkdirs();
-
+            final String archivePath = siteConfigPreferences.getArchivePath(); // TODO find a place to upload this thing. Root of the archive if sitewide, else under the archive path of the root object
+            if (StringUtils.isBlank(archivePath)) {
+                return logPaths;
+            }
+            final String containerExecSubdir = String.valueOf(toFinalize.databaseId());
+            final String subtype = StringUtils.defaultIfBlank(toFinalize.subtype(), "");
+            final File destination = Paths.get(archivePath, "CONTAINER_EXEC", containerExecSubdir, "LOGS", subtype).toFile();
+
+            // Copy each log straight from the backend to its file. The file, and the directory, are only
+            //  created once there is something other than whitespace to write.
+            for (final LogType logType : Arrays.asList(LogType.STDOUT, LogType.STDERR)) {
+                final File logFile = new File(destination, logType.logName());
+                final LazyOutputStream logStream = new LazyOutputStream(() -> {
                     log.info(prefix + "Saving logs to " + destination.getAbsolutePath());
-
-                    if (StringUtils.isNotBlank(stdoutLogStr)) {
-                        log.debug("Saving stdout");
-                        final File stdoutFile = new File(destination, ContainerService.STDOUT_LOG_NAME);
-                        FileUtils.OutputToFile(stdoutLogStr, stdoutFile.getAbsolutePath());
-                        logPaths.add(stdoutFile.getAbsolutePath());
-                    } else {
-                        log.debug("Stdout was blank");
-                    }
-
-                    if (StringUtils.isNotBlank(stderrLogStr)) {
-                        log.debug("Saving stderr");
-                        final File stderrFile = new File(destination, ContainerService.STDERR_LOG_NAME);
-                        FileUtils.OutputToFile(stderrLogStr, stderrFile.getAbsolutePath());
-                        logPaths.add(stderrFile.getAbsolutePath());
-                    } else {
-                        log.debug("Stderr was blank");
-                    }
+                    destination.mkdirs();
+                    return new BufferedOutputStream(new FileOutputStream(logFile));
+                }, true);
+                if (saveLog(logType, logStream)) {
+                    logPaths.add(logFile.getAbsolutePath());
+                } else {
+                    log.debug("{} was blank", logType);
                 }
             }
 
@@ -365,13 +357,15 @@ public class ContainerFinalizeServiceImpl implements ContainerFinalizeService {
             return logPaths;
         }
 
-        private String getLogStr(final LogType logType) {
-            try {
-                return containerControlApi.getLog(toFinalize, logType);
+        private boolean saveLog(final LogType logType, final LazyOutputStream logStream) {
+            try (final LazyOutputStream out = logStream) {
+                containerControlApi.writeLog(toFinalize, logType, out);
             } catch (ContainerBackendException | NoContainerServerException e) {
-                log.error(prefix + "Could not get stderr log.", e);
+                log.error(prefix + "Could not get {} log.", logType, e);
+            } catch (IOException e) {
+                log.error(prefix + "Could not save {} log.", logType, e);
             }
-            return null;
+            return logStream.isOpened();
         }
 
         private OutputsAndExceptions uploadOutputs(@Nullable Integer uploadEventId) {
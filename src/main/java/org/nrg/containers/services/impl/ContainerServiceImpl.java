@@ -6,13 +6,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dockerjava.api.model.TaskState;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.nrg.action.ClientException;
@@ -46,6 +44,9 @@ import org.nrg.containers.model.configuration.PluginVersionCheck;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.auto.Container.ContainerHistory;
 import org.nrg.containers.model.container.auto.ContainerPaginatedRequest;
+import org.nrg.containers.model.container.auto.ContainerSummary;
+import org.nrg.containers.model.container.auto.ContainerSummaryPage;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.container.auto.ServiceTask;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
@@ -57,11 +58,14 @@ import org.nrg.containers.model.xnat.XnatModelObject;
 import org.nrg.containers.rest.ContainerLogPollResponse;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.DockerService;
 import org.nrg.containers.services.OrchestrationService;
 import org.nrg.containers.utils.ContainerUtils;
+import org.nrg.containers.utils.LazyOutputStream;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.services.NrgEventServiceI;
 import org.nrg.xdat.XDAT;
@@ -108,7 +112,6 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -121,7 +124,6 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -135,7 +137,6 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -187,9 +188,8 @@ public class ContainerServiceImpl implements ContainerService {
     private final ObjectMapper mapper;
     private final ExecutorService executorService;
     private final NrgEventServiceI eventService;
-
-
-    private LoadingCache<OrchestrationIdentifier, Optional<Orchestration>> orchestrationCache;
+    private final ContainerArchiveService containerArchiveService;
+    private final DockerService dockerService;
 
     @Autowired
     public ContainerServiceImpl(final ContainerControlApi containerControlApi,
@@ -205,7 +205,9 @@ public class ContainerServiceImpl implements ContainerService {
                                 final NrgEventServiceI eventService,
                                 final ObjectMapper mapper,
                                 @Qualifier("containerServiceThreadPoolExecutorFactoryBean")
-                                    final ThreadPoolExecutorFactoryBean containerServiceThreadPoolExecutorFactoryBean) {
+                                    final ThreadPoolExecutorFactoryBean containerServiceThreadPoolExecutorFactoryBean,
+                                final ContainerArchiveService containerArchiveService,
+                                final DockerService dockerService) {
         this.containerControlApi = containerControlApi;
         this.containerEntityService = containerEntityService;
         this.commandResolutionService = commandResolutionService;
@@ -219,18 +221,8 @@ public class ContainerServiceImpl implements ContainerService {
         this.eventService = eventService;
         this.mapper = mapper;
         this.executorService = containerServiceThreadPoolExecutorFactoryBean.getObject();
-
-        buildCache();
-    }
-
-    private void buildCache() {
-        CacheLoader<OrchestrationIdentifier, Optional<Orchestration>> loader = new CacheLoader<OrchestrationIdentifier, Optional<Orchestration>>() {
-            @Override
-            public Optional<Orchestration> load(@Nonnull OrchestrationIdentifier oi) {
-                return Optional.ofNullable(orchestrationService.findWhereWrapperIsFirst(oi));
-            }
-        };
-        orchestrationCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.SECONDS).build(loader);
+        this.containerArchiveService = containerArchiveService;
+        this.dockerService = dockerService;
     }
 
     @Override
@@ -340,11 +332,16 @@ public class ContainerServiceImpl implements ContainerService {
     @Override
     public void delete(final long id) {
         containerEntityService.delete(id);
+        containerArchiveService.deleteArchived(id);
     }
 
     @Override
     public void delete(final String containerId) {
-        containerEntityService.delete(containerId);
+        try {
+            delete(containerEntityService.get(containerId).getId());
+        } catch (NotFoundException e) {
+            // pass
+        }
     }
 
     @Override
@@ -395,6 +392,16 @@ public class ContainerServiceImpl implements ContainerService {
         return toPojo(containerEntityService.getPaginated(containerPaginatedRequest));
     }
 
+    @Override
+    public ContainerSummaryPage getSummaries(final ContainerSummaryRequest containerSummaryRequest) {
+        final List<ContainerSummary> summaries = containerEntityService.getSummaries(containerSummaryRequest);
+        if (summaries.size() <= containerSummaryRequest.limit()) {
+            return ContainerSummaryPage.create(summaries, null);
+        }
+        final List<ContainerSummary> page = summaries.subList(0, containerSummaryRequest.limit());
+        return ContainerSummaryPage.create(page, ContainerSummaryRequest.cursor(page.get(page.size() - 1)));
+    }
+
     @Override
     @Nonnull
     public List<Container> retrieveServices() {
@@ -407,6 +414,12 @@ public class ContainerServiceImpl implements ContainerService {
         return toPojo(containerEntityService.retrieveNonfinalizedServices());
     }
 
+    @Override
+    @Nonnull
+    public Map<String, String> retrieveNonfinalizedKubernetesJobStatuses() {
+        return containerEntityService.retrieveNonfinalizedKubernetesJobStatuses();
+    }
+
     @Nullable
     private List<WrkWorkflowdata> getContainerWorkflowsByStatus(String status, UserI user) {
         final CriteriaCollection cc = new CriteriaCollection("AND");
@@ -590,6 +603,9 @@ public class ContainerServiceImpl implements ContainerService {
             log.debug("Configuring command for wfid {}", workflowid);
             ConfiguredCommand configuredCommand = commandService.getAndConfigure(project, commandId, wrapperName, wrapperId);
 
+            // A launch whose image can't be had fails here, before its inputs are resolved and anything is saved
+            dockerService.ensureImage(configuredCommand.image());
+
             log.debug("Resolving command for wfid {}", workflowid);
             ResolvedCommand resolvedCommand = commandResolutionService.resolve(configuredCommand, inputValues, project, userI, workflowid);
 
@@ -672,7 +688,21 @@ public class ContainerServiceImpl implements ContainerService {
         try {
             log.info("Creating container from resolved command.");
             final ResolvedCommand preparedToCreate = appendToCommandLabels(preparedToLaunch, workflow, userI);
-            final Container created = containerControlApi.create(preparedToCreate, userI);
+
+            // A container with setup containers is created now and started once they are done. Anything else can
+            // be saved first and then created already running, if the backend launches directly.
+            final Container toLaunchDirectly = resolvedCommand.setupCommands().isEmpty()
+                    ? containerControlApi.prepareDirectLaunch(Container.builderFromResolvedCommand(preparedToCreate)
+                            .userId(userI.getLogin())
+                            .build(), userI)
+                    : null;
+            final Container created;
+            if (toLaunchDirectly != null) {
+                created = toLaunchDirectly;
+            } else {
+                dockerService.ensureImage(preparedToCreate.image());
+                created = containerControlApi.create(preparedToCreate, userI);
+            }
 
             if (workflow != null) {
                 // Update workflow with container information
@@ -704,6 +734,8 @@ public class ContainerServiceImpl implements ContainerService {
                 for (final ResolvedCommand resolvedSetupCommand : resolvedCommand.setupCommands()) {
                     launchResolvedCommand(resolvedSetupCommand, userI, workflow, saved);
                 }
+            } else if (toLaunchDirectly != null) {
+                launchSaved(userI, saved);
             } else {
                 start(userI, saved);
             }
@@ -726,6 +758,21 @@ public class ContainerServiceImpl implements ContainerService {
         }
     }
 
+    /**
+     * Create the backend object, already running, for a container saved with the ID from
+     * {@link ContainerControlApi#prepareDirectLaunch(Container, UserI)}.
+     */
+    private void launchSaved(final UserI userI, final Container saved) throws NoContainerServerException, ContainerException {
+        log.info("Launching {} for container {}.", saved.serviceId(), saved.databaseId());
+        try {
+            containerControlApi.launchDirectly(saved);
+        } catch (ContainerBackendException e) {
+            addContainerHistoryItem(saved, ContainerHistory.fromSystem(PersistentWorkflowUtils.FAILED, "Did not start." + e.getMessage()), userI);
+            handleFailure(userI, saved);
+            throw new ContainerException("Failed to start");
+        }
+    }
+
     @Nonnull
     private Container createWrapupContainerInDbFromResolvedCommand(final ResolvedCommand resolvedCommand, final Container parent,
                                                                    final UserI userI, PersistentWorkflowI parentWorkflow) {
@@ -769,7 +816,13 @@ public class ContainerServiceImpl implements ContainerService {
 
         final Container preparedToLaunch = restart ? toLaunch : prepareToLaunch(toLaunch, userI, workflow);
 
+        final Container toLaunchDirectly = containerControlApi.prepareDirectLaunch(preparedToLaunch, userI);
+        if (toLaunchDirectly != null) {
+            return launchDirectly(toLaunchDirectly, userI, workflow);
+        }
+
         log.info("Creating backend container for {} container {}.", toLaunch.subtype(), toLaunch.databaseId());
+        dockerService.ensureImage(preparedToLaunch.dockerImage());
         final Container created = containerControlApi.create(preparedToLaunch, userI);
 
         log.info("Updating {} container {}.", toLaunch.subtype(), toLaunch.databaseId());
@@ -785,6 +838,50 @@ public class ContainerServiceImpl implements ContainerService {
         return created;
     }
 
+    /**
+     * Save the backend ID before the backend object exists, then create it already running, with one call to the
+     * backend. The saved row records that the object should exist: if we stop after saving it but before creating
+     * the object, {@link #launchPendingKubernetesJob(String)} or {@link #launchPendingSwarmService(String)} creates it
+     * later. The ID is fixed, so it can't be created twice.
+     */
+    @Nonnull
+    private Container launchDirectly(final Container toLaunch, final UserI userI, final PersistentWorkflowI workflow)
+            throws NoContainerServerException, ContainerException {
+        log.info("Saving {} for {} container {}.", toLaunch.serviceId(), toLaunch.subtype(), toLaunch.databaseId());
+        containerEntityService.update(fromPojo(toLaunch));
+
+        // Update workflow if we have one
+        if (workflow != null) {
+            updateWorkflowWithContainer(workflow, toLaunch);
+        }
+
+        launchSaved(userI, toLaunch);
+        return toLaunch;
+    }
+
+    @Override
+    public void launchPendingKubernetesJob(final String jobName) {
+        launchPending("Job", jobName);
+    }
+
+    @Override
+    public void launchPendingSwarmService(final String serviceName) {
+        launchPending("Service", serviceName);
+    }
+
+    private void launchPending(final String kind, final String backendId) {
+        final Container container = retrieve(backendId);
+        if (container == null || !CREATED.equals(container.status())) {
+            return;
+        }
+        log.info("{} {} for container {} was saved but never created. Creating it now.", kind, backendId, container.databaseId());
+        try {
+            containerControlApi.launchDirectly(container);
+        } catch (NoContainerServerException | ContainerBackendException | ContainerException e) {
+            log.error("Could not create {} {} for container {}", kind.toLowerCase(), backendId, container.databaseId(), e);
+        }
+    }
+
     @Nonnull
     private ResolvedCommand prepareToLaunch(final ResolvedCommand resolvedCommand,
                                             final Container parent,
@@ -856,11 +953,12 @@ public class ContainerServiceImpl implements ContainerService {
             return;
         }
 
-        Container containerWithAddedEvent = addContainerEventToHistory(event, userI);
-        if (containerWithAddedEvent == null) {
-            // Ignore this issue?
-            containerWithAddedEvent = container;
-        }
+        // Only the status comes back; the container we already have is good enough for everything below
+        final String statusWithAddedEvent = containerEntityService.addContainerHistoryItemAndUpdateStatus(container.databaseId(),
+                ContainerEntityHistory.fromContainerEvent(event, null), userI);
+        Container containerWithAddedEvent = statusWithAddedEvent == null ?
+                container :
+                container.toBuilder().status(statusWithAddedEvent).build();
 
         if (containerWithAddedEvent.backend() == Backend.KUBERNETES && event instanceof KubernetesStatusChangeEvent) {
             KubernetesStatusChangeEvent kEvent = ((KubernetesStatusChangeEvent) event);
@@ -870,27 +968,26 @@ public class ContainerServiceImpl implements ContainerService {
             boolean shouldUpdatePodName = containerWithAddedEvent.podName() == null && kEvent.getPodName() != null;
             boolean shouldUpdateContainerId = containerWithAddedEvent.containerId() == null && kEvent.getContainerId() != null;
             if (shouldUpdateNode || shouldUpdatePodName || shouldUpdateContainerId) {
-                Container.Builder builder = containerWithAddedEvent.toBuilder();
-
                 if (shouldUpdateNode) {
                     log.debug("Container {} for job {}: setting nodeId to node {}",
                             container.databaseId(), container.jobName(), kEvent.getNodeId()
                     );
-                    builder.nodeId(kEvent.getNodeId());
                 }
                 if (shouldUpdatePodName) {
                     log.debug("Container {} for job {}: setting taskId to pod name {}",
                             container.databaseId(), container.jobName(), kEvent.getPodName()
                     );
-                    builder.taskId(kEvent.getPodName());
                 }
                 if (shouldUpdateContainerId) {
                     log.debug("Container {} for job {}: setting containerId to container id {}",
                             container.databaseId(), container.jobName(), kEvent.getContainerId()
                     );
-                    builder.containerId(kEvent.getContainerId());
                 }
-                containerEntityService.update(fromPojo(builder.build()));
+                // Only the IDs are written. The container we have predates the history item and status just recorded.
+                containerEntityService.updateBackendIdsIfUnset(container.databaseId(),
+                        shouldUpdateNode ? kEvent.getNodeId() : null,
+                        shouldUpdatePodName ? kEvent.getPodName() : null,
+                        shouldUpdateContainerId ? kEvent.getContainerId() : null);
                 containerWithAddedEvent = retrieve(container.databaseId());
             }
         }
@@ -962,7 +1059,8 @@ public class ContainerServiceImpl implements ContainerService {
             final ContainerHistory taskHistoryItem = ContainerHistory.fromServiceTask(task);
 
             // Process new and waiting events (duplicate docker events are skipped)
-            if (!isWaiting(service) && addContainerHistoryItem(service, taskHistoryItem, userI) == null) {
+            if (!isWaiting(service) && containerEntityService.addContainerHistoryItemAndUpdateStatus(service.databaseId(),
+                    fromPojo(taskHistoryItem), userI) == null) {
                 // We have already added this task and can safely skip it.
                 log.debug("Skipping task status we have already seen: service \"{}\" status \"{}\" exit code {}.",
                         task.serviceId(), task.status(), task.exitCode());
@@ -1590,17 +1688,28 @@ public class ContainerServiceImpl implements ContainerService {
     @Override
     public void writeLogsToZipStream(String containerId, OutputStream outputStream) throws NotFoundException, IOException {
         final Container container = get(containerId);
+        final boolean containerDone = containerStatusIsTerminal(container);
 
         try (final ZipOutputStream zipStream = (outputStream instanceof ZipOutputStream ? (ZipOutputStream) outputStream : new ZipOutputStream(outputStream))) {
             for (final LogType logType : EnumSet.allOf(LogType.class)){
-                final InputStream inputStream = getLogStream(container, logType);
-                if (inputStream == null) {
-                    continue;
-                }
+                // The entry is only added once there is something to put in it
                 final ZipEntry entry = new ZipEntry(logType.logName());
-                try {
+                final LazyOutputStream entryStream = new LazyOutputStream(() -> {
                     zipStream.putNextEntry(entry);
-                    IOUtils.copy(inputStream, zipStream);
+                    return new CloseShieldOutputStream(zipStream);
+                });
+                try {
+                    if (!containerDone) {
+                        // We have not yet saved the logs from the backend. Copy them straight from there.
+                        writeLiveLog(container, logType, entryStream);
+                    } else {
+                        final InputStream inputStream = getSavedLogStream(container, logType);
+                        if (inputStream != null) {
+                            try (final InputStream in = inputStream) {
+                                IOUtils.copy(in, entryStream);
+                            }
+                        }
+                    }
                 } catch (IOException e) {
                     log.error("There was a problem writing {} to the zip.", logType, e);
                     throw e;
@@ -1613,19 +1722,18 @@ public class ContainerServiceImpl implements ContainerService {
         }
     }
 
+    private void writeLiveLog(final Container container, final LogType logType, final OutputStream outputStream) {
+        try {
+            containerControlApi.writeLog(container, logType, outputStream);
+        } catch (NoContainerServerException | ContainerBackendException e) {
+            log.debug("No {} log for {}", logType, container.databaseId());
+        }
+    }
+
     @Nullable
-    private InputStream getLogStream(final Container container, final LogType logType) {
-        final boolean containerDone = containerStatusIsTerminal(container);
+    private InputStream getSavedLogStream(final Container container, final LogType logType) {
         final String logPath = container.getLogPath(logType.logName());
-        if (!containerDone) {
-            try {
-                // If log path is blank, that means we have not yet saved the logs from docker. Go fetch them now.
-                final String log = containerControlApi.getLog(container, logType);
-                return log == null ? null : new ByteArrayInputStream(log.getBytes());
-            } catch (NoContainerServerException | ContainerBackendException e) {
-                log.debug("No {} log for {}", logType, container.databaseId());
-            }
-        } else if (!StringUtils.isBlank(logPath)) {
+        if (!StringUtils.isBlank(logPath)) {
             // If log path is not blank, that means we have saved the logs to a file (processing has completed). Read it now.
             try {
                 return new FileInputStream(logPath);
@@ -1681,29 +1789,35 @@ public class ContainerServiceImpl implements ContainerService {
         // The logs we fetched will have timestamps on each line.
         // We want to find the most recent timestamp, which we return as "since", which when passed in
         //   subsequent calls will allow them to only fetch new logs.
-
-        // Scan through all matching datetime strings to find the last one
-        //  (because there doesn't seem to be a way to find the last match more directly)
-        final Matcher datetimeMatch = DATETIME_AT_LINE_START.matcher(logContent);
-        String datetimestamp = null;
-        while (datetimeMatch.find()) {
-            datetimestamp = datetimeMatch.group(DATETIME_GROUP_NAME);
+        // The backend APIs only take "since" in whole seconds, so they can send back lines from earlier in that
+        //   second, which we have already returned. Drop those, by their own timestamps.
+        final StringBuilder newLogContent = new StringBuilder();
+        OffsetDateTime lastLogDatetime = null;
+        boolean first = true;
+        for (final String line : logContent.split("\n", -1)) {
+            final Matcher datetimeMatch = DATETIME_AT_LINE_START.matcher(line);
+            String lineContent = line;
+            if (datetimeMatch.lookingAt()) {
+                final OffsetDateTime lineDatetime = parseTimestamp(datetimeMatch.group(DATETIME_GROUP_NAME)).orElse(null);
+                if (lineDatetime != null) {
+                    if (since != null && !lineDatetime.isAfter(since)) {
+                        continue;
+                    }
+                    lastLogDatetime = lineDatetime;
+                }
+                // Strip the timestamp, leaving the log behind
+                lineContent = line.substring(datetimeMatch.end());
+            }
+            if (!first) {
+                newLogContent.append('\n');
+            }
+            newLogContent.append(lineContent);
+            first = false;
         }
 
-        // Shift timestamp forward by 1 second (minimum precision that the backend APIs offer)
-        // to avoid getting the same log message again on the next call
-        // NOTE: This means we may get unlucky and miss log lines that were produced < 1 second after the current most recent log message :(
-        final OffsetDateTime lastLogDatetime = parseTimestamp(datetimestamp)
-                .map(dateTime -> dateTime.plus(1L, ChronoUnit.SECONDS))
-                .orElseGet(() -> sinceOrDefault(since, queryTime));  // Couldn't get a timestamp out of the logs, so fall back to what we do know;
-
-        // Format into datetimestamp
-        final String lastLogTimestamp = formatTimestamp(lastLogDatetime);
-
-        // Strip the timestamps, leaving the logs behind
-        logContent = datetimeMatch.reset().replaceAll("");
-
-        return ContainerLogPollResponse.fromLive(logContent, lastLogTimestamp);
+        // Couldn't get a timestamp out of the logs, so fall back to what we do know
+        final String lastLogTimestamp = formatTimestamp(lastLogDatetime != null ? lastLogDatetime : sinceOrDefault(since, queryTime));
+        return ContainerLogPollResponse.fromLive(newLogContent.toString(), lastLogTimestamp);
     }
 
     private static OffsetDateTime sinceOrDefault(final OffsetDateTime since, final OffsetDateTime queryTime) {
@@ -2061,8 +2175,7 @@ public class ContainerServiceImpl implements ContainerService {
             // No orchestration without project context
             return null;
         }
-        OrchestrationIdentifier oi = new OrchestrationIdentifier(project, wrapperId, commandId, wrapperName);
-        return orchestrationCache.get(oi).orElse(null);
+        return orchestrationService.findWhereWrapperIsFirst(new OrchestrationIdentifier(project, wrapperId, commandId, wrapperName));
     }
 
     /**
@@ -2181,13 +2294,41 @@ public class ContainerServiceImpl implements ContainerService {
         return rootInputObject;
     }
 
+    /**
+     * An archived container keeps only its summary row; its full record comes from the archive.
+     * Every container gets a history item when it is saved, so only those without one can be archived.
+     */
     @Nonnull
     private Container toPojo(@Nonnull final ContainerEntity containerEntity) {
-        return Container.create(containerEntity);
+        final Container container = Container.create(containerEntity);
+        if (!container.history().isEmpty()) {
+            return container;
+        }
+        final Container archived = containerArchiveService.retrieveArchived(container.databaseId());
+        return archived == null ? container : fromArchive(archived, container);
     }
 
+    /**
+     * As {@link #toPojo(ContainerEntity)}, reading all the archived containers in the list at once.
+     */
     private List<Container> toPojo(@Nonnull final List<ContainerEntity> containerEntityList) {
-        return containerEntityList.stream().map(this::toPojo).collect(Collectors.toList());
+        final List<Container> containers = containerEntityList.stream().map(Container::create).collect(Collectors.toList());
+        final List<Long> maybeArchived = containers.stream()
+                .filter(container -> container.history().isEmpty())
+                .map(Container::databaseId)
+                .collect(Collectors.toList());
+        if (maybeArchived.isEmpty()) {
+            return containers;
+        }
+        final Map<Long, Container> archived = containerArchiveService.retrieveArchived(maybeArchived);
+        return containers.stream()
+                .map(container -> archived.containsKey(container.databaseId()) ?
+                        fromArchive(archived.get(container.databaseId()), container) : container)
+                .collect(Collectors.toList());
+    }
+
+    private static Container fromArchive(final Container archived, final Container summary) {
+        return archived.toBuilder().parent(summary.parent()).build();
     }
 
     @Nonnull
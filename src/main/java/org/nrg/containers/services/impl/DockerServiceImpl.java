@@ -1,10 +1,10 @@
 package org.nrg.containers.services.impl;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.api.LaunchStageMetrics;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.InvalidDefinitionException;
 import org.nrg.containers.exceptions.NoDockerServerException;
@@ -15,6 +15,8 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.services.CommandLabelService;
@@ -28,10 +30,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,18 +48,27 @@ public class DockerServiceImpl implements DockerService {
     private final CommandService      commandService;
     private final DockerServerService dockerServerService;
     private final CommandLabelService commandLabelService;
+    private final ImageSummaryIndex   imageSummaryIndex;
+    private final ImagePullManager    imagePullManager;
+
+    // The image each name pointed to the last time we saved commands from all image labels
+    private final Map<String, String> syncedImageIdsByName = new ConcurrentHashMap<>();
 
     @Autowired
     public DockerServiceImpl(final ContainerControlApi controlApi,
                              final DockerHubService dockerHubService,
                              final CommandService commandService,
                              final DockerServerService dockerServerService,
-                             final CommandLabelService commandLabelService) {
+                             final CommandLabelService commandLabelService,
+                             final ImageSummaryIndex imageSummaryIndex,
+                             final ImagePullManager imagePullManager) {
         this.controlApi = controlApi;
         this.dockerHubService = dockerHubService;
         this.commandService = commandService;
         this.dockerServerService = dockerServerService;
         this.commandLabelService = commandLabelService;
+        this.imageSummaryIndex = imageSummaryIndex;
+        this.imagePullManager = imagePullManager;
     }
 
     @Override
@@ -201,13 +215,47 @@ public class DockerServiceImpl implements DockerService {
                                     final String token,
                                     final String email)
             throws NoDockerServerException, DockerServerException, NotFoundException {
-        final DockerImage dockerImage = controlApi.pullImage(imageName, hub, username, password, token, email);
+        final DockerImage dockerImage = imagePullManager.pullAndWait(imageName, hub, username, password, token, email);
         if (saveCommands) {
             saveFromImageLabels(imageName, dockerImage);
         }
         return dockerImage;
     }
 
+    @Override
+    @Nonnull
+    public List<ImagePullStatus> getImagePulls() {
+        return imagePullManager.getStatuses();
+    }
+
+    @Override
+    public void ensureImage(final String imageName) throws NoDockerServerException, DockerServerException {
+        final DockerServer dockerServer;
+        try {
+            dockerServer = dockerServerService.getServer();
+        } catch (NotFoundException e) {
+            throw new NoDockerServerException(e);
+        }
+        if (dockerServer.backend() != Backend.DOCKER || StringUtils.isBlank(imageName)) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        if (imageSummaryIndex.findImageId(dockerServer.name(), imageName) == null) {
+            try {
+                imagePullManager.pullAndWait(imageName, null, null, null, null, null);
+            } catch (NotFoundException e) {
+                throw new DockerServerException("Could not pull image " + imageName + " from repository.", e);
+            }
+        }
+        controlApi.getLaunchMetrics().record(LaunchStageMetrics.Stage.IMAGE, System.nanoTime() - start);
+    }
+
+    @Override
+    public Map<String, Object> getLaunchMetrics() {
+        return controlApi.getLaunchMetrics().report();
+    }
+
     @Override
     public DockerServerWithPing getServer() throws NotFoundException {
         final DockerServer dockerServer = dockerServerService.getServer();
@@ -218,6 +266,8 @@ public class DockerServiceImpl implements DockerService {
     @Override
     public DockerServerWithPing setServer(final DockerServer server) throws InvalidDefinitionException {
         final DockerServer dockerServer = dockerServerService.setServer(server);
+        // The images we know about belong to the old server
+        imageSummaryIndex.invalidate();
         final boolean ping = controlApi.canConnect();
         return DockerServerWithPing.create(dockerServer, ping);
     }
@@ -270,122 +320,7 @@ public class DockerServiceImpl implements DockerService {
         } catch (NotFoundException e) {
             throw new NoDockerServerException(e);
         }
-        final String server = dockerServer.name();
-
-        final List<DockerImage> rawImages = controlApi.getAllImages();
-
-        // Store the images by every name that someone might call them: all tags and id
-        // final Map<String, DockerImage> imagesByIdUniqueValues = Maps.newHashMap();
-        final Map<String, String> imageIdsByNameDuplicateValues = Maps.newHashMap();
-
-        // Store the summaries indexed by image id
-        final Map<String, DockerImageAndCommandSummary.Builder> imageSummaryBuildersByImageId = Maps.newHashMap();
-        final Map<String, List<Command>> commandListsByImageId = Maps.newHashMap();
-        for (final DockerImage image : rawImages) {
-
-            if (StringUtils.isNotBlank(image.imageId())) {
-                // Keep track of all the tags that the image uses. This will make the image
-                // easier to find if a command uses one of these tags as its "image name".
-                if (image.tags() != null && !image.tags().isEmpty()) {
-                    for (final String tag : image.tags()) {
-                        imageIdsByNameDuplicateValues.put(tag, image.imageId());
-                    }
-                }
-
-                // Start building the image summary (but leave it partially built for now).
-                // The reason for leaving it as a Builder is that we may need to modify the
-                // list of commands later (when we have to reconcile the commands that are defined
-                // in the image's labels with the commands we read from the database),
-                // but if we fully build the image summary then the commands are in an ImmutableList.
-                imageSummaryBuildersByImageId.put(image.imageId(),
-                        DockerImageAndCommandSummary.builder()
-                                .addDockerImage(image)
-                                .server(server)
-                );
-                commandListsByImageId.put(image.imageId(),
-                        commandLabelService.parseLabels(image)
-                );
-            } else {
-                // If image has no ID, then we will have problems tracking it uniquely.
-                // Just skip it.
-                log.debug("Docker image has no ID, skipping: {}", image);
-            }
-        }
-
-        // Go through all commands in the database, update the image summaries we have with
-        // any new info about these commands, and add new images summaries if we haven't made one yet.
-        for (final Command command : commandService.getAll()) {
-            final String imageNameUsedByTheCommand = command.image();
-            if (StringUtils.isNotBlank(imageNameUsedByTheCommand)) {
-                // The command refers to the image by some name. Let's see if we've already
-                // started an image summary with that name...
-                if (imageIdsByNameDuplicateValues.containsKey(imageNameUsedByTheCommand)) {
-
-                    // We do recognize the image by this name, so we have already started building a summary.
-                    // Merge this command into the list of the image's commands
-                    //      i.e. add it if it isn't there, or update it if it already is there.
-                    //
-                    // Note: if we have the image name in the map imageIdsByNameDuplicateValue, we know that
-                    // we also have some list of commands in the map commandListsByImageId, so we can safely
-                    // check the former and get an object from the latter.
-                    final String dockerImageId = imageIdsByNameDuplicateValues.get(imageNameUsedByTheCommand);
-                    addOrUpdateCommand(commandListsByImageId.get(dockerImageId), command);
-                } else {
-                    // We do *not* recognize the image by this name. However, we may yet have a summary
-                    // started for the image, just with different names. We must first check whether
-                    //   A. docker recognizes the image by that name, or
-                    //   B. docker does not recognize the image by that name
-                    DockerImage dockerImage = null;
-                    try {
-                        dockerImage = controlApi.getImageById(imageNameUsedByTheCommand);
-                    } catch (NotFoundException | NoDockerServerException ignored) {
-                        // ignored
-                    }
-
-                    if (dockerImage != null) {
-                        // This means A: we do have the image on the docker server, just not by this name
-                        // Since we have already started summaries for all the images docker knows about,
-                        // and docker knows about this one, then we are certain we have already started a
-                        // summary for this image.
-                        final String dockerImageId = dockerImage.imageId();
-
-                        // This is a new name, so add it to the name cache
-                        imageIdsByNameDuplicateValues.put(imageNameUsedByTheCommand, dockerImageId);
-
-                        // Now add the command to or update the command in the list
-                        addOrUpdateCommand(commandListsByImageId.get(dockerImageId), command);
-                    } else {
-                        // This means B: the command refers to some image that we do not have on the docker server.
-                        // We still want to report a summary, but we have to create a new one with some information
-                        // left blank.
-
-                        // We use the command's imageName as a surrogate "id".
-                        imageIdsByNameDuplicateValues.put(imageNameUsedByTheCommand, imageNameUsedByTheCommand);
-
-                        imageSummaryBuildersByImageId.put(imageNameUsedByTheCommand,
-                                DockerImageAndCommandSummary.builder()
-                                        .addImageName(imageNameUsedByTheCommand)
-                        );
-                        commandListsByImageId.put(imageNameUsedByTheCommand,
-                                Lists.newArrayList(command)
-                        );
-                    }
-                }
-            } else {
-                // command does not refer to an image? Should not be possible...
-                log.error("Command {} has a blank imageName.", command.id());
-            }
-        }
-
-        // Now we go through the image-summary builders and build all of them,
-        // including the final list of commands.
-        final List<DockerImageAndCommandSummary> summaries = Lists.newArrayList();
-        for (final String imageId : imageSummaryBuildersByImageId.keySet()) {
-            final DockerImageAndCommandSummary.Builder builder = imageSummaryBuildersByImageId.get(imageId);
-            final List<Command> commands = commandListsByImageId.get(imageId);
-            summaries.add(builder.commands(commands).build());
-        }
-        return summaries;
+        return imageSummaryIndex.getSummaries(dockerServer.name());
     }
 
     public DockerImage getImage(final String imageId)
@@ -402,6 +337,7 @@ public class DockerServiceImpl implements DockerService {
         final List<DockerImageAndCommandSummary> dockerImageAndCommandSummaries = getImageSummaries();
 
         controlApi.deleteImageById(imageId, force);
+        imageSummaryIndex.imagesChanged();
 
         for (final DockerImageAndCommandSummary dockerImageAndCommandSummary : dockerImageAndCommandSummaries) {
             if (dockerImageAndCommandSummary.imageId() != null &&
@@ -423,6 +359,57 @@ public class DockerServiceImpl implements DockerService {
         return saveFromImageLabels(imageName, controlApi.getImageById(imageName));
     }
 
+    /**
+     * Save the commands in the labels of every image on the server, for every name the image has.
+     *
+     * <p>The labels come with the image list, so no image is inspected on its own. An image name is looked at again
+     * only when the image it points to has changed since the last time this ran, and only commands that are not already
+     * saved for that image name are saved.</p>
+     */
+    @Override
+    @Nonnull
+    public List<Command> saveFromAllImageLabels() throws DockerServerException, NoDockerServerException {
+        final Map<String, Set<String>> savedCommandNamesByImage = new HashMap<>();
+        for (final Command command : commandService.getAll()) {
+            savedCommandNamesByImage.computeIfAbsent(command.image(), image -> new HashSet<>()).add(command.name());
+        }
+
+        final List<Command> toSave = Lists.newArrayList();
+        final Map<String, String> imageIdsByName = new HashMap<>();
+        for (final DockerImage image : controlApi.getAllImages()) {
+            if (StringUtils.isBlank(image.imageId())) {
+                continue;
+            }
+            for (final String imageName : image.tags()) {
+                if (imageName.contains("<none>") || image.imageId().equals(syncedImageIdsByName.get(imageName))) {
+                    continue;
+                }
+                final Set<String> saved = savedCommandNamesByImage.getOrDefault(imageName, Collections.emptySet());
+                for (final Command command : commandLabelService.parseLabels(imageName, image)) {
+                    if (!saved.contains(command.name())) {
+                        toSave.add(command);
+                    }
+                }
+                imageIdsByName.put(imageName, image.imageId());
+            }
+        }
+
+        final List<Command> saved = toSave.isEmpty() ? Collections.<Command>emptyList() : commandService.save(toSave);
+
+        // commandService.save logs and skips commands it could not save. Look at those image names again next time.
+        final Set<String> savedCommands = saved.stream()
+                .map(command -> command.image() + ":" + command.name())
+                .collect(Collectors.toSet());
+        for (final Command command : toSave) {
+            if (!savedCommands.contains(command.image() + ":" + command.name())) {
+                imageIdsByName.remove(command.image());
+            }
+        }
+        syncedImageIdsByName.putAll(imageIdsByName);
+        log.info("Looked at labels of {} new or changed image names, saved {} commands", imageIdsByName.size(), saved.size());
+        return saved;
+    }
+
     @Nonnull
     private List<Command> saveFromImageLabels(final String imageName, final DockerImage dockerImage) {
         if (log.isDebugEnabled()) {
@@ -439,32 +426,6 @@ public class DockerServiceImpl implements DockerService {
         return commandService.save(parsed);
     }
 
-    private void addOrUpdateCommand(final List<Command> commandsList,
-                                    final Command commandToAddOrUpdate) {
-        // Check to see if the list of commands already has one with this name.
-        // If so, we added the existing command from the labels.
-        // It will not have an id, and might not have any xnat wrappers.
-        // So we should replace it.
-        boolean shouldUpdate = false;
-        int updateIndex = -1;
-        int numCommands = commandsList.size();
-        for (int i = 0; i < numCommands; i++) {
-            final Command existingCommand = commandsList.get(i);
-            if (existingCommand.name() != null &&
-                    existingCommand.name().equals(commandToAddOrUpdate.name())) {
-                shouldUpdate = true;
-                updateIndex = i;
-                break;
-            }
-        }
-        if (shouldUpdate && updateIndex > -1) {
-            commandsList.remove(updateIndex);
-            commandsList.add(updateIndex, commandToAddOrUpdate);
-        } else {
-            commandsList.add(commandToAddOrUpdate);
-        }
-    }
-
     @Override
     @Nonnull
     public Command getCommandByImage(final String imageWithCommandName) throws NotFoundException {
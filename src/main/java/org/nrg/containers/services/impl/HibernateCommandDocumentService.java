@@ -0,0 +1,196 @@
+package org.nrg.containers.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.daos.CommandDocumentEntityRepository;
+import org.nrg.containers.daos.CommandEntityRepository;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
+import org.nrg.containers.model.command.entity.CommandEntity;
+import org.nrg.containers.services.CommandDocumentService;
+import org.nrg.framework.exceptions.NrgServiceRuntimeException;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads commands from their JSON documents. Reads never write: a command with no readable document yet is read from
+ * the relational command tables instead, and {@link #refreshDocuments()} writes those documents, and rewrites any
+ * that no longer match the tables, once at startup.
+ */
+@Slf4j
+@Service
+@Transactional
+public class HibernateCommandDocumentService
+        extends AbstractHibernateEntityService<CommandDocumentEntity, CommandDocumentEntityRepository>
+        implements CommandDocumentService {
+    static final int VERSIONS_KEPT = 10;
+
+    private final CommandEntityRepository commandEntityRepository;
+    private final ObjectMapper mapper;
+
+    @Autowired
+    public HibernateCommandDocumentService(final CommandEntityRepository commandEntityRepository,
+                                           final ObjectMapper mapper) {
+        this.commandEntityRepository = commandEntityRepository;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void save(final Command command) {
+        saveIfChanged(command);
+    }
+
+    /**
+     * @return whether a new version was written
+     */
+    private boolean saveIfChanged(final Command command) {
+        final String document;
+        try {
+            document = mapper.writeValueAsString(command);
+        } catch (JsonProcessingException e) {
+            throw new NrgServiceRuntimeException("Could not serialize command " + command.id(), e);
+        }
+
+        // Lock the latest version so concurrent saves of this command take turns picking the next one. A command
+        // with no document yet is being created in this transaction, or is written by refreshDocuments, and
+        // the unique (commandId, version) constraint catches anything that still slips through.
+        final CommandDocumentEntity latest = getDao().findLatestForUpdate(command.id());
+        if (latest != null && sameDocument(latest.getDocument(), document)) {
+            return false;
+        }
+        final long version = latest == null ? 1L : latest.getVersion() + 1;
+        create(new CommandDocumentEntity(command.id(), version, document));
+        if (version > VERSIONS_KEPT) {
+            getDao().deleteVersionsBefore(command.id(), version - VERSIONS_KEPT + 1);
+        }
+        log.debug("Saved version {} of command {}", version, command.id());
+        return true;
+    }
+
+    /**
+     * The database may store the JSON with its keys and whitespace rearranged, so compare the parsed documents.
+     */
+    private boolean sameDocument(final String stored, final String document) {
+        if (stored == null) {
+            return false;
+        }
+        try {
+            return mapper.readTree(stored).equals(mapper.readTree(document));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void deleteForCommand(final long commandId) {
+        getDao().deleteByCommandId(commandId);
+    }
+
+    @Override
+    @Nonnull
+    public List<Long> refreshDocuments() {
+        final Set<Long> commandIds = commandEntityRepository.getCommandIds();
+        for (final Long commandId : getDao().getCommandIds()) {
+            if (!commandIds.contains(commandId)) {
+                // Left over from a command removed without going through the command entity service
+                getDao().deleteByCommandId(commandId);
+            }
+        }
+        return refreshDocuments(commandIds);
+    }
+
+    @Override
+    @Nonnull
+    public List<Long> refreshDocuments(final Collection<Long> commandIds) {
+        final List<Long> refreshed = new ArrayList<>();
+        for (final Long commandId : commandIds) {
+            final Command command = readFromCommandTables(commandId);
+            if (command != null && saveIfChanged(command)) {
+                refreshed.add(commandId);
+            }
+        }
+        if (!refreshed.isEmpty()) {
+            log.info("Wrote new documents for {} commands that were missing or out of date", refreshed.size());
+        }
+        return refreshed;
+    }
+
+    @Override
+    @Nullable
+    @Transactional(readOnly = true)
+    public Command retrieveCommand(final long commandId) {
+        final CommandDocumentEntity latest = getDao().findLatest(commandId);
+        if (latest != null) {
+            final Command command = read(latest);
+            if (command != null) {
+                return command;
+            }
+        }
+        return readFromCommandTables(commandId);
+    }
+
+    @Override
+    @Nonnull
+    @Transactional(readOnly = true)
+    public List<Command> getAllCommands() {
+        final Set<Long> commandIds = commandEntityRepository.getCommandIds();
+        final List<Command> commands = new ArrayList<>(commandIds.size());
+        for (final CommandDocumentEntity documentEntity : getDao().findAllLatest()) {
+            if (!commandIds.remove(documentEntity.getCommandId())) {
+                // The command is gone; refreshDocuments removes its documents
+                continue;
+            }
+            final Command command = read(documentEntity);
+            if (command == null) {
+                commandIds.add(documentEntity.getCommandId());
+            } else {
+                commands.add(command);
+            }
+        }
+
+        if (!commandIds.isEmpty()) {
+            log.debug("Reading {} commands without a readable document from the command tables", commandIds.size());
+            for (final Long commandId : commandIds) {
+                final Command command = readFromCommandTables(commandId);
+                if (command != null) {
+                    commands.add(command);
+                }
+            }
+            commands.sort(Comparator.comparingLong(Command::id));
+        }
+        return commands;
+    }
+
+    @Nullable
+    private Command read(final CommandDocumentEntity documentEntity) {
+        try {
+            return mapper.readValue(documentEntity.getDocument(), Command.class);
+        } catch (IOException e) {
+            log.error("Could not read version {} of command {}. Reading it from the command tables instead.",
+                    documentEntity.getVersion(), documentEntity.getCommandId(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Command readFromCommandTables(final long commandId) {
+        final CommandEntity commandEntity = commandEntityRepository.retrieve(commandId);
+        if (commandEntity == null) {
+            return null;
+        }
+        commandEntityRepository.initialize(commandEntity);
+        return Command.create(commandEntity);
+    }
+}
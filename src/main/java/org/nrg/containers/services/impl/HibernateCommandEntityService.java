@@ -5,9 +5,11 @@ import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
 import org.nrg.containers.daos.CommandEntityRepository;
+import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandWrapperEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestrationEntity;
+import org.nrg.containers.services.CommandDocumentService;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.OrchestrationEntityService;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -31,10 +33,16 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
         implements CommandEntityService {
 
     private final OrchestrationEntityService orchestrationEntityService;
+    private final CommandDocumentService commandDocumentService;
+    private final OrchestrationIndex orchestrationIndex;
 
     @Autowired
-    public HibernateCommandEntityService(final OrchestrationEntityService orchestrationEntityService) {
+    public HibernateCommandEntityService(final OrchestrationEntityService orchestrationEntityService,
+                                         final CommandDocumentService commandDocumentService,
+                                         final OrchestrationIndex orchestrationIndex) {
         this.orchestrationEntityService = orchestrationEntityService;
+        this.commandDocumentService = commandDocumentService;
+        this.orchestrationIndex = orchestrationIndex;
     }
 
     @Override
@@ -69,12 +77,32 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
                     commandWrapperEntity.setCommandEntity(commandEntity);
                 }
             }
-            return super.create(commandEntity);
+            final CommandEntity created = super.create(commandEntity);
+            saveDocument(created.getId());
+            return created;
         } catch (ConstraintViolationException e) {
             throw new NrgServiceRuntimeException("This command duplicates a command already in the database.", e);//Though throwExceptionIfCommandExists should have prevented creation from even being attempted.
         }
     }
 
+    @Override
+    public void update(final CommandEntity commandEntity) {
+        super.update(commandEntity);
+        saveDocument(commandEntity.getId());
+    }
+
+    @Override
+    public void delete(final CommandEntity commandEntity) {
+        super.delete(commandEntity);
+        commandDocumentService.deleteForCommand(commandEntity.getId());
+    }
+
+    @Override
+    public void delete(final long id) {
+        super.delete(id);
+        commandDocumentService.deleteForCommand(id);
+    }
+
     @Override
     @Nonnull
     public List<CommandEntity> findByProperties(@Nonnull final Map<String, Object> properties) {
@@ -85,6 +113,7 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
     @Override
     public CommandWrapperEntity addWrapper(final @Nonnull CommandEntity commandEntity, final @Nonnull CommandWrapperEntity wrapperToAdd) {
         getDao().addWrapper(commandEntity, wrapperToAdd);
+        saveDocument(commandEntity.getId());
         return wrapperToAdd;
     }
 
@@ -123,6 +152,9 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
     @Override
     public CommandWrapperEntity update(final CommandWrapperEntity updates) throws NotFoundException {
         getDao().update(updates);
+        if (updates.getCommandEntity() != null) {
+            saveDocument(updates.getCommandEntity().getId());
+        }
         return updates;
     }
 
@@ -130,6 +162,9 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
     public void deleteWrapper(final long wrapperId) {
         final CommandWrapperEntity commandWrapperEntity = retrieveWrapper(wrapperId);
         if (commandWrapperEntity != null) {
+            if (!commandWrapperEntity.getOrchestrations().isEmpty()) {
+                orchestrationIndex.changed();
+            }
             commandWrapperEntity.getOrchestrations().forEach(owe -> {
                 OrchestrationEntity oe = owe.getOrchestrationEntity();
                 oe.removeWrapper(owe);
@@ -139,7 +174,9 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
                     orchestrationEntityService.setEnabled(oe, false);
                 }
             });
+            final long commandId = commandWrapperEntity.getCommandEntity().getId();
             getDao().delete(commandWrapperEntity);
+            saveDocument(commandId);
         }
     }
 
@@ -168,4 +205,18 @@ public class HibernateCommandEntityService extends AbstractHibernateEntityServic
             delete(commandEntity);
         }
     }
+
+    /**
+     * Write the command's read-side document from what was just saved to the command tables.
+     */
+    private void saveDocument(final long commandId) {
+        flush();
+        final CommandEntity commandEntity = getDao().retrieve(commandId);
+        if (commandEntity == null) {
+            commandDocumentService.deleteForCommand(commandId);
+            return;
+        }
+        getDao().initialize(commandEntity);
+        commandDocumentService.save(Command.create(commandEntity));
+    }
 }
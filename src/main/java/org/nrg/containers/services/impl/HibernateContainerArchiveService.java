@@ -0,0 +1,126 @@
+package org.nrg.containers.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.daos.ContainerArchiveEntityRepository;
+import org.nrg.containers.daos.ContainerEntityRepository;
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.container.entity.ContainerArchiveEntity;
+import org.nrg.containers.model.container.entity.ContainerEntity;
+import org.nrg.containers.services.ContainerArchiveService;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@Transactional
+public class HibernateContainerArchiveService
+        extends AbstractHibernateEntityService<ContainerArchiveEntity, ContainerArchiveEntityRepository>
+        implements ContainerArchiveService {
+
+    private final ContainerEntityRepository containerEntityRepository;
+    private final ObjectMapper mapper;
+
+    @Autowired
+    public HibernateContainerArchiveService(final ContainerEntityRepository containerEntityRepository,
+                                            final ObjectMapper mapper) {
+        this.containerEntityRepository = containerEntityRepository;
+        this.mapper = mapper;
+    }
+
+    @Override
+    @Nonnull
+    public List<Long> findContainersToArchive(final Date lastUpdatedBefore, final int max) {
+        return containerEntityRepository.retrieveIdsToArchive(lastUpdatedBefore, max);
+    }
+
+    @Override
+    public boolean archive(final long containerDatabaseId) {
+        final ContainerEntity containerEntity = containerEntityRepository.retrieve(containerDatabaseId);
+        if (containerEntity == null || containerEntity.getHistory() == null || containerEntity.getHistory().isEmpty()) {
+            log.debug("Container {} does not exist or has already been archived", containerDatabaseId);
+            return false;
+        }
+
+        final String document;
+        try {
+            document = mapper.writeValueAsString(Container.create(containerEntity));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize container {} for the archive", containerDatabaseId, e);
+            return false;
+        }
+
+        final ContainerArchiveEntity existing = getDao().findByContainerDatabaseId(containerDatabaseId);
+        if (existing == null) {
+            create(new ContainerArchiveEntity(containerDatabaseId, document));
+        } else {
+            existing.setDocument(document);
+            update(existing);
+        }
+
+        // Orphan removal and element collection handling delete the child rows
+        containerEntity.getHistory().clear();
+        containerEntity.getMounts().clear();
+        containerEntity.getInputs().clear();
+        containerEntity.getOutputs().clear();
+        containerEntity.setEnvironmentVariables(new HashMap<>());
+        containerEntity.setPorts(new HashMap<>());
+        containerEntity.setContainerLabels(new HashMap<>());
+        containerEntity.setGenericResources(new HashMap<>());
+        containerEntity.setUlimits(null);
+        containerEntity.setLogPaths(new ArrayList<>());
+        containerEntity.setSwarmConstraints(new ArrayList<>());
+        containerEntityRepository.update(containerEntity);
+
+        log.debug("Archived container {}", containerDatabaseId);
+        return true;
+    }
+
+    @Override
+    @Nullable
+    public Container retrieveArchived(final long containerDatabaseId) {
+        final ContainerArchiveEntity archived = getDao().findByContainerDatabaseId(containerDatabaseId);
+        return archived == null ? null : read(archived);
+    }
+
+    @Override
+    @Nonnull
+    public Map<Long, Container> retrieveArchived(final Collection<Long> containerDatabaseIds) {
+        final Map<Long, Container> containers = new HashMap<>();
+        for (final ContainerArchiveEntity archived : getDao().findByContainerDatabaseIds(containerDatabaseIds)) {
+            final Container container = read(archived);
+            if (container != null) {
+                containers.put(archived.getContainerDatabaseId(), container);
+            }
+        }
+        return containers;
+    }
+
+    @Override
+    public void deleteArchived(final long containerDatabaseId) {
+        getDao().deleteByContainerDatabaseId(containerDatabaseId);
+    }
+
+    @Nullable
+    private Container read(final ContainerArchiveEntity archived) {
+        try {
+            return mapper.readValue(archived.getDocument(), Container.class);
+        } catch (IOException e) {
+            log.error("Could not read archived container {}", archived.getContainerDatabaseId(), e);
+            return null;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.daos.ContainerEntityRepository;
 import org.nrg.containers.events.model.ContainerEvent;
 import org.nrg.containers.model.command.entity.CommandType;
+import org.nrg.containers.model.container.auto.ContainerSummary;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
 import org.nrg.containers.services.ContainerEntityService;
@@ -19,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 @Slf4j
@@ -111,6 +114,12 @@ public class HibernateContainerEntityService
         return getDao().retrieveNonfinalizedServices();
     }
 
+    @Override
+    @Nonnull
+    public Map<String, String> retrieveNonfinalizedKubernetesJobStatuses() {
+        return getDao().retrieveNonfinalizedKubernetesJobStatuses();
+    }
+
     @Override
     @Nonnull
     public List<ContainerEntity> retrieveContainersInFinalizingState() {
@@ -128,6 +137,17 @@ public class HibernateContainerEntityService
         return getDao().howManyContainersAreBeingFinalized();
     }
 
+    @Override
+    public int howManyContainersAreNonfinalized() {
+        return getDao().howManyContainersAreNonfinalized();
+    }
+
+    @Override
+    @Nonnull
+    public List<ContainerSummary> getSummaries(final ContainerSummaryRequest request) {
+        return getDao().getSummaries(request);
+    }
+
     @Override
     public int howManyContainersAreWaiting() {
         return getDao().howManyContainersAreWaiting();
@@ -209,4 +229,52 @@ public class HibernateContainerEntityService
 
         return history;
     }
+
+    @Override
+    @Nullable
+    public String addContainerHistoryItemAndUpdateStatus(final long containerDatabaseId,
+                                                         final ContainerEntityHistory history,
+                                                         final UserI userI) {
+        final ContainerEntityRepository.StatusFields before = getDao().retrieveStatusFields(containerDatabaseId);
+        if (before == null) {
+            log.debug("No container entity {}", containerDatabaseId);
+            return null;
+        }
+        if (getDao().isHistoryItemRecorded(containerDatabaseId, history)) {
+            log.debug("Event has already been recorded {}", containerDatabaseId);
+            return null;
+        }
+
+        log.info("Adding new history item to container entity {}", containerDatabaseId);
+        getDao().addHistoryItem(containerDatabaseId, history);
+
+        @SuppressWarnings("UnstableApiUsage")
+        final Lock containerLock = containerEventLocks.get(String.valueOf(containerDatabaseId));
+        containerLock.lock();
+        try {
+            String status = before.getStatus();
+            if (history.getTimeRecorded() != null) {
+                final String newStatus = ContainerEntity.mapStatus(history.getStatus(), before.getSwarm());
+                if (getDao().updateStatusIfNewer(containerDatabaseId, newStatus, history.getTimeRecorded()) > 0) {
+                    log.debug("Setting container entity {} status to \"{}\", based on history entry status \"{}\".",
+                            containerDatabaseId, newStatus, history.getStatus());
+                    status = newStatus;
+                } else {
+                    final ContainerEntityRepository.StatusFields after = getDao().retrieveStatusFields(containerDatabaseId);
+                    status = after == null ? status : after.getStatus();
+                }
+            }
+
+            ContainerUtils.updateWorkflowStatus(before.getWorkflowId(), status, userI, history.getMessage());
+            return status;
+        } finally {
+            containerLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateBackendIdsIfUnset(final long containerDatabaseId, final String nodeId, final String taskId,
+                                        final String containerId) {
+        getDao().updateBackendIdsIfUnset(containerDatabaseId, nodeId, taskId, containerId);
+    }
 }
@@ -0,0 +1,291 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.utils.ContainerUtils;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs image pulls in the background, a few at a time.
+ *
+ * <ul>
+ *     <li>Pulls are keyed by image reference, with ":latest" added when there is no tag or digest, and by the hub and
+ *     credentials they use. Asking for an image that is already being pulled from the same hub with the same
+ *     credentials joins that pull instead of starting another. A pull with other credentials runs on its own, so it
+ *     can't fail because of someone else's missing or wrong credentials.</li>
+ *     <li>At most {@link #MAX_CONCURRENT_PULLS} pulls run at once; the rest wait their turn.</li>
+ *     <li>A pull that fails with a server error is tried again, up to {@link #MAX_ATTEMPTS} times, waiting twice as long
+ *     before each retry. An image that the hub does not have is not retried.</li>
+ *     <li>The progress docker reports for each layer is kept in an {@link ImagePullStatus}, which stays available for
+ *     a while after the pull is done.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ImagePullManager {
+    public static final int MAX_CONCURRENT_PULLS = 3;
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long FIRST_RETRY_DELAY_MILLIS = 2000L;
+
+    private final ContainerControlApi controlApi;
+    private final ImageSummaryIndex imageSummaryIndex;
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(MAX_CONCURRENT_PULLS,
+            new ThreadFactoryBuilder().setNameFormat("image-pull-%d").setDaemon(true).build());
+    private final Map<PullKey, Pull> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, ImagePullStatus> done = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    @Autowired
+    public ImagePullManager(final ContainerControlApi controlApi,
+                            final ImageSummaryIndex imageSummaryIndex) {
+        this.controlApi = controlApi;
+        this.imageSummaryIndex = imageSummaryIndex;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start pulling the image, or join the pull that is already running for it with the same hub and credentials.
+     */
+    @Nonnull
+    public CompletableFuture<DockerImage> pull(final String imageName,
+                                               final @Nullable DockerHub hub,
+                                               final @Nullable String username,
+                                               final @Nullable String password,
+                                               final @Nullable String token,
+                                               final @Nullable String email) {
+        final String reference = reference(imageName);
+        final Pull created = new Pull(reference, imageName, hub, username, password, token, email);
+        final Pull pull = inFlight.computeIfAbsent(created.key, k -> created);
+        if (pull == created) {
+            log.debug("Queueing pull of image {}", reference);
+            done.invalidate(reference);
+            executor.execute(() -> attempt(pull));
+        } else {
+            log.debug("Image {} is already being pulled, waiting on that pull", reference);
+        }
+        return pull.future;
+    }
+
+    /**
+     * Pull the image and wait for it, throwing whatever the final attempt threw.
+     */
+    public DockerImage pullAndWait(final String imageName,
+                                   final @Nullable DockerHub hub,
+                                   final @Nullable String username,
+                                   final @Nullable String password,
+                                   final @Nullable String token,
+                                   final @Nullable String email)
+            throws NoDockerServerException, DockerServerException, NotFoundException {
+        try {
+            return pull(imageName, hub, username, password, token, email).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerServerException("Interrupted while pulling image " + imageName, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NotFoundException) {
+                throw (NotFoundException) cause;
+            } else if (cause instanceof NoDockerServerException) {
+                throw (NoDockerServerException) cause;
+            } else if (cause instanceof DockerServerException) {
+                throw (DockerServerException) cause;
+            }
+            throw new DockerServerException(cause);
+        }
+    }
+
+    /**
+     * @return The pulls that are queued or running, and those that finished in the last hour
+     */
+    @Nonnull
+    public List<ImagePullStatus> getStatuses() {
+        final List<ImagePullStatus> statuses = new ArrayList<>();
+        for (final Pull pull : inFlight.values()) {
+            statuses.add(pull.status());
+        }
+        for (final Map.Entry<String, ImagePullStatus> entry : done.asMap().entrySet()) {
+            if (inFlight(entry.getKey()) == null) {
+                statuses.add(entry.getValue());
+            }
+        }
+        return statuses;
+    }
+
+    @Nullable
+    public ImagePullStatus getStatus(final String imageName) {
+        final String reference = reference(imageName);
+        final Pull pull = inFlight(reference);
+        return pull != null ? pull.status() : done.getIfPresent(reference);
+    }
+
+    @Nullable
+    private Pull inFlight(final String reference) {
+        for (final Pull pull : inFlight.values()) {
+            if (pull.reference.equals(reference)) {
+                return pull;
+            }
+        }
+        return null;
+    }
+
+    private void attempt(final Pull pull) {
+        pull.attempt++;
+        pull.status = ImagePullStatus.PULLING;
+        pull.message = null;
+        pull.layers.clear();
+        log.info("Pulling image {}, attempt {} of {}", pull.reference, pull.attempt, MAX_ATTEMPTS);
+        try {
+            final DockerImage image = controlApi.pullImage(pull.imageName, pull.hub, pull.username, pull.password,
+                    pull.token, pull.email, pull::onProgress);
+            imageSummaryIndex.imagesChanged();
+            finish(pull, ImagePullStatus.COMPLETE, null);
+            pull.future.complete(image);
+        } catch (DockerServerException e) {
+            if (pull.attempt < MAX_ATTEMPTS) {
+                final long delay = FIRST_RETRY_DELAY_MILLIS << (pull.attempt - 1);
+                log.info("Could not pull image {}, trying again in {} ms: {}", pull.reference, delay, e.getMessage());
+                pull.status = ImagePullStatus.WAITING_TO_RETRY;
+                pull.message = e.getMessage();
+                executor.schedule(() -> attempt(pull), delay, TimeUnit.MILLISECONDS);
+            } else {
+                log.error("Could not pull image {} after {} attempts", pull.reference, pull.attempt, e);
+                fail(pull, e);
+            }
+        } catch (NotFoundException | NoDockerServerException e) {
+            log.error("Could not pull image {}: {}", pull.reference, e.getMessage());
+            fail(pull, e);
+        } catch (RuntimeException e) {
+            log.error("Could not pull image {}", pull.reference, e);
+            fail(pull, e);
+        }
+    }
+
+    private void fail(final Pull pull, final Exception e) {
+        finish(pull, ImagePullStatus.FAILED, e.getMessage());
+        pull.future.completeExceptionally(e);
+    }
+
+    private void finish(final Pull pull, final String status, final @Nullable String message) {
+        pull.status = status;
+        pull.message = message;
+        done.put(pull.reference, pull.status());
+        inFlight.remove(pull.key, pull);
+    }
+
+    /**
+     * @return The image name with ":latest" added if it has neither a tag nor a digest
+     */
+    public static String reference(final String imageName) {
+        return ContainerUtils.imageReference(imageName);
+    }
+
+    private static final class Pull {
+        private final PullKey key;
+        private final String reference;
+        private final String imageName;
+        private final DockerHub hub;
+        private final String username;
+        private final String password;
+        private final String token;
+        private final String email;
+        private final Date started = new Date();
+        private final CompletableFuture<DockerImage> future = new CompletableFuture<>();
+        private final Map<String, ImagePullStatus.LayerProgress> layers = new ConcurrentHashMap<>();
+
+        private volatile String status = ImagePullStatus.QUEUED;
+        private volatile String message;
+        private volatile int attempt = 0;
+
+        private Pull(final String reference, final String imageName, final DockerHub hub,
+                     final String username, final String password, final String token, final String email) {
+            this.key = new PullKey(reference, hub, username, password, token, email);
+            this.reference = reference;
+            this.imageName = imageName;
+            this.hub = hub;
+            this.username = username;
+            this.password = password;
+            this.token = token;
+            this.email = email;
+        }
+
+        private void onProgress(final ImagePullStatus.LayerProgress progress) {
+            layers.put(progress.id(), progress);
+        }
+
+        private ImagePullStatus status() {
+            return ImagePullStatus.create(reference, status, attempt, started, message, new ArrayList<>(layers.values()));
+        }
+    }
+
+    /**
+     * What makes two pulls the same pull: the image, and the hub and credentials it is pulled with.
+     */
+    private static final class PullKey {
+        private final String reference;
+        private final DockerHub hub;
+        private final String username;
+        private final String password;
+        private final String token;
+        private final String email;
+
+        private PullKey(final String reference, final DockerHub hub,
+                        final String username, final String password, final String token, final String email) {
+            this.reference = reference;
+            this.hub = hub;
+            this.username = username;
+            this.password = password;
+            this.token = token;
+            this.email = email;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final PullKey that = (PullKey) o;
+            return reference.equals(that.reference) &&
+                    Objects.equals(hub, that.hub) &&
+                    Objects.equals(username, that.username) &&
+                    Objects.equals(password, that.password) &&
+                    Objects.equals(token, that.token) &&
+                    Objects.equals(email, that.email);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(reference, hub, username, password, token, email);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.DockerImageEvent;
+import org.nrg.containers.services.CommandLabelService;
+import org.nrg.containers.utils.ContainerUtils;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * The images on the docker server and the commands defined for them, kept between calls to
+ * {@link org.nrg.containers.services.DockerService#getImageSummaries()}.
+ *
+ * <p>The first read lists every image and parses its labels. After that each read asks docker only for the image
+ * events since the last read; the images are listed again only when there were some, and labels are parsed again only
+ * for images that are new or changed. Commands come from the {@link CommandCatalog}, so the summaries are rebuilt only
+ * when the images or the catalog version change.</p>
+ *
+ * <p>Image changes made through this node call {@link #imagesChanged()}, so the next read lists the images without
+ * waiting on the event stream.</p>
+ *
+ * <p>{@link #findImageId(String, String)} answers whether the server has an image, by any name it goes by, before a
+ * launch. It reads the image events at most every {@link #EVENT_CHECK_MILLIS}, and looks a name it does not find up
+ * on the server before calling the image missing, so a miss is never stale.</p>
+ *
+ * <p>The images are kept in an immutable snapshot, and one thread at a time refreshes it, so a slow docker daemon
+ * does not hold up every lookup. {@link #findImageId(String, String)} uses the snapshot it has while another thread
+ * refreshes, and waits only when there is no snapshot for the server yet.</p>
+ *
+ * <p>Everything is kept for one server. Reading for another server starts over.</p>
+ */
+@Slf4j
+@Component
+public class ImageSummaryIndex {
+    public static final long EVENT_CHECK_MILLIS = 5000L;
+    private static final String NOT_ON_SERVER = "";
+
+    private final ContainerControlApi controlApi;
+    private final CommandLabelService commandLabelService;
+    private final CommandCatalog commandCatalog;
+    private final LongSupplier clock;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+    private volatile Summaries summaries;
+
+    // Names that commands use for images which are not a tag of any image, resolved through docker
+    private final Map<String, String> imageIdsByOtherName = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageSummaryIndex(final ContainerControlApi controlApi,
+                             final CommandLabelService commandLabelService,
+                             final CommandCatalog commandCatalog) {
+        this(controlApi, commandLabelService, commandCatalog, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    public ImageSummaryIndex(final ContainerControlApi controlApi,
+                             final CommandLabelService commandLabelService,
+                             final CommandCatalog commandCatalog,
+                             final LongSupplier clock) {
+        this.controlApi = controlApi;
+        this.commandLabelService = commandLabelService;
+        this.commandCatalog = commandCatalog;
+        this.clock = clock;
+    }
+
+    /**
+     * An image was pulled, tagged, or removed through this node. The next read lists the images again.
+     */
+    public void imagesChanged() {
+        stale = true;
+    }
+
+    /**
+     * Drop everything. The next read lists the images and parses their labels again.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+        stale = true;
+        summaries = null;
+        imageIdsByOtherName.clear();
+    }
+
+    @Nonnull
+    public List<DockerImageAndCommandSummary> getSummaries(final String server)
+            throws NoDockerServerException, DockerServerException {
+        final Snapshot current = refresh(server, 0L, true);
+
+        final CommandCatalog.Snapshot catalog = commandCatalog.snapshot();
+        final Summaries cached = summaries;
+        if (cached != null && cached.revision == current.revision && cached.catalogVersion == catalog.getVersion() &&
+                Objects.equals(cached.server, server)) {
+            return cached.summaries;
+        }
+
+        final List<DockerImageAndCommandSummary> built = build(current, server, catalog.getCommands());
+        summaries = new Summaries(current.revision, catalog.getVersion(), server, built);
+        return built;
+    }
+
+    /**
+     * @return The ID of the image the server has by that name (a tag, a repo digest, or an ID), or null if it has none
+     */
+    @Nullable
+    public String findImageId(final String server, final String imageName)
+            throws NoDockerServerException, DockerServerException {
+        if (StringUtils.isBlank(imageName)) {
+            return null;
+        }
+        final Snapshot current = refresh(server, EVENT_CHECK_MILLIS, false);
+
+        final String imageId = current.imageIdsByReference.get(ContainerUtils.imageReference(imageName));
+        if (imageId != null) {
+            return imageId;
+        }
+        // Digests and short IDs are not in the list, and an image may have arrived since we last looked
+        imageIdsByOtherName.remove(imageName);
+        return resolve(imageName);
+    }
+
+    /**
+     * @param eventCheckMillis How old the snapshot may be before we ask docker for image events
+     * @param wait             Whether to wait for a refresh that another thread is running. If not, and we have a
+     *                         snapshot for this server, we use it as it is.
+     * @return A snapshot of the images on the server
+     */
+    @Nonnull
+    private Snapshot refresh(final String server, final long eventCheckMillis, final boolean wait)
+            throws NoDockerServerException, DockerServerException {
+        final Snapshot current = snapshot;
+        final boolean haveSnapshot = current != null && Objects.equals(current.server, server);
+        if (haveSnapshot && !stale && clock.getAsLong() - current.lastSync < eventCheckMillis) {
+            return current;
+        }
+
+        if (haveSnapshot && !wait) {
+            if (!refreshLock.tryLock()) {
+                return current;
+            }
+        } else {
+            refreshLock.lock();
+        }
+        try {
+            Snapshot latest = snapshot;
+            if (latest != null && !Objects.equals(latest.server, server)) {
+                // What we have was listed from another server
+                invalidate();
+                latest = null;
+            }
+            if (latest != null && latest != current && !stale) {
+                // Another thread refreshed while we waited
+                return latest;
+            }
+
+            final long loadingGeneration = generation.get();
+            final Snapshot next = sync(latest, server);
+            if (generation.get() == loadingGeneration) {
+                snapshot = next;
+            }
+            return next;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Snapshot sync(@Nullable final Snapshot current, final String server)
+            throws NoDockerServerException, DockerServerException {
+        final long now = clock.getAsLong();
+        if (current == null || stale) {
+            return reload(current, server, now);
+        }
+
+        // Event times are in whole seconds, so go back one to be sure we don't miss any
+        final Date since = new Date(current.lastSync - 1000);
+        List<DockerImageEvent> events;
+        try {
+            events = controlApi.getImageEvents(since, new Date(now));
+        } catch (DockerServerException e) {
+            log.debug("Could not read image events, listing all images", e);
+            events = null;
+        }
+        if (events == null || !events.isEmpty()) {
+            log.debug("Image events since {}: {}", since, events);
+            return reload(current, server, now);
+        }
+        return current.syncedAt(now);
+    }
+
+    private Snapshot reload(@Nullable final Snapshot current, final String server, final long now)
+            throws NoDockerServerException, DockerServerException {
+        // Clear the flag first, so a change made while we list the images makes the next read list them again
+        stale = false;
+        final ImmutableMap<String, ImageEntry> previous = current == null ? ImmutableMap.<String, ImageEntry>of() : current.images;
+
+        final ImmutableMap.Builder<String, ImageEntry> next = ImmutableMap.builder();
+        final Map<String, ImageEntry> seen = Maps.newHashMap();
+        final Map<String, String> idsByReference = Maps.newHashMap();
+        boolean changed = current == null;
+        for (final DockerImage image : controlApi.getAllImages()) {
+            if (StringUtils.isBlank(image.imageId())) {
+                // If image has no ID, then we will have problems tracking it uniquely.
+                // Just skip it.
+                log.debug("Docker image has no ID, skipping: {}", image);
+                continue;
+            }
+            if (seen.containsKey(image.imageId())) {
+                continue;
+            }
+
+            final ImageEntry existing = previous.get(image.imageId());
+            final ImageEntry entry;
+            if (existing != null && existing.image.equals(image)) {
+                entry = existing;
+            } else {
+                entry = new ImageEntry(image, ImmutableList.copyOf(commandLabelService.parseLabels(image)));
+                changed = true;
+            }
+            seen.put(image.imageId(), entry);
+            next.put(image.imageId(), entry);
+            idsByReference.put(image.imageId(), image.imageId());
+            for (final String tag : image.tags()) {
+                idsByReference.put(ContainerUtils.imageReference(tag), image.imageId());
+            }
+        }
+        if (!seen.keySet().equals(previous.keySet())) {
+            changed = true;
+        }
+
+        final long revision = current == null ? 1L : changed ? current.revision + 1 : current.revision;
+        if (changed) {
+            imageIdsByOtherName.clear();
+            log.debug("Image summary index revision {} has {} images", revision, seen.size());
+        }
+        return new Snapshot(server, next.build(), ImmutableMap.copyOf(idsByReference), revision, now);
+    }
+
+    private List<DockerImageAndCommandSummary> build(final Snapshot current, final String server, final List<Command> allCommands)
+            throws DockerServerException {
+        final Map<String, String> imageIdsByName = Maps.newHashMap();
+        final Map<String, DockerImageAndCommandSummary.Builder> summaryBuildersByImageId = Maps.newHashMap();
+        final Map<String, List<Command>> commandListsByImageId = Maps.newHashMap();
+        for (final ImageEntry entry : current.images.values()) {
+            final DockerImage image = entry.image;
+            if (image.tags() != null) {
+                for (final String tag : image.tags()) {
+                    imageIdsByName.put(tag, image.imageId());
+                }
+            }
+            summaryBuildersByImageId.put(image.imageId(),
+                    DockerImageAndCommandSummary.builder()
+                            .addDockerImage(image)
+                            .server(server)
+            );
+            commandListsByImageId.put(image.imageId(), Lists.newArrayList(entry.labelCommands));
+        }
+
+        // Merge the commands we have saved into the summaries, adding summaries
+        // for images the commands use but that are not on the docker server.
+        for (final Command command : allCommands) {
+            final String imageNameUsedByTheCommand = command.image();
+            if (StringUtils.isBlank(imageNameUsedByTheCommand)) {
+                // command does not refer to an image? Should not be possible...
+                log.error("Command {} has a blank imageName.", command.id());
+                continue;
+            }
+
+            String dockerImageId = imageIdsByName.get(imageNameUsedByTheCommand);
+            if (dockerImageId == null) {
+                dockerImageId = resolve(imageNameUsedByTheCommand);
+                if (dockerImageId != null && commandListsByImageId.containsKey(dockerImageId)) {
+                    imageIdsByName.put(imageNameUsedByTheCommand, dockerImageId);
+                } else {
+                    // We use the command's imageName as a surrogate "id".
+                    dockerImageId = imageNameUsedByTheCommand;
+                    imageIdsByName.put(imageNameUsedByTheCommand, dockerImageId);
+                    summaryBuildersByImageId.put(dockerImageId,
+                            DockerImageAndCommandSummary.builder()
+                                    .addImageName(imageNameUsedByTheCommand)
+                    );
+                    commandListsByImageId.put(dockerImageId, Lists.newArrayList());
+                }
+            }
+            addOrUpdateCommand(commandListsByImageId.get(dockerImageId), command);
+        }
+
+        final List<DockerImageAndCommandSummary> summaryList = Lists.newArrayList();
+        for (final Map.Entry<String, DockerImageAndCommandSummary.Builder> entry : summaryBuildersByImageId.entrySet()) {
+            summaryList.add(entry.getValue().commands(commandListsByImageId.get(entry.getKey())).build());
+        }
+        return ImmutableList.copyOf(summaryList);
+    }
+
+    /**
+     * Ask docker which image a command means by a name that is not one of the image tags. The answer is kept
+     * until the images change.
+     *
+     * @return The image id, or null if docker does not know the image by that name
+     */
+    @Nullable
+    private String resolve(final String imageName) throws DockerServerException {
+        final String cached = imageIdsByOtherName.get(imageName);
+        if (cached != null) {
+            return NOT_ON_SERVER.equals(cached) ? null : cached;
+        }
+
+        DockerImage dockerImage = null;
+        try {
+            dockerImage = controlApi.getImageById(imageName);
+        } catch (NotFoundException | NoDockerServerException ignored) {
+            // ignored
+        }
+        final String imageId = dockerImage == null ? null : dockerImage.imageId();
+        imageIdsByOtherName.put(imageName, imageId == null ? NOT_ON_SERVER : imageId);
+        return imageId;
+    }
+
+    private static void addOrUpdateCommand(final List<Command> commandsList,
+                                           final Command commandToAddOrUpdate) {
+        // Check to see if the list of commands already has one with this name.
+        // If so, we added the existing command from the labels.
+        // It will not have an id, and might not have any xnat wrappers.
+        // So we should replace it.
+        for (int i = 0; i < commandsList.size(); i++) {
+            final Command existingCommand = commandsList.get(i);
+            if (existingCommand.name() != null &&
+                    existingCommand.name().equals(commandToAddOrUpdate.name())) {
+                commandsList.set(i, commandToAddOrUpdate);
+                return;
+            }
+        }
+        commandsList.add(commandToAddOrUpdate);
+    }
+
+    private static final class ImageEntry {
+        private final DockerImage image;
+        private final ImmutableList<Command> labelCommands;
+
+        private ImageEntry(final DockerImage image, final ImmutableList<Command> labelCommands) {
+            this.image = image;
+            this.labelCommands = labelCommands;
+        }
+    }
+
+    private static final class Snapshot {
+        private final String server;
+        private final ImmutableMap<String, ImageEntry> images;
+        private final ImmutableMap<String, String> imageIdsByReference;
+        private final long revision;
+        private final long lastSync;
+
+        private Snapshot(final String server, final ImmutableMap<String, ImageEntry> images,
+                         final ImmutableMap<String, String> imageIdsByReference, final long revision, final long lastSync) {
+            this.server = server;
+            this.images = images;
+            this.imageIdsByReference = imageIdsByReference;
+            this.revision = revision;
+            this.lastSync = lastSync;
+        }
+
+        private Snapshot syncedAt(final long now) {
+            return new Snapshot(server, images, imageIdsByReference, revision, now);
+        }
+    }
+
+    private static final class Summaries {
+        private final long revision;
+        private final long catalogVersion;
+        private final String server;
+        private final List<DockerImageAndCommandSummary> summaries;
+
+        private Summaries(final long revision, final long catalogVersion, final String server,
+                          final List<DockerImageAndCommandSummary> summaries) {
+            this.revision = revision;
+            this.catalogVersion = catalogVersion;
+            this.server = server;
+            this.summaries = summaries;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.nrg.containers.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.orchestration.auto.Orchestration;
+import org.nrg.containers.model.orchestration.auto.Orchestration.OrchestrationIdentifier;
+import org.nrg.containers.model.orchestration.entity.OrchestrationProjectEntity;
+import org.nrg.containers.services.OrchestrationEntityService;
+import org.nrg.containers.services.OrchestrationProjectEntityService;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every orchestration and the project each is set on, held in memory, to answer the two questions asked on every
+ * launch and every finished step: which orchestration starts with this wrapper in this project, and which wrapper
+ * comes after this step.
+ *
+ * <p>The first read loads all orchestrations and project settings with two queries. Anything that changes an
+ * orchestration or a project's orchestration calls {@link #changed()}, which drops the index once the change has
+ * committed and tells the other nodes to drop theirs. The next read loads it again. Orchestrations change rarely, so
+ * reloading the whole thing is cheaper than keeping track of what each change touched.</p>
+ *
+ * <p>Wrappers are taken from the {@link CommandCatalog}.</p>
+ */
+@Slf4j
+@Component
+public class OrchestrationIndex {
+    private final OrchestrationEntityService orchestrationEntityService;
+    private final OrchestrationProjectEntityService orchestrationProjectEntityService;
+    private final CommandCatalog commandCatalog;
+    private final String origin = UUID.randomUUID().toString();
+
+    // Bumped on every invalidation, so a load that overlaps one is not kept
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile Runnable invalidationPublisher;
+
+    @Autowired
+    public OrchestrationIndex(final OrchestrationEntityService orchestrationEntityService,
+                              final OrchestrationProjectEntityService orchestrationProjectEntityService,
+                              final CommandCatalog commandCatalog) {
+        this.orchestrationEntityService = orchestrationEntityService;
+        this.orchestrationProjectEntityService = orchestrationProjectEntityService;
+        this.commandCatalog = commandCatalog;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setInvalidationPublisher(@Nullable final Runnable invalidationPublisher) {
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    /**
+     * @return The enabled orchestration set on the project whose first wrapper is the given one, or null
+     */
+    @Nullable
+    public Orchestration findWhereWrapperIsFirst(final OrchestrationIdentifier oi) {
+        long firstWrapperId = oi.firstWrapperId;
+        if (firstWrapperId == 0L) {
+            final Command command = commandCatalog.snapshot().getCommand(oi.commandId);
+            if (command == null) {
+                return null;
+            }
+            firstWrapperId = command.xnatCommandWrappers().stream()
+                    .filter(w -> oi.wrapperName != null && oi.wrapperName.equals(w.name()))
+                    .mapToLong(CommandWrapper::id)
+                    .findFirst()
+                    .orElse(0L);
+            if (firstWrapperId == 0L) {
+                return null;
+            }
+        }
+
+        final Snapshot current = snapshot();
+        final Long orchestrationId = current.orchestrationIdsByProject.get(oi.projectId);
+        final Orchestration orchestration = orchestrationId == null ? null : current.orchestrations.get(orchestrationId);
+        return orchestration != null && orchestration.isEnabled() &&
+                orchestration.getWrapperIds().get(0) == firstWrapperId ? copy(orchestration) : null;
+    }
+
+    /**
+     * @return The wrapper after the given step, or null if that was the last step or the orchestration changed
+     * @throws NotFoundException If there is no such orchestration
+     */
+    @Nullable
+    public CommandWrapper findNextWrapper(final long orchestrationId, final int currentStepIdx, final long currentWrapperId)
+            throws NotFoundException {
+        final Orchestration orchestration = snapshot().orchestrations.get(orchestrationId);
+        if (orchestration == null) {
+            throw new NotFoundException("Could not find entity with ID " + orchestrationId);
+        }
+        final List<Long> wrapperIds = orchestration.getWrapperIds();
+        if (!orchestration.isEnabled() || currentStepIdx >= wrapperIds.size() || wrapperIds.get(currentStepIdx) != currentWrapperId) {
+            log.warn("Orchestration seems to have changed since this container was launched " +
+                            "(either disabled or wrapper {} is no longer at step {}). Halting orchestration",
+                    currentWrapperId, currentStepIdx);
+            return null;
+        }
+        final int nextStepIdx = currentStepIdx + 1;
+        if (nextStepIdx >= wrapperIds.size()) {
+            // This is the last wrapper in the orchestration
+            return null;
+        }
+        final long nextWrapperId = wrapperIds.get(nextStepIdx);
+        final CommandCatalog.Snapshot catalog = commandCatalog.snapshot();
+        final Long commandId = catalog.commandIdForWrapper(nextWrapperId);
+        final Command command = commandId == null ? null : catalog.getCommand(commandId);
+        if (command == null) {
+            throw new NotFoundException("Could not find wrapper with ID " + nextWrapperId);
+        }
+        for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
+            if (wrapper.id() == nextWrapperId) {
+                return wrapper;
+            }
+        }
+        throw new NotFoundException("Could not find wrapper with ID " + nextWrapperId);
+    }
+
+    /**
+     * An orchestration or a project's orchestration changed on this node. Drop the index after the change commits,
+     * and tell the other nodes.
+     */
+    public void changed() {
+        afterCommit(() -> {
+            invalidate();
+            final Runnable publisher = invalidationPublisher;
+            if (publisher != null) {
+                try {
+                    publisher.run();
+                } catch (Exception e) {
+                    log.error("Could not tell other nodes that orchestrations changed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop the index. The next read loads it again.
+     */
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @Nonnull
+    private Snapshot snapshot() {
+        final Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        final long loadingGeneration = generation.get();
+        final Map<Long, Orchestration> orchestrations = new HashMap<>();
+        for (final Orchestration orchestration : orchestrationEntityService.getAllPojos()) {
+            orchestrations.put(orchestration.getId(), orchestration);
+        }
+        final Map<String, Long> orchestrationIdsByProject = new HashMap<>();
+        final List<OrchestrationProjectEntity> projects = orchestrationProjectEntityService.getAll();
+        if (projects != null) {
+            for (final OrchestrationProjectEntity project : projects) {
+                if (project.getOrchestrationEntity() != null) {
+                    orchestrationIdsByProject.put(project.getProjectId(), project.getOrchestrationEntity().getId());
+                }
+            }
+        }
+        final Snapshot loaded = new Snapshot(orchestrations, orchestrationIdsByProject);
+        synchronized (this) {
+            if (generation.get() == loadingGeneration) {
+                snapshot = loaded;
+            }
+        }
+        log.debug("Loaded {} orchestrations set on {} projects", orchestrations.size(), orchestrationIdsByProject.size());
+        return loaded;
+    }
+
+    private static Orchestration copy(final Orchestration orchestration) {
+        final Orchestration copy = new Orchestration(orchestration.getId(), orchestration.getName(),
+                new ArrayList<>(orchestration.getWrapperIds()));
+        copy.setEnabled(orchestration.isEnabled());
+        copy.setHaltOnCommandFailure(orchestration.isHaltOnCommandFailure());
+        return copy;
+    }
+
+    private static void afterCommit(final Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, Orchestration> orchestrations;
+        private final Map<String, Long> orchestrationIdsByProject;
+
+        private Snapshot(final Map<Long, Orchestration> orchestrations, final Map<String, Long> orchestrationIdsByProject) {
+            this.orchestrations = Collections.unmodifiableMap(orchestrations);
+            this.orchestrationIdsByProject = Collections.unmodifiableMap(orchestrationIdsByProject);
+        }
+    }
+}
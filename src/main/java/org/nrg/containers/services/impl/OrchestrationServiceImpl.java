@@ -30,22 +30,26 @@ public class OrchestrationServiceImpl implements OrchestrationService {
     private final OrchestrationEntityService orchestrationEntityService;
     private final CommandEntityService commandEntityService;
     private final ContainerConfigService containerConfigService;
+    private final OrchestrationIndex orchestrationIndex;
 
     @Autowired
     public OrchestrationServiceImpl(final OrchestrationEntityService orchestrationEntityService,
                                     final CommandEntityService commandEntityService,
-
-                                    final ContainerConfigService containerConfigService) {
+                                    final ContainerConfigService containerConfigService,
+                                    final OrchestrationIndex orchestrationIndex) {
         this.orchestrationEntityService = orchestrationEntityService;
         this.commandEntityService = commandEntityService;
         this.containerConfigService = containerConfigService;
+        this.orchestrationIndex = orchestrationIndex;
     }
 
     @Override
     public Orchestration createOrUpdate(Orchestration orchestration)
             throws NotFoundException {
         List<CommandWrapperEntity> wrapperList = validatePojo(orchestration);
-        return orchestrationEntityService.createOrUpdate(orchestration, wrapperList);
+        final Orchestration saved = orchestrationEntityService.createOrUpdate(orchestration, wrapperList);
+        orchestrationIndex.changed();
+        return saved;
     }
 
     @Nullable
@@ -61,27 +65,20 @@ public class OrchestrationServiceImpl implements OrchestrationService {
     @Nullable
     @Override
     public Orchestration findWhereWrapperIsFirst(Orchestration.OrchestrationIdentifier oi) {
-        long firstWrapperId = oi.firstWrapperId;
-        if (firstWrapperId == 0L) {
-            try {
-                firstWrapperId = commandEntityService.getWrapper(oi.commandId, oi.wrapperName).getId();
-            } catch (NotFoundException e) {
-                return null;
-            }
-        }
-        return orchestrationEntityService.findWhereWrapperIsFirst(oi.projectId, firstWrapperId);
+        return orchestrationIndex.findWhereWrapperIsFirst(oi);
     }
 
     @Nullable
     @Override
     public Command.CommandWrapper findNextWrapper(long orchestrationId, int currentStepIdx, long currentWrapperId) throws NotFoundException {
-        return orchestrationEntityService.findNextWrapper(orchestrationId, currentStepIdx, currentWrapperId);
+        return orchestrationIndex.findNextWrapper(orchestrationId, currentStepIdx, currentWrapperId);
     }
 
 
     @Override
     public void setEnabled(long id, boolean enabled, UserI user) throws NotFoundException, ContainerConfigService.CommandConfigurationException {
         List<Long> wrapperIds = orchestrationEntityService.setEnabled(id, enabled);
+        orchestrationIndex.changed();
         if (enabled) {
             for (Long wrapperId : wrapperIds) {
                 containerConfigService.enableForSite(wrapperId, user.getUsername(), "Setup orchestration");
@@ -122,6 +119,7 @@ public class OrchestrationServiceImpl implements OrchestrationService {
     public void setProjectOrchestration(String project, long orchestrationId, UserI user)
             throws NotFoundException, ContainerConfigService.CommandConfigurationException {
         List<Long> wrapperIds = orchestrationEntityService.setProjectOrchestration(project, orchestrationId);
+        orchestrationIndex.changed();
         for (Long wrapperId : wrapperIds) {
             containerConfigService.enableForProject(project, wrapperId, user.getUsername(), "Setup orchestration");
         }
@@ -130,11 +128,13 @@ public class OrchestrationServiceImpl implements OrchestrationService {
     @Override
     public void delete(long id) {
         orchestrationEntityService.delete(id);
+        orchestrationIndex.changed();
     }
 
     @Override
     public void removeProjectOrchestration(String project) {
         orchestrationEntityService.removeProjectOrchestration(project);
+        orchestrationIndex.changed();
     }
 
 
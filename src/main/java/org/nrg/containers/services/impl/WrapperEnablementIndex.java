@@ -0,0 +1,261 @@
+package org.nrg.containers.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.config.entities.Configuration;
+import org.nrg.config.services.ConfigService;
+import org.nrg.containers.model.configuration.CommandConfigurationInternal;
+import org.nrg.framework.constants.Scope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.nrg.containers.services.ContainerConfigService.TOOL_ID;
+import static org.nrg.containers.services.ContainerConfigService.WRAPPER_CONFIG_PATH_TEMPLATE;
+
+/**
+ * The "enabled" setting of every wrapper configuration, held in memory.
+ *
+ * <p>The first read loads every container service configuration with one query. After that the index is kept current
+ * by {@link ContainerConfigServiceImpl}, which records every configuration it writes, deletes, or reads in full.
+ * Writes are also handed to the invalidation publisher, once they commit, so other nodes re-read the same
+ * configuration.</p>
+ *
+ * <p>Each entry carries a revision, bumped every time this node sees the configuration change, so callers can tell
+ * whether something they computed from an entry is still current. The index as a whole also has a
+ * {@link #getConfigurationRevision() configuration revision}, bumped when any wrapper configuration changes in any
+ * way, for callers that cache things computed from the full configurations.</p>
+ */
+@Slf4j
+@Component
+public class WrapperEnablementIndex {
+    private static final Pattern WRAPPER_CONFIG_PATH = Pattern.compile("wrapper-(\\d+)");
+
+    private final ConfigService configService;
+    private final ObjectMapper mapper;
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong revisions = new AtomicLong();
+    private final AtomicLong configurationRevision = new AtomicLong();
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile Consumer<Key> invalidationPublisher;
+
+    @Autowired
+    public WrapperEnablementIndex(final ConfigService configService,
+                                  final ObjectMapper mapper) {
+        this.configService = configService;
+        this.mapper = mapper;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setInvalidationPublisher(@Nullable final Consumer<Key> invalidationPublisher) {
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    /**
+     * @return A number that changes whenever this node writes, or is told about, a change to any wrapper
+     *         configuration, including changes that leave the enabled setting alone
+     */
+    public long getConfigurationRevision() {
+        return configurationRevision.get();
+    }
+
+    /**
+     * @return The entry for this wrapper configuration, or null if there is no configuration
+     */
+    @Nullable
+    public Entry get(final Scope scope, final String project, final long wrapperId) {
+        ensureLoaded();
+        return entries.get(Key.of(scope, project, wrapperId));
+    }
+
+    /**
+     * @return The projects with a configuration for this wrapper
+     */
+    public Map<String, Entry> getProjectEntries(final long wrapperId) {
+        ensureLoaded();
+        return entries.entrySet().stream()
+                .filter(e -> e.getKey().scope == Scope.Project && e.getKey().wrapperId == wrapperId)
+                .collect(Collectors.toMap(e -> e.getKey().project, Map.Entry::getValue));
+    }
+
+    /**
+     * Record a configuration this node has just read from the config service.
+     */
+    public void recordRead(final Scope scope, final String project, final long wrapperId,
+                           @Nullable final CommandConfigurationInternal configuration) {
+        record(Key.of(scope, project, wrapperId), configuration);
+    }
+
+    /**
+     * Record a configuration this node has just written or deleted, and tell the other nodes once the write commits.
+     * Told any sooner, they could read the configuration before it changes and keep the old one.
+     */
+    public void recordWrite(final Scope scope, final String project, final long wrapperId,
+                            @Nullable final CommandConfigurationInternal configuration) {
+        final Key key = Key.of(scope, project, wrapperId);
+        record(key, configuration);
+        configurationRevision.incrementAndGet();
+        afterCommit(() -> {
+            final Consumer<Key> publisher = invalidationPublisher;
+            if (publisher != null) {
+                try {
+                    publisher.accept(key);
+                } catch (Exception e) {
+                    log.error("Could not tell other nodes that the configuration for wrapper {} changed", wrapperId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Another node changed this configuration. Read it again.
+     */
+    public void onRemoteInvalidation(final Scope scope, final String project, final long wrapperId) {
+        if (!loaded) {
+            return;
+        }
+        final Key key = Key.of(scope, project, wrapperId);
+        record(key, parse(key, configService.getConfig(TOOL_ID, String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId), scope, project)));
+        configurationRevision.incrementAndGet();
+    }
+
+    /**
+     * Drop everything. The next read loads the index again.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        entries.clear();
+        configurationRevision.incrementAndGet();
+    }
+
+    private void record(final Key key, @Nullable final CommandConfigurationInternal configuration) {
+        if (configuration == null) {
+            if (entries.remove(key) != null) {
+                configurationRevision.incrementAndGet();
+            }
+        } else {
+            final Entry previous = entries.get(key);
+            if (previous == null || !Objects.equals(previous.enabled, configuration.enabled())) {
+                entries.put(key, new Entry(configuration.enabled(), revisions.incrementAndGet()));
+                configurationRevision.incrementAndGet();
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            final List<Configuration> configurations = configService.getConfigsByTool(TOOL_ID);
+            if (configurations != null) {
+                for (final Configuration configuration : configurations) {
+                    if (configuration == null || configuration.getPath() == null) {
+                        continue;
+                    }
+                    final Matcher matcher = WRAPPER_CONFIG_PATH.matcher(configuration.getPath());
+                    if (!matcher.matches()) {
+                        continue;
+                    }
+                    final Key key = Key.of(configuration.getScope(), configuration.getEntityId(), Long.parseLong(matcher.group(1)));
+                    record(key, parse(key, configuration));
+                }
+            }
+            loaded = true;
+            log.debug("Loaded {} wrapper configurations into the enablement index", entries.size());
+        }
+    }
+
+    private static void afterCommit(final Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    @Nullable
+    private CommandConfigurationInternal parse(final Key key, @Nullable final Configuration configuration) {
+        if (configuration == null || StringUtils.isBlank(configuration.getContents())) {
+            return null;
+        }
+        try {
+            return mapper.readValue(configuration.getContents(), CommandConfigurationInternal.class);
+        } catch (IOException e) {
+            log.error("Could not deserialize Command Configuration for {}", key, e);
+            return null;
+        }
+    }
+
+    public static final class Entry {
+        @Nullable public final Boolean enabled;
+        public final long revision;
+
+        Entry(@Nullable final Boolean enabled, final long revision) {
+            this.enabled = enabled;
+            this.revision = revision;
+        }
+    }
+
+    public static final class Key {
+        public final Scope scope;
+        public final String project;
+        public final long wrapperId;
+
+        private Key(final Scope scope, final String project, final long wrapperId) {
+            this.scope = scope;
+            this.project = project;
+            this.wrapperId = wrapperId;
+        }
+
+        static Key of(final Scope scope, final String project, final long wrapperId) {
+            return new Key(scope, scope == Scope.Site ? null : project, wrapperId);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key that = (Key) o;
+            return wrapperId == that.wrapperId && scope == that.scope && Objects.equals(project, that.project);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, project, wrapperId);
+        }
+
+        @Override
+        public String toString() {
+            return scope == Scope.Site ? "site, wrapper id " + wrapperId : "project " + project + ", wrapper id " + wrapperId;
+        }
+    }
+}
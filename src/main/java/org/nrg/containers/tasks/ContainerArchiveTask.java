@@ -0,0 +1,77 @@
+package org.nrg.containers.tasks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.model.container.ContainerArchivePrefsBean;
+import org.nrg.containers.services.ContainerArchiveService;
+import org.nrg.xft.schema.XFTManager;
+import org.nrg.xnat.services.XnatAppInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archives one small batch of old finalized containers each time it runs. Each container is archived
+ * in its own short transaction, so the container tables are never locked for long.
+ */
+@Slf4j
+@Component
+public class ContainerArchiveTask implements Runnable {
+
+    private final ContainerArchiveService containerArchiveService;
+    private final ContainerArchivePrefsBean containerArchivePrefsBean;
+    private final XnatAppInfo xnatAppInfo;
+    private boolean haveLoggedXftInitFailure = false;
+
+    @Autowired
+    public ContainerArchiveTask(final ContainerArchiveService containerArchiveService,
+                                final ContainerArchivePrefsBean containerArchivePrefsBean,
+                                final XnatAppInfo xnatAppInfo) {
+        this.containerArchiveService = containerArchiveService;
+        this.containerArchivePrefsBean = containerArchivePrefsBean;
+        this.xnatAppInfo = xnatAppInfo;
+    }
+
+    @Override
+    public void run() {
+        if (!xnatAppInfo.isPrimaryNode()) {
+            return;
+        }
+
+        if (!XFTManager.isInitialized()) {
+            if (!haveLoggedXftInitFailure) {
+                log.info("XFT is not initialized, skipping container archive task");
+                haveLoggedXftInitFailure = true;
+            }
+            return;
+        }
+
+        final Boolean enabled = containerArchivePrefsBean.getArchiveEnabled();
+        final Integer afterDays = containerArchivePrefsBean.getArchiveAfterDays();
+        final Integer batchSize = containerArchivePrefsBean.getArchiveBatchSize();
+        if (enabled == null || !enabled || afterDays == null || afterDays < 1 || batchSize == null || batchSize < 1) {
+            return;
+        }
+
+        final Date lastUpdatedBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(afterDays));
+        final List<Long> toArchive = containerArchiveService.findContainersToArchive(lastUpdatedBefore, batchSize);
+        if (toArchive.isEmpty()) {
+            log.trace("No containers to archive");
+            return;
+        }
+
+        int archived = 0;
+        for (final Long containerDatabaseId : toArchive) {
+            try {
+                if (containerArchiveService.archive(containerDatabaseId)) {
+                    archived++;
+                }
+            } catch (Exception e) {
+                log.error("Could not archive container {}", containerDatabaseId, e);
+            }
+        }
+        log.info("Archived {} of {} finalized containers last updated before {}", archived, toArchive.size(), lastUpdatedBefore);
+    }
+}
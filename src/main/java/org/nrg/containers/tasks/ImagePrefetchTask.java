@@ -0,0 +1,176 @@
+package org.nrg.containers.tasks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.server.docker.Backend;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
+import org.nrg.containers.services.DockerServerService;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.nrg.containers.services.impl.ImagePullManager;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
+import org.nrg.framework.constants.Scope;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xft.schema.XFTManager;
+import org.nrg.xnat.services.XnatAppInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Starts pulls for the images of commands that are enabled in at least one project but are not on the docker server,
+ * so the first launch after a command is installed and enabled doesn't wait on the pull.
+ *
+ * <p>This only runs when the docker server is set to pull images on XNAT initialization, since sites that turn that
+ * off don't want images pulled without being asked. Images whose last pull failed are left alone until
+ * {@link ImagePullManager} forgets that pull.</p>
+ *
+ * <p>On a swarm, when {@link SwarmPrefsBean#getPrewarmImages()} is on, the same images are also pulled onto the nodes,
+ * which otherwise each pull an image when the first container using it starts there. Each image is pulled onto the
+ * nodes again every {@link #PREWARM_INTERVAL_MILLIS}, for nodes that have joined since.</p>
+ */
+@Slf4j
+@Component
+public class ImagePrefetchTask implements Runnable {
+    static final long PREWARM_INTERVAL_MILLIS = 6 * 60 * 60 * 1000L;
+
+    private final ImagePullManager imagePullManager;
+    private final ContainerControlApi controlApi;
+    private final DockerServerService dockerServerService;
+    private final CommandCatalog commandCatalog;
+    private final WrapperEnablementIndex wrapperEnablementIndex;
+    private final XnatAppInfo xnatAppInfo;
+    private final SwarmPrefsBean swarmPrefsBean;
+
+    private final Map<String, Long> prewarmedAt = new HashMap<>();
+
+    @Autowired
+    public ImagePrefetchTask(final ImagePullManager imagePullManager,
+                             final ContainerControlApi controlApi,
+                             final DockerServerService dockerServerService,
+                             final CommandCatalog commandCatalog,
+                             final WrapperEnablementIndex wrapperEnablementIndex,
+                             final XnatAppInfo xnatAppInfo,
+                             final SwarmPrefsBean swarmPrefsBean) {
+        this.imagePullManager = imagePullManager;
+        this.controlApi = controlApi;
+        this.dockerServerService = dockerServerService;
+        this.commandCatalog = commandCatalog;
+        this.wrapperEnablementIndex = wrapperEnablementIndex;
+        this.xnatAppInfo = xnatAppInfo;
+        this.swarmPrefsBean = swarmPrefsBean;
+    }
+
+    @Override
+    public void run() {
+        if (!xnatAppInfo.isPrimaryNode() || !XFTManager.isInitialized()) {
+            return;
+        }
+
+        final DockerServer server;
+        try {
+            server = dockerServerService.getServer();
+        } catch (NotFoundException e) {
+            return;
+        }
+        if (server.backend() == Backend.KUBERNETES) {
+            return;
+        }
+        final boolean prefetch = Boolean.TRUE.equals(server.pullImagesOnXnatInit());
+        final boolean prewarm = server.backend() == Backend.SWARM && Boolean.TRUE.equals(swarmPrefsBean.getPrewarmImages());
+        if (!prewarm) {
+            prewarmedAt.clear();
+        }
+        if (!prefetch && !prewarm) {
+            return;
+        }
+
+        final Set<String> wanted = new HashSet<>();
+        for (final Command command : commandCatalog.snapshot().getCommands()) {
+            final String imageName = command.image();
+            if (StringUtils.isBlank(imageName) || imageName.startsWith("sha256") || !isEnabledInAnyProject(command)) {
+                continue;
+            }
+            wanted.add(ImagePullManager.reference(imageName));
+        }
+
+        if (prewarm) {
+            prewarm(wanted);
+        }
+        if (prefetch && !wanted.isEmpty()) {
+            prefetch(wanted);
+        }
+    }
+
+    private void prewarm(final Set<String> wanted) {
+        final long now = System.currentTimeMillis();
+        prewarmedAt.keySet().retainAll(wanted);
+        final Set<String> due = new HashSet<>();
+        for (final String imageName : wanted) {
+            final Long last = prewarmedAt.get(imageName);
+            if (last == null || now - last >= PREWARM_INTERVAL_MILLIS) {
+                due.add(imageName);
+            }
+        }
+
+        // Called even with nothing due, to clean up the pulls that have finished
+        try {
+            final Set<String> pulling = controlApi.prewarmSwarmImages(due);
+            for (final String imageName : due) {
+                if (pulling.contains(imageName)) {
+                    prewarmedAt.put(imageName, now);
+                }
+            }
+        } catch (NoDockerServerException | DockerServerException e) {
+            log.debug("Could not pull images onto the swarm nodes: {}", e.getMessage());
+        }
+    }
+
+    private void prefetch(final Set<String> wanted) {
+        try {
+            for (final DockerImage image : controlApi.getAllImages()) {
+                for (final String tag : image.tags()) {
+                    wanted.remove(ImagePullManager.reference(tag));
+                }
+            }
+        } catch (NoDockerServerException | DockerServerException e) {
+            log.debug("Could not list images, not prefetching: {}", e.getMessage());
+            return;
+        }
+
+        for (final String imageName : wanted) {
+            final ImagePullStatus last = imagePullManager.getStatus(imageName);
+            if (last != null && (!last.isDone() || ImagePullStatus.FAILED.equals(last.status()))) {
+                continue;
+            }
+            log.info("Prefetching image {} for enabled commands", imageName);
+            imagePullManager.pull(imageName, null, null, null, null, null);
+        }
+    }
+
+    private boolean isEnabledInAnyProject(final Command command) {
+        for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
+            final WrapperEnablementIndex.Entry site = wrapperEnablementIndex.get(Scope.Site, null, wrapper.id());
+            if (site == null || !Boolean.TRUE.equals(site.enabled)) {
+                continue;
+            }
+            for (final WrapperEnablementIndex.Entry project : wrapperEnablementIndex.getProjectEntries(wrapper.id()).values()) {
+                if (Boolean.TRUE.equals(project.enabled)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package org.nrg.containers.tasks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.KubernetesAdmissionQueue;
+import org.nrg.containers.api.KubernetesClient;
+import org.nrg.containers.api.KubernetesClientFactory;
+import org.nrg.containers.exceptions.ContainerBackendException;
+import org.nrg.containers.exceptions.NoContainerServerException;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
+import org.nrg.containers.model.server.docker.Backend;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.services.DockerServerService;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xft.schema.XFTManager;
+import org.nrg.xnat.services.XnatAppInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unsuspends waiting Kubernetes jobs while the admission limits have room. See {@link KubernetesAdmissionQueue}.
+ */
+@Slf4j
+@Component
+public class KubernetesAdmissionTask implements Runnable {
+    // How long we count a job we unsuspended as running, even if the informer's cache still shows it suspended
+    private static final long ADMITTED_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final DockerServerService dockerServerService;
+    private final KubernetesClientFactory kubernetesClientFactory;
+    private final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean;
+    private final XnatAppInfo xnatAppInfo;
+    private final Map<String, Long> recentlyAdmitted = new ConcurrentHashMap<>();
+    private boolean haveLoggedXftInitFailure = false;
+
+    @Autowired
+    public KubernetesAdmissionTask(final DockerServerService dockerServerService,
+                                   final KubernetesClientFactory kubernetesClientFactory,
+                                   final KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean,
+                                   final XnatAppInfo xnatAppInfo) {
+        this.dockerServerService = dockerServerService;
+        this.kubernetesClientFactory = kubernetesClientFactory;
+        this.kubernetesAdmissionPrefsBean = kubernetesAdmissionPrefsBean;
+        this.xnatAppInfo = xnatAppInfo;
+    }
+
+    @Override
+    public void run() {
+        if (!xnatAppInfo.isPrimaryNode()) {
+            return;
+        }
+
+        if (!XFTManager.isInitialized()) {
+            if (!haveLoggedXftInitFailure) {
+                log.info("XFT is not initialized, skipping kubernetes admission task");
+                haveLoggedXftInitFailure = true;
+            }
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(kubernetesAdmissionPrefsBean.getAdmissionEnabled())) {
+            return;
+        }
+
+        final KubernetesClient kubernetesClient;
+        try {
+            final DockerServer server = dockerServerService.getServer();
+            if (server.backend() != Backend.KUBERNETES) {
+                return;
+            }
+            kubernetesClient = kubernetesClientFactory.getKubernetesClient();
+        } catch (NotFoundException | NoContainerServerException e) {
+            log.trace("No kubernetes server, skipping kubernetes admission task");
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        recentlyAdmitted.values().removeIf(admittedAt -> now - admittedAt > ADMITTED_GRACE_MILLIS);
+
+        final List<String> toAdmit = KubernetesAdmissionQueue.admit(kubernetesClient.getCachedJobs(),
+                recentlyAdmitted.keySet(), limits());
+        for (final String jobName : toAdmit) {
+            try {
+                kubernetesClient.unsuspendJob(jobName);
+                recentlyAdmitted.put(jobName, now);
+            } catch (ContainerBackendException e) {
+                log.error("Could not unsuspend kubernetes job {}", jobName, e);
+            }
+        }
+        if (!toAdmit.isEmpty()) {
+            log.info("Unsuspended {} waiting kubernetes jobs", toAdmit.size());
+        }
+    }
+
+    private KubernetesAdmissionQueue.Limits limits() {
+        return new KubernetesAdmissionQueue.Limits(
+                valueOrZero(kubernetesAdmissionPrefsBean.getMaxJobsPerProject()),
+                valueOrZero(kubernetesAdmissionPrefsBean.getMaxJobsPerUser()),
+                valueOrZero(kubernetesAdmissionPrefsBean.getMaxCpus()),
+                valueOrZero(kubernetesAdmissionPrefsBean.getMaxMemoryMb()),
+                valueOrZero(kubernetesAdmissionPrefsBean.getMaxGpus()));
+    }
+
+    private static int valueOrZero(final Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -1,8 +1,11 @@
 package org.nrg.containers.utils;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.model.command.auto.Command;
@@ -37,6 +40,8 @@ public class ContainerServicePermissionUtils {
     public final static WrapperPermission READ_PERMISSION_PLACEHOLDER = WrapperPermission.read(CONTEXT_PERMISSION_PLACEHOLDER);
     public final static WrapperPermission EDIT_PERMISSION_PLACEHOLDER = WrapperPermission.edit(CONTEXT_PERMISSION_PLACEHOLDER);
     private final static int SCAN_PERMISSIONS_CHECK_CACHE_TTL = 10; // seconds
+    private final static int PERMISSION_DECISION_CACHE_TTL = 10; // seconds
+    private final static int PERMISSION_DECISION_CACHE_SIZE = 10000;
 
     // Equate "project read" permissions to "subject read" permissions.
     // Neither Permissions.canReadProject nor
@@ -53,6 +58,16 @@ public class ContainerServicePermissionUtils {
     // If specific is equal to or an instance of generic, return true. Else return false.
     private static final Map<XsiTypePair, Boolean> xsiTypePairCache = new ConcurrentHashMap<>();
 
+    // Cache Permissions.can decisions. Listing available wrappers asks the same (user, project, xml path, action)
+    // question once per wrapper that needs it, so a short TTL is enough to answer most of them from memory.
+    // Cleared when users, groups, or projects change; see PermissionCacheInvalidationListener.
+    private static final Cache<PermissionDecision, Boolean> permissionDecisionCache = CacheBuilder
+            .newBuilder()
+            .expireAfterWrite(PERMISSION_DECISION_CACHE_TTL, TimeUnit.SECONDS)
+            .maximumSize(PERMISSION_DECISION_CACHE_SIZE)
+            .recordStats()
+            .build();
+
     // Cache the actions a user can take on at least one image session type in a project to workaround scan perms
     private static final LoadingCache<UserProjectAction, Boolean> userImageSessionPermissionsCache = CacheBuilder
             .newBuilder()
@@ -63,7 +78,7 @@ public class ContainerServicePermissionUtils {
                     return projectExperimentCountCache.get(upa.project).stream().anyMatch(xsiType -> {
                         try {
                             return xsiTypeEqualToOrInstanceOf(xsiType, XnatImagesessiondata.SCHEMA_ELEMENT_NAME) &&
-                                    Permissions.can(upa.user, xsiType + "/project", upa.project, upa.action);
+                                    can(upa.user, xsiType + "/project", upa.project, upa.action);
                         } catch (Exception e) {
                             log.error("Could not check {} permissions for user \"{}\" project \"{}\" xsiType \"{}\"",
                                     upa.action, upa.user.getUsername(), upa.project, xsiType, e);
@@ -127,6 +142,27 @@ public class ContainerServicePermissionUtils {
                 .allMatch(wp -> canPerformActionOnXsiType(userI, project, wp, true));
     }
 
+    /**
+     * Resolve a context to the XSI type that {@link Command.CommandWrapper#requiredPermissions(String)} expects.
+     *
+     * @param context The context for which the user is requesting available command wrappers
+     * @return The resolved XSI type, or null if the context is not an XFT element. In that case
+     *         {@link #userHasRequiredPermissions(UserI, String, String, Command.CommandWrapper)} lets the user through.
+     */
+    public static String resolveContextXsiType(final String context) {
+        return resolveXsiType(context);
+    }
+
+    /**
+     * One of the checks in {@link #userHasRequiredPermissions(UserI, String, String, Command.CommandWrapper)},
+     * for callers that want to share the answer between wrappers that need the same permission.
+     */
+    public static boolean canPerformAction(final UserI userI,
+                                           final String project,
+                                           final WrapperPermission wrapperPermission) {
+        return canPerformActionOnXsiType(userI, project, wrapperPermission, true);
+    }
+
     public static boolean userHasRequiredPermissions(final UserI userI,
                                                      final String project,
                                                      final ItemI item,
@@ -241,7 +277,7 @@ public class ContainerServicePermissionUtils {
             }
 
             try {
-                can = Permissions.can(userI, xmlPathToCheck, project, xdatPermissionsAction);
+                can = can(userI, xmlPathToCheck, project, xdatPermissionsAction);
             } catch (Exception e) {
                 log.error("Could not check {} permissions for user \"{}\" project \"{}\" xsiType \"{}\"",
                         action, userI.getUsername(), project, xsiType, e);
@@ -253,6 +289,35 @@ public class ContainerServicePermissionUtils {
         return can;
     }
 
+    /**
+     * {@code Permissions.can}, answered from the permission decision cache when we
+     * asked the same question recently.
+     */
+    private static boolean can(final UserI userI, final String xmlPath, final String project, final String action) throws Exception {
+        try {
+            return permissionDecisionCache.get(new PermissionDecision(userI.getUsername(), project, xmlPath, action),
+                    () -> Permissions.can(userI, xmlPath, project, action));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Forget every cached permission decision. Called when users, groups, roles, or projects change.
+     */
+    public static void invalidatePermissionCaches() {
+        permissionDecisionCache.invalidateAll();
+        userImageSessionPermissionsCache.invalidateAll();
+    }
+
+    public static CacheStats getPermissionDecisionCacheStats() {
+        return permissionDecisionCache.stats();
+    }
+
+    public static long getPermissionDecisionCacheSize() {
+        return permissionDecisionCache.size();
+    }
+
     /**
      * Until XXX-187, we use the parent session when checking scan permissions. However, when we just have a scan
      * xsi type, we don't have a means of determining the session (scans of any type can belong to sessions of any type).
@@ -473,6 +538,36 @@ public class ContainerServicePermissionUtils {
         }
     }
 
+    private static class PermissionDecision {
+        private final String username;
+        private final String project;
+        private final String xmlPath;
+        private final String action;
+
+        PermissionDecision(final String username, final String project, final String xmlPath, final String action) {
+            this.username = username;
+            this.project = project;
+            this.xmlPath = xmlPath;
+            this.action = action;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final PermissionDecision that = (PermissionDecision) o;
+            return Objects.equals(username, that.username) &&
+                    Objects.equals(project, that.project) &&
+                    Objects.equals(xmlPath, that.xmlPath) &&
+                    Objects.equals(action, that.action);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, project, xmlPath, action);
+        }
+    }
+
     private static class UserProjectAction {
         final UserI user;
         final String project;
@@ -98,6 +98,18 @@ public class ContainerUtils {
         }
     }
 
+    /**
+     * @return The image name with ":latest" added if it has neither a tag nor a digest
+     */
+    public static String imageReference(final String imageName) {
+        final String name = StringUtils.trimToEmpty(imageName);
+        if (name.contains("@")) {
+            return name;
+        }
+        final int lastSlash = name.lastIndexOf('/');
+        return name.indexOf(':', lastSlash + 1) >= 0 ? name : name + ":latest";
+    }
+
     public static <T> T instanceOrDefault(@Nullable final T instance, @Nonnull final T other) {
         return instance != null ? instance : other;
     }
@@ -0,0 +1,99 @@
+package org.nrg.containers.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that does not open the stream it writes to until something is written, so that writing
+ * nothing (an empty log, say) leaves no empty file or zip entry behind. It can also wait for something other than
+ * whitespace, holding on to the whitespace until then, so that a blank log leaves nothing behind either.
+ */
+public class LazyOutputStream extends OutputStream {
+    private final Opener opener;
+    private final ByteArrayOutputStream leadingBlanks;
+    private OutputStream out;
+    private long bytesWritten = 0L;
+
+    public LazyOutputStream(final Opener opener) {
+        this(opener, false);
+    }
+
+    /**
+     * @param skipIfBlank Whether to open the stream only once something other than whitespace is written
+     */
+    public LazyOutputStream(final Opener opener, final boolean skipIfBlank) {
+        this.opener = opener;
+        this.leadingBlanks = skipIfBlank ? new ByteArrayOutputStream() : null;
+    }
+
+    public boolean isOpened() {
+        return out != null;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (holdBack(b)) {
+            leadingBlanks.write(b);
+            return;
+        }
+        open().write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int start = off;
+        final int end = off + len;
+        while (start < end && holdBack(b[start])) {
+            leadingBlanks.write(b[start++]);
+        }
+        if (start == end) {
+            return;
+        }
+        open().write(b, start, end - start);
+        bytesWritten += end - start;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    /**
+     * @return Whether the byte is whitespace that comes before anything else, when we are waiting for something else
+     */
+    private boolean holdBack(final int b) {
+        return out == null && leadingBlanks != null && Character.isWhitespace((char) (b & 0xFF));
+    }
+
+    private OutputStream open() throws IOException {
+        if (out == null) {
+            out = opener.open();
+            if (leadingBlanks != null && leadingBlanks.size() > 0) {
+                leadingBlanks.writeTo(out);
+                bytesWritten += leadingBlanks.size();
+                leadingBlanks.reset();
+            }
+        }
+        return out;
+    }
+
+    @FunctionalInterface
+    public interface Opener {
+        OutputStream open() throws IOException;
+    }
+}
@@ -1,19 +1,20 @@
 package org.nrg.xnat.initialization.tasks;
 
 import lombok.extern.slf4j.Slf4j;
-import org.nrg.containers.api.ContainerControlApi;
-import org.nrg.containers.exceptions.DockerServerException;
-import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.server.docker.DockerServerBase;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.impl.ImagePullManager;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.nrg.xnat.initialization.tasks.InitializingTaskException.Level.RequiresInitialization;
 
@@ -22,15 +23,15 @@ import static org.nrg.xnat.initialization.tasks.InitializingTaskException.Level.
 public class CheckDockerImagesArePresent extends AbstractInitializingTask {
     private DockerService dockerService;
     private CommandService commandService;
-    private ContainerControlApi containerControlApi;
+    private ImagePullManager imagePullManager;
 
     @Autowired
     public CheckDockerImagesArePresent(final DockerService dockerService,
                                        final CommandService commandService,
-                                       final ContainerControlApi containerControlApi) {
+                                       final ImagePullManager imagePullManager) {
         this.dockerService = dockerService;
         this.commandService = commandService;
-        this.containerControlApi = containerControlApi;
+        this.imagePullManager = imagePullManager;
     }
 
     @Override
@@ -74,14 +75,21 @@ public class CheckDockerImagesArePresent extends AbstractInitializingTask {
             imageNameToCommandName.put(imageName, command.name());
         }
 
+        // Start all the pulls, then wait for them. The pull manager runs a few at a time.
+        final Map<String, CompletableFuture<DockerImage>> pulls = new HashMap<>();
         for (final String imageName : imageNameToCommandId.keySet()) {
-            final String commandName = imageNameToCommandName.get(imageName);
-            final Long commandId = imageNameToCommandId.get(imageName);
-            log.debug("Pulling image \"{}\" for command {} \"{}\".", imageName, commandId, commandName);
+            log.debug("Pulling image \"{}\" for command {} \"{}\".", imageName,
+                    imageNameToCommandId.get(imageName), imageNameToCommandName.get(imageName));
+            pulls.put(imageName, imagePullManager.pull(imageName, null, null, null, null, null));
+        }
+        for (final Map.Entry<String, CompletableFuture<DockerImage>> pull : pulls.entrySet()) {
             try {
-                containerControlApi.pullImage(imageName);
-            } catch (NoDockerServerException | DockerServerException | NotFoundException e) {
-                log.debug("Encountered a problem pulling image \"{}\": {}", imageName, e.getMessage());
+                pull.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.debug("Encountered a problem pulling image \"{}\": {}", pull.getKey(), e.getCause().getMessage());
             }
         }
     }
@@ -18,13 +18,16 @@ import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.model.dockerhub.DockerHubBase;
 import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
 import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.utils.BackendConfig;
 import org.nrg.containers.utils.TestingUtils;
 import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xdat.preferences.SiteConfigPreferences;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -57,6 +60,9 @@ public class DockerControlApiIntegrationTest {
     @Mock private DockerServerService dockerServerService;
     @Mock private DockerHubService dockerHubService;
     @Mock private KubernetesClientFactory kubernetesClientFactory;
+    @Mock private KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean;
+    @Mock private SwarmPrefsBean swarmPrefsBean;
+    @Mock private SiteConfigPreferences siteConfigPreferences;
 
     private static DockerControlApi controlApi;
 
@@ -79,7 +85,8 @@ public class DockerControlApiIntegrationTest {
                 .build();
         when(dockerServerService.getServer()).thenReturn(dockerServer);
 
-        controlApi = new DockerControlApi(dockerServerService, dockerHubService, kubernetesClientFactory);
+        controlApi = new DockerControlApi(dockerServerService, dockerHubService, kubernetesClientFactory,
+                kubernetesAdmissionPrefsBean, swarmPrefsBean, siteConfigPreferences);
 
         TestingUtils.skipIfCannotConnectToDocker(controlApi.getDockerClient());
 
@@ -33,10 +33,13 @@ import org.mockito.stubbing.Answer;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
 import org.nrg.containers.model.server.docker.Backend;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerServerService;
+import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xft.security.UserI;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -46,6 +49,7 @@ import org.powermock.reflect.Whitebox;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
@@ -59,6 +63,7 @@ import static org.junit.Assume.assumeThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -101,6 +106,9 @@ public class DockerControlApiTest {
     @Mock private DockerServerService dockerServerService;
     @Mock private KubernetesClientFactory kubernetesClientFactory;
     @Mock private KubernetesClient kubernetesClient;
+    @Mock private KubernetesAdmissionPrefsBean kubernetesAdmissionPrefsBean;
+    @Mock private SwarmPrefsBean swarmPrefsBean;
+    @Mock private SiteConfigPreferences siteConfigPreferences;
 
     @Mock(answer = Answers.RETURNS_MOCKS) private com.github.dockerjava.api.DockerClient mockDockerJavaClient;
     @Mock private DockerImage mockDockerImage;
@@ -119,7 +127,8 @@ public class DockerControlApiTest {
         // The fact that we have to do this is a code smell!
         // Should probably inject this client instance into DockerControlApi as a bean.
         dockerControlApi = PowerMockito.spy(new DockerControlApi(
-                dockerServerService, dockerHubService, kubernetesClientFactory
+                dockerServerService, dockerHubService, kubernetesClientFactory, kubernetesAdmissionPrefsBean,
+                swarmPrefsBean, siteConfigPreferences
         ));
         PowerMockito.doReturn(mockDockerImage)
                 .when(dockerControlApi, method(DockerControlApi.class, "pullImage", String.class))
@@ -179,6 +188,34 @@ public class DockerControlApiTest {
         assumeThat(ping, is(ok));
     }
 
+    @Test
+    public void testSwarmManagedByValueNamesTheSite() throws Exception {
+        when(siteConfigPreferences.getSiteId()).thenReturn("XNAT");
+        when(siteConfigPreferences.getSiteUrl()).thenReturn("https://a.example.org/");
+        final String siteA = dockerControlApi.swarmManagedByValue();
+        when(siteConfigPreferences.getSiteUrl()).thenReturn("https://b.example.org");
+        final String siteB = dockerControlApi.swarmManagedByValue();
+
+        assertThat(siteA, is(DockerControlApi.SWARM_MANAGED_BY_VALUE + "/XNAT@https://a.example.org"));
+        assertThat(siteB, is(DockerControlApi.SWARM_MANAGED_BY_VALUE + "/XNAT@https://b.example.org"));
+    }
+
+    @Test
+    public void testSwarmServicesAreNotListedWithoutASiteUrl() throws Exception {
+        when(siteConfigPreferences.getSiteId()).thenReturn("XNAT");
+        when(siteConfigPreferences.getSiteUrl()).thenReturn("");
+
+        assertThat(dockerControlApi.getSwarmServiceNames(new Date()).isEmpty(), is(true));
+        verify(mockDockerJavaClient, never()).listServicesCmd();
+    }
+
+    @Test
+    public void testOnlyDirectLaunchServiceNamesAreRecognized() throws Exception {
+        assertThat(DockerControlApi.isDirectLaunchServiceName("name-1a2b3c4d"), is(true));
+        assertThat(DockerControlApi.isDirectLaunchServiceName("9tkc2k9zs0ds9hb2e8x0c1wqm"), is(false));
+        assertThat(DockerControlApi.isDirectLaunchServiceName(null), is(false));
+    }
+
     @Test
     public void testGetLog_stdout() throws Exception {
         final LogType logType = LogType.STDOUT;
@@ -284,7 +321,7 @@ public class DockerControlApiTest {
             toLaunchAndExpectedContainerBuilder.serviceId(BACKEND_ID);
 
             when(kubernetesClient.createJob(
-                    toLaunch, DockerControlApi.NumReplicas.ZERO, null, null
+                    toLaunch, DockerControlApi.NumReplicas.ZERO, false, null, null
             )).thenReturn(BACKEND_ID);
         } else {
             toLaunchAndExpectedContainerBuilder.containerId(BACKEND_ID);
@@ -345,7 +382,7 @@ public class DockerControlApiTest {
             expectedCreatedBuilder.serviceId(BACKEND_ID);
         } else if (backend == Backend.KUBERNETES) {
             when(kubernetesClient.createJob(
-                    any(Container.class), eq(DockerControlApi.NumReplicas.ZERO), any(String.class), any(String.class)
+                    any(Container.class), eq(DockerControlApi.NumReplicas.ZERO), eq(false), any(String.class), any(String.class)
             )).thenReturn(BACKEND_ID);
 
             expectedCreatedBuilder.serviceId(BACKEND_ID);
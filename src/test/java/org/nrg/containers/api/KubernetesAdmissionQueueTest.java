@@ -0,0 +1,102 @@
+package org.nrg.containers.api;
+
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobBuilder;
+import io.kubernetes.client.openapi.models.V1JobStatus;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+
+public class KubernetesAdmissionQueueTest {
+    private static final KubernetesAdmissionQueue.Limits NO_LIMITS = new KubernetesAdmissionQueue.Limits(0, 0, 0, 0, 0);
+    private static final OffsetDateTime START = OffsetDateTime.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    public void testPerUserLimit() {
+        assertThat(KubernetesAdmissionQueue.admit(Arrays.asList(
+                job("running", "p", "alice", false, 0, "1"),
+                job("first", "p", "alice", true, 1, "1"),
+                job("second", "p", "alice", true, 2, "1")
+        ), Collections.emptySet(), new KubernetesAdmissionQueue.Limits(0, 2, 0, 0, 0)), contains("first"));
+    }
+
+    @Test
+    public void testUsersTakeTurns() {
+        // Alice queued everything first, but bob gets the next slot once alice has one running
+        assertThat(KubernetesAdmissionQueue.admit(Arrays.asList(
+                job("a1", "p", "alice", true, 0, "1"),
+                job("a2", "p", "alice", true, 1, "1"),
+                job("b1", "p", "bob", true, 2, "1")
+        ), Collections.emptySet(), new KubernetesAdmissionQueue.Limits(2, 0, 0, 0, 0)), contains("a1", "b1"));
+    }
+
+    @Test
+    public void testJobsThatDoNotFitArePassedOver() {
+        assertThat(KubernetesAdmissionQueue.admit(Arrays.asList(
+                job("running", "p", "alice", false, 0, "3"),
+                job("big", "p", "bob", true, 1, "2"),
+                job("small", "q", "carol", true, 2, "0.5")
+        ), Collections.emptySet(), new KubernetesAdmissionQueue.Limits(0, 0, 4, 0, 0)), contains("small"));
+    }
+
+    @Test
+    public void testFinishedAndRecentlyAdmittedJobs() {
+        final V1Job finished = job("finished", "p", "alice", false, 0, "1");
+        finished.setStatus(new V1JobStatus().completionTime(START));
+
+        // The finished job no longer counts, the one we just let in still does
+        assertThat(KubernetesAdmissionQueue.admit(Arrays.asList(
+                finished,
+                job("admitted", "p", "alice", true, 1, "1"),
+                job("waiting", "p", "alice", true, 2, "1")
+        ), Collections.singleton("admitted"), new KubernetesAdmissionQueue.Limits(0, 1, 0, 0, 0)), empty());
+
+        assertThat(KubernetesAdmissionQueue.admit(Collections.singletonList(finished), Collections.emptySet(), NO_LIMITS),
+                empty());
+    }
+
+    @Test
+    public void testSuspendedJobsNotQueuedForAdmissionAreLeftAlone() {
+        // A parent job waits, suspended, for its setup containers. It is not ours to start and takes no room.
+        final V1Job parent = job("parent", "p", "alice", true, 0, "4");
+        parent.getMetadata().getAnnotations().remove(KubernetesClientImpl.AWAITING_ADMISSION_ANNOTATION);
+
+        assertThat(KubernetesAdmissionQueue.admit(Arrays.asList(
+                parent,
+                job("waiting", "p", "alice", true, 1, "4")
+        ), Collections.emptySet(), new KubernetesAdmissionQueue.Limits(0, 1, 4, 0, 0)), contains("waiting"));
+    }
+
+    private static V1Job job(final String name, final String project, final String user,
+                             final boolean suspended, final int minutesAfterStart, final String cpus) {
+        return new V1JobBuilder()
+                .withNewMetadata()
+                .withName(name)
+                .withCreationTimestamp(START.plusMinutes(minutesAfterStart))
+                .addToAnnotations(KubernetesClientImpl.PROJECT_ANNOTATION, project)
+                .addToAnnotations(KubernetesClientImpl.USER_ANNOTATION, user)
+                .addToAnnotations(KubernetesClientImpl.AWAITING_ADMISSION_ANNOTATION, "true")
+                .endMetadata()
+                .withNewSpec()
+                .withSuspend(suspended)
+                .withNewTemplate()
+                .withNewSpec()
+                .addNewContainer()
+                .withName(name)
+                .withNewResources()
+                .addToLimits("cpu", new Quantity(cpus))
+                .endResources()
+                .endContainer()
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+    }
+}
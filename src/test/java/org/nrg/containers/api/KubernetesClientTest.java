@@ -3,11 +3,14 @@ package org.nrg.containers.api;
 import io.kubernetes.client.openapi.models.V1Affinity;
 import io.kubernetes.client.openapi.models.V1NodeSelectorRequirement;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
 import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 @Slf4j
@@ -38,4 +41,27 @@ public class KubernetesClientTest {
         assertThat(nodeSelector.getOperator(), is(expectedKubernetesOperator));
         assertThat(nodeSelector.getValues(), is(Collections.singletonList(constraintValue)));
     }
+
+    @Test
+    public void jobTemplatesAreReused() throws Exception {
+        final KubernetesJobTemplates templates = new KubernetesJobTemplates();
+
+        final KubernetesJobTemplates.Template template = templates.get(Collections.singletonList("a-key==a-value"), "1000", "NVIDIA");
+        assertThat(template.containerUserId, is(1000L));
+        assertThat(template.securityContext.getRunAsUser(), is(1000L));
+        assertThat(template.gpuResourceName, is("nvidia.com/gpu"));
+        assertThat(template.affinity.getNodeAffinity().getRequiredDuringSchedulingIgnoredDuringExecution()
+                .getNodeSelectorTerms().get(0).getMatchExpressions().get(0).getKey(), is("a-key"));
+
+        assertThat(templates.get(Collections.singletonList("a-key==a-value"), "1000", "NVIDIA"), is(sameInstance(template)));
+        assertThat(templates.get(Collections.singletonList("a-key==a-value"), "1001", "NVIDIA"), is(not(sameInstance(template))));
+    }
+
+    @Test
+    public void labelValuesAreCleaned() {
+        final KubernetesJobTemplates templates = new KubernetesJobTemplates();
+        assertThat(templates.cleanLabelValue("fine-as.is"), is("fine-as.is"));
+        assertThat(templates.cleanLabelValue("not fine/at_all"), is("not-fine-at-all"));
+        assertThat(templates.cleanLabelValue(StringUtils.repeat("a", 64)), is(StringUtils.repeat("a", 60) + "..."));
+    }
 }
@@ -0,0 +1,110 @@
+package org.nrg.containers.api;
+
+import io.kubernetes.client.informer.cache.Indexer;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobBuilder;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.nrg.containers.events.model.KubernetesStatusChangeEvent;
+import org.nrg.containers.model.kubernetes.KubernetesPodPhase;
+import org.nrg.framework.services.NrgEventServiceI;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KubernetesInformerTest {
+    private static final String JOB_NAME = "job";
+
+    private NrgEventServiceI eventService;
+    private Indexer<V1Pod> podIndexer;
+    private KubernetesInformerImpl.JobEventHandler handler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        eventService = Mockito.mock(NrgEventServiceI.class);
+        podIndexer = Mockito.mock(Indexer.class);
+        handler = new KubernetesInformerImpl.JobEventHandler(eventService, podIndexer);
+    }
+
+    @Test
+    public void testJobThatFailsWithoutAPodIsReported() {
+        when(podIndexer.byIndex(anyString(), anyString())).thenReturn(Collections.emptyList());
+
+        handler.onUpdate(job(false), job(true));
+
+        final ArgumentCaptor<KubernetesStatusChangeEvent> captor = ArgumentCaptor.forClass(KubernetesStatusChangeEvent.class);
+        verify(eventService).triggerEvent(captor.capture());
+        assertThat(captor.getValue().getJobName(), is(JOB_NAME));
+        assertThat(captor.getValue().getPodPhase(), is(KubernetesPodPhase.FAILED));
+    }
+
+    @Test
+    public void testJobWithAPodIsLeftToThePodHandler() {
+        when(podIndexer.byIndex(anyString(), anyString())).thenReturn(Collections.singletonList(new V1Pod()));
+
+        handler.onUpdate(job(false), job(true));
+        handler.onUpdate(job(true), job(true));
+
+        verify(eventService, never()).triggerEvent(any(KubernetesStatusChangeEvent.class));
+    }
+
+    @Test
+    public void testJobAlreadyFailedWhenAddedIsNotReported() {
+        when(podIndexer.byIndex(anyString(), anyString())).thenReturn(Collections.emptyList());
+
+        handler.onAdd(job(true));
+        handler.onUpdate(job(true), job(true));
+
+        verify(eventService, never()).triggerEvent(any(KubernetesStatusChangeEvent.class));
+    }
+
+    @Test
+    public void testLagIsRecordedOnlyForANewerCondition() {
+        final KubernetesClientMetrics metrics = Mockito.mock(KubernetesClientMetrics.class);
+        final KubernetesInformerImpl.LagRecorder recorder = new KubernetesInformerImpl.LagRecorder(metrics);
+        final OffsetDateTime scheduled = OffsetDateTime.now().minusSeconds(30);
+        final OffsetDateTime ready = OffsetDateTime.now().minusSeconds(5);
+
+        recorder.onAdd(pod("1", scheduled));
+        recorder.onUpdate(pod("1", scheduled), pod("1", scheduled));  // resync
+        recorder.onUpdate(pod("1", scheduled), pod("2", scheduled));  // no newer condition
+        recorder.onUpdate(pod("2", scheduled), pod("3", ready));
+
+        verify(metrics, times(2)).informerLag(anyLong());
+    }
+
+    private static V1Pod pod(final String resourceVersion, final OffsetDateTime lastTransition) {
+        return new V1PodBuilder()
+                .withNewMetadata().withName("pod").withResourceVersion(resourceVersion).endMetadata()
+                .withNewStatus()
+                .addNewCondition().withType("Ready").withStatus("True").withLastTransitionTime(lastTransition).endCondition()
+                .endStatus()
+                .build();
+    }
+
+    private static V1Job job(final boolean failed) {
+        final V1JobBuilder builder = new V1JobBuilder()
+                .withNewMetadata().withName(JOB_NAME).endMetadata();
+        if (failed) {
+            builder.withNewStatus()
+                    .addNewCondition().withType("Failed").withStatus("True").withReason("DeadlineExceeded").endCondition()
+                    .endStatus();
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,45 @@
+package org.nrg.containers.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class KubernetesRequestLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRate() {
+        final AtomicLong now = new AtomicLong();
+        final KubernetesRequestLimiter.TokenBucket bucket = new KubernetesRequestLimiter.TokenBucket(10, 3, now::get);
+
+        // The burst goes out at once
+        assertThat(bucket.reserve(), is(0L));
+        assertThat(bucket.reserve(), is(0L));
+        assertThat(bucket.reserve(), is(0L));
+
+        // After that, each request waits its turn behind the one before
+        assertThat(bucket.reserve(), is(SECOND / 10));
+        assertThat(bucket.reserve(), is(2 * SECOND / 10));
+
+        // A quiet spell refills the bucket, but no further than the burst
+        now.addAndGet(10 * SECOND);
+        assertThat(bucket.reserve(), is(0L));
+        assertThat(bucket.reserve(), is(0L));
+        assertThat(bucket.reserve(), is(0L));
+        assertThat(bucket.reserve(), is(SECOND / 10));
+    }
+
+    @Test
+    public void testRetryAfter() {
+        assertThat(KubernetesRequestLimiter.retryAfterMillis("2"), is(2000L));
+        assertThat(KubernetesRequestLimiter.retryAfterMillis(" 0 "), is(0L));
+        assertThat(KubernetesRequestLimiter.retryAfterMillis("3600"), is(KubernetesRequestLimiter.MAX_RETRY_AFTER_MILLIS));
+        assertThat(KubernetesRequestLimiter.retryAfterMillis(null), is(KubernetesRequestLimiter.DEFAULT_RETRY_AFTER_MILLIS));
+        assertThat(KubernetesRequestLimiter.retryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"),
+                is(KubernetesRequestLimiter.DEFAULT_RETRY_AFTER_MILLIS));
+    }
+}
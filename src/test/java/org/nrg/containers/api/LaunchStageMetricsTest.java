@@ -0,0 +1,44 @@
+package org.nrg.containers.api;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LaunchStageMetricsTest {
+    @Test
+    public void testBuckets() {
+        final LaunchStageMetrics metrics = new LaunchStageMetrics();
+        metrics.record(LaunchStageMetrics.Stage.CREATE, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.record(LaunchStageMetrics.Stage.CREATE, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.record(LaunchStageMetrics.Stage.CREATE, TimeUnit.MILLISECONDS.toNanos(11));
+        metrics.record(LaunchStageMetrics.Stage.CREATE, TimeUnit.MINUTES.toNanos(5));
+
+        assertThat(metrics.count(LaunchStageMetrics.Stage.CREATE), is(4L));
+        assertThat(metrics.count(LaunchStageMetrics.Stage.START), is(0L));
+
+        // Bucket bounds are inclusive
+        assertThat(metrics.count(LaunchStageMetrics.Stage.CREATE, 0), is(2L));
+        assertThat(metrics.count(LaunchStageMetrics.Stage.CREATE, 1), is(1L));
+        assertThat(metrics.count(LaunchStageMetrics.Stage.CREATE, LaunchStageMetrics.BUCKET_MILLIS.length), is(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReport() {
+        final LaunchStageMetrics metrics = new LaunchStageMetrics();
+        metrics.record(LaunchStageMetrics.Stage.START, TimeUnit.MILLISECONDS.toNanos(100));
+        metrics.record(LaunchStageMetrics.Stage.START, TimeUnit.MILLISECONDS.toNanos(300));
+
+        final Map<String, Object> start = (Map<String, Object>) metrics.report().get("start");
+        assertThat(start, hasEntry("count", (Object) 2L));
+        assertThat(start, hasEntry("average-millis", (Object) 200.0));
+        assertThat(start, hasEntry("max-millis", (Object) 300L));
+        assertThat((Map<String, Long>) start.get("histogram-millis"), hasEntry("<=100", 1L));
+        assertThat((Map<String, Long>) start.get("histogram-millis"), hasEntry("<=500", 1L));
+    }
+}
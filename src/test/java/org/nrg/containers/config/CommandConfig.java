@@ -3,6 +3,7 @@ package org.nrg.containers.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.config.services.ConfigService;
+import org.nrg.containers.daos.CommandDocumentEntityRepository;
 import org.nrg.containers.daos.CommandEntityRepository;
 import org.nrg.containers.daos.OrchestrationEntityDao;
 import org.nrg.containers.daos.OrchestrationProjectEntityDao;
@@ -18,13 +19,22 @@ import org.springframework.context.annotation.Import;
 public class CommandConfig {
     @Bean
     public CommandService commandService(final CommandEntityService commandEntityService,
-                                         final ContainerConfigService containerConfigService) {
-        return new CommandServiceImpl(commandEntityService, containerConfigService);
+                                         final ContainerConfigService containerConfigService,
+                                         final CommandCatalog commandCatalog,
+                                         final CommandDocumentService commandDocumentService) {
+        return new CommandServiceImpl(commandEntityService, containerConfigService, commandCatalog, commandDocumentService);
     }
 
     @Bean
-    public CommandEntityService commandEntityService(OrchestrationEntityService orchestrationEntityService) {
-        return new HibernateCommandEntityService(orchestrationEntityService);
+    public CommandCatalog commandCatalog(final CommandDocumentService commandDocumentService) {
+        return new CommandCatalog(commandDocumentService);
+    }
+
+    @Bean
+    public CommandEntityService commandEntityService(final OrchestrationEntityService orchestrationEntityService,
+                                                     final CommandDocumentService commandDocumentService,
+                                                     final OrchestrationIndex orchestrationIndex) {
+        return new HibernateCommandEntityService(orchestrationEntityService, commandDocumentService, orchestrationIndex);
     }
 
     @Bean
@@ -32,11 +42,31 @@ public class CommandConfig {
         return new CommandEntityRepository();
     }
 
+    @Bean
+    public CommandDocumentService commandDocumentService(final CommandEntityRepository commandEntityRepository,
+                                                         final ObjectMapper mapper) {
+        return new HibernateCommandDocumentService(commandEntityRepository, mapper);
+    }
+
+    @Bean
+    public CommandDocumentEntityRepository commandDocumentEntityRepository() {
+        return new CommandDocumentEntityRepository();
+    }
+
     @Bean
     public ContainerConfigService containerConfigService(ConfigService configService, ObjectMapper mapper,
                                                          final OrchestrationProjectEntityService orchestrationProjectEntityService,
-                                                         final OrchestrationEntityService orchestrationEntityService) {
-        return new ContainerConfigServiceImpl(configService, mapper, orchestrationProjectEntityService, orchestrationEntityService);
+                                                         final OrchestrationEntityService orchestrationEntityService,
+                                                         final OrchestrationIndex orchestrationIndex) {
+        return new ContainerConfigServiceImpl(configService, mapper, orchestrationProjectEntityService, orchestrationEntityService,
+                new WrapperEnablementIndex(configService, mapper), orchestrationIndex);
+    }
+
+    @Bean
+    public OrchestrationIndex orchestrationIndex(final OrchestrationEntityService orchestrationEntityService,
+                                                 final OrchestrationProjectEntityService orchestrationProjectEntityService,
+                                                 final CommandCatalog commandCatalog) {
+        return new OrchestrationIndex(orchestrationEntityService, orchestrationProjectEntityService, commandCatalog);
     }
 
 
@@ -42,8 +42,15 @@ public class CommandConfigurationRestApiTestConfig extends WebSecurityConfigurer
 
     @Bean
     public CommandService commandService(final CommandEntityService commandEntityService,
-                                         final ContainerConfigService containerConfigService) {
-        return new CommandServiceImpl(commandEntityService, containerConfigService);
+                                         final ContainerConfigService containerConfigService,
+                                         final CommandCatalog commandCatalog,
+                                         final CommandDocumentService commandDocumentService) {
+        return new CommandServiceImpl(commandEntityService, containerConfigService, commandCatalog, commandDocumentService);
+    }
+
+    @Bean
+    public CommandCatalog commandCatalog(final CommandDocumentService commandDocumentService) {
+        return new CommandCatalog(commandDocumentService);
     }
 
     @Bean
@@ -51,10 +58,16 @@ public class CommandConfigurationRestApiTestConfig extends WebSecurityConfigurer
         return Mockito.mock(CommandEntityService.class);
     }
 
+    @Bean
+    public CommandDocumentService mockCommandDocumentService() {
+        return Mockito.mock(CommandDocumentService.class);
+    }
+
     @Bean
     public ContainerConfigService containerConfigService(final ConfigService configService,
                                                          final ObjectMapper objectMapper) {
-        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class));
+        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class),
+                new WrapperEnablementIndex(configService, objectMapper), Mockito.mock(OrchestrationIndex.class));
     }
 
     @Bean
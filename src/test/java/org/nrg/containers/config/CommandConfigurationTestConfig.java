@@ -7,6 +7,8 @@ import org.nrg.containers.services.ContainerConfigService;
 import org.nrg.containers.services.OrchestrationEntityService;
 import org.nrg.containers.services.OrchestrationProjectEntityService;
 import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
+import org.nrg.containers.services.impl.OrchestrationIndex;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -21,6 +23,7 @@ public class CommandConfigurationTestConfig {
 
     @Bean
     public ContainerConfigService containerConfigService(ConfigService configService, ObjectMapper mapper) {
-        return new ContainerConfigServiceImpl(configService, mapper,  Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class));
+        return new ContainerConfigServiceImpl(configService, mapper,  Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class),
+                new WrapperEnablementIndex(configService, mapper), Mockito.mock(OrchestrationIndex.class));
     }
 }
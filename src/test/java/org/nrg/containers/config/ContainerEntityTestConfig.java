@@ -1,9 +1,13 @@
 package org.nrg.containers.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.daos.ContainerArchiveEntityRepository;
 import org.nrg.containers.daos.ContainerEntityRepository;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.impl.HibernateContainerArchiveService;
 import org.nrg.containers.services.impl.HibernateContainerEntityService;
 import org.nrg.framework.services.NrgEventServiceI;
 import org.nrg.framework.services.SerializerService;
@@ -68,4 +72,15 @@ public class ContainerEntityTestConfig {
     public ContainerEntityRepository containerEntityRepository() {
         return new ContainerEntityRepository();
     }
+
+    @Bean
+    public ContainerArchiveService containerArchiveService(final ContainerEntityRepository containerEntityRepository,
+                                                           final ObjectMapper objectMapper) {
+        return new HibernateContainerArchiveService(containerEntityRepository, objectMapper);
+    }
+
+    @Bean
+    public ContainerArchiveEntityRepository containerArchiveEntityRepository() {
+        return new ContainerArchiveEntityRepository();
+    }
 }
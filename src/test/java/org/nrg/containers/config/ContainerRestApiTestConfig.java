@@ -6,9 +6,11 @@ import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.rest.ContainerRestApi;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.DockerService;
 import org.nrg.containers.services.OrchestrationService;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
 import org.nrg.framework.services.ContextService;
@@ -59,7 +61,8 @@ public class ContainerRestApiTestConfig extends WebSecurityConfigurerAdapter {
         return new ContainerServiceImpl(containerControlApi, containerEntityService, commandResolutionService,
                 commandService, aliasTokenService, siteConfigPreferences, containerFinalizeService,
                 null, catalogService, mockOrchestrationService,
-                mockNrgEventService, mapper, threadPoolExecutorFactoryBean);
+                mockNrgEventService, mapper, threadPoolExecutorFactoryBean,
+                Mockito.mock(ContainerArchiveService.class), Mockito.mock(DockerService.class));
     }
 
     @Bean
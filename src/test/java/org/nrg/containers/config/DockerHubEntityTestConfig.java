@@ -12,6 +12,8 @@ import org.nrg.containers.services.OrchestrationEntityService;
 import org.nrg.containers.services.OrchestrationProjectEntityService;
 import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
 import org.nrg.containers.services.impl.HibernateDockerHubService;
+import org.nrg.containers.services.impl.OrchestrationIndex;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,7 +41,8 @@ public class DockerHubEntityTestConfig {
     @Bean
     public ContainerConfigService containerConfigService(final ConfigService configService,
                                                          final ObjectMapper objectMapper) {
-        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class));
+        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class),
+                new WrapperEnablementIndex(configService, objectMapper), Mockito.mock(OrchestrationIndex.class));
     }
 
     @Bean
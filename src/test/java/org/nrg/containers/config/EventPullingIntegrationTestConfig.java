@@ -1,8 +1,10 @@
 package org.nrg.containers.config;
 
+import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.api.KubernetesClientFactory;
 import org.nrg.containers.events.ContainerStatusUpdater;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.framework.services.NrgEventServiceI;
@@ -35,7 +37,8 @@ public class EventPullingIntegrationTestConfig implements SchedulingConfigurer {
                                                          @Qualifier("mockXnatAppInfo") final XnatAppInfo mockXnatAppInfo,
                                                          final KubernetesClientFactory kubernetesClientFactory) {
         return new ContainerStatusUpdater(
-                containerControlApi, containerService, dockerServerService, eventService, mockXnatAppInfo, kubernetesClientFactory
+                containerControlApi, containerService, dockerServerService, eventService, mockXnatAppInfo, kubernetesClientFactory,
+                Mockito.mock(SwarmPrefsBean.class)
         );
     }
 
@@ -12,6 +12,7 @@ import org.nrg.containers.daos.ContainerEntityRepository;
 import org.nrg.containers.daos.DockerServerEntityRepository;
 import org.nrg.containers.events.listeners.ContainerEventListener;
 import org.nrg.containers.events.listeners.DockerServiceEventListener;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandInputEntity;
 import org.nrg.containers.model.command.entity.CommandMountEntity;
@@ -29,16 +30,20 @@ import org.nrg.containers.model.container.entity.ContainerEntityInput;
 import org.nrg.containers.model.container.entity.ContainerEntityMount;
 import org.nrg.containers.model.container.entity.ContainerEntityOutput;
 import org.nrg.containers.model.container.entity.ContainerMountFilesEntity;
+import org.nrg.containers.model.kubernetes.KubernetesAdmissionPrefsBean;
+import org.nrg.containers.model.kubernetes.KubernetesClientPrefsBean;
 import org.nrg.containers.model.orchestration.entity.OrchestratedWrapperEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestrationEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestrationProjectEntity;
 import org.nrg.containers.model.server.docker.DockerServerEntity;
 import org.nrg.containers.model.server.docker.DockerServerEntitySwarmConstraint;
+import org.nrg.containers.model.server.docker.SwarmPrefsBean;
 import org.nrg.containers.secrets.SecretValueObtainer;
 import org.nrg.containers.secrets.SystemPropertySecretSource;
 import org.nrg.containers.services.CommandLabelService;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerSecretService;
@@ -48,6 +53,7 @@ import org.nrg.containers.services.DockerServerEntityService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.DockerService;
 import org.nrg.containers.services.OrchestrationService;
+import org.nrg.containers.services.impl.CommandCatalog;
 import org.nrg.containers.services.impl.CommandLabelServiceImpl;
 import org.nrg.containers.services.impl.CommandResolutionServiceImpl;
 import org.nrg.containers.services.impl.ContainerFinalizeServiceImpl;
@@ -57,6 +63,8 @@ import org.nrg.containers.services.impl.DockerServerServiceImpl;
 import org.nrg.containers.services.impl.DockerServiceImpl;
 import org.nrg.containers.services.impl.HibernateContainerEntityService;
 import org.nrg.containers.services.impl.HibernateDockerServerEntityService;
+import org.nrg.containers.services.impl.ImagePullManager;
+import org.nrg.containers.services.impl.ImageSummaryIndex;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.framework.services.NrgEventServiceI;
@@ -99,8 +107,11 @@ public class IntegrationTestConfig {
     @Bean
     public DockerControlApi dockerControlApi(final DockerServerService dockerServerService,
                                              final DockerHubService dockerHubService,
-                                             final KubernetesClientFactory kubernetesClientFactory) {
-        return new DockerControlApi(dockerServerService, dockerHubService, kubernetesClientFactory);
+                                             final KubernetesClientFactory kubernetesClientFactory,
+                                             final SiteConfigPreferences siteConfigPreferences) {
+        return new DockerControlApi(dockerServerService, dockerHubService, kubernetesClientFactory,
+                Mockito.mock(KubernetesAdmissionPrefsBean.class), Mockito.mock(SwarmPrefsBean.class),
+                siteConfigPreferences);
     }
 
     @Bean
@@ -173,7 +184,7 @@ public class IntegrationTestConfig {
     @Bean
     public KubernetesClientFactory kubernetesClientFactory(final ExecutorService executorService,
                                                            final NrgEventServiceI eventService) {
-        return new KubernetesClientFactoryImpl(executorService, eventService);
+        return new KubernetesClientFactoryImpl(executorService, eventService, Mockito.mock(KubernetesClientPrefsBean.class));
     }
 
     /*
@@ -207,11 +218,13 @@ public class IntegrationTestConfig {
                                              final OrchestrationService mockOrchestrationService,
                                              final NrgEventServiceI mockNrgEventService,
                                              final ObjectMapper mapper,
-                                             final ThreadPoolExecutorFactoryBean threadPoolExecutorFactoryBean) {
+                                             final ThreadPoolExecutorFactoryBean threadPoolExecutorFactoryBean,
+                                             final DockerService dockerService) {
         return new ContainerServiceImpl(containerControlApi, containerEntityService,
                 commandResolutionService, commandService, aliasTokenService, siteConfigPreferences,
                 containerFinalizeService, mockXnatAppInfo, catalogService, mockOrchestrationService,
-                mockNrgEventService, mapper, threadPoolExecutorFactoryBean);
+                mockNrgEventService, mapper, threadPoolExecutorFactoryBean,
+                Mockito.mock(ContainerArchiveService.class), dockerService);
     }
 
     @Bean
@@ -237,8 +250,11 @@ public class IntegrationTestConfig {
                                        final DockerHubService dockerHubService,
                                        final CommandService commandService,
                                        final DockerServerService dockerServerService,
-                                       final CommandLabelService commandLabelService) {
-        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService);
+                                       final CommandLabelService commandLabelService,
+                                       final CommandCatalog commandCatalog) {
+        final ImageSummaryIndex imageSummaryIndex = new ImageSummaryIndex(controlApi, commandLabelService, commandCatalog);
+        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService,
+                imageSummaryIndex, new ImagePullManager(controlApi, imageSummaryIndex));
     }
 
     @Bean
@@ -313,6 +329,7 @@ public class IntegrationTestConfig {
                 DockerServerEntity.class,
                 DockerServerEntitySwarmConstraint.class,
                 CommandEntity.class,
+                CommandDocumentEntity.class,
                 DockerCommandEntity.class,
                 DockerSetupCommandEntity.class,
                 DockerWrapupCommandEntity.class,
@@ -8,6 +8,7 @@ import org.nrg.containers.jms.listeners.ContainerFinalizingRequestListener;
 import org.nrg.containers.jms.listeners.ContainerStagingRequestListener;
 import org.nrg.containers.jms.requests.ContainerFinalizingRequest;
 import org.nrg.containers.jms.requests.ContainerStagingRequest;
+import org.nrg.containers.jms.utils.QueueProcessingTimes;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.framework.configuration.ConfigPaths;
 import org.nrg.framework.utilities.OrderedProperties;
@@ -39,7 +40,7 @@ public class JmsConfig {
     @Bean
     public ContainerStagingRequestListener containerStagingRequestListener(ContainerService containerService,
                                                                            UserManagementServiceI mockUserManagementServiceI) {
-        return new ContainerStagingRequestListener(containerService, mockUserManagementServiceI);
+        return new ContainerStagingRequestListener(containerService, mockUserManagementServiceI, new QueueProcessingTimes());
     }
 
     @Bean(name = ContainerStagingRequest.DESTINATION)
@@ -50,7 +51,7 @@ public class JmsConfig {
     @Bean
     public ContainerFinalizingRequestListener containerFinalizingRequestListener(ContainerService containerService,
                                                                                  UserManagementServiceI mockUserManagementServiceI) {
-        return new ContainerFinalizingRequestListener(containerService, mockUserManagementServiceI);
+        return new ContainerFinalizingRequestListener(containerService, mockUserManagementServiceI, new QueueProcessingTimes());
     }
 
     @Bean(name = ContainerFinalizingRequest.DESTINATION)
@@ -6,6 +6,7 @@ import org.nrg.containers.jms.listeners.ContainerFinalizingRequestListener;
 import org.nrg.containers.jms.listeners.ContainerStagingRequestListener;
 import org.nrg.containers.jms.requests.ContainerFinalizingRequest;
 import org.nrg.containers.jms.requests.ContainerStagingRequest;
+import org.nrg.containers.jms.utils.QueueProcessingTimes;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.xdat.security.services.UserManagementServiceI;
 import org.springframework.context.annotation.Bean;
@@ -27,7 +28,7 @@ public class MockJmsConfig {
     @Bean
     public ContainerStagingRequestListener containerStagingRequestListener(ContainerService containerService,
                                                                            UserManagementServiceI mockUserManagementServiceI) {
-        return new ContainerStagingRequestListener(containerService, mockUserManagementServiceI);
+        return new ContainerStagingRequestListener(containerService, mockUserManagementServiceI, new QueueProcessingTimes());
     }
 
     @Bean(name = ContainerStagingRequest.DESTINATION)
@@ -38,7 +39,7 @@ public class MockJmsConfig {
     @Bean
     public ContainerFinalizingRequestListener containerFinalizingRequestListener(ContainerService containerService,
                                                                                  UserManagementServiceI mockUserManagementServiceI) {
-        return new ContainerFinalizingRequestListener(containerService, mockUserManagementServiceI);
+        return new ContainerFinalizingRequestListener(containerService, mockUserManagementServiceI, new QueueProcessingTimes());
     }
 
     @Bean(name = ContainerFinalizingRequest.DESTINATION)
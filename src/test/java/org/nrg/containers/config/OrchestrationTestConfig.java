@@ -7,9 +7,11 @@ import org.nrg.config.daos.ConfigurationDataDAO;
 import org.nrg.config.entities.ConfigurationData;
 import org.nrg.config.services.ConfigService;
 import org.nrg.config.services.impl.DefaultConfigService;
+import org.nrg.containers.daos.CommandDocumentEntityRepository;
 import org.nrg.containers.daos.CommandEntityRepository;
 import org.nrg.containers.daos.OrchestrationEntityDao;
 import org.nrg.containers.daos.OrchestrationProjectEntityDao;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandInputEntity;
 import org.nrg.containers.model.command.entity.CommandMountEntity;
@@ -24,18 +26,23 @@ import org.nrg.containers.model.command.entity.DockerWrapupCommandEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestratedWrapperEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestrationEntity;
 import org.nrg.containers.model.orchestration.entity.OrchestrationProjectEntity;
+import org.nrg.containers.services.CommandDocumentService;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerConfigService;
 import org.nrg.containers.services.OrchestrationEntityService;
 import org.nrg.containers.services.OrchestrationProjectEntityService;
 import org.nrg.containers.services.OrchestrationService;
+import org.nrg.containers.services.impl.CommandCatalog;
 import org.nrg.containers.services.impl.CommandServiceImpl;
 import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
+import org.nrg.containers.services.impl.HibernateCommandDocumentService;
 import org.nrg.containers.services.impl.HibernateCommandEntityService;
 import org.nrg.containers.services.impl.OrchestrationEntityServiceImpl;
+import org.nrg.containers.services.impl.OrchestrationIndex;
 import org.nrg.containers.services.impl.OrchestrationProjectEntityServiceImpl;
 import org.nrg.containers.services.impl.OrchestrationServiceImpl;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,23 +63,40 @@ import java.util.Properties;
 public class OrchestrationTestConfig {
     @Bean
     public CommandService commandService(final CommandEntityService commandEntityService,
-                                         final ContainerConfigService containerConfigService) {
-        return new CommandServiceImpl(commandEntityService, containerConfigService);
+                                         final ContainerConfigService containerConfigService,
+                                         final CommandCatalog commandCatalog,
+                                         final CommandDocumentService commandDocumentService) {
+        return new CommandServiceImpl(commandEntityService, containerConfigService, commandCatalog, commandDocumentService);
+    }
+
+    @Bean
+    public CommandCatalog commandCatalog(final CommandDocumentService commandDocumentService) {
+        return new CommandCatalog(commandDocumentService);
     }
 
     @Bean
     public ContainerConfigService containerConfigService(ConfigService configService, ObjectMapper mapper,
                                                          final OrchestrationProjectEntityService orchestrationProjectEntityService,
-                                                         final OrchestrationEntityService orchestrationEntityService) {
-        return new ContainerConfigServiceImpl(configService, mapper, orchestrationProjectEntityService, orchestrationEntityService);
+                                                         final OrchestrationEntityService orchestrationEntityService,
+                                                         final OrchestrationIndex orchestrationIndex) {
+        return new ContainerConfigServiceImpl(configService, mapper, orchestrationProjectEntityService, orchestrationEntityService,
+                new WrapperEnablementIndex(configService, mapper), orchestrationIndex);
+    }
+
+    @Bean
+    public OrchestrationIndex orchestrationIndex(final OrchestrationEntityService orchestrationEntityService,
+                                                 final OrchestrationProjectEntityService orchestrationProjectEntityService,
+                                                 final CommandCatalog commandCatalog) {
+        return new OrchestrationIndex(orchestrationEntityService, orchestrationProjectEntityService, commandCatalog);
     }
 
     @Bean
     public OrchestrationService orchestrationService(final OrchestrationEntityService orchestrationEntityService,
                                                      final CommandEntityService commandEntityService,
-
-                                                     final ContainerConfigService containerConfigService) {
-        return new OrchestrationServiceImpl(orchestrationEntityService, commandEntityService, containerConfigService);
+                                                     final ContainerConfigService containerConfigService,
+                                                     final OrchestrationIndex orchestrationIndex) {
+        return new OrchestrationServiceImpl(orchestrationEntityService, commandEntityService, containerConfigService,
+                orchestrationIndex);
     }
 
     @Bean
@@ -86,8 +110,10 @@ public class OrchestrationTestConfig {
     }
 
     @Bean
-    public CommandEntityService commandEntityService(OrchestrationEntityService orchestrationEntityService) {
-        return new HibernateCommandEntityService(orchestrationEntityService);
+    public CommandEntityService commandEntityService(final OrchestrationEntityService orchestrationEntityService,
+                                                     final CommandDocumentService commandDocumentService,
+                                                     final OrchestrationIndex orchestrationIndex) {
+        return new HibernateCommandEntityService(orchestrationEntityService, commandDocumentService, orchestrationIndex);
     }
 
     @Bean
@@ -95,6 +121,17 @@ public class OrchestrationTestConfig {
         return new CommandEntityRepository();
     }
 
+    @Bean
+    public CommandDocumentService commandDocumentService(final CommandEntityRepository commandEntityRepository,
+                                                         final ObjectMapper mapper) {
+        return new HibernateCommandDocumentService(commandEntityRepository, mapper);
+    }
+
+    @Bean
+    public CommandDocumentEntityRepository commandDocumentEntityRepository() {
+        return new CommandDocumentEntityRepository();
+    }
+
     @Bean
     public ConfigService configService(final ConfigurationDAO configurationDAO,
                                        final ConfigurationDataDAO configurationDataDAO,
@@ -133,6 +170,7 @@ public class OrchestrationTestConfig {
                 OrchestratedWrapperEntity.class,
                 OrchestrationProjectEntity.class,
                 CommandEntity.class,
+                CommandDocumentEntity.class,
                 CommandWrapperEntity.class,
                 DockerCommandEntity.class,
                 DockerSetupCommandEntity.class,
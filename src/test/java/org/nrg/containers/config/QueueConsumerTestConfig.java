@@ -13,6 +13,7 @@ import org.nrg.containers.events.listeners.DockerServiceEventListener;
 import org.nrg.containers.services.CommandLabelService;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
@@ -21,6 +22,7 @@ import org.nrg.containers.services.DockerServerEntityService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.DockerService;
 import org.nrg.containers.services.OrchestrationService;
+import org.nrg.containers.services.impl.CommandCatalog;
 import org.nrg.containers.services.impl.CommandLabelServiceImpl;
 import org.nrg.containers.services.impl.ContainerFinalizeServiceImpl;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
@@ -28,6 +30,8 @@ import org.nrg.containers.services.impl.DockerServerServiceImpl;
 import org.nrg.containers.services.impl.DockerServiceImpl;
 import org.nrg.containers.services.impl.HibernateContainerEntityService;
 import org.nrg.containers.services.impl.HibernateDockerServerEntityService;
+import org.nrg.containers.services.impl.ImagePullManager;
+import org.nrg.containers.services.impl.ImageSummaryIndex;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.framework.services.NrgEventServiceI;
@@ -154,7 +158,8 @@ public class QueueConsumerTestConfig {
         return new ContainerServiceImpl(mockDockerControlApi, mockContainerEntityService,
                 commandResolutionService, mockCommandService, aliasTokenService, siteConfigPreferences,
                 containerFinalizeService, mockXnatAppInfo, catalogService, mockOrchestrationService,
-                mockNrgEventService, mapper, threadPoolExecutorFactoryBean);
+                mockNrgEventService, mapper, threadPoolExecutorFactoryBean,
+                Mockito.mock(ContainerArchiveService.class), Mockito.mock(DockerService.class));
     }
 
     @Bean
@@ -175,8 +180,11 @@ public class QueueConsumerTestConfig {
                                        final DockerHubService dockerHubService,
                                        final CommandService commandService,
                                        final DockerServerService dockerServerService,
-                                       final CommandLabelService commandLabelService) {
-        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService);
+                                       final CommandLabelService commandLabelService,
+                                       final CommandCatalog commandCatalog) {
+        final ImageSummaryIndex imageSummaryIndex = new ImageSummaryIndex(controlApi, commandLabelService, commandCatalog);
+        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService,
+                imageSummaryIndex, new ImagePullManager(controlApi, imageSummaryIndex));
     }
 
     @Bean
@@ -0,0 +1,85 @@
+package org.nrg.containers.events;
+
+import org.junit.Test;
+import org.nrg.containers.events.model.ContainerEvent;
+import org.nrg.containers.events.model.DockerContainerEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ContainerEventCoalescerTest {
+    private static final long LONG_WINDOW = 60000L;
+
+    private final List<ContainerEvent> sent = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void ignorableEventsAreDropped() {
+        final ContainerEventCoalescer coalescer = new ContainerEventCoalescer(sent::add, LONG_WINDOW);
+        coalescer.offer(event("abc", "attach"));
+        coalescer.offer(event("abc", "exec_start: /bin/sh"));
+        coalescer.offer(event("abc", "destroy"));
+        coalescer.flush();
+
+        assertThat(sent, is(empty()));
+        assertThat(coalescer.getIgnoredCount(), is(3L));
+    }
+
+    @Test
+    public void nonTerminalEventsAreCoalesced() {
+        final ContainerEventCoalescer coalescer = new ContainerEventCoalescer(sent::add, LONG_WINDOW);
+        final DockerContainerEvent create = event("abc", "create");
+        final DockerContainerEvent start = event("abc", "start");
+        final DockerContainerEvent other = event("def", "create");
+        coalescer.offer(create);
+        coalescer.offer(other);
+        coalescer.offer(start);
+
+        assertThat(sent, is(empty()));
+
+        coalescer.flush();
+        assertThat(sent.size(), is(2));
+        assertThat(sent.contains(start), is(true));
+        assertThat(sent.contains(other), is(true));
+        assertThat(coalescer.getSupersededCount(), is(1L));
+    }
+
+    @Test
+    public void terminalEventIsSentImmediatelyAndSupersedesHeldEvent() {
+        final ContainerEventCoalescer coalescer = new ContainerEventCoalescer(sent::add, LONG_WINDOW);
+        final DockerContainerEvent start = event("abc", "start");
+        final DockerContainerEvent die = event("abc", "die");
+        coalescer.offer(start);
+        coalescer.offer(die);
+
+        assertThat(sent, contains((ContainerEvent) die));
+
+        // Nothing held for this container may be sent after its terminal event
+        coalescer.flush();
+        assertThat(sent, contains((ContainerEvent) die));
+    }
+
+    @Test
+    public void heldEventIsReleasedAfterWindow() throws Exception {
+        final ContainerEventCoalescer coalescer = new ContainerEventCoalescer(sent::add, 10L);
+        final DockerContainerEvent start = event("abc", "start");
+        coalescer.offer(start);
+
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (sent.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(sent, contains((ContainerEvent) start));
+        coalescer.shutdown();
+    }
+
+    private static DockerContainerEvent event(final String containerId, final String status) {
+        return DockerContainerEvent.create(status, containerId, new Date(), System.nanoTime(), null);
+    }
+}
@@ -0,0 +1,51 @@
+package org.nrg.containers.jms.tasks;
+
+import org.junit.Test;
+import org.nrg.containers.jms.tasks.QueueConcurrencyAutoscaler.Sizing;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class QueueConcurrencyAutoscalerTest {
+    @Test
+    public void emptyQueueScalesToMin() {
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(2, 20, 20, 0, 1000, 60, 2);
+        assertThat(sizing.concurrentConsumers, is(2));
+        assertThat(sizing.maxConcurrentConsumers, is(20));
+    }
+
+    @Test
+    public void backlogScalesToDrainTime() {
+        // 120 messages * 5 s each = 600 s of work; drain within 60 s needs 10 consumers
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(2, 20, 20, 120, 5000, 60, 2);
+        assertThat(sizing.concurrentConsumers, is(10));
+    }
+
+    @Test
+    public void unknownProcessingTimeUsesOneConsumerPerMessage() {
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(2, 20, 20, 7, 0, 60, 2);
+        assertThat(sizing.concurrentConsumers, is(7));
+    }
+
+    @Test
+    public void neverExceedsMax() {
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(2, 20, 20, 10000, 5000, 60, 2);
+        assertThat(sizing.concurrentConsumers, is(20));
+        assertThat(sizing.maxConcurrentConsumers, is(20));
+    }
+
+    @Test
+    public void ceilingCapsBelowMin() {
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(10, 20, 4, 10000, 5000, 60, 4);
+        assertThat(sizing.concurrentConsumers, is(4));
+        assertThat(sizing.maxConcurrentConsumers, is(4));
+    }
+
+    @Test
+    public void maxIsNotLoweredBelowScheduledConsumers() {
+        // Ceiling dropped to 4 but 12 consumers are still running; they must be allowed to go idle on their own
+        final Sizing sizing = QueueConcurrencyAutoscaler.size(2, 20, 4, 10000, 5000, 60, 12);
+        assertThat(sizing.concurrentConsumers, is(4));
+        assertThat(sizing.maxConcurrentConsumers, is(12));
+    }
+}
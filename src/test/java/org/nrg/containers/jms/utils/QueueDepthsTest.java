@@ -0,0 +1,52 @@
+package org.nrg.containers.jms.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jms.core.JmsTemplate;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class QueueDepthsTest {
+    private static final String QUEUE = "queueDepthsTestQueue";
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName name;
+
+    public interface FakeQueueMBean {
+        long getQueueSize();
+    }
+
+    public static class FakeQueue implements FakeQueueMBean {
+        @Override
+        public long getQueueSize() {
+            return 42L;
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        name = new ObjectName("org.apache.activemq:type=Broker,brokerName=localhost,destinationType=Queue,destinationName=" + QUEUE);
+        mBeanServer.registerMBean(new FakeQueue(), name);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mBeanServer.unregisterMBean(name);
+    }
+
+    @Test
+    public void testDepthIsReadFromTheEmbeddedBroker() {
+        final JmsTemplate jmsTemplate = mock(JmsTemplate.class);
+
+        assertThat(new QueueDepths(jmsTemplate).depth(QUEUE), is(42));
+        verifyZeroInteractions(jmsTemplate);
+    }
+}
@@ -19,6 +19,7 @@ import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.command.auto.Command.CommandWrapperDerivedInput;
 import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
 import org.nrg.containers.model.command.auto.Command.CommandWrapperOutput;
+import org.nrg.containers.model.command.entity.CommandDocumentEntity;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandInputEntity;
 import org.nrg.containers.model.command.entity.CommandMountEntity;
@@ -31,6 +32,7 @@ import org.nrg.containers.model.command.entity.DockerCommandEntity;
 import org.nrg.containers.secrets.EnvironmentVariableSecretDestination;
 import org.nrg.containers.secrets.Secret;
 import org.nrg.containers.secrets.SystemPropertySecretSource;
+import org.nrg.containers.services.CommandDocumentService;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.utils.TestingUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -67,6 +69,7 @@ public class CommandEntityTest {
 
     @Autowired private ObjectMapper mapper;
     @Autowired private CommandEntityService commandEntityService;
+    @Autowired private CommandDocumentService commandDocumentService;
 
     @Rule public ExpectedException expectedException = ExpectedException.none();
 
@@ -240,6 +243,84 @@ public class CommandEntityTest {
         assertThat(commandEntityService.retrieve(created.getId()), is(nullValue()));
     }
 
+    @Test
+    @DirtiesContext
+    public void testCommandDocumentIsWrittenOnSave() throws Exception {
+        final CommandEntity created = commandEntityService.create(COMMAND_ENTITY);
+
+        TestingUtils.commitTransaction();
+
+        assertThat(commandDocumentService.retrieveCommand(created.getId()), is(Command.create(created)));
+        assertThat(commandDocumentService.getAllCommands(), contains(Command.create(created)));
+
+        final String newDescription = "A description that only the newest document has";
+        created.getCommandWrapperEntities().get(0).setDescription(newDescription);
+        commandEntityService.update(created);
+
+        TestingUtils.commitTransaction();
+
+        final Command retrieved = commandDocumentService.retrieveCommand(created.getId());
+        assertThat(retrieved, is(Command.create(commandEntityService.get(created.getId()))));
+        assertThat(retrieved.xnatCommandWrappers().get(0).description(), is(newDescription));
+
+        final List<CommandDocumentEntity> documents = commandDocumentService.getAll();
+        assertThat(documents, hasSize(2));
+        assertThat(documents.stream().map(CommandDocumentEntity::getVersion).collect(Collectors.toSet()),
+                containsInAnyOrder(1L, 2L));
+
+        commandEntityService.delete(created);
+
+        TestingUtils.commitTransaction();
+
+        assertThat(commandDocumentService.retrieveCommand(created.getId()), is(nullValue()));
+        assertThat(commandDocumentService.getAllCommands(), is(Matchers.<Command>empty()));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testMissingCommandDocumentIsWrittenAtStartupNotOnRead() throws Exception {
+        final CommandEntity created = commandEntityService.create(COMMAND_ENTITY);
+        commandDocumentService.deleteForCommand(created.getId());
+
+        TestingUtils.commitTransaction();
+
+        assertThat(commandDocumentService.retrieveCommand(created.getId()), is(Command.create(created)));
+        assertThat(commandDocumentService.getAllCommands(), contains(Command.create(created)));
+        final List<CommandDocumentEntity> beforeStartup = commandDocumentService.getAll();
+        assertThat(beforeStartup == null || beforeStartup.isEmpty(), is(true));
+
+        assertThat(commandDocumentService.refreshDocuments(), contains(created.getId()));
+
+        TestingUtils.commitTransaction();
+
+        final List<CommandDocumentEntity> documents = commandDocumentService.getAll();
+        assertThat(documents, hasSize(1));
+        assertThat(documents.get(0).getCommandId(), is(created.getId()));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testStaleCommandDocumentIsRewrittenAtStartup() throws Exception {
+        final CommandEntity created = commandEntityService.create(COMMAND_ENTITY);
+        final Command fromTables = Command.create(created);
+
+        // A document that no longer matches the command tables
+        commandDocumentService.save(fromTables.toBuilder().description("A description the tables do not have").build());
+
+        TestingUtils.commitTransaction();
+
+        assertThat(commandDocumentService.retrieveCommand(created.getId()), is(not(fromTables)));
+
+        assertThat(commandDocumentService.refreshDocuments(), contains(created.getId()));
+
+        TestingUtils.commitTransaction();
+
+        assertThat(commandDocumentService.retrieveCommand(created.getId()), is(fromTables));
+
+        // Nothing to do once the document matches
+        assertThat(commandDocumentService.refreshDocuments(), is(Matchers.<Long>empty()));
+    }
+
     @Test
     @DirtiesContext
     public void testRetrieveCommandWrapper() {
@@ -9,16 +9,20 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.nrg.containers.config.ContainerEntityTestConfig;
+import org.nrg.containers.daos.ContainerEntityRepository;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedInputTreeNode;
 import org.nrg.containers.model.command.auto.ResolvedInputValue;
 import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.container.auto.ContainerSummary;
+import org.nrg.containers.model.container.auto.ContainerSummaryRequest;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.secrets.EnvironmentVariableSecretDestination;
 import org.nrg.containers.secrets.ResolvedSecret;
 import org.nrg.containers.secrets.Secret;
 import org.nrg.containers.secrets.SystemPropertySecretSource;
+import org.nrg.containers.services.ContainerArchiveService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xft.security.UserI;
@@ -29,9 +33,15 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
@@ -47,6 +57,8 @@ import static org.mockito.Mockito.when;
 public class ContainerEntityTest {
 
     @Autowired private ContainerEntityService containerEntityService;
+    @Autowired private ContainerArchiveService containerArchiveService;
+    @Autowired private ContainerEntityRepository containerEntityRepository;
 
     @Rule public ExpectedException expectedException = ExpectedException.none();
 
@@ -202,4 +214,156 @@ public class ContainerEntityTest {
         expectedException.expect(notFoundMatcher);
         containerEntityService.get(null);
     }
+
+    @Test
+    @DirtiesContext
+    public void testGetSummaries() throws Exception {
+        final Set<Long> createdIds = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            final ContainerEntity created = containerEntityService.create(ContainerEntity.fromPojo(Container.builder()
+                    .commandId(10L)
+                    .wrapperId(i % 2 == 0 ? 100L : 200L)
+                    .containerId("container" + i)
+                    .userId(i % 2 == 0 ? "even" : "odd")
+                    .project("project")
+                    .dockerImage("whale")
+                    .commandLine("exit 0")
+                    .status(i == 0 ? "Complete" : "Running")
+                    .build()));
+            createdIds.add(created.getId());
+        }
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+
+        // Page through everything two at a time. Status updates while we page through move no rows between pages.
+        final Set<Long> seenIds = new HashSet<>();
+        String after = null;
+        int pages = 0;
+        do {
+            final List<ContainerSummary> page = containerEntityService.getSummaries(
+                    ContainerSummaryRequest.builder().limit(2).after(after).build());
+            final List<ContainerSummary> rows = page.size() > 2 ? page.subList(0, 2) : page;
+            for (final ContainerSummary summary : rows) {
+                assertThat(seenIds.add(summary.databaseId()), is(true));
+            }
+            after = page.size() > 2 ? ContainerSummaryRequest.cursor(rows.get(1)) : null;
+            pages++;
+
+            for (final long id : createdIds) {
+                containerEntityRepository.updateStatusIfNewer(id, "Running", new Date(System.currentTimeMillis() + pages * 1000L));
+            }
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            TestTransaction.start();
+        } while (after != null);
+        assertThat(pages, is(3));
+        assertThat(seenIds, is(createdIds));
+
+        final List<ContainerSummary> evenRunning = containerEntityService.getSummaries(ContainerSummaryRequest.builder()
+                .project("project")
+                .userId("even")
+                .wrapperId(100L)
+                .statuses(Collections.singletonList("Running"))
+                .build());
+        assertThat(evenRunning, hasSize(2));
+
+        final List<ContainerSummary> nonfinalized = containerEntityService.getSummaries(ContainerSummaryRequest.builder()
+                .nonfinalized(true)
+                .build());
+        assertThat(nonfinalized, hasSize(4));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testArchive() throws Exception {
+        final UserI mockAdmin = Mockito.mock(UserI.class);
+        when(mockAdmin.getLogin()).thenReturn("admin");
+        final ContainerEntity created = containerEntityService.save(ContainerEntity.fromPojo(Container.builder()
+                .commandId(10L)
+                .wrapperId(100L)
+                .containerId("archive-me")
+                .userId(mockAdmin.getLogin())
+                .dockerImage("whale")
+                .commandLine("exit 0")
+                .environmentVariables(Collections.singletonMap("FOO", "bar"))
+                .status("Complete")
+                .build()), mockAdmin);
+        final long id = created.getId();
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+
+        final Container beforeArchive = Container.create(containerEntityService.get(id));
+        assertThat(containerArchiveService.findContainersToArchive(new Date(System.currentTimeMillis() + 60000L), 10),
+                hasItem(id));
+        assertThat(containerArchiveService.archive(id), is(true));
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+
+        final ContainerEntity summary = containerEntityService.get(id);
+        assertThat(summary.getStatus(), is("Complete"));
+        assertThat(summary.getHistory(), hasSize(0));
+        assertThat(summary.getEnvironmentVariables().isEmpty(), is(true));
+        assertThat(containerArchiveService.findContainersToArchive(new Date(System.currentTimeMillis() + 60000L), 10),
+                not(hasItem(id)));
+
+        final Container archived = containerArchiveService.retrieveArchived(id);
+        assertThat(archived, not(nullValue()));
+        assertThat(archived.databaseId(), is(id));
+        assertThat(archived.history(), hasSize(beforeArchive.history().size()));
+        assertThat(archived.environmentVariables(), is(beforeArchive.environmentVariables()));
+
+        // Lists read the archive in one go, and leave out containers that were never archived
+        final Map<Long, Container> archivedById = containerArchiveService.retrieveArchived(Arrays.asList(id, id + 1));
+        assertThat(archivedById.keySet(), contains(id));
+        assertThat(archivedById.get(id).history(), hasSize(beforeArchive.history().size()));
+
+        // Archiving again is a no-op
+        assertThat(containerArchiveService.archive(id), is(false));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testUpdateStatusIfNewer() throws Exception {
+        final Date statusTime = new Date(System.currentTimeMillis() - 60000L);
+        final long running = createWithStatus("running", "Running", statusTime);
+        final long complete = createWithStatus("complete", "Complete", statusTime);
+        final long failed = createWithStatus("failed", "Failed (Rejected)", statusTime);
+        final long killed = createWithStatus("killed", "Killed", statusTime);
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+
+        final Date later = new Date(statusTime.getTime() + 1000L);
+
+        // A late non-terminal status does not overwrite a terminal one
+        assertThat(containerEntityRepository.updateStatusIfNewer(complete, "Running", later), is(0));
+        assertThat(containerEntityRepository.updateStatusIfNewer(failed, "Running", later), is(0));
+        assertThat(containerEntityRepository.updateStatusIfNewer(killed, "Running", later), is(0));
+
+        // An older status does not overwrite a newer one
+        assertThat(containerEntityRepository.updateStatusIfNewer(running, "Complete", new Date(statusTime.getTime() - 1000L)), is(0));
+
+        assertThat(containerEntityRepository.updateStatusIfNewer(running, "Finalizing", later), is(1));
+        assertThat(containerEntityRepository.updateStatusIfNewer(complete, "Failed", later), is(1));
+    }
+
+    private long createWithStatus(final String containerId, final String status, final Date statusTime) {
+        return containerEntityService.create(ContainerEntity.fromPojo(Container.builder()
+                .commandId(10L)
+                .wrapperId(100L)
+                .containerId(containerId)
+                .userId("admin")
+                .dockerImage("whale")
+                .commandLine("exit 0")
+                .status(status)
+                .statusTime(statusTime)
+                .build())).getId();
+    }
 }
@@ -1,11 +1,14 @@
 package org.nrg.containers.services;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.nrg.containers.config.CommandLabelServiceTestConfig;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.services.impl.CommandLabelServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -16,6 +19,10 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = CommandLabelServiceTestConfig.class)
@@ -43,4 +50,34 @@ public class CommandLabelServiceTest {
         assertThat(commandsFromLabels, hasSize(1));
         assertThat(commandsFromLabels.get(0).name(), is(commandName));
     }
+
+    @Test
+    public void testParsedLabelsAreSharedBetweenImages() throws Exception {
+        final Command command = Command.builder()
+                .name("command")
+                .build();
+        final String dockerImageLabel = objectMapper.writeValueAsString(Collections.singletonList(command));
+        final DockerImage first = DockerImage.builder()
+                .imageId("first id")
+                .addLabel(CommandLabelService.LABEL_KEY, dockerImageLabel)
+                .build();
+        final DockerImage second = DockerImage.builder()
+                .imageId("second id")
+                .addLabel(CommandLabelService.LABEL_KEY, dockerImageLabel)
+                .build();
+
+        // The label is parsed once, for the first image, and the second image gets the same parsed commands
+        final ObjectMapper countingMapper = Mockito.spy(objectMapper);
+        final CommandLabelService memoizing = new CommandLabelServiceImpl(countingMapper);
+        final List<Command> fromFirst = memoizing.parseLabels("first:1", first);
+        final List<Command> fromSecond = memoizing.parseLabels("second:1", second);
+        verify(countingMapper, times(1)).readValue(eq(dockerImageLabel), any(TypeReference.class));
+
+        assertThat(fromFirst, hasSize(1));
+        assertThat(fromSecond, hasSize(1));
+        assertThat(fromFirst.get(0).image(), is("first:1"));
+        assertThat(fromFirst.get(0).hash(), is("first id"));
+        assertThat(fromSecond.get(0).image(), is("second:1"));
+        assertThat(fromSecond.get(0).hash(), is("second id"));
+    }
 }
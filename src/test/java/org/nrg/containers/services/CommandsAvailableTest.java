@@ -11,8 +11,10 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.CommandAvailabilityForProjects;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.model.command.entity.CommandEntity;
+import org.nrg.containers.services.impl.CommandCatalog;
 import org.nrg.containers.services.impl.CommandServiceImpl;
 import org.nrg.xdat.om.XnatProjectdata;
 import org.nrg.xdat.security.helpers.Permissions;
@@ -22,6 +24,7 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -54,6 +57,7 @@ public class CommandsAvailableTest {
     };
 
     @Mock private CommandEntityService commandEntityService;
+    @Mock private CommandDocumentService commandDocumentService;
     @Mock private ContainerConfigService containerConfigService;
 
     @Mock private UserI admin;
@@ -69,7 +73,8 @@ public class CommandsAvailableTest {
         Mockito.when(collaborator.getLogin()).thenReturn("collab");
         Mockito.when(collaborator.getUsername()).thenReturn("collab");
 
-        commandService = new CommandServiceImpl(commandEntityService, containerConfigService);
+        commandService = new CommandServiceImpl(commandEntityService, containerConfigService,
+                new CommandCatalog(commandDocumentService), commandDocumentService);
     }
 
     @Test
@@ -113,7 +118,7 @@ public class CommandsAvailableTest {
                 .build();
 
         // Mock the call to get the commands
-        Mockito.when(commandEntityService.getAll()).thenReturn(Collections.singletonList(CommandEntity.fromPojo(command)));
+        Mockito.when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(command));
 
         // Mock the call to get the enabled/disabled status
         Mockito.when(containerConfigService.isEnabled(eq(project), any(Long.class))).thenReturn(true);
@@ -195,7 +200,7 @@ public class CommandsAvailableTest {
                 .build();
 
         // Mock the call to get the commands
-        Mockito.when(commandEntityService.getAll()).thenReturn(Collections.singletonList(CommandEntity.fromPojo(command)));
+        Mockito.when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(command));
 
         // Mock the call to get the enabled/disabled status
         Mockito.when(containerConfigService.isEnabled(eq(project), any(Long.class))).thenReturn(true);
@@ -233,4 +238,181 @@ public class CommandsAvailableTest {
         assertThat(actualForCollaborator, equalTo(Collections.singletonList(readWrapperSummary)));
 
     }
+
+    @Test
+    public void testCatalogIsReusedAndUpdated() throws Exception {
+        final String xsiType = UUID.randomUUID().toString();
+        final String externalInputName = "input";
+        final Command.CommandWrapper wrapper = Command.CommandWrapper.builder()
+                .id(10L)
+                .name("wrapper")
+                .contexts(Collections.singleton(xsiType))
+                .addExternalInput(Command.CommandWrapperExternalInput.builder().name(externalInputName).type("string").build())
+                .build();
+        final Command command = Command.builder()
+                .id(1L)
+                .name("the-command")
+                .type("docker")
+                .image("whatever:latest")
+                .addCommandWrapper(wrapper)
+                .build();
+        final Command.CommandWrapper otherWrapper = wrapper.toBuilder()
+                .id(20L)
+                .name("other-wrapper")
+                .build();
+        final Command otherCommand = command.toBuilder()
+                .id(2L)
+                .name("other-command")
+                .xnatCommandWrappers(Collections.singletonList(otherWrapper))
+                .build();
+
+        Mockito.when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(command));
+        Mockito.when(commandEntityService.create(any(CommandEntity.class))).thenReturn(CommandEntity.fromPojo(otherCommand));
+        Mockito.when(commandEntityService.retrieve(2L)).thenReturn(CommandEntity.fromPojo(otherCommand));
+        Mockito.when(commandDocumentService.retrieveCommand(2L)).thenReturn(otherCommand);
+        Mockito.when(containerConfigService.isEnabledForSite(any(Long.class))).thenReturn(true);
+
+        final CommandSummaryForContext summary = CommandSummaryForContext.create(command, wrapper, true, externalInputName);
+        final CommandSummaryForContext otherSummary = CommandSummaryForContext.create(otherCommand, otherWrapper, true, externalInputName);
+
+        assertThat(commandService.available(xsiType, admin), equalTo(Collections.singletonList(summary)));
+        assertThat(commandService.available(xsiType, admin), equalTo(Collections.singletonList(summary)));
+        Mockito.verify(commandDocumentService, Mockito.times(1)).getAllCommands();
+
+        // Creating a command reloads only that command
+        commandService.create(otherCommand);
+        assertThat(commandService.available(xsiType, admin), equalTo(Arrays.asList(summary, otherSummary)));
+
+        // Deleting it removes it without going back to the database
+        Mockito.when(commandEntityService.retrieve(2L)).thenReturn(null);
+        Mockito.when(commandDocumentService.retrieveCommand(2L)).thenReturn(null);
+        commandService.delete(otherCommand);
+        assertThat(commandService.available(xsiType, admin), equalTo(Collections.singletonList(summary)));
+        Mockito.verify(commandDocumentService, Mockito.times(1)).getAllCommands();
+    }
+
+    @Test
+    public void testPermissionDecisionsAreCached() throws Exception {
+        final String xsiType = UUID.randomUUID().toString();
+        final String cachedProject = UUID.randomUUID().toString();
+        final String externalInputName = "input";
+        final Command.CommandWrapper first = Command.CommandWrapper.builder()
+                .id(1L)
+                .name("first")
+                .contexts(Collections.singleton(xsiType))
+                .addExternalInput(Command.CommandWrapperExternalInput.builder().name(externalInputName).type("string").build())
+                .build();
+        final Command.CommandWrapper second = first.toBuilder().id(2L).name("second").build();
+        final Command command = Command.builder()
+                .name("the-command")
+                .type("docker")
+                .image("whatever")
+                .addCommandWrapper(first)
+                .addCommandWrapper(second)
+                .build();
+
+        Mockito.when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(command));
+        Mockito.when(containerConfigService.isEnabled(eq(cachedProject), any(Long.class))).thenReturn(true);
+
+        mockStatic(GenericWrapperElement.class);
+        PowerMockito.when(GenericWrapperElement.GetElement(any(String.class)))
+                .thenAnswer(invocation -> {
+                    GenericWrapperElement gwe = Mockito.mock(GenericWrapperElement.class);
+                    Mockito.when(gwe.getXSIType()).thenReturn(invocation.getArgumentAt(0, String.class));
+                    return gwe;
+                });
+
+        mockStatic(Permissions.class);
+        PowerMockito.when(Permissions.can(admin, PROJECT_READ_XML_PATH, cachedProject, READ)).thenReturn(true);
+        PowerMockito.when(Permissions.can(admin, xsiType + "/project", cachedProject, READ)).thenReturn(true);
+
+        // Two wrappers need the same permission, and we ask twice
+        assertThat(commandService.available(cachedProject, xsiType, admin).size(), equalTo(2));
+        assertThat(commandService.available(cachedProject, xsiType, admin).size(), equalTo(2));
+
+        PowerMockito.verifyStatic(Mockito.times(1));
+        Permissions.can(admin, xsiType + "/project", cachedProject, READ);
+        PowerMockito.verifyStatic(Mockito.times(1));
+        Permissions.can(admin, PROJECT_READ_XML_PATH, cachedProject, READ);
+    }
+
+    @Test
+    public void testAvailabilityAcrossProjects() throws Exception {
+        final String xsiType = UUID.randomUUID().toString();
+        final String first = UUID.randomUUID().toString();
+        final String second = UUID.randomUUID().toString();
+        final String unreadable = UUID.randomUUID().toString();
+        final String externalInputName = "input";
+        final String outputName = "output";
+        final Command.CommandWrapper wrapperRequiresRead = Command.CommandWrapper.builder()
+                .id(1L)
+                .name("requires read")
+                .contexts(Collections.singleton(xsiType))
+                .addExternalInput(Command.CommandWrapperExternalInput.builder().name(externalInputName).type("string").build())
+                .build();
+        final Command.CommandWrapper wrapperRequiresEdit = Command.CommandWrapper.builder()
+                .id(2L)
+                .name("requires edit")
+                .contexts(Collections.singleton(xsiType))
+                .addExternalInput(Command.CommandWrapperExternalInput.builder().name(externalInputName).type("string").build())
+                .addOutputHandler(
+                        Command.CommandWrapperOutput.builder()
+                                .name("output-handler")
+                                .targetName(externalInputName)
+                                .commandOutputName(outputName)
+                                .type("Resource")
+                                .build()
+                )
+                .build();
+        final Command command = Command.builder()
+                .name("the-command")
+                .type("docker")
+                .image("whatever")
+                .addMount(Command.CommandMount.create("name", true, "path"))
+                .addOutput(Command.CommandOutput.builder().name(outputName).mount("name").build())
+                .addCommandWrapper(wrapperRequiresRead)
+                .addCommandWrapper(wrapperRequiresEdit)
+                .build();
+
+        Mockito.when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(command));
+
+        // The edit wrapper is disabled in the second project
+        Mockito.when(containerConfigService.isEnabled(eq(first), any(Long.class))).thenReturn(true);
+        Mockito.when(containerConfigService.isEnabled(second, 1L)).thenReturn(true);
+        Mockito.when(containerConfigService.isEnabled(second, 2L)).thenReturn(false);
+
+        mockStatic(GenericWrapperElement.class);
+        PowerMockito.when(GenericWrapperElement.GetElement(any(String.class)))
+                .thenAnswer(invocation -> {
+                    GenericWrapperElement gwe = Mockito.mock(GenericWrapperElement.class);
+                    Mockito.when(gwe.getXSIType()).thenReturn(invocation.getArgumentAt(0, String.class));
+                    return gwe;
+                });
+
+        // Collaborator can read and edit in the first project but only read in the second
+        mockStatic(Permissions.class);
+        for (final String readableProject : Arrays.asList(first, second)) {
+            PowerMockito.when(Permissions.can(collaborator, PROJECT_READ_XML_PATH, readableProject, READ)).thenReturn(true);
+            PowerMockito.when(Permissions.can(collaborator, xsiType + "/project", readableProject, READ)).thenReturn(true);
+        }
+        PowerMockito.when(Permissions.can(collaborator, xsiType + "/project", first, EDIT)).thenReturn(true);
+        PowerMockito.when(Permissions.can(collaborator, xsiType + "/project", second, EDIT)).thenReturn(false);
+
+        final CommandAvailabilityForProjects both =
+                commandService.availableInProjects(Arrays.asList(first, " " + second + " ", first), xsiType, collaborator);
+        assertThat(both.projects(), equalTo(Arrays.asList(first, second)));
+        assertThat(both.available(), equalTo(Collections.singletonList(
+                CommandSummaryForContext.create(command, wrapperRequiresRead, true, externalInputName))));
+        assertThat(both.reasons().keySet(), equalTo(Collections.singleton(second)));
+        assertThat(both.reasons().get(second).get(2L), equalTo("User cannot edit " + xsiType));
+
+        final CommandAvailabilityForProjects withUnreadable =
+                commandService.availableInProjects(Arrays.asList(first, unreadable), xsiType, collaborator);
+        assertThat(withUnreadable.available(), equalTo(Collections.<CommandSummaryForContext>emptyList()));
+        assertThat(withUnreadable.reasons().get(unreadable).keySet(), containsInAnyOrder(1L, 2L));
+
+        // Both wrappers need to read the context; that is checked once per project
+        PowerMockito.verifyStatic(Mockito.times(1));
+        Permissions.can(collaborator, xsiType + "/project", first, READ);
+    }
 }
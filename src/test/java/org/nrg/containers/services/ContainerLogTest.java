@@ -85,6 +85,8 @@ public class ContainerLogTest {
         @Mock public OrchestrationService orchestrationService;
         @Mock public NrgEventServiceI eventService;
         @Mock public ThreadPoolExecutorFactoryBean executorFactoryBean;
+        @Mock public ContainerArchiveService containerArchiveService;
+        @Mock public DockerService dockerService;
 
         public final ObjectMapper mapper = new ObjectMapper();
 
@@ -104,7 +106,9 @@ public class ContainerLogTest {
                     orchestrationService,
                     eventService,
                     mapper,
-                    executorFactoryBean);
+                    executorFactoryBean,
+                    containerArchiveService,
+                    dockerService);
         }
     }
 
@@ -183,17 +187,15 @@ public class ContainerLogTest {
             final String timestamp1 = formatter.format(dt1);
             final String timestamp2 = formatter.format(dt2);
             final String timestamp3 = formatter.format(dt3);
-            final OffsetDateTime shifted2 = dt2.plus(1L, ChronoUnit.SECONDS);
-            final OffsetDateTime shifted3 = dt3.plus(1L, ChronoUnit.SECONDS);
-            final String expectedTimestamp2 = ContainerServiceImpl.formatTimestamp(shifted2);
-            final String expectedTimestamp3 = ContainerServiceImpl.formatTimestamp(shifted3);
+            final String expectedTimestamp2 = ContainerServiceImpl.formatTimestamp(dt2);
+            final String expectedTimestamp3 = ContainerServiceImpl.formatTimestamp(dt3);
             final String message1 = "Message " + RandomStringUtils.randomAscii(logLineNumChars);
             final String message2 = "It's a log message " + RandomStringUtils.randomAscii(logLineNumChars);
             final String message3 = "Here comes your log message " + RandomStringUtils.randomAscii(logLineNumChars);
 
             when(containerControlApi.getLog(eq(container), eq(logType), eq(appendTimestamps), any()))
                     .thenReturn(timestamp1 + " " + message1 + "\n" + timestamp2 + " " + message2)  // First response has two lines
-                    .thenReturn(timestamp3 + " " + message3);  // Second response has one line
+                    .thenReturn(timestamp2 + " " + message2 + "\n" + timestamp3 + " " + message3);  // Second response repeats the last line we saw, as the backends only take "since" in whole seconds
 
             final ContainerLogPollResponse expected1 = ContainerLogPollResponse.fromLive(message1 + "\n" + message2, expectedTimestamp2);
             final ContainerLogPollResponse expected2 = ContainerLogPollResponse.fromLive(message3, expectedTimestamp3);
@@ -67,4 +67,47 @@ public class ContainerStatusUpdateTest {
         assertThat(updatedContainerEntity.getStatus(), is(completeStateString));
     }
 
+    @Test
+    public void testStatusOnlyUpdateReturnsStoredStatusWhenNotApplied() {
+        long containerId = 8888;
+        String completeStateString = ContainerUtils.TerminalState.COMPLETE.value;
+        ContainerEntityHistory historyEntryEntity = ContainerEntityHistory.fromPojo(
+                Container.ContainerHistory.builder().status("Running").entityType("").timeRecorded(new Date()).build());
+
+        HibernateContainerEntityServiceMock containerEntityService = Mockito.mock(HibernateContainerEntityServiceMock.class);
+        Mockito.when(containerEntityService.addContainerHistoryItemAndUpdateStatus(containerId, historyEntryEntity, user)).thenCallRealMethod();
+        Mockito.when(containerEntityService.getDao()).thenReturn(containerEntityRepository);
+        Mockito.when(containerEntityRepository.retrieveStatusFields(containerId))
+                .thenReturn(statusFields(completeStateString));
+        Mockito.when(containerEntityRepository.updateStatusIfNewer(containerId, "Running", historyEntryEntity.getTimeRecorded()))
+                .thenReturn(0);
+
+        final String status = containerEntityService.addContainerHistoryItemAndUpdateStatus(containerId, historyEntryEntity, user);
+
+        Mockito.verify(containerEntityRepository).addHistoryItem(containerId, historyEntryEntity);
+        Mockito.verify(containerEntityService, Mockito.never()).retrieve(containerId);
+        assertThat(status, is(completeStateString));
+    }
+
+    @Test
+    public void testStatusOnlyUpdateSkipsRecordedHistoryItem() {
+        long containerId = 8888;
+        ContainerEntityHistory historyEntryEntity = ContainerEntityHistory.fromPojo(
+                Container.ContainerHistory.builder().status("Running").entityType("").timeRecorded(new Date()).build());
+
+        HibernateContainerEntityServiceMock containerEntityService = Mockito.mock(HibernateContainerEntityServiceMock.class);
+        Mockito.when(containerEntityService.addContainerHistoryItemAndUpdateStatus(containerId, historyEntryEntity, user)).thenCallRealMethod();
+        Mockito.when(containerEntityService.getDao()).thenReturn(containerEntityRepository);
+        Mockito.when(containerEntityRepository.retrieveStatusFields(containerId)).thenReturn(statusFields("Running"));
+        Mockito.when(containerEntityRepository.isHistoryItemRecorded(containerId, historyEntryEntity)).thenReturn(true);
+
+        assertThat(containerEntityService.addContainerHistoryItemAndUpdateStatus(containerId, historyEntryEntity, user) == null, is(true));
+        Mockito.verify(containerEntityRepository, Mockito.never()).addHistoryItem(containerId, historyEntryEntity);
+    }
+
+    private static ContainerEntityRepository.StatusFields statusFields(final String status) {
+        final ContainerEntityRepository.StatusFields statusFields = Mockito.mock(ContainerEntityRepository.StatusFields.class);
+        Mockito.when(statusFields.getStatus()).thenReturn(status);
+        return statusFields;
+    }
 }
@@ -0,0 +1,125 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.services.impl.ImagePullManager;
+import org.nrg.containers.services.impl.ImageSummaryIndex;
+import org.nrg.framework.exceptions.NotFoundException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImagePullManagerTest {
+    private static final String IMAGE = "xnat/image";
+
+    private final DockerImage image = DockerImage.builder().imageId("sha256:abc").addTag(IMAGE + ":latest").build();
+
+    private ContainerControlApi controlApi;
+    private ImageSummaryIndex imageSummaryIndex;
+    private ImagePullManager imagePullManager;
+
+    @Before
+    public void setup() {
+        controlApi = Mockito.mock(ContainerControlApi.class);
+        imageSummaryIndex = Mockito.mock(ImageSummaryIndex.class);
+        imagePullManager = new ImagePullManager(controlApi, imageSummaryIndex);
+    }
+
+    @Test
+    public void testConcurrentPullsOfOneImageAreJoined() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(controlApi.pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return image;
+        });
+
+        final CompletableFuture<DockerImage> first = imagePullManager.pull(IMAGE, null, null, null, null, null);
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        final CompletableFuture<DockerImage> second = imagePullManager.pull(IMAGE + ":latest", null, null, null, null, null);
+        assertThat(second, is(sameInstance(first)));
+        assertThat(imagePullManager.getStatus(IMAGE).status(), is(ImagePullStatus.PULLING));
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS), is(image));
+        verify(controlApi, times(1)).pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any());
+        verify(imageSummaryIndex, times(1)).imagesChanged();
+        assertThat(imagePullManager.getStatus(IMAGE).status(), is(ImagePullStatus.COMPLETE));
+    }
+
+    @Test
+    public void testPullsWithOtherCredentialsAreNotJoined() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(controlApi.pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            if (invocation.getArguments()[2] == null) {
+                throw new NotFoundException("pull access denied");
+            }
+            return image;
+        });
+
+        // An anonymous pull is running when a user asks for the same image with their credentials
+        final CompletableFuture<DockerImage> anonymous = imagePullManager.pull(IMAGE, null, null, null, null, null);
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        final CompletableFuture<DockerImage> withCredentials = imagePullManager.pull(IMAGE, null, "user", "secret", null, null);
+        assertThat(withCredentials, is(not(sameInstance(anonymous))));
+
+        release.countDown();
+        assertThat(withCredentials.get(10, TimeUnit.SECONDS), is(image));
+        try {
+            anonymous.get(10, TimeUnit.SECONDS);
+            fail("Expected the anonymous pull to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NotFoundException.class)));
+        }
+        verify(controlApi, times(2)).pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testServerErrorsAreRetried() throws Exception {
+        when(controlApi.pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new DockerServerException("try again"))
+                .thenReturn(image);
+
+        assertThat(imagePullManager.pullAndWait(IMAGE, null, null, null, null, null), is(image));
+        verify(controlApi, times(2)).pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any());
+        assertThat(imagePullManager.getStatus(IMAGE).attempt(), is(2));
+    }
+
+    @Test
+    public void testMissingImagesAreNotRetried() throws Exception {
+        when(controlApi.pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new NotFoundException("no such image"));
+
+        try {
+            imagePullManager.pull(IMAGE, null, null, null, null, null).get(10, TimeUnit.SECONDS);
+            fail("Expected the pull to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NotFoundException.class)));
+        }
+        verify(controlApi, times(1)).pullImage(eq(IMAGE), any(), any(), any(), any(), any(), any());
+        assertThat(imagePullManager.getStatus(IMAGE).status(), is(ImagePullStatus.FAILED));
+    }
+}
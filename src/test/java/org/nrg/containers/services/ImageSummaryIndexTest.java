@@ -0,0 +1,185 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.DockerImageEvent;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.nrg.containers.services.impl.ImageSummaryIndex;
+import org.nrg.framework.exceptions.NotFoundException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImageSummaryIndexTest {
+    private static final String SERVER = "server";
+
+    private ContainerControlApi controlApi;
+    private CommandLabelService commandLabelService;
+    private ImageSummaryIndex index;
+    private long now;
+
+    private final DockerImage image = DockerImage.builder()
+            .imageId("sha256:abc")
+            .addTag("xnat/image:1.0")
+            .build();
+    private final Command labelCommand = Command.builder()
+            .name("the-command")
+            .type("docker")
+            .image("xnat/image:1.0")
+            .build();
+    private final Command savedCommand = Command.builder()
+            .id(1L)
+            .name("the-command")
+            .type("docker")
+            .image("xnat/image:1.0")
+            .build();
+
+    @Before
+    public void setup() throws Exception {
+        controlApi = Mockito.mock(ContainerControlApi.class);
+        commandLabelService = Mockito.mock(CommandLabelService.class);
+        final CommandDocumentService commandDocumentService = Mockito.mock(CommandDocumentService.class);
+
+        when(controlApi.getAllImages()).thenReturn(Collections.singletonList(image));
+        when(controlApi.getImageEvents(any(Date.class), any(Date.class))).thenReturn(Collections.<DockerImageEvent>emptyList());
+        when(commandLabelService.parseLabels(image)).thenReturn(Collections.singletonList(labelCommand));
+        when(commandDocumentService.getAllCommands()).thenReturn(Collections.singletonList(savedCommand));
+
+        index = new ImageSummaryIndex(controlApi, commandLabelService, new CommandCatalog(commandDocumentService), () -> now);
+    }
+
+    @Test
+    public void testSummariesAreReusedUntilImagesChange() throws Exception {
+        final List<DockerImageAndCommandSummary> first = index.getSummaries(SERVER);
+        assertThat(first, hasSize(1));
+        assertThat(first.get(0).imageId(), is("sha256:abc"));
+        assertThat(first.get(0).commands(), contains(savedCommand));
+
+        assertThat(index.getSummaries(SERVER), is(sameInstance(first)));
+        verify(controlApi, times(1)).getAllImages();
+        verify(controlApi, never()).getImageById(any(String.class));
+
+        when(controlApi.getImageEvents(any(Date.class), any(Date.class)))
+                .thenReturn(Collections.singletonList(DockerImageEvent.create("tag", "sha256:abc", new Date())));
+        index.getSummaries(SERVER);
+        verify(controlApi, times(2)).getAllImages();
+
+        // The image did not change, so its labels are not parsed again
+        verify(commandLabelService, times(1)).parseLabels(image);
+    }
+
+    @Test
+    public void testImagesChangedListsImagesAgain() throws Exception {
+        index.getSummaries(SERVER);
+
+        final DockerImage pulled = DockerImage.builder().imageId("sha256:def").addTag("xnat/other:1.0").build();
+        when(controlApi.getAllImages()).thenReturn(Arrays.asList(image, pulled));
+        index.imagesChanged();
+
+        assertThat(index.getSummaries(SERVER), hasSize(2));
+        verify(commandLabelService, times(1)).parseLabels(pulled);
+        verify(controlApi, never()).getImageEvents(any(Date.class), any(Date.class));
+    }
+
+    @Test
+    public void testFindImageIdByTagAndId() throws Exception {
+        assertThat(index.findImageId(SERVER, "xnat/image:1.0"), is("sha256:abc"));
+        assertThat(index.findImageId(SERVER, "sha256:abc"), is("sha256:abc"));
+        verify(controlApi, times(1)).getAllImages();
+        verify(controlApi, never()).getImageById(any(String.class));
+    }
+
+    @Test
+    public void testFindImageIdByDigestAsksDocker() throws Exception {
+        final String digest = "xnat/image@sha256:123";
+        when(controlApi.getImageById(digest)).thenReturn(image);
+
+        assertThat(index.findImageId(SERVER, digest), is("sha256:abc"));
+    }
+
+    @Test
+    public void testMissingImageIsLookedUpAgain() throws Exception {
+        when(controlApi.getImageById("xnat/other:1.0")).thenThrow(new NotFoundException("missing"));
+        assertThat(index.findImageId(SERVER, "xnat/other:1.0"), is(nullValue()));
+
+        final DockerImage pulled = DockerImage.builder().imageId("sha256:def").addTag("xnat/other:1.0").build();
+        doReturn(pulled).when(controlApi).getImageById("xnat/other:1.0");
+        assertThat(index.findImageId(SERVER, "xnat/other:1.0"), is("sha256:def"));
+    }
+
+    @Test
+    public void testFindReadsEventsOnlyAfterInterval() throws Exception {
+        index.findImageId(SERVER, "xnat/image:1.0");
+        now += ImageSummaryIndex.EVENT_CHECK_MILLIS - 1;
+        index.findImageId(SERVER, "xnat/image:1.0");
+        verify(controlApi, never()).getImageEvents(any(Date.class), any(Date.class));
+
+        now += 1;
+        index.findImageId(SERVER, "xnat/image:1.0");
+        verify(controlApi, times(1)).getImageEvents(any(Date.class), any(Date.class));
+        verify(controlApi, times(1)).getAllImages();
+    }
+
+    @Test
+    public void testFindDoesNotWaitForARefreshInProgress() throws Exception {
+        index.findImageId(SERVER, "xnat/image:1.0");
+
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(controlApi.getImageEvents(any(Date.class), any(Date.class))).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Collections.<DockerImageEvent>emptyList();
+        });
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<List<DockerImageAndCommandSummary>> summaries = executor.submit(() -> index.getSummaries(SERVER));
+            assertThat(reading.await(10, TimeUnit.SECONDS), is(true));
+
+            // The events are due, but another thread is reading them, so the lookup uses what we have
+            now += ImageSummaryIndex.EVENT_CHECK_MILLIS;
+            assertThat(index.findImageId(SERVER, "xnat/image:1.0"), is("sha256:abc"));
+            verify(controlApi, times(1)).getImageEvents(any(Date.class), any(Date.class));
+
+            release.countDown();
+            assertThat(summaries.get(10, TimeUnit.SECONDS), hasSize(1));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAnotherServerListsImagesAgain() throws Exception {
+        index.findImageId(SERVER, "xnat/image:1.0");
+        when(controlApi.getAllImages()).thenReturn(Collections.<DockerImage>emptyList());
+
+        assertThat(index.findImageId("other server", "xnat/image:1.0"), is(nullValue()));
+        verify(controlApi, times(2)).getAllImages();
+    }
+}
@@ -0,0 +1,82 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.model.orchestration.auto.Orchestration;
+import org.nrg.containers.model.orchestration.auto.Orchestration.OrchestrationIdentifier;
+import org.nrg.containers.model.orchestration.entity.OrchestrationEntity;
+import org.nrg.containers.model.orchestration.entity.OrchestrationProjectEntity;
+import org.nrg.containers.services.impl.CommandCatalog;
+import org.nrg.containers.services.impl.OrchestrationIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrchestrationIndexTest {
+    private static final String PROJECT = "project";
+    private static final long ORCHESTRATION_ID = 7L;
+
+    private OrchestrationEntityService orchestrationEntityService;
+    private OrchestrationProjectEntityService orchestrationProjectEntityService;
+    private OrchestrationIndex orchestrationIndex;
+
+    @Before
+    public void setup() {
+        orchestrationEntityService = Mockito.mock(OrchestrationEntityService.class);
+        orchestrationProjectEntityService = Mockito.mock(OrchestrationProjectEntityService.class);
+
+        final OrchestrationEntity orchestrationEntity = new OrchestrationEntity();
+        orchestrationEntity.setId(ORCHESTRATION_ID);
+        final OrchestrationProjectEntity projectEntity = new OrchestrationProjectEntity();
+        projectEntity.setProjectId(PROJECT);
+        projectEntity.setOrchestrationEntity(orchestrationEntity);
+
+        when(orchestrationEntityService.getAllPojos()).thenReturn(Collections.singletonList(
+                new Orchestration(ORCHESTRATION_ID, "orchestration", Arrays.asList(1L, 2L))));
+        when(orchestrationProjectEntityService.getAll()).thenReturn(Collections.singletonList(projectEntity));
+
+        orchestrationIndex = new OrchestrationIndex(orchestrationEntityService, orchestrationProjectEntityService,
+                Mockito.mock(CommandCatalog.class));
+    }
+
+    @Test
+    public void testLookupsAreServedFromMemory() {
+        for (int i = 0; i < 3; i++) {
+            final Orchestration orchestration = orchestrationIndex.findWhereWrapperIsFirst(identifier(1L));
+            assertThat(orchestration.getId(), is(ORCHESTRATION_ID));
+            assertThat(orchestrationIndex.findWhereWrapperIsFirst(identifier(2L)), is(nullValue()));
+        }
+        verify(orchestrationEntityService, times(1)).getAllPojos();
+        verify(orchestrationProjectEntityService, times(1)).getAll();
+    }
+
+    @Test
+    public void testChangesReloadTheIndex() {
+        assertThat(orchestrationIndex.findWhereWrapperIsFirst(identifier(1L)).getId(), is(ORCHESTRATION_ID));
+
+        when(orchestrationProjectEntityService.getAll()).thenReturn(Collections.emptyList());
+        orchestrationIndex.changed();
+
+        assertThat(orchestrationIndex.findWhereWrapperIsFirst(identifier(1L)), is(nullValue()));
+        verify(orchestrationEntityService, times(2)).getAllPojos();
+    }
+
+    @Test
+    public void testNextWrapperStopsAtTheLastStep() throws Exception {
+        assertThat(orchestrationIndex.findNextWrapper(ORCHESTRATION_ID, 1, 2L), is(nullValue()));
+        // Wrapper 1 is not at step 1, so the orchestration has changed since that container launched
+        assertThat(orchestrationIndex.findNextWrapper(ORCHESTRATION_ID, 1, 1L), is(nullValue()));
+    }
+
+    private static OrchestrationIdentifier identifier(final long firstWrapperId) {
+        return new OrchestrationIdentifier(PROJECT, firstWrapperId);
+    }
+}
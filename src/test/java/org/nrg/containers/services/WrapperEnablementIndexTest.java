@@ -0,0 +1,114 @@
+package org.nrg.containers.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.config.entities.Configuration;
+import org.nrg.config.services.ConfigService;
+import org.nrg.containers.config.ObjectMapperConfig;
+import org.nrg.containers.model.configuration.CommandConfigurationInternal;
+import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
+import org.nrg.containers.services.impl.OrchestrationIndex;
+import org.nrg.containers.services.impl.WrapperEnablementIndex;
+import org.nrg.framework.constants.Scope;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.nrg.containers.services.ContainerConfigService.TOOL_ID;
+import static org.nrg.containers.services.ContainerConfigService.WRAPPER_CONFIG_PATH_TEMPLATE;
+
+public class WrapperEnablementIndexTest {
+    private static final long WRAPPER_ID = 12L;
+
+    private final ObjectMapper mapper = new ObjectMapperConfig().objectMapper();
+    private ConfigService configService;
+    private WrapperEnablementIndex wrapperEnablementIndex;
+    private ContainerConfigService containerConfigService;
+
+    @Before
+    public void setup() throws Exception {
+        configService = Mockito.mock(ConfigService.class);
+        final Configuration site = configuration(Scope.Site, null, true);
+        final Configuration enabledProject = configuration(Scope.Project, "enabled", true);
+        final Configuration disabledProject = configuration(Scope.Project, "disabled", false);
+        when(configService.getConfigsByTool(TOOL_ID)).thenReturn(Arrays.asList(site, enabledProject, disabledProject));
+
+        wrapperEnablementIndex = new WrapperEnablementIndex(configService, mapper);
+        containerConfigService = new ContainerConfigServiceImpl(configService, mapper,
+                Mockito.mock(OrchestrationProjectEntityService.class), Mockito.mock(OrchestrationEntityService.class),
+                wrapperEnablementIndex, Mockito.mock(OrchestrationIndex.class));
+    }
+
+    @Test
+    public void testEnablementIsServedFromMemory() {
+        assertThat(containerConfigService.isEnabledForSite(WRAPPER_ID), is(true));
+        assertThat(containerConfigService.isEnabledForProject("enabled", WRAPPER_ID), is(true));
+        assertThat(containerConfigService.isEnabledForProject("disabled", WRAPPER_ID), is(false));
+        assertThat(containerConfigService.isEnabledForProject("unconfigured", WRAPPER_ID), is(false));
+        assertThat(containerConfigService.getProjects(WRAPPER_ID, "enabled"), is(Collections.singletonList("enabled")));
+        assertThat(containerConfigService.getProjects(WRAPPER_ID, "disabled"), is(Collections.singletonList("disabled")));
+
+        verify(configService, times(1)).getConfigsByTool(TOOL_ID);
+        verify(configService, never()).getConfig(anyString(), anyString(), any(Scope.class), any(String.class));
+    }
+
+    @Test
+    public void testWritesUpdateTheIndex() throws Exception {
+        assertThat(containerConfigService.isEnabledForProject("unconfigured", WRAPPER_ID), is(false));
+
+        containerConfigService.enableForProject("unconfigured", WRAPPER_ID, "admin", "test");
+        assertThat(containerConfigService.isEnabledForProject("unconfigured", WRAPPER_ID), is(true));
+
+        containerConfigService.disableForSite(WRAPPER_ID, "admin", "test");
+        assertThat(containerConfigService.isEnabledForSite(WRAPPER_ID), is(false));
+        assertThat(containerConfigService.isEnabledForProject("enabled", WRAPPER_ID), is(false));
+
+        verify(configService, times(1)).getConfigsByTool(TOOL_ID);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOtherNodesAreToldOnceTheWriteCommits() throws Exception {
+        final Consumer<WrapperEnablementIndex.Key> publisher = Mockito.mock(Consumer.class);
+        wrapperEnablementIndex.setInvalidationPublisher(publisher);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            containerConfigService.enableForProject("unconfigured", WRAPPER_ID, "admin", "test");
+            assertThat(containerConfigService.isEnabledForProject("unconfigured", WRAPPER_ID), is(true));
+            verify(publisher, never()).accept(any(WrapperEnablementIndex.Key.class));
+
+            final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            for (final TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCommit();
+            }
+            verify(publisher).accept(any(WrapperEnablementIndex.Key.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Configuration configuration(final Scope scope, final String project, final boolean enabled) throws Exception {
+        final Configuration configuration = Mockito.mock(Configuration.class);
+        when(configuration.getPath()).thenReturn(String.format(WRAPPER_CONFIG_PATH_TEMPLATE, WRAPPER_ID));
+        when(configuration.getScope()).thenReturn(scope);
+        when(configuration.getEntityId()).thenReturn(project);
+        when(configuration.getContents()).thenReturn(mapper.writeValueAsString(
+                CommandConfigurationInternal.builder().enabled(enabled).build()));
+        return configuration;
+    }
+}
@@ -0,0 +1,50 @@
+package org.nrg.containers.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LazyOutputStreamTest {
+    @Test
+    public void blankOutputIsNotWrittenWhenSkipped() throws Exception {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final LazyOutputStream out = new LazyOutputStream(() -> target, true);
+
+        out.write(" \n\t".getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+        out.close();
+
+        assertThat(out.isOpened(), is(false));
+        assertThat(target.size(), is(0));
+    }
+
+    @Test
+    public void leadingBlanksAreKeptOnceSomethingElseIsWritten() throws Exception {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final LazyOutputStream out = new LazyOutputStream(() -> target, true);
+
+        out.write("\n  ".getBytes(StandardCharsets.UTF_8));
+        out.write(" log line\n".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertThat(out.isOpened(), is(true));
+        assertThat(target.toString("UTF-8"), is("\n   log line\n"));
+        assertThat(out.getBytesWritten(), is(13L));
+    }
+
+    @Test
+    public void blankOutputIsWrittenWhenNotSkipped() throws Exception {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final LazyOutputStream out = new LazyOutputStream(() -> target);
+
+        out.write("\n".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertThat(out.isOpened(), is(true));
+        assertThat(target.toString("UTF-8"), is("\n"));
+    }
+}